@@ -38,6 +38,11 @@ public class UploadIT extends AbstractIT {
             return false;
         }
 
+        @Override
+        public void invalidateInternetWalledStatus() {
+            // nothing cached
+        }
+
         @Override
         public boolean isOnlineWithWifi() {
             return true;
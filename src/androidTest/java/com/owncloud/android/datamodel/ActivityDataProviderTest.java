@@ -0,0 +1,110 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.owncloud.android.datamodel;
+
+import com.owncloud.android.lib.resources.activities.model.Activity;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import androidx.test.InstrumentationRegistry;
+import androidx.test.runner.AndroidJUnit4;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(AndroidJUnit4.class)
+public class ActivityDataProviderTest {
+    private static final String ACCOUNT = "activities@test.example.com";
+    private static final String OTHER_ACCOUNT = "other-activities@test.example.com";
+
+    private ActivityDataProvider activityDataProvider;
+
+    @Before
+    public void setUp() {
+        activityDataProvider = new ActivityDataProvider(InstrumentationRegistry.getTargetContext()
+                                                            .getContentResolver());
+        tearDown();
+    }
+
+    @After
+    public void tearDown() {
+        activityDataProvider.deleteActivities(ACCOUNT);
+        activityDataProvider.deleteActivities(OTHER_ACCOUNT);
+    }
+
+    private static Activity activity(int id, String subject) {
+        Activity activity = new Activity();
+        activity.setActivityId(id);
+        activity.setSubject(subject);
+        return activity;
+    }
+
+    private static List<Activity> activities(int firstId, int count) {
+        List<Activity> activities = new ArrayList<>(count);
+        for (int id = firstId; id < firstId + count; id++) {
+            activities.add(activity(id, "subject " + id));
+        }
+        return activities;
+    }
+
+    @Test
+    public void oldestActivitiesAreDropped() {
+        int extra = 100;
+        activityDataProvider.storeActivities(OTHER_ACCOUNT, activities(1, 10));
+        activityDataProvider.storeActivities(ACCOUNT, activities(1, ActivityDataProvider.MAX_STORED_ACTIVITIES));
+        activityDataProvider.storeActivities(ACCOUNT, activities(ActivityDataProvider.MAX_STORED_ACTIVITIES + 1,
+                                                                 extra));
+
+        List<Activity> stored = activityDataProvider.getActivities(ACCOUNT);
+
+        assertEquals(ActivityDataProvider.MAX_STORED_ACTIVITIES, stored.size());
+        // newest first
+        assertEquals(ActivityDataProvider.MAX_STORED_ACTIVITIES + extra, stored.get(0).getActivityId());
+        assertEquals(extra + 1, stored.get(stored.size() - 1).getActivityId());
+        // other accounts keep their activities
+        assertEquals(10, activityDataProvider.getActivities(OTHER_ACCOUNT).size());
+    }
+
+    @Test
+    public void storedActivityIsReplaced() {
+        activityDataProvider.storeActivities(ACCOUNT, activities(1, 3));
+        activityDataProvider.storeActivities(ACCOUNT, Collections.singletonList(activity(2, "changed")));
+
+        List<Activity> stored = activityDataProvider.getActivities(ACCOUNT);
+
+        assertEquals(3, stored.size());
+        assertEquals(2, stored.get(1).getActivityId());
+        assertEquals("changed", stored.get(1).getSubject());
+    }
+
+    @Test
+    public void activitiesOfAccountAreDeleted() {
+        activityDataProvider.storeActivities(ACCOUNT, activities(1, 3));
+
+        assertEquals(3, activityDataProvider.deleteActivities(ACCOUNT));
+        assertEquals(0, activityDataProvider.getActivities(ACCOUNT).size());
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.owncloud.android.datamodel;
+
+import android.accounts.Account;
+import android.content.ContentProviderOperation;
+import android.content.ContentResolver;
+import android.content.ContentValues;
+import android.text.format.DateUtils;
+
+import com.nextcloud.client.account.CurrentAccountProvider;
+import com.owncloud.android.MainApp;
+import com.owncloud.android.db.OCUpload;
+import com.owncloud.android.db.ProviderMeta.ProviderTableMeta;
+import com.owncloud.android.db.UploadResult;
+import com.owncloud.android.files.services.FileUploader;
+import com.owncloud.android.operations.UploadFileOperation;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+
+import androidx.test.InstrumentationRegistry;
+import androidx.test.runner.AndroidJUnit4;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(AndroidJUnit4.class)
+public class UploadsPagingTest {
+    private static final int FINISHED_UPLOADS = 100_000;
+    private static final int FAILED_UPLOADS = 1000;
+    private static final int PAGE_SIZE = 500;
+    private static final int BATCH_SIZE = 1000;
+
+    private ContentResolver contentResolver;
+    private UploadsStorageManager uploadsStorageManager;
+    private Account account;
+    private long now;
+
+    @Before
+    public void setUp() throws Exception {
+        contentResolver = InstrumentationRegistry.getTargetContext().getContentResolver();
+        CurrentAccountProvider currentAccountProvider = () -> null;
+        uploadsStorageManager = new UploadsStorageManager(currentAccountProvider, contentResolver);
+        account = currentAccountProvider.getUser().toPlatformAccount();
+        now = System.currentTimeMillis();
+
+        uploadsStorageManager.removeAccountUploads(account);
+        // two uploads per minute, so that pages have to continue within equal end timestamps
+        insertUploads(FINISHED_UPLOADS, UploadsStorageManager.UploadStatus.UPLOAD_SUCCEEDED, UploadResult.UPLOADED);
+        insertUploads(FAILED_UPLOADS,
+                      UploadsStorageManager.UploadStatus.UPLOAD_FAILED,
+                      UploadResult.NETWORK_CONNECTION);
+    }
+
+    @After
+    public void tearDown() {
+        uploadsStorageManager.removeAccountUploads(account);
+    }
+
+    @Test
+    public void pagesCoverAllFinishedUploadsInOrder() {
+        assertEquals(FINISHED_UPLOADS, uploadsStorageManager.countFinishedUploadsForCurrentAccount());
+        assertEquals(FAILED_UPLOADS, uploadsStorageManager.countFailedButNotDelayedUploadsForCurrentAccount());
+
+        Set<Long> ids = new HashSet<>();
+        OCUpload previous = null;
+
+        while (true) {
+            OCUpload[] page = uploadsStorageManager.getFinishedUploadsForCurrentAccount(previous, PAGE_SIZE);
+
+            if (page.length == 0) {
+                break;
+            }
+            assertTrue(page.length <= PAGE_SIZE);
+
+            for (OCUpload upload : page) {
+                assertTrue("Duplicate upload " + upload.getUploadId(), ids.add(upload.getUploadId()));
+                if (previous != null) {
+                    assertTrue(previous.getUploadEndTimestamp() > upload.getUploadEndTimestamp() ||
+                                   previous.getUploadEndTimestamp() == upload.getUploadEndTimestamp() &&
+                                       previous.getUploadId() < upload.getUploadId());
+                }
+                previous = upload;
+            }
+        }
+
+        assertEquals(FINISHED_UPLOADS, ids.size());
+    }
+
+    @Test
+    public void pruneKeepsNewestFinishedUploads() {
+        OCUpload newest = uploadsStorageManager.getFinishedUploadsForCurrentAccount(null, 1)[0];
+
+        int deleted = uploadsStorageManager.pruneFinishedUploads(0, 5000);
+
+        assertEquals(FINISHED_UPLOADS - 5000, deleted);
+        assertEquals(5000, uploadsStorageManager.countFinishedUploadsForCurrentAccount());
+        assertEquals(newest.getUploadId(),
+                     uploadsStorageManager.getFinishedUploadsForCurrentAccount(null, 1)[0].getUploadId());
+        assertEquals(FAILED_UPLOADS, uploadsStorageManager.countFailedButNotDelayedUploadsForCurrentAccount());
+    }
+
+    @Test
+    public void pruneRemovesOldFinishedUploads() {
+        int maxAgeDays = 30;
+        // end timestamp of upload i is now - i / 2 minutes
+        int kept = (int) (2 * maxAgeDays * DateUtils.DAY_IN_MILLIS / DateUtils.MINUTE_IN_MILLIS);
+
+        int deleted = uploadsStorageManager.pruneFinishedUploads(maxAgeDays * DateUtils.DAY_IN_MILLIS, 0);
+
+        // uploads right at the limit may or may not be removed, depending on the time passed since seeding
+        int remaining = uploadsStorageManager.countFinishedUploadsForCurrentAccount();
+        assertEquals(FINISHED_UPLOADS, deleted + remaining);
+        assertTrue("Kept " + remaining + " uploads", Math.abs(kept - remaining) <= 4);
+        assertEquals(FAILED_UPLOADS, uploadsStorageManager.countFailedButNotDelayedUploadsForCurrentAccount());
+    }
+
+    @Test
+    public void pruneWithoutLimitsKeepsEverything() {
+        assertEquals(0, uploadsStorageManager.pruneFinishedUploads(0, 0));
+        assertEquals(FINISHED_UPLOADS, uploadsStorageManager.countFinishedUploadsForCurrentAccount());
+    }
+
+    private void insertUploads(int count, UploadsStorageManager.UploadStatus status, UploadResult result)
+        throws Exception {
+        ArrayList<ContentProviderOperation> operations = new ArrayList<>(BATCH_SIZE);
+
+        for (int i = 0; i < count; i++) {
+            ContentValues cv = new ContentValues();
+            cv.put(ProviderTableMeta.UPLOADS_LOCAL_PATH, "/local/" + status + i);
+            cv.put(ProviderTableMeta.UPLOADS_REMOTE_PATH, "/remote/" + status + i);
+            cv.put(ProviderTableMeta.UPLOADS_ACCOUNT_NAME, account.name);
+            cv.put(ProviderTableMeta.UPLOADS_FILE_SIZE, 1024);
+            cv.put(ProviderTableMeta.UPLOADS_STATUS, status.value);
+            cv.put(ProviderTableMeta.UPLOADS_LOCAL_BEHAVIOUR, FileUploader.LOCAL_BEHAVIOUR_FORGET);
+            cv.put(ProviderTableMeta.UPLOADS_NAME_COLLISION_POLICY,
+                   FileUploader.NameCollisionPolicy.DEFAULT.serialize());
+            cv.put(ProviderTableMeta.UPLOADS_IS_CREATE_REMOTE_FOLDER, 0);
+            cv.put(ProviderTableMeta.UPLOADS_UPLOAD_END_TIMESTAMP, now - (i / 2) * DateUtils.MINUTE_IN_MILLIS);
+            cv.put(ProviderTableMeta.UPLOADS_LAST_RESULT, result.getValue());
+            cv.put(ProviderTableMeta.UPLOADS_CREATED_BY, UploadFileOperation.CREATED_BY_USER);
+            cv.put(ProviderTableMeta.UPLOADS_IS_WHILE_CHARGING_ONLY, 0);
+            cv.put(ProviderTableMeta.UPLOADS_IS_WIFI_ONLY, 0);
+            operations.add(ContentProviderOperation.newInsert(ProviderTableMeta.CONTENT_URI_UPLOADS)
+                               .withValues(cv)
+                               .build());
+
+            if (operations.size() == BATCH_SIZE) {
+                contentResolver.applyBatch(MainApp.getAuthority(), operations);
+                operations.clear();
+            }
+        }
+
+        if (!operations.isEmpty()) {
+            contentResolver.applyBatch(MainApp.getAuthority(), operations);
+        }
+    }
+}
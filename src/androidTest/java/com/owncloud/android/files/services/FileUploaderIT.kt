@@ -49,6 +49,10 @@ class FileUploaderIT : AbstractIT() {
             return false
         }
 
+        override fun invalidateInternetWalledStatus() {
+            // nothing cached
+        }
+
         override fun isOnlineWithWifi(): Boolean {
             return true
         }
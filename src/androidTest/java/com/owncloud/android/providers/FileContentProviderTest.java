@@ -0,0 +1,190 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.owncloud.android.providers;
+
+import android.content.ContentProviderOperation;
+import android.content.ContentResolver;
+import android.content.ContentUris;
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.net.Uri;
+
+import com.owncloud.android.MainApp;
+import com.owncloud.android.datamodel.FileDataStorageManager;
+import com.owncloud.android.db.ProviderMeta.ProviderTableMeta;
+import com.owncloud.android.utils.MimeType;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+
+import androidx.test.InstrumentationRegistry;
+import androidx.test.runner.AndroidJUnit4;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(AndroidJUnit4.class)
+public class FileContentProviderTest {
+    private static final String ACCOUNT = "deleteTest@nextcloud.localhost";
+    private static final String OTHER_ACCOUNT = "otherDeleteTest@nextcloud.localhost";
+
+    private static final int FOLDERS = 10;
+    private static final int SUB_FOLDERS = 10;
+    private static final int FILES = 98;
+    private static final int STORED_FILES = 50_000;
+
+    private ContentResolver contentResolver;
+
+    @Before
+    public void setUp() {
+        contentResolver = InstrumentationRegistry.getTargetContext().getContentResolver();
+        clean();
+    }
+
+    @After
+    public void tearDown() {
+        clean();
+    }
+
+    @Test
+    public void deleteBigFolderTree() throws Exception {
+        long folderId = insertTree(ACCOUNT, "/delete_me/");
+        // would match "/delete_me/%" if '_' was not escaped
+        insertTree(ACCOUNT, "/deleteXme/");
+        insertTree(OTHER_ACCOUNT, "/delete_me/");
+        int expectedRows = 1 + FOLDERS + FOLDERS * SUB_FOLDERS + FOLDERS * SUB_FOLDERS * FILES;
+        assertTrue(expectedRows >= 10000);
+
+        int deleted = contentResolver.delete(ContentUris.withAppendedId(ProviderTableMeta.CONTENT_URI_DIR, folderId),
+                                             null,
+                                             null);
+
+        assertEquals(expectedRows, deleted);
+        assertEquals(0, countRows(ACCOUNT, "/delete\\_me/%"));
+        assertEquals(expectedRows, countRows(ACCOUNT, "/deleteXme/%"));
+        assertEquals(expectedRows, countRows(OTHER_ACCOUNT, "/delete\\_me/%"));
+    }
+
+    @Test
+    public void migrateStoragePathOfManyFiles() throws Exception {
+        // neither a regular expression nor a LIKE pattern must be interpreted
+        String oldPrefix = "/storage/old_sd+card (1)";
+        String newPrefix = "/storage/new";
+
+        ArrayList<ContentProviderOperation> operations = new ArrayList<>(STORED_FILES);
+        for (int i = 0; i < STORED_FILES; i++) {
+            ContentValues cv = createValues(ACCOUNT, "/migrate/file" + i + ".txt", 0, false);
+            cv.put(ProviderTableMeta.FILE_STORAGE_PATH, oldPrefix + "/nextcloud/file" + i + ".txt");
+            operations.add(ContentProviderOperation.newInsert(ProviderTableMeta.CONTENT_URI_FILE)
+                               .withValues(cv)
+                               .build());
+        }
+        ContentValues other = createValues(ACCOUNT, "/migrate/other.txt", 0, false);
+        other.put(ProviderTableMeta.FILE_STORAGE_PATH, "/storage/oldXsd+card (1)/nextcloud/other.txt");
+        operations.add(ContentProviderOperation.newInsert(ProviderTableMeta.CONTENT_URI_FILE)
+                           .withValues(other)
+                           .build());
+        contentResolver.applyBatch(MainApp.getAuthority(), operations);
+
+        new FileDataStorageManager(null, contentResolver).migrateStoredFiles(oldPrefix, newPrefix);
+
+        assertEquals(STORED_FILES, countStoragePaths(newPrefix + "/nextcloud/file%"));
+        assertEquals(0, countStoragePaths("/storage/old\\_sd+card (1)/%"));
+        assertEquals(1, countStoragePaths("/storage/oldXsd+card (1)/nextcloud/other.txt"));
+    }
+
+    private int countStoragePaths(String pattern) {
+        Cursor c = contentResolver.query(ProviderTableMeta.CONTENT_URI,
+                                         new String[]{ProviderTableMeta._ID},
+                                         ProviderTableMeta.FILE_ACCOUNT_OWNER + "=? AND " +
+                                             ProviderTableMeta.FILE_STORAGE_PATH + " LIKE ? ESCAPE '\\'",
+                                         new String[]{ACCOUNT, pattern},
+                                         null);
+        int count = c.getCount();
+        c.close();
+        return count;
+    }
+
+    private long insertTree(String accountName, String rootPath) throws Exception {
+        long rootId = insert(accountName, rootPath, 0, true);
+
+        for (int i = 0; i < FOLDERS; i++) {
+            String folderPath = rootPath + "folder" + i + "/";
+            long folderId = insert(accountName, folderPath, rootId, true);
+
+            for (int j = 0; j < SUB_FOLDERS; j++) {
+                String subFolderPath = folderPath + "sub" + j + "/";
+                long subFolderId = insert(accountName, subFolderPath, folderId, true);
+
+                ArrayList<ContentProviderOperation> operations = new ArrayList<>(FILES);
+                for (int k = 0; k < FILES; k++) {
+                    operations.add(ContentProviderOperation.newInsert(ProviderTableMeta.CONTENT_URI)
+                                       .withValues(createValues(accountName,
+                                                                subFolderPath + "file" + k + ".txt",
+                                                                subFolderId,
+                                                                false))
+                                       .build());
+                }
+                contentResolver.applyBatch(MainApp.getAuthority(), operations);
+            }
+        }
+
+        return rootId;
+    }
+
+    private long insert(String accountName, String path, long parentId, boolean folder) {
+        Uri uri = contentResolver.insert(ProviderTableMeta.CONTENT_URI_FILE,
+                                         createValues(accountName, path, parentId, folder));
+        return ContentUris.parseId(uri);
+    }
+
+    private ContentValues createValues(String accountName, String path, long parentId, boolean folder) {
+        ContentValues cv = new ContentValues();
+        cv.put(ProviderTableMeta.FILE_ACCOUNT_OWNER, accountName);
+        cv.put(ProviderTableMeta.FILE_PATH, path);
+        cv.put(ProviderTableMeta.FILE_PARENT, parentId);
+        cv.put(ProviderTableMeta.FILE_NAME, path);
+        cv.put(ProviderTableMeta.FILE_REMOTE_ID, path);
+        cv.put(ProviderTableMeta.FILE_CONTENT_TYPE, folder ? MimeType.DIRECTORY : "text/plain");
+        return cv;
+    }
+
+    private int countRows(String accountName, String pathPattern) {
+        Cursor c = contentResolver.query(ProviderTableMeta.CONTENT_URI,
+                                         new String[]{ProviderTableMeta._ID},
+                                         ProviderTableMeta.FILE_ACCOUNT_OWNER + "=? AND " +
+                                             ProviderTableMeta.FILE_PATH + " LIKE ? ESCAPE '\\'",
+                                         new String[]{accountName, pathPattern},
+                                         null);
+        int count = c.getCount();
+        c.close();
+        return count;
+    }
+
+    private void clean() {
+        String where = ProviderTableMeta.FILE_ACCOUNT_OWNER + "=?";
+        contentResolver.delete(ProviderTableMeta.CONTENT_URI, where, new String[]{ACCOUNT});
+        contentResolver.delete(ProviderTableMeta.CONTENT_URI, where, new String[]{OTHER_ACCOUNT});
+    }
+}
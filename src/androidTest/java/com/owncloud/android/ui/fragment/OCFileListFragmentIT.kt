@@ -71,6 +71,10 @@ class OCFileListFragmentIT : AbstractIT() {
             return false
         }
 
+        override fun invalidateInternetWalledStatus() {
+            // nothing cached
+        }
+
         override fun isOnlineWithWifi(): Boolean {
             return true
         }
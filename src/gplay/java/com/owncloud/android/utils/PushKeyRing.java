@@ -0,0 +1,125 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.owncloud.android.utils;
+
+import android.accounts.Account;
+import android.text.TextUtils;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.owncloud.android.datamodel.ArbitraryDataProvider;
+import com.owncloud.android.datamodel.PushConfigurationState;
+import com.owncloud.android.lib.common.utils.Log_OC;
+
+import java.security.Key;
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Parsed keys needed for incoming push messages: the device key pair and the public key of the push registration of
+ * each account.
+ *
+ * Keys are read on first use and kept until {@link #invalidate()} is called, which {@link PushUtils} does whenever the
+ * key files or the push registrations change.
+ */
+final class PushKeyRing {
+    private static final String TAG = PushKeyRing.class.getSimpleName();
+
+    private final Gson gson = new Gson();
+
+    private Key devicePublicKey;
+    private Key devicePrivateKey;
+
+    // account name -> public key of its push registration; null if the account has no usable registration
+    private final Map<String, PublicKey> accountKeys = new HashMap<>();
+
+    private String lastMatchedAccountName;
+
+    synchronized Key getDeviceKey(boolean publicKey) {
+        if (publicKey) {
+            if (devicePublicKey == null) {
+                devicePublicKey = PushUtils.readKeyFile(true);
+            }
+            return devicePublicKey;
+        } else {
+            if (devicePrivateKey == null) {
+                devicePrivateKey = PushUtils.readKeyFile(false);
+            }
+            return devicePrivateKey;
+        }
+    }
+
+    /**
+     * @return public key of the push registration of the account, null if there is none or it is about to be deleted
+     */
+    @Nullable
+    synchronized PublicKey getAccountKey(Account account, ArbitraryDataProvider arbitraryDataProvider) {
+        if (accountKeys.containsKey(account.name)) {
+            return accountKeys.get(account.name);
+        }
+
+        PublicKey publicKey = null;
+        String arbitraryValue = arbitraryDataProvider.getValue(account, PushUtils.KEY_PUSH);
+        if (!TextUtils.isEmpty(arbitraryValue)) {
+            try {
+                PushConfigurationState pushArbitraryData = gson.fromJson(arbitraryValue,
+                                                                         PushConfigurationState.class);
+                if (!pushArbitraryData.isShouldBeDeleted()) {
+                    publicKey = (PublicKey) PushUtils.readKeyFromString(true, pushArbitraryData.getUserPublicKey());
+                }
+            } catch (JsonSyntaxException e) {
+                Log_OC.e(TAG, "Invalid push configuration of " + account.name, e);
+            }
+        }
+
+        accountKeys.put(account.name, publicKey);
+        return publicKey;
+    }
+
+    /**
+     * @return the given accounts, the one that matched the last push message first
+     */
+    synchronized List<Account> inVerificationOrder(Account... accounts) {
+        List<Account> ordered = new ArrayList<>(Arrays.asList(accounts));
+        for (int i = 1; i < ordered.size(); i++) {
+            if (ordered.get(i).name.equals(lastMatchedAccountName)) {
+                ordered.add(0, ordered.remove(i));
+                break;
+            }
+        }
+        return ordered;
+    }
+
+    synchronized void setLastMatchedAccount(Account account) {
+        lastMatchedAccountName = account.name;
+    }
+
+    synchronized void invalidate() {
+        devicePublicKey = null;
+        devicePrivateKey = null;
+        accountKeys.clear();
+    }
+}
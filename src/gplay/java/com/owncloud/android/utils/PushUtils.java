@@ -85,6 +85,7 @@ public final class PushUtils {
     private static final String KEYPAIR_PRIV_EXTENSION = ".priv";
     private static final String KEYPAIR_PUB_EXTENSION = ".pub";
     private static ArbitraryDataProvider arbitraryDataProvider;
+    private static final PushKeyRing keyRing = new PushKeyRing();
 
     private PushUtils() {
     }
@@ -179,6 +180,7 @@ public final class PushUtils {
 
                     if (unregisterResult.isSuccess()) {
                         arbitraryDataProvider.deleteKeyForAccount(account.name, KEY_PUSH);
+                        keyRing.invalidate();
                     }
                 }
             }
@@ -196,6 +198,9 @@ public final class PushUtils {
     public static void pushRegistrationToServer(final UserAccountManager accountManager, final String token) {
         arbitraryDataProvider = new ArbitraryDataProvider(MainApp.getAppContext().getContentResolver());
 
+        // registrations may have been marked for deletion, and the key files migrated or generated
+        keyRing.invalidate();
+
         if (!TextUtils.isEmpty(MainApp.getAppContext().getResources().getString(R.string.push_server_url)) &&
                 !TextUtils.isEmpty(token)) {
             PushUtils.generateRsa2048KeyPair();
@@ -251,6 +256,7 @@ public final class PushUtils {
                                             pushResponse.getPublicKey(), false);
                                     arbitraryDataProvider.storeOrUpdateKeyValue(account.name, KEY_PUSH,
                                             gson.toJson(pushArbitraryData));
+                                    keyRing.invalidate();
                                 }
                             } else if (remoteOperationResult.getCode() ==
                                     RemoteOperationResult.ResultCode.ACCOUNT_USES_STANDARD_PASSWORD) {
@@ -274,7 +280,14 @@ public final class PushUtils {
         }
     }
 
+    /**
+     * Keys are read from file once and kept until they are regenerated or a push registration changes.
+     */
     public static Key readKeyFromFile(boolean readPublicKey) {
+        return keyRing.getDeviceKey(readPublicKey);
+    }
+
+    static Key readKeyFile(boolean readPublicKey) {
         String keyPath = MainApp.getAppContext().getFilesDir().getAbsolutePath() + File.separator +
                 MainApp.getDataFolder() + File.separator + KEYPAIR_FOLDER;
 
@@ -368,6 +381,7 @@ public final class PushUtils {
 
         FileUtils.deleteQuietly(privateKeyFile);
         FileUtils.deleteQuietly(publicKeyFile);
+        keyRing.invalidate();
 
         AppPreferences preferences = AppPreferencesImpl.fromContext(context);
         String pushToken = preferences.getPushToken();
@@ -421,26 +435,19 @@ public final class PushUtils {
         Account[] accounts = accountManager.getAccounts();
 
         ArbitraryDataProvider arbitraryDataProvider = new ArbitraryDataProvider(context.getContentResolver());
-        String arbitraryValue;
-        Gson gson = new Gson();
-        PushConfigurationState pushArbitraryData;
 
         try {
             signature = Signature.getInstance("SHA512withRSA");
-            if (accounts.length > 0) {
-                for (Account account : accounts) {
-                    if (!TextUtils.isEmpty(arbitraryValue = arbitraryDataProvider.getValue(account, KEY_PUSH))) {
-                        pushArbitraryData = gson.fromJson(arbitraryValue, PushConfigurationState.class);
-                        if (!pushArbitraryData.isShouldBeDeleted()) {
-                            publicKey = (PublicKey) readKeyFromString(true, pushArbitraryData.getUserPublicKey());
-                            signature.initVerify(publicKey);
-                            signature.update(subjectBytes);
-                            if (signature.verify(signatureBytes)) {
-                                signatureVerification.setSignatureValid(true);
-                                signatureVerification.setAccount(account);
-                                return signatureVerification;
-                            }
-                        }
+            for (Account account : keyRing.inVerificationOrder(accounts)) {
+                publicKey = keyRing.getAccountKey(account, arbitraryDataProvider);
+                if (publicKey != null) {
+                    signature.initVerify(publicKey);
+                    signature.update(subjectBytes);
+                    if (signature.verify(signatureBytes)) {
+                        keyRing.setLastMatchedAccount(account);
+                        signatureVerification.setSignatureValid(true);
+                        signatureVerification.setAccount(account);
+                        return signatureVerification;
                     }
                 }
             }
@@ -455,7 +462,7 @@ public final class PushUtils {
         return signatureVerification;
     }
 
-    private static Key readKeyFromString(boolean readPublicKey, String keyString) {
+    static Key readKeyFromString(boolean readPublicKey, String keyString) {
         String modifiedKey;
         if (readPublicKey) {
             modifiedKey = keyString.replaceAll("\\n", "").replace("-----BEGIN PUBLIC KEY-----",
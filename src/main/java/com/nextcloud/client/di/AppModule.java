@@ -48,6 +48,7 @@ import com.nextcloud.client.migrations.MigrationsDb;
 import com.nextcloud.client.migrations.MigrationsManager;
 import com.nextcloud.client.migrations.MigrationsManagerImpl;
 import com.nextcloud.client.network.ClientFactory;
+import com.owncloud.android.datamodel.ActivityDataProvider;
 import com.owncloud.android.datamodel.ArbitraryDataProvider;
 import com.owncloud.android.datamodel.UploadsStorageManager;
 import com.owncloud.android.ui.activities.data.activities.ActivitiesRepository;
@@ -105,8 +106,14 @@ class AppModule {
     }
 
     @Provides
-    ActivitiesServiceApi activitiesServiceApi(UserAccountManager accountManager) {
-        return new ActivitiesServiceApiImpl(accountManager);
+    ActivityDataProvider activityDataProvider(ContentResolver contentResolver) {
+        return new ActivityDataProvider(contentResolver);
+    }
+
+    @Provides
+    ActivitiesServiceApi activitiesServiceApi(UserAccountManager accountManager,
+                                              ActivityDataProvider activityDataProvider) {
+        return new ActivitiesServiceApiImpl(accountManager, activityDataProvider);
     }
 
     @Provides
@@ -120,6 +127,7 @@ class AppModule {
     }
 
     @Provides
+    @Singleton
     UploadsStorageManager uploadsStorageManager(Context context,
                                                 CurrentAccountProvider currentAccountProvider) {
         return new UploadsStorageManager(currentAccountProvider, context.getContentResolver());
@@ -0,0 +1,181 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.nextcloud.client.jobs
+
+import android.content.ContentResolver
+import android.net.Uri
+import android.provider.ContactsContract
+import com.owncloud.android.lib.common.utils.Log_OC
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileOutputStream
+import java.io.IOException
+
+/**
+ * Versions of all raw contacts at the last successful backup, stored in a file. The contacts provider increments the
+ * version of a raw contact on every change, so equal tables mean that no contact was added, changed or deleted.
+ *
+ * Versions of a backup are stored as pending while it is uploaded, and become the versions of the last backup by
+ * [commitPending] once the upload is known to have succeeded.
+ */
+internal class ContactVersionTable(private val file: File) {
+
+    companion object {
+        private val TAG = ContactVersionTable::class.java.simpleName
+        private const val FOLDER = "contacts_backup"
+
+        /**
+         * @return table of the account, stored in the app files directory
+         */
+        @JvmStatic
+        fun forAccount(filesDir: File, accountName: String): ContactVersionTable {
+            val fileName = Uri.encode(accountName, "@") + ".versions"
+            return ContactVersionTable(File(File(filesDir, FOLDER), fileName))
+        }
+
+        /**
+         * @return raw contact id to version of all current contacts, null if the contacts cannot be queried
+         */
+        fun query(contentResolver: ContentResolver): Map<Long, Long>? {
+            val cursor = contentResolver.query(
+                ContactsContract.RawContacts.CONTENT_URI,
+                arrayOf(ContactsContract.RawContacts._ID, ContactsContract.RawContacts.VERSION),
+                ContactsContract.RawContacts.DELETED + " = 0",
+                null,
+                null
+            ) ?: return null
+
+            return cursor.use {
+                val versions = HashMap<Long, Long>(it.count)
+                while (it.moveToNext()) {
+                    versions[it.getLong(0)] = it.getLong(1)
+                }
+                versions
+            }
+        }
+    }
+
+    private val pendingFile = File(file.path + ".pending")
+
+    /**
+     * @return versions of the last successful backup, null if none are stored
+     */
+    fun read(): Map<Long, Long>? {
+        if (!file.exists()) {
+            return null
+        }
+
+        return try {
+            DataInputStream(BufferedInputStream(FileInputStream(file))).use { input ->
+                input.readUTF() // remote path of the backup
+                readVersions(input)
+            }
+        } catch (e: IOException) {
+            Log_OC.e(TAG, "Could not read contact versions", e)
+            null
+        }
+    }
+
+    /**
+     * @return true if the versions differ from those of the last successful backup
+     */
+    fun isBackupNeeded(versions: Map<Long, Long>?): Boolean = versions == null || versions != read()
+
+    fun write(versions: Map<Long, Long>) {
+        write(file, "", versions)
+    }
+
+    /**
+     * Stores the versions of a backup whose upload was requested.
+     */
+    fun writePending(remotePath: String, versions: Map<Long, Long>) {
+        write(pendingFile, remotePath, versions)
+    }
+
+    /**
+     * Makes the pending versions those of the last successful backup if their backup was uploaded, otherwise drops
+     * them, so that the next run backs up again.
+     *
+     * @param isUploaded tells if the backup with the given remote path is on the server
+     */
+    fun commitPending(isUploaded: (String) -> Boolean) {
+        if (!pendingFile.exists()) {
+            return
+        }
+
+        val remotePath = try {
+            DataInputStream(BufferedInputStream(FileInputStream(pendingFile))).use { it.readUTF() }
+        } catch (e: IOException) {
+            Log_OC.e(TAG, "Could not read pending contact versions", e)
+            null
+        }
+
+        if (remotePath != null && isUploaded(remotePath)) {
+            file.delete()
+            if (pendingFile.renameTo(file)) {
+                return
+            }
+            Log_OC.w(TAG, "Could not store contact versions of " + remotePath)
+        }
+        pendingFile.delete()
+    }
+
+    fun delete() {
+        file.delete()
+        pendingFile.delete()
+    }
+
+    /**
+     * Both files start with the remote path of their backup, so that a pending file becomes the table by renaming.
+     */
+    private fun write(target: File, remotePath: String, versions: Map<Long, Long>) {
+        val parent = target.parentFile
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            Log_OC.w(TAG, "Could not create " + parent.absolutePath)
+            return
+        }
+
+        try {
+            DataOutputStream(BufferedOutputStream(FileOutputStream(target))).use { output ->
+                output.writeUTF(remotePath)
+                output.writeInt(versions.size)
+                for ((id, version) in versions) {
+                    output.writeLong(id)
+                    output.writeLong(version)
+                }
+            }
+        } catch (e: IOException) {
+            Log_OC.e(TAG, "Could not write contact versions", e)
+            target.delete()
+        }
+    }
+
+    private fun readVersions(input: DataInputStream): Map<Long, Long> {
+        val count = input.readInt()
+        val versions = HashMap<Long, Long>(count)
+        repeat(count) {
+            versions[input.readLong()] = input.readLong()
+        }
+        return versions
+    }
+}
@@ -25,7 +25,6 @@ import android.content.Context
 import android.content.Intent
 import android.content.ServiceConnection
 import android.content.res.Resources
-import android.database.Cursor
 import android.net.Uri
 import android.os.IBinder
 import android.provider.ContactsContract
@@ -45,14 +44,10 @@ import com.owncloud.android.operations.UploadFileOperation
 import com.owncloud.android.services.OperationsService
 import com.owncloud.android.services.OperationsService.OperationsServiceBinder
 import com.owncloud.android.ui.activity.ContactsPreferenceActivity
-import ezvcard.Ezvcard
-import ezvcard.VCardVersion
+import java.io.BufferedOutputStream
 import java.io.File
-import java.io.FileWriter
+import java.io.FileOutputStream
 import java.io.IOException
-import java.io.InputStream
-import java.io.InputStreamReader
-import java.util.ArrayList
 import java.util.Calendar
 
 class ContactsBackupWork(
@@ -69,7 +64,6 @@ class ContactsBackupWork(
         const val ACCOUNT = "account"
         const val FORCE = "force"
         const val JOB_INTERVAL_MS: Long = 24 * 60 * 60 * 1000
-        const val BUFFER_SIZE = 1024
     }
 
     private var operationsServiceConnection: OperationsServiceConnection? = null
@@ -90,10 +84,24 @@ class ContactsBackupWork(
             ContactsPreferenceActivity.PREFERENCE_CONTACTS_LAST_BACKUP)
         val force = inputData.getBoolean(FORCE, false)
         if (force || lastExecution + JOB_INTERVAL_MS < Calendar.getInstance().timeInMillis) {
+            val versionTable = ContactVersionTable.forAccount(applicationContext.filesDir, user.accountName)
+            val storageManager = FileDataStorageManager(user.toPlatformAccount(), contentResolver)
+            versionTable.commitPending { remotePath -> storageManager.getFileByPath(remotePath) != null }
+            val versions = ContactVersionTable.query(contentResolver)
+            if (!force && !versionTable.isBackupNeeded(versions)) {
+                // no new backup, so old ones must not expire either
+                Log_OC.d(TAG, "no contact changed since last backup")
+                return Result.success()
+            }
+
             Log_OC.d(TAG, "start contacts backup job")
             val backupFolder: String = resources.getString(R.string.contacts_backup_folder) + OCFile.PATH_SEPARATOR
             val daysToExpire: Int = applicationContext.getResources().getInteger(R.integer.contacts_backup_expire)
-            backupContact(user, backupFolder)
+            val remotePath = backupContact(user, backupFolder)
+            if (remotePath != null && versions != null) {
+                // committed by the next run, once the upload succeeded
+                versionTable.writePending(remotePath, versions)
+            }
             // bind to Operations Service
             operationsServiceConnection = OperationsServiceConnection(
                 this,
@@ -118,38 +126,37 @@ class ContactsBackupWork(
         return Result.success()
     }
 
-    private fun backupContact(user: User, backupFolder: String) {
-        val vCard = ArrayList<String>()
-        val cursor = contentResolver.query(ContactsContract.Contacts.CONTENT_URI, null,
-            null, null, null)
-        if (cursor != null && cursor.count > 0) {
-            cursor.moveToFirst()
-            for (i in 0 until cursor.count) {
-                vCard.add(getContactFromCursor(cursor))
-                cursor.moveToNext()
-            }
-        }
+    /**
+     * @return remote path of the backup if it was written and its upload requested, null otherwise
+     */
+    private fun backupContact(user: User, backupFolder: String): String? {
         val filename = DateFormat.format("yyyy-MM-dd_HH-mm-ss", Calendar.getInstance()).toString() + ".vcf"
         Log_OC.d(TAG, "Storing: $filename")
         val file = File(applicationContext.getCacheDir(), filename)
-        var fw: FileWriter? = null
+        val writer = ContactsBackupWriter { lookupKey ->
+            val uri = Uri.withAppendedPath(ContactsContract.Contacts.CONTENT_VCARD_URI, lookupKey)
+            contentResolver.openInputStream(uri)
+        }
         try {
-            fw = FileWriter(file)
-            for (card in vCard) {
-                fw.write(card)
+            val cursor = contentResolver.query(
+                ContactsContract.Contacts.CONTENT_URI,
+                arrayOf(ContactsContract.Contacts.LOOKUP_KEY),
+                null,
+                null,
+                null
+            )
+            cursor?.use {
+                FileOutputStream(file).use { output -> writer.write(it, BufferedOutputStream(output)) }
             }
         } catch (e: IOException) {
-            Log_OC.d(TAG, "Error ", e)
-        } finally {
-            cursor?.close()
-            if (fw != null) {
-                try {
-                    fw.close()
-                } catch (e: IOException) {
-                    Log_OC.d(TAG, "Error closing file writer ", e)
-                }
-            }
+            Log_OC.e(TAG, "Error writing contacts backup", e)
+            file.delete()
+            return null
         }
+        if (!file.exists()) {
+            return null
+        }
+
         FileUploader.uploadNewFile(
             applicationContext,
             user.toPlatformAccount(),
@@ -163,6 +170,7 @@ class ContactsBackupWork(
             false,
             FileUploader.NameCollisionPolicy.ASK_USER
         )
+        return backupFolder + filename
     }
 
     private fun expireFiles(daysToExpire: Int, backupFolderString: String, account: User) { // -1 disables expiration
@@ -195,44 +203,6 @@ class ContactsBackupWork(
         }
     }
 
-    @Suppress("NestedBlockDepth")
-    private fun getContactFromCursor(cursor: Cursor): String {
-        val lookupKey = cursor.getString(cursor.getColumnIndex(ContactsContract.Contacts.LOOKUP_KEY))
-        val uri = Uri.withAppendedPath(ContactsContract.Contacts.CONTENT_VCARD_URI, lookupKey)
-        var vCard = ""
-        var inputStream: InputStream? = null
-        var inputStreamReader: InputStreamReader? = null
-        try {
-            inputStream = applicationContext.getContentResolver().openInputStream(uri)
-            val buffer = CharArray(BUFFER_SIZE)
-            val stringBuilder = StringBuilder()
-            if (inputStream != null) {
-                inputStreamReader = InputStreamReader(inputStream)
-                while (true) {
-                    val byteCount = inputStreamReader.read(buffer, 0, buffer.size)
-                    if (byteCount > 0) {
-                        stringBuilder.append(buffer, 0, byteCount)
-                    } else {
-                        break
-                    }
-                }
-            }
-            vCard = stringBuilder.toString()
-            // bump to vCard 3.0 format (min version supported by server) since Android OS exports to 2.1
-            return Ezvcard.write(Ezvcard.parse(vCard).all()).version(VCardVersion.V3_0).go()
-        } catch (e: IOException) {
-            Log_OC.d(TAG, e.message)
-        } finally {
-            try {
-                inputStream?.close()
-                inputStreamReader?.close()
-            } catch (e: IOException) {
-                Log_OC.e(TAG, "failed to close stream")
-            }
-        }
-        return vCard
-    }
-
     /**
      * Implements callback methods for service binding.
      */
@@ -0,0 +1,74 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.nextcloud.client.jobs
+
+import android.database.Cursor
+import android.provider.ContactsContract
+import com.owncloud.android.lib.common.utils.Log_OC
+import ezvcard.Ezvcard
+import ezvcard.VCard
+import ezvcard.VCardVersion
+import ezvcard.io.text.VCardWriter
+import java.io.IOException
+import java.io.InputStream
+import java.io.OutputStream
+import java.io.OutputStreamWriter
+
+/**
+ * Writes the contacts of a [ContactsContract.Contacts] cursor as one vCard file.
+ *
+ * Android exports vCard 2.1, the contacts are bumped to vCard 3.0, the minimal version supported by the server.
+ * Each contact is parsed from its export stream and written right away, so only one contact is held in memory.
+ *
+ * @param openVCard opens the vCard export of the contact with the given lookup key
+ */
+internal class ContactsBackupWriter(private val openVCard: (lookupKey: String) -> InputStream?) {
+
+    companion object {
+        private val TAG = ContactsBackupWriter::class.java.simpleName
+    }
+
+    /**
+     * Writes all contacts of the cursor. The output stream is flushed, but not closed.
+     *
+     * @return number of written vCards
+     */
+    @Throws(IOException::class)
+    fun write(cursor: Cursor, output: OutputStream): Int {
+        val lookupKeyColumn = cursor.getColumnIndex(ContactsContract.Contacts.LOOKUP_KEY)
+        val writer = VCardWriter(OutputStreamWriter(output, Charsets.UTF_8), VCardVersion.V3_0)
+        var count = 0
+        while (cursor.moveToNext()) {
+            val lookupKey = cursor.getString(lookupKeyColumn) ?: continue
+            val vCards = try {
+                openVCard(lookupKey)?.use { Ezvcard.parse(it).all() } ?: emptyList()
+            } catch (e: IOException) {
+                // an unreadable contact must not prevent the backup of the others
+                Log_OC.e(TAG, "Skipping contact $lookupKey", e)
+                emptyList<VCard>()
+            }
+            for (vCard in vCards) {
+                writer.write(vCard)
+                count++
+            }
+        }
+        writer.flush()
+        return count
+    }
+}
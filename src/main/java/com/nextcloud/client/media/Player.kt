@@ -39,6 +39,7 @@ internal class Player(
     private val context: Context,
     private val listener: Listener? = null,
     audioManager: AudioManager,
+    private val urlCache: StreamUrlCache,
     private val mediaPlayerCreator: () -> MediaPlayer = { MediaPlayer() }
 ) : MediaController.MediaPlayerControl {
 
@@ -61,6 +62,14 @@ internal class Player(
 
     private var enqueuedFile: PlaylistItem? = null
 
+    /**
+     * Items to be played after the current one, next item first.
+     */
+    private var upcoming: List<PlaylistItem> = emptyList()
+    private var nextMediaPlayer: MediaPlayer? = null
+    private var nextPrepared = false
+    private var nextLoadUrlTask: LoadUrlTask? = null
+
     private var playedFile: OCFile? = null
     private var startPositionMs: Int = 0
     private var autoPlay = true
@@ -71,9 +80,11 @@ internal class Player(
     private val focusManager = AudioFocusManager(audioManager, this::onAudioFocusChange)
 
     private val delegate = object : PlayerStateMachine.Delegate {
-        override val isDownloaded: Boolean get() = playedFile?.isDown ?: false
+        // a cached stream URL is as good as a downloaded file
+        override val isDownloaded: Boolean get() = dataSource != null
         override val isAutoplayEnabled: Boolean get() = autoPlay
         override val hasEnqueuedFile: Boolean get() = enqueuedFile != null
+        override val isNextPrepared: Boolean get() = nextPrepared
 
         override fun onStartRunning() {
             trace("onStartRunning()")
@@ -83,7 +94,7 @@ internal class Player(
                     startPositionMs = it.startPositionMs
                     autoPlay = it.autoPlay
                     account = it.account
-                    dataSource = if (it.file.isDown) it.file.storagePath else null
+                    dataSource = findDataSource(it)
                     listener?.onRunning(it.file)
                 } else {
                     throw IllegalStateException("Player started without enqueued file.")
@@ -95,7 +106,7 @@ internal class Player(
             trace("onStartDownloading()")
             checkNotNull(playedFile) { "File not set." }
             playedFile?.let {
-                val client = buildClient()
+                val client = buildClient(checkNotNull(account) { "Account not set" })
                 val task = LoadUrlTask(client, it.remoteId, this@Player::onDownloaded)
                 task.execute()
                 loadUrlTask = task
@@ -104,16 +115,7 @@ internal class Player(
 
         override fun onPrepare() {
             trace("onPrepare()")
-            mediaPlayer = mediaPlayerCreator.invoke()
-            mediaPlayer?.setOnErrorListener(this@Player::onMediaPlayerError)
-            mediaPlayer?.setOnPreparedListener(this@Player::onMediaPlayerPrepared)
-            mediaPlayer?.setOnCompletionListener(this@Player::onMediaPlayerCompleted)
-            mediaPlayer?.setOnBufferingUpdateListener(this@Player::onMediaPlayerBufferingUpdate)
-            mediaPlayer?.setWakeMode(context, PowerManager.PARTIAL_WAKE_LOCK)
-            mediaPlayer?.setDataSource(dataSource)
-            mediaPlayer?.setAudioStreamType(AudioManager.STREAM_MUSIC)
-            mediaPlayer?.setVolume(DEFAULT_VOLUME, DEFAULT_VOLUME)
-            mediaPlayer?.prepareAsync()
+            mediaPlayer = createMediaPlayer(checkNotNull(dataSource) { "Data source not set." })
         }
 
         override fun onStopped() {
@@ -122,6 +124,7 @@ internal class Player(
             mediaPlayer?.reset()
             mediaPlayer?.release()
             mediaPlayer = null
+            releaseNext()
 
             playedFile = null
             startPositionMs = 0
@@ -174,6 +177,50 @@ internal class Player(
                 mediaPlayer?.setVolume(DEFAULT_VOLUME, DEFAULT_VOLUME)
             }
         }
+
+        override fun onPrefetchNext() {
+            trace("onPrefetchNext()")
+            val next = upcoming.firstOrNull()
+            if (next == null || nextMediaPlayer != null || nextLoadUrlTask != null) {
+                return
+            }
+
+            val nextDataSource = findDataSource(next)
+            if (nextDataSource != null) {
+                prepareNext(nextDataSource)
+            } else {
+                val task = LoadUrlTask(buildClient(next.account), next.file.remoteId) { url ->
+                    nextLoadUrlTask = null
+                    if (url != null) {
+                        urlCache.put(next.account.name, next.file.remoteId, url)
+                        if (upcoming.firstOrNull() == next) {
+                            prepareNext(url)
+                        }
+                    }
+                }
+                task.execute()
+                nextLoadUrlTask = task
+            }
+        }
+
+        override fun onStartNext() {
+            trace("onStartNext()")
+            val next = upcoming.first()
+            upcoming = upcoming.drop(1)
+
+            // the completed media player has already handed over to the next one
+            mediaPlayer?.release()
+            mediaPlayer = nextMediaPlayer
+            nextMediaPlayer = null
+            nextPrepared = false
+
+            playedFile = next.file
+            startPositionMs = next.startPositionMs
+            autoPlay = next.autoPlay
+            account = next.account
+            dataSource = findDataSource(next)
+            listener?.onRunning(next.file)
+        }
     }
 
     init {
@@ -181,24 +228,85 @@ internal class Player(
     }
 
     fun play(item: PlaylistItem) {
+        play(item, emptyList())
+    }
+
+    /**
+     * @param item item to play
+     * @param next items to play after [item], in order
+     */
+    fun play(item: PlaylistItem, next: List<PlaylistItem>) {
         if (item.file != playedFile) {
             stateMachine.post(Event.STOP)
             this.enqueuedFile = item
+            this.upcoming = next
             stateMachine.post(Event.PLAY)
+        } else if (next != upcoming) {
+            releaseNext()
+            upcoming = next
+            if (setOf(State.PLAYING, State.PAUSED).any { stateMachine.isInState(it) }) {
+                delegate.onPrefetchNext()
+            }
         }
     }
 
     fun stop() {
+        upcoming = emptyList()
         stateMachine.post(Event.STOP)
     }
 
     fun stop(file: OCFile) {
         if (playedFile == file) {
+            upcoming = emptyList()
             stateMachine.post(Event.STOP)
         }
     }
 
+    private fun findDataSource(item: PlaylistItem): String? {
+        return if (item.file.isDown) {
+            item.file.storagePath
+        } else {
+            urlCache.get(item.account.name, item.file.remoteId)
+        }
+    }
+
+    private fun createMediaPlayer(dataSource: String): MediaPlayer {
+        val player = mediaPlayerCreator.invoke()
+        player.setOnErrorListener(this::onMediaPlayerError)
+        player.setOnPreparedListener(this::onMediaPlayerPrepared)
+        player.setOnCompletionListener(this::onMediaPlayerCompleted)
+        player.setOnBufferingUpdateListener(this::onMediaPlayerBufferingUpdate)
+        player.setWakeMode(context, PowerManager.PARTIAL_WAKE_LOCK)
+        player.setDataSource(dataSource)
+        player.setAudioStreamType(AudioManager.STREAM_MUSIC)
+        player.setVolume(DEFAULT_VOLUME, DEFAULT_VOLUME)
+        player.prepareAsync()
+        return player
+    }
+
+    private fun prepareNext(dataSource: String) {
+        trace("prepareNext()")
+        nextMediaPlayer = createMediaPlayer(dataSource)
+    }
+
+    private fun releaseNext() {
+        nextLoadUrlTask?.cancel(true)
+        nextLoadUrlTask = null
+        if (nextPrepared) {
+            mediaPlayer?.setNextMediaPlayer(null)
+        }
+        nextMediaPlayer?.release()
+        nextMediaPlayer = null
+        nextPrepared = false
+    }
+
     private fun onMediaPlayerError(mp: MediaPlayer, what: Int, extra: Int): Boolean {
+        if (mp === nextMediaPlayer) {
+            // the next item will be prepared again when its turn comes
+            trace("next media player error: $what $extra")
+            releaseNext()
+            return true
+        }
         lastError = PlayerError(ErrorFormat.toString(context, what, extra))
         stateMachine.post(Event.ERROR)
         return true
@@ -206,11 +314,28 @@ internal class Player(
 
     private fun onMediaPlayerPrepared(mp: MediaPlayer) {
         trace("onMediaPlayerPrepared()")
-        stateMachine.post(Event.PREPARED)
+        if (mp === nextMediaPlayer) {
+            mediaPlayer?.setNextMediaPlayer(mp)
+            nextPrepared = true
+        } else {
+            stateMachine.post(Event.PREPARED)
+        }
     }
 
     private fun onMediaPlayerCompleted(mp: MediaPlayer) {
-        stateMachine.post(Event.STOP)
+        if (mp !== mediaPlayer) {
+            return
+        }
+
+        val next = upcoming.firstOrNull()
+        stateMachine.post(Event.COMPLETED)
+
+        // next item was not prepared in time, so it is started the regular way
+        if (next != null && stateMachine.isInState(State.STOPPED)) {
+            upcoming = upcoming.drop(1)
+            enqueuedFile = next
+            stateMachine.post(Event.PLAY)
+        }
     }
 
     private fun onMediaPlayerBufferingUpdate(mp: MediaPlayer, percent: Int) {
@@ -219,6 +344,11 @@ internal class Player(
 
     private fun onDownloaded(url: String?) {
         if (url != null) {
+            val file = playedFile
+            val playedAccount = account
+            if (file != null && playedAccount != null) {
+                urlCache.put(playedAccount.name, file.remoteId, url)
+            }
             dataSource = url
             stateMachine.post(Event.DOWNLOADED)
         } else {
@@ -236,14 +366,9 @@ internal class Player(
     }
 
     // this should be refactored into a proper, injectable factory
-    private fun buildClient(): OwnCloudClient {
-        val account = this.account
-        if (account != null) {
-            val ocAccount = OwnCloudAccount(account, context)
-            return OwnCloudClientManagerFactory.getDefaultSingleton().getClientFor(ocAccount, context)
-        } else {
-            throw IllegalArgumentException("Account not set")
-        }
+    private fun buildClient(account: Account): OwnCloudClient {
+        val ocAccount = OwnCloudAccount(account, context)
+        return OwnCloudClientManagerFactory.getDefaultSingleton().getClientFor(ocAccount, context)
     }
 
     private fun trace(fmt: String, vararg args: Any?) {
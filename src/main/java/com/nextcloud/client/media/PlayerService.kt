@@ -29,7 +29,9 @@ import android.os.IBinder
 import android.widget.MediaController
 import android.widget.Toast
 import androidx.core.app.NotificationCompat
+import com.nextcloud.client.core.Clock
 import com.owncloud.android.R
+import com.owncloud.android.datamodel.FileDataStorageManager
 import com.owncloud.android.datamodel.OCFile
 import com.owncloud.android.ui.notifications.NotificationUtils
 import com.owncloud.android.utils.ThemeUtils
@@ -44,6 +46,7 @@ class PlayerService : Service() {
         const val EXTRA_FILE = "FILE"
         const val EXTRA_AUTO_PLAY = "EXTRA_AUTO_PLAY"
         const val EXTRA_START_POSITION_MS = "START_POSITION_MS"
+        const val EXTRA_NEXT_FILE_IDS = "NEXT_FILE_IDS"
         const val ACTION_PLAY = "PLAY"
         const val ACTION_STOP = "STOP"
         const val ACTION_STOP_FILE = "STOP_FILE"
@@ -84,13 +87,16 @@ class PlayerService : Service() {
     @Inject
     protected lateinit var audioManager: AudioManager
 
+    @Inject
+    protected lateinit var clock: Clock
+
     private lateinit var player: Player
     private lateinit var notificationBuilder: NotificationCompat.Builder
 
     override fun onCreate() {
         super.onCreate()
         AndroidInjection.inject(this)
-        player = Player(applicationContext, playerListener, audioManager)
+        player = Player(applicationContext, playerListener, audioManager, StreamUrlCache(clock))
         notificationBuilder = NotificationCompat.Builder(this)
         notificationBuilder.color = ThemeUtils.primaryColor(this)
         val stop = Intent(this, PlayerService::class.java)
@@ -118,7 +124,17 @@ class PlayerService : Service() {
         val startPos = intent.getIntExtra(EXTRA_START_POSITION_MS, 0)
         val autoPlay = intent.getBooleanExtra(EXTRA_AUTO_PLAY, true)
         val item = PlaylistItem(file = file, startPositionMs = startPos, autoPlay = autoPlay, account = account)
-        player.play(item)
+        val nextFileIds = intent.getLongArrayExtra(EXTRA_NEXT_FILE_IDS) ?: LongArray(0)
+        player.play(item, loadPlaylistItems(account, nextFileIds))
+    }
+
+    private fun loadPlaylistItems(account: Account, fileIds: LongArray): List<PlaylistItem> {
+        if (fileIds.isEmpty()) {
+            return emptyList()
+        }
+        val storageManager = FileDataStorageManager(account, contentResolver)
+        return fileIds.mapNotNull { storageManager.getFileById(it) }
+            .map { PlaylistItem(file = it, startPositionMs = 0, autoPlay = true, account = account) }
     }
 
     private fun onActionStop() {
@@ -49,12 +49,23 @@ class PlayerServiceConnection(private val context: Context) : MediaController.Me
         }
     }
 
-    fun start(account: Account, file: OCFile, playImmediately: Boolean, position: Int) {
+    /**
+     * @param nextFiles files to play after [file], in order
+     */
+    @JvmOverloads
+    fun start(
+        account: Account,
+        file: OCFile,
+        playImmediately: Boolean,
+        position: Int,
+        nextFiles: List<OCFile> = emptyList()
+    ) {
         val i = Intent(context, PlayerService::class.java)
         i.putExtra(PlayerService.EXTRA_ACCOUNT, account)
         i.putExtra(PlayerService.EXTRA_FILE, file)
         i.putExtra(PlayerService.EXTRA_AUTO_PLAY, playImmediately)
         i.putExtra(PlayerService.EXTRA_START_POSITION_MS, position)
+        i.putExtra(PlayerService.EXTRA_NEXT_FILE_IDS, nextFiles.map { it.fileId }.toLongArray())
         i.action = PlayerService.ACTION_PLAY
         context.startService(i)
     }
@@ -37,6 +37,7 @@ import java.util.ArrayDeque
  * STOPPED --> RUNNING: PLAY\n[hasEnqueuedFile]
  * RUNNING --> STOPPED: STOP\nonStop
  * RUNNING --> STOPPED: ERROR\nonError
+ * RUNNING --> STOPPED: COMPLETED\n[!isNextPrepared]\nonStop
  * RUNNING: >onStartRunning
  *
  * state RUNNING {
@@ -46,8 +47,8 @@ import java.util.ArrayDeque
  *      DOWNLOADING --> PREPARING: DOWNLOADED
  *
  *      PREPARING: >onPrepare
- *      PREPARING --> PLAYING: PREPARED\n[autoPlay]
- *      PREPARING --> PAUSED: PREPARED\n[!autoPlay]
+ *      PREPARING --> PLAYING: PREPARED\n[autoPlay]\nonPrefetchNext()
+ *      PREPARING --> PAUSED: PREPARED\n[!autoPlay]\nonPrefetchNext()
  *      PLAYING --> PAUSED: PAUSE\nFOCUS_LOST
  *
  *      PAUSED: >onPausePlayback
@@ -61,6 +62,10 @@ import java.util.ArrayDeque
  *          FOCUSED -l-> DUCKED: FOCUS_DUCK
  *          DUCKED: >onAudioDuck(true)\n<onAudioDuck(false)
  *          DUCKED -r-> FOCUSED: FOCUS_GAIN
+ *          FOCUSED --> PLAYING_NEXT: COMPLETED\n[isNextPrepared]
+ *          DUCKED --> PLAYING_NEXT: COMPLETED\n[isNextPrepared]
+ *          PLAYING_NEXT: >onStartNext\n>onPrefetchNext
+ *          PLAYING_NEXT --> FOCUSED
  *      }
  * }
  *
@@ -74,6 +79,7 @@ internal class PlayerStateMachine(initialState: State, private val delegate: Del
         val isDownloaded: Boolean
         val isAutoplayEnabled: Boolean
         val hasEnqueuedFile: Boolean
+        val isNextPrepared: Boolean
 
         fun onStartRunning()
         fun onStartDownloading()
@@ -85,6 +91,8 @@ internal class PlayerStateMachine(initialState: State, private val delegate: Del
         fun onRequestFocus()
         fun onReleaseFocus()
         fun onAudioDuck(enabled: Boolean)
+        fun onPrefetchNext()
+        fun onStartNext()
     }
 
     enum class State {
@@ -97,7 +105,8 @@ internal class PlayerStateMachine(initialState: State, private val delegate: Del
         PLAYING,
         AWAIT_FOCUS,
         FOCUSED,
-        DUCKED
+        DUCKED,
+        PLAYING_NEXT
     }
 
     enum class Event {
@@ -110,6 +119,7 @@ internal class PlayerStateMachine(initialState: State, private val delegate: Del
         FOCUS_LOST,
         FOCUS_GAIN,
         FOCUS_DUCK,
+        COMPLETED,
         IMMEDIATE_TRANSITION,
     }
 
@@ -132,11 +142,13 @@ internal class PlayerStateMachine(initialState: State, private val delegate: Del
         config.configure(State.STOPPED)
             .permitIf(Event.PLAY, State.RUNNING_INITIAL) { delegate.hasEnqueuedFile }
             .onEntryFrom(Event.STOP, delegate::onStopped)
+            .onEntryFrom(Event.COMPLETED, delegate::onStopped)
             .onEntryFrom(Event.ERROR, delegate::onError)
 
         config.configure(State.RUNNING)
             .permit(Event.STOP, State.STOPPED)
             .permit(Event.ERROR, State.STOPPED)
+            .permit(Event.COMPLETED, State.STOPPED)
             .onEntry(delegate::onStartRunning)
 
         config.configure(State.RUNNING_INITIAL)
@@ -160,6 +172,8 @@ internal class PlayerStateMachine(initialState: State, private val delegate: Del
             .substateOf(State.RUNNING)
             .permit(Event.PAUSE, State.PAUSED)
             .permit(Event.FOCUS_LOST, State.PAUSED)
+            .permitIf(Event.COMPLETED, State.PLAYING_NEXT) { delegate.isNextPrepared }
+            .permitIf(Event.COMPLETED, State.STOPPED) { !delegate.isNextPrepared }
             .onEntry(delegate::onRequestFocus)
             .onExit(delegate::onReleaseFocus)
 
@@ -167,10 +181,12 @@ internal class PlayerStateMachine(initialState: State, private val delegate: Del
             .substateOf(State.RUNNING)
             .permit(Event.PLAY, State.AWAIT_FOCUS)
             .onEntry(delegate::onPausePlayback)
+            .onEntryFrom(Event.PREPARED, delegate::onPrefetchNext)
 
         config.configure(State.AWAIT_FOCUS)
             .substateOf(State.PLAYING)
             .permit(Event.FOCUS_GAIN, State.FOCUSED)
+            .onEntryFrom(Event.PREPARED, delegate::onPrefetchNext)
 
         config.configure(State.FOCUSED)
             .substateOf(State.PLAYING)
@@ -183,6 +199,11 @@ internal class PlayerStateMachine(initialState: State, private val delegate: Del
             .onEntry(Action { delegate.onAudioDuck(true) })
             .onExit(Action { delegate.onAudioDuck(false) })
 
+        config.configure(State.PLAYING_NEXT)
+            .substateOf(State.PLAYING)
+            .permit(Event.IMMEDIATE_TRANSITION, State.FOCUSED)
+            .onEntry(this::onPlayingNext)
+
         stateMachine = StateMachine(initialState, config)
         stateMachine.onUnhandledTrigger { _, _ -> /* ignore unhandled event */ }
     }
@@ -191,6 +212,15 @@ internal class PlayerStateMachine(initialState: State, private val delegate: Del
         stateMachine.fire(Event.IMMEDIATE_TRANSITION)
     }
 
+    /**
+     * Next media player was started by the completed one, so focus is kept and playback is not started again.
+     */
+    private fun onPlayingNext() {
+        delegate.onStartNext()
+        delegate.onPrefetchNext()
+        stateMachine.fire(Event.IMMEDIATE_TRANSITION)
+    }
+
     private fun onAudioFocusGain(t: Transition<State, Event>) {
         if (t.source == State.AWAIT_FOCUS) {
             delegate.onStartPlayback()
@@ -0,0 +1,68 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.nextcloud.client.media
+
+import com.nextcloud.client.core.Clock
+import java.util.LinkedHashMap
+
+/**
+ * Stream URLs resolved by the server for not downloaded files, so that replaying a file
+ * or a prefetched playlist item does not resolve the URL again.
+ *
+ * Resolved URLs expire on the server, so they are kept for a limited time only.
+ */
+internal class StreamUrlCache(
+    private val clock: Clock,
+    private val ttlMillis: Long = DEFAULT_TTL_MILLIS,
+    private val maxEntries: Int = DEFAULT_MAX_ENTRIES
+) {
+
+    companion object {
+        const val DEFAULT_TTL_MILLIS = 30L * 60L * 1000L
+        const val DEFAULT_MAX_ENTRIES = 100
+    }
+
+    private data class Entry(val url: String, val time: Long)
+
+    private val entries = object : LinkedHashMap<String, Entry>(maxEntries, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, Entry>?): Boolean {
+            return size > maxEntries
+        }
+    }
+
+    /**
+     * @return stream URL of the file, null if not resolved or expired
+     */
+    fun get(accountName: String, remoteId: String): String? {
+        val key = key(accountName, remoteId)
+        val entry = entries[key] ?: return null
+        return if (clock.currentTime - entry.time < ttlMillis) {
+            entry.url
+        } else {
+            entries.remove(key)
+            null
+        }
+    }
+
+    fun put(accountName: String, remoteId: String, url: String) {
+        entries[key(accountName, remoteId)] = Entry(url, clock.currentTime)
+    }
+
+    private fun key(accountName: String, remoteId: String) = "$accountName/$remoteId"
+}
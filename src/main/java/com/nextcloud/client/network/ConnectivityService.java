@@ -23,7 +23,17 @@ package com.nextcloud.client.network;
 import com.evernote.android.job.JobRequest;
 
 public interface ConnectivityService {
+    /**
+     * Checks if the server is reachable from the current network, e.g. not hidden behind a captive portal. The result
+     * is cached for a short time per network and server.
+     */
     boolean isInternetWalled();
+
+    /**
+     * Drops the cached result of {@link #isInternetWalled()}, e.g. after the network changed.
+     */
+    void invalidateInternetWalledStatus();
+
     boolean isOnlineWithWifi();
     JobRequest.NetworkType getActiveNetworkType();
 }
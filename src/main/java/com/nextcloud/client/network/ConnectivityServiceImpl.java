@@ -26,6 +26,7 @@ import android.net.NetworkInfo;
 import com.evernote.android.job.JobRequest;
 import com.nextcloud.client.account.Server;
 import com.nextcloud.client.account.UserAccountManager;
+import com.nextcloud.client.core.Clock;
 import com.nextcloud.client.logger.Logger;
 import com.owncloud.android.lib.resources.status.OwnCloudVersion;
 
@@ -43,12 +44,39 @@ class ConnectivityServiceImpl implements ConnectivityService {
 
     private final static String TAG = ConnectivityServiceImpl.class.getName();
 
+    static final long WALLED_STATUS_TTL_MILLIS = 30_000;
+
     private final ConnectivityManager connectivityManager;
     private final UserAccountManager accountManager;
     private final ClientFactory clientFactory;
     private final GetRequestBuilder requestBuilder;
+    private final Clock clock;
     private final Logger logger;
 
+    private final Object probeLock = new Object();
+    private final Object cacheLock = new Object();
+    private WalledStatus cachedStatus;
+    private int generation;
+
+    /**
+     * Result of a probe, valid for a short time on the network and server it was determined for.
+     */
+    private static class WalledStatus {
+        private final String key;
+        private final boolean walled;
+        private final long timestamp;
+
+        WalledStatus(String key, boolean walled, long timestamp) {
+            this.key = key;
+            this.walled = walled;
+            this.timestamp = timestamp;
+        }
+
+        boolean isValid(String key, long now) {
+            return this.key.equals(key) && now >= timestamp && now - timestamp < WALLED_STATUS_TTL_MILLIS;
+        }
+    }
+
     static class GetRequestBuilder implements Function1<String, GetMethod> {
         @Override
         public GetMethod invoke(String url) {
@@ -60,68 +88,119 @@ class ConnectivityServiceImpl implements ConnectivityService {
                             UserAccountManager accountManager,
                             ClientFactory clientFactory,
                             GetRequestBuilder requestBuilder,
+                            Clock clock,
                             Logger logger) {
         this.connectivityManager = connectivityManager;
         this.accountManager = accountManager;
         this.clientFactory = clientFactory;
         this.requestBuilder = requestBuilder;
+        this.clock = clock;
         this.logger = logger;
     }
 
     @Override
     public boolean isInternetWalled() {
         if (isOnlineWithWifi()) {
+            Server server = accountManager.getUser().getServer();
+            String baseServerAddress = server.getUri().toString();
+            if (baseServerAddress.isEmpty()) {
+                return true;
+            }
+            String key = getActiveNetworkKey() + "|" + baseServerAddress;
 
-            GetMethod get = null;
-            try {
-                Server server = accountManager.getUser().getServer();
-                String baseServerAddress = server.getUri().toString();
-                if (baseServerAddress.isEmpty()) {
-                    return true;
+            // concurrent callers wait for the probe in flight and use its result
+            synchronized (probeLock) {
+                int probeGeneration;
+                synchronized (cacheLock) {
+                    if (cachedStatus != null && cachedStatus.isValid(key, clock.getCurrentTime())) {
+                        return cachedStatus.walled;
+                    }
+                    probeGeneration = generation;
                 }
-                String url;
-                if (server.getVersion().compareTo(OwnCloudVersion.nextcloud_13) > 0) {
-                    url = baseServerAddress + "/index.php/204";
-                } else {
-                    url = baseServerAddress + "/status.php";
+
+                boolean walled = probe(server, baseServerAddress);
+
+                synchronized (cacheLock) {
+                    // network changed during the probe, the result may be outdated already
+                    if (probeGeneration == generation) {
+                        cachedStatus = new WalledStatus(key, walled, clock.getCurrentTime());
+                    }
                 }
+                return walled;
+            }
+        } else {
+            return getActiveNetworkType() == JobRequest.NetworkType.ANY;
+        }
+    }
+
+    @Override
+    public void invalidateInternetWalledStatus() {
+        synchronized (cacheLock) {
+            generation++;
+            cachedStatus = null;
+        }
+    }
 
-                get = requestBuilder.invoke(url);
-                HttpClient client = clientFactory.createPlainClient();
+    private boolean probe(Server server, String baseServerAddress) {
+        GetMethod get = null;
+        try {
+            String url;
+            if (server.getVersion().compareTo(OwnCloudVersion.nextcloud_13) > 0) {
+                url = baseServerAddress + "/index.php/204";
+            } else {
+                url = baseServerAddress + "/status.php";
+            }
 
-                int status = client.executeMethod(get);
+            get = requestBuilder.invoke(url);
+            HttpClient client = clientFactory.createPlainClient();
 
-                if (server.getVersion().compareTo(OwnCloudVersion.nextcloud_13) > 0) {
-                    return !(status == HttpStatus.SC_NO_CONTENT &&
-                        (get.getResponseContentLength() == -1 || get.getResponseContentLength() == 0));
-                } else {
-                    if (status == HttpStatus.SC_OK) {
-                        try {
-                            // try parsing json to verify response
-                            // check if json contains maintenance and it should be false
-                            String json = get.getResponseBodyAsString();
-                            return new JSONObject(json).getBoolean("maintenance");
-                        } catch (Exception e) {
-                            return true;
-                        }
-                    } else {
+            int status = client.executeMethod(get);
+
+            if (server.getVersion().compareTo(OwnCloudVersion.nextcloud_13) > 0) {
+                return !(status == HttpStatus.SC_NO_CONTENT &&
+                    (get.getResponseContentLength() == -1 || get.getResponseContentLength() == 0));
+            } else {
+                if (status == HttpStatus.SC_OK) {
+                    try {
+                        // try parsing json to verify response
+                        // check if json contains maintenance and it should be false
+                        String json = get.getResponseBodyAsString();
+                        return new JSONObject(json).getBoolean("maintenance");
+                    } catch (Exception e) {
                         return true;
                     }
-                }
-            } catch (IOException e) {
-                logger.e(TAG, "Error checking internet connection", e);
-            } finally {
-                if (get != null) {
-                    get.releaseConnection();
+                } else {
+                    return true;
                 }
             }
-        } else {
-            return getActiveNetworkType() == JobRequest.NetworkType.ANY;
+        } catch (IOException e) {
+            logger.e(TAG, "Error checking internet connection", e);
+        } finally {
+            if (get != null) {
+                get.releaseConnection();
+            }
         }
 
         return true;
     }
 
+    /**
+     * Identity of the active network, changes e.g. when switching to another wifi.
+     */
+    private String getActiveNetworkKey() {
+        NetworkInfo networkInfo;
+        try {
+            networkInfo = connectivityManager.getActiveNetworkInfo();
+        } catch (Throwable t) {
+            return "";
+        }
+
+        if (networkInfo == null) {
+            return "";
+        }
+        return networkInfo.getType() + ":" + networkInfo.getSubtype() + ":" + networkInfo.getExtraInfo();
+    }
+
     @Override
     public boolean isOnlineWithWifi() {
         try {
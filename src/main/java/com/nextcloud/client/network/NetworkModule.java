@@ -24,6 +24,7 @@ import android.content.Context;
 import android.net.ConnectivityManager;
 
 import com.nextcloud.client.account.UserAccountManager;
+import com.nextcloud.client.core.Clock;
 import com.nextcloud.client.logger.Logger;
 
 import javax.inject.Singleton;
@@ -35,14 +36,17 @@ import dagger.Provides;
 public class NetworkModule {
 
     @Provides
+    @Singleton
     ConnectivityService connectivityService(ConnectivityManager connectivityManager,
                                             UserAccountManager accountManager,
                                             ClientFactory clientFactory,
+                                            Clock clock,
                                             Logger logger) {
         return new ConnectivityServiceImpl(connectivityManager,
                                            accountManager,
                                            clientFactory,
                                            new ConnectivityServiceImpl.GetRequestBuilder(),
+                                           clock,
                                            logger);
     }
 
@@ -348,4 +348,22 @@ public interface AppPreferences {
     boolean isPowerCheckDisabled();
 
     void setPowerCheckDisabled(boolean value);
+
+    /**
+     * Gets the age after which successfully completed uploads are removed from the upload list, default 90 days.
+     *
+     * @return maximum age in days, 0 to keep them regardless of their age
+     */
+    int getFinishedUploadsMaxAgeDays();
+
+    void setFinishedUploadsMaxAgeDays(int days);
+
+    /**
+     * Gets the number of successfully completed uploads kept in the upload list, default 5000.
+     *
+     * @return maximum number of finished uploads, 0 for no limit
+     */
+    int getFinishedUploadsMaxCount();
+
+    void setFinishedUploadsMaxCount(int count);
 }
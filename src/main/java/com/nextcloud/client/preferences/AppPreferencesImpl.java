@@ -87,6 +87,10 @@ public final class AppPreferencesImpl implements AppPreferences {
     private static final String PREF__MIGRATED_USER_ID = "migrated_user_id";
     private static final String PREF__PHOTO_SEARCH_TIMESTAMP = "photo_search_timestamp";
     private static final String PREF__POWER_CHECK_DISABLED = "power_check_disabled";
+    private static final String PREF__FINISHED_UPLOADS_MAX_AGE_DAYS = "finished_uploads_max_age_days";
+    private static final String PREF__FINISHED_UPLOADS_MAX_COUNT = "finished_uploads_max_count";
+    private static final int DEFAULT_FINISHED_UPLOADS_MAX_AGE_DAYS = 90;
+    private static final int DEFAULT_FINISHED_UPLOADS_MAX_COUNT = 5000;
 
     private final Context context;
     private final SharedPreferences preferences;
@@ -629,4 +633,24 @@ public final class AppPreferencesImpl implements AppPreferences {
     public void setPowerCheckDisabled(boolean value) {
         preferences.edit().putBoolean(PREF__POWER_CHECK_DISABLED, value).apply();
     }
+
+    @Override
+    public int getFinishedUploadsMaxAgeDays() {
+        return preferences.getInt(PREF__FINISHED_UPLOADS_MAX_AGE_DAYS, DEFAULT_FINISHED_UPLOADS_MAX_AGE_DAYS);
+    }
+
+    @Override
+    public void setFinishedUploadsMaxAgeDays(int days) {
+        preferences.edit().putInt(PREF__FINISHED_UPLOADS_MAX_AGE_DAYS, days).apply();
+    }
+
+    @Override
+    public int getFinishedUploadsMaxCount() {
+        return preferences.getInt(PREF__FINISHED_UPLOADS_MAX_COUNT, DEFAULT_FINISHED_UPLOADS_MAX_COUNT);
+    }
+
+    @Override
+    public void setFinishedUploadsMaxCount(int count) {
+        preferences.edit().putInt(PREF__FINISHED_UPLOADS_MAX_COUNT, count).apply();
+    }
 }
@@ -0,0 +1,145 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.owncloud.android.datamodel;
+
+import android.content.ContentProviderOperation;
+import android.content.ContentResolver;
+import android.content.OperationApplicationException;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.RemoteException;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSerializer;
+import com.owncloud.android.MainApp;
+import com.owncloud.android.db.ProviderMeta.ProviderTableMeta;
+import com.owncloud.android.lib.common.utils.Log_OC;
+import com.owncloud.android.lib.resources.activities.model.Activity;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Provider for the stored activity stream of accounts, newest activities first.
+ */
+public class ActivityDataProvider {
+    private static final String TAG = ActivityDataProvider.class.getSimpleName();
+
+    /**
+     * Older activities are dropped from the database, they are paged in from the server when needed.
+     */
+    static final int MAX_STORED_ACTIVITIES = 500;
+
+    private static final String ACCOUNT_SELECTION = ProviderTableMeta.ACTIVITIES_ACCOUNT_NAME + " = ?";
+
+    private final ContentResolver contentResolver;
+
+    // dates as milliseconds, independent of the locale
+    private final Gson gson = new GsonBuilder()
+        .registerTypeAdapter(Date.class,
+                             (JsonSerializer<Date>) (date, type, context) -> new JsonPrimitive(date.getTime()))
+        .registerTypeAdapter(Date.class,
+                             (JsonDeserializer<Date>) (json, type, context) -> new Date(json.getAsLong()))
+        .create();
+
+    public ActivityDataProvider(ContentResolver contentResolver) {
+        if (contentResolver == null) {
+            throw new IllegalArgumentException("Cannot create an instance with a NULL contentResolver");
+        }
+        this.contentResolver = contentResolver;
+    }
+
+    /**
+     * @return stored activities of the account, newest first
+     */
+    public List<Activity> getActivities(String accountName) {
+        List<Activity> activities = new ArrayList<>();
+        Uri uri = ProviderTableMeta.CONTENT_URI_ACTIVITIES.buildUpon()
+            .appendQueryParameter(ProviderTableMeta.QUERY_PARAMETER_LIMIT, String.valueOf(MAX_STORED_ACTIVITIES))
+            .build();
+
+        Cursor cursor = contentResolver.query(uri,
+                                              new String[]{ProviderTableMeta.ACTIVITIES_JSON},
+                                              ACCOUNT_SELECTION,
+                                              new String[]{accountName},
+                                              ProviderTableMeta.ACTIVITIES_ACTIVITY_ID + " DESC");
+        if (cursor != null) {
+            int jsonColumn = cursor.getColumnIndex(ProviderTableMeta.ACTIVITIES_JSON);
+            while (cursor.moveToNext()) {
+                try {
+                    Activity activity = gson.fromJson(cursor.getString(jsonColumn), Activity.class);
+                    if (activity != null) {
+                        activities.add(activity);
+                    }
+                } catch (JsonParseException e) {
+                    Log_OC.e(TAG, "Skipping unreadable stored activity", e);
+                }
+            }
+            cursor.close();
+        }
+
+        return activities;
+    }
+
+    /**
+     * Stores the activities in one transaction, replacing stored copies, and drops the oldest ones beyond
+     * {@link #MAX_STORED_ACTIVITIES}.
+     */
+    public void storeActivities(String accountName, List<Activity> activities) {
+        if (activities.isEmpty()) {
+            return;
+        }
+
+        ArrayList<ContentProviderOperation> operations = new ArrayList<>(activities.size() + 1);
+        for (Activity activity : activities) {
+            operations.add(ContentProviderOperation.newInsert(ProviderTableMeta.CONTENT_URI_ACTIVITIES)
+                               .withValue(ProviderTableMeta.ACTIVITIES_ACCOUNT_NAME, accountName)
+                               .withValue(ProviderTableMeta.ACTIVITIES_ACTIVITY_ID, activity.getActivityId())
+                               .withValue(ProviderTableMeta.ACTIVITIES_JSON, gson.toJson(activity))
+                               .build());
+        }
+
+        operations.add(ContentProviderOperation.newDelete(ProviderTableMeta.CONTENT_URI_ACTIVITIES)
+                           .withSelection(ACCOUNT_SELECTION + " AND " + ProviderTableMeta.ACTIVITIES_ACTIVITY_ID +
+                                              " < (SELECT " + ProviderTableMeta.ACTIVITIES_ACTIVITY_ID +
+                                              " FROM " + ProviderTableMeta.ACTIVITIES_TABLE_NAME +
+                                              " WHERE " + ACCOUNT_SELECTION +
+                                              " ORDER BY " + ProviderTableMeta.ACTIVITIES_ACTIVITY_ID + " DESC" +
+                                              " LIMIT 1 OFFSET " + (MAX_STORED_ACTIVITIES - 1) + ")",
+                                          new String[]{accountName, accountName})
+                           .build());
+
+        try {
+            contentResolver.applyBatch(MainApp.getAuthority(), operations);
+        } catch (OperationApplicationException | RemoteException e) {
+            Log_OC.e(TAG, "Storing activities failed", e);
+        }
+    }
+
+    public int deleteActivities(String accountName) {
+        return contentResolver.delete(ProviderTableMeta.CONTENT_URI_ACTIVITIES,
+                                      ACCOUNT_SELECTION,
+                                      new String[]{accountName});
+    }
+}
@@ -59,10 +59,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 import androidx.annotation.NonNull;
@@ -76,6 +78,9 @@ public class FileDataStorageManager {
     private static final String FAILED_TO_INSERT_MSG = "Fail to insert insert file to database ";
     private static final String SENDING_TO_FILECONTENTPROVIDER_MSG = "Sending %d operations to FileContentProvider";
     private static final String EXCEPTION_MSG = "Exception in batch of operations ";
+    private static final String[] IMAGE_EXTENSIONS = {
+        "jpg", "jpeg", "png", "gif", "bmp", "webp", "heic", "heif", "tif", "tiff", "svg", "ico"
+    };
 
     public static final int ROOT_PARENT_ID = 0;
     public static final String NULL_STRING = "null";
@@ -120,6 +125,174 @@ public class FileDataStorageManager {
         return file;
     }
 
+    /**
+     * Checks if any ancestor folder of the given file is encrypted. Walks up the cached folder tree, so the database
+     * is only queried for folders which were not written or checked before.
+     *
+     * @return true if any ancestor is encrypted
+     */
+    public boolean hasEncryptedAncestor(OCFile file) {
+        if (OCFile.ROOT_PATH.equals(file.getRemotePath())) {
+            return false;
+        }
+
+        long folderId = file.getParentId();
+        Set<Long> visitedIds = new HashSet<>();
+        while (true) {
+            if (folderId <= ROOT_PARENT_ID) {
+                // above root, or the parent is not known
+                return false;
+            }
+            if (!visitedIds.add(folderId)) {
+                Log_OC.e(TAG, "Cycle in folder tree at folder " + folderId + ", dropping cached tree");
+                FolderEncryptionCache.invalidate(account.name);
+                return false;
+            }
+
+            FolderEncryptionCache.Node node = FolderEncryptionCache.get(account.name, folderId);
+
+            if (node == null) {
+                OCFile folder = getFileById(folderId);
+                if (folder == null) {
+                    // parent is missing in the database
+                    return false;
+                }
+                node = cacheFolder(folder);
+            }
+
+            if (node.encrypted) {
+                return true;
+            }
+            folderId = node.parentId;
+        }
+    }
+
+    private FolderEncryptionCache.Node cacheFolder(OCFile folder) {
+        // root has no parent; search results without known parent are stored with parent 0 as well
+        long parentId = OCFile.ROOT_PATH.equals(folder.getRemotePath()) ? ROOT_PARENT_ID : folder.getParentId();
+        FolderEncryptionCache.put(account.name, folder.getFileId(), parentId, folder.isEncrypted());
+        return FolderEncryptionCache.get(account.name, folder.getFileId());
+    }
+
+    /**
+     * Stores a changed encryption flag of a folder, e.g. after it was toggled on the server.
+     */
+    public void updateEncryptionStatus(OCFile folder, boolean encrypted) {
+        folder.setEncrypted(encrypted);
+
+        ContentValues cv = new ContentValues();
+        cv.put(ProviderTableMeta.FILE_IS_ENCRYPTED, encrypted);
+        String[] whereArgs = new String[]{String.valueOf(folder.getFileId())};
+
+        if (getContentResolver() != null) {
+            getContentResolver().update(ProviderTableMeta.CONTENT_URI, cv, ProviderTableMeta._ID + "=?", whereArgs);
+        } else {
+            try {
+                getContentProviderClient().update(ProviderTableMeta.CONTENT_URI, cv, ProviderTableMeta._ID + "=?",
+                                                  whereArgs);
+            } catch (RemoteException e) {
+                Log_OC.e(TAG, FAILED_TO_INSERT_MSG + e.getMessage(), e);
+            }
+        }
+
+        cacheFolder(folder);
+    }
+
+    /**
+     * @return ids of the child folders of given folder which are favorites or contain favorites, i.e. kept-in-sync
+     * files, somewhere in their subtree
+     */
+    public Set<Long> getKeptInSyncChildFolderIds(OCFile folder) {
+        Set<Long> ids = new HashSet<>();
+        String[] projection = new String[]{ProviderTableMeta._ID};
+        String selection = ProviderTableMeta.FILE_PARENT + "=? AND " + ProviderTableMeta.FILE_CONTENT_TYPE + "=? AND ("
+            + ProviderTableMeta.FILE_FAVORITE + "=1 OR " + ProviderTableMeta.FILE_SUBTREE_KEPT_IN_SYNC + "=1)";
+        String[] selectionArgs = new String[]{String.valueOf(folder.getFileId()), MimeType.DIRECTORY};
+
+        Cursor c = null;
+        try {
+            c = queryFiles(projection, selection, selectionArgs);
+
+            if (c != null && c.moveToFirst()) {
+                do {
+                    ids.add(c.getLong(c.getColumnIndex(ProviderTableMeta._ID)));
+                } while (c.moveToNext());
+            }
+        } catch (RemoteException e) {
+            Log_OC.e(TAG, "Could not get kept-in-sync folders: " + e.getMessage(), e);
+        } finally {
+            if (c != null) {
+                c.close();
+            }
+        }
+
+        return ids;
+    }
+
+    /**
+     * Recomputes the "subtree contains kept-in-sync files" marker of given folder from its direct children and passes
+     * a change on to the ancestors, until a folder's marker stays the same.
+     */
+    public void updateKeptInSyncMarker(long folderId) {
+        String[] projection = new String[]{ProviderTableMeta._ID, ProviderTableMeta.FILE_PARENT,
+            ProviderTableMeta.FILE_SUBTREE_KEPT_IN_SYNC};
+        String childSelection = ProviderTableMeta.FILE_PARENT + "=? AND (" + ProviderTableMeta.FILE_FAVORITE + "=1 OR "
+            + ProviderTableMeta.FILE_SUBTREE_KEPT_IN_SYNC + "=1)";
+
+        try {
+            while (folderId > ROOT_PARENT_ID) {
+                String[] selectionArgs = new String[]{String.valueOf(folderId)};
+                long parentId;
+                boolean marked;
+
+                Cursor c = queryFiles(projection, ProviderTableMeta._ID + "=?", selectionArgs);
+                if (c == null) {
+                    return;
+                }
+                if (!c.moveToFirst()) {
+                    c.close();
+                    return;
+                }
+                parentId = c.getLong(c.getColumnIndex(ProviderTableMeta.FILE_PARENT));
+                marked = c.getInt(c.getColumnIndex(ProviderTableMeta.FILE_SUBTREE_KEPT_IN_SYNC)) == 1;
+                c.close();
+
+                c = queryFiles(new String[]{ProviderTableMeta._ID}, childSelection, selectionArgs);
+                boolean keptInSync = c != null && c.getCount() > 0;
+                if (c != null) {
+                    c.close();
+                }
+
+                if (keptInSync == marked) {
+                    return;
+                }
+
+                ContentValues cv = new ContentValues();
+                cv.put(ProviderTableMeta.FILE_SUBTREE_KEPT_IN_SYNC, keptInSync);
+                if (getContentResolver() != null) {
+                    getContentResolver().update(ProviderTableMeta.CONTENT_URI, cv, ProviderTableMeta._ID + "=?",
+                                                selectionArgs);
+                } else {
+                    getContentProviderClient().update(ProviderTableMeta.CONTENT_URI, cv, ProviderTableMeta._ID + "=?",
+                                                      selectionArgs);
+                }
+
+                folderId = parentId;
+            }
+        } catch (RemoteException e) {
+            Log_OC.e(TAG, "Could not update kept-in-sync marker: " + e.getMessage(), e);
+        }
+    }
+
+    private Cursor queryFiles(String[] projection, String selection, String... selectionArgs) throws RemoteException {
+        if (getContentResolver() != null) {
+            return getContentResolver().query(ProviderTableMeta.CONTENT_URI, projection, selection, selectionArgs, null);
+        } else {
+            return getContentProviderClient().query(ProviderTableMeta.CONTENT_URI, projection, selection,
+                                                    selectionArgs, null);
+        }
+    }
+
     public OCFile getFileByLocalPath(String path) {
         Cursor c = getFileCursorForValue(ProviderTableMeta.FILE_STORAGE_PATH, path);
         OCFile file = null;
@@ -214,6 +387,10 @@ public class FileDataStorageManager {
         cv.put(ProviderTableMeta.FILE_SHAREES, new Gson().toJson(file.getSharees()));
         cv.put(ProviderTableMeta.FILE_RICH_WORKSPACE, file.getRichWorkspace());
 
+        if (file.isFolder()) {
+            FolderEncryptionCache.remove(account.name, file.getFileId());
+        }
+
         boolean sameRemotePath = fileExists(file.getRemotePath());
         if (sameRemotePath ||
                 fileExists(file.getFileId())) {  // for renamed files; no more delete and create
@@ -304,6 +481,185 @@ public class FileDataStorageManager {
         return file;
     }
 
+    /**
+     * Stores remote search results, e.g. favorites or photos, and links them to the given virtual folder type. All
+     * inserts and updates are applied in one batch; only parents which are not known locally are resolved one by one
+     * via {@link #saveFileWithParent(OCFile, Context)}, which needs remote requests, if resolveParents is set.
+     *
+     * @return successfully stored files, with file and parent ids set
+     */
+    public List<OCFile> saveSearchResults(List<OCFile> files,
+                                          VirtualFolderType type,
+                                          boolean resolveParents,
+                                          Context context) {
+        Set<String> paths = new HashSet<>();
+        for (OCFile file : files) {
+            paths.add(file.getRemotePath());
+            paths.add(getParentPath(file.getRemotePath()));
+        }
+        Map<String, Long> knownIds = getFileIdsByPath(paths);
+
+        ArrayList<ContentProviderOperation> operations = new ArrayList<>(files.size() * 2);
+        Map<Integer, OCFile> insertedFiles = new HashMap<>();
+        List<OCFile> savedFiles = new ArrayList<>(files.size());
+
+        for (OCFile file : files) {
+            String parentPath = getParentPath(file.getRemotePath());
+            Long parentId = knownIds.get(parentPath);
+            if (OCFile.ROOT_PATH.equals(file.getRemotePath())) {
+                parentId = (long) ROOT_PARENT_ID;
+            }
+
+            if (parentId == null && resolveParents) {
+                try {
+                    saveFileWithParent(file, context);
+                    knownIds.put(parentPath, file.getParentId());
+                    knownIds.put(file.getRemotePath(), file.getFileId());
+                } catch (RemoteOperationFailedException e) {
+                    Log_OC.e(TAG, "Error saving file with parent" + e.getMessage(), e);
+                    continue;
+                }
+            } else {
+                file.setParentId(parentId == null ? ROOT_PARENT_ID : parentId);
+            }
+
+            ContentValues cv = createContentValueForFile(file, file.getParentId());
+            Long fileId = knownIds.get(file.getRemotePath());
+
+            if (fileId != null) {
+                file.setFileId(fileId);
+                operations.add(ContentProviderOperation.newUpdate(ProviderTableMeta.CONTENT_URI)
+                                   .withValues(cv)
+                                   .withSelection(ProviderTableMeta._ID + "=?", new String[]{String.valueOf(fileId)})
+                                   .build());
+                operations.add(ContentProviderOperation.newInsert(ProviderTableMeta.CONTENT_URI_VIRTUAL)
+                                   .withValue(ProviderTableMeta.VIRTUAL_TYPE, type.toString())
+                                   .withValue(ProviderTableMeta.VIRTUAL_OCFILE_ID, fileId)
+                                   .build());
+            } else {
+                int insertIndex = operations.size();
+                insertedFiles.put(insertIndex, file);
+                operations.add(ContentProviderOperation.newInsert(ProviderTableMeta.CONTENT_URI)
+                                   .withValues(cv)
+                                   .build());
+                operations.add(ContentProviderOperation.newInsert(ProviderTableMeta.CONTENT_URI_VIRTUAL)
+                                   .withValue(ProviderTableMeta.VIRTUAL_TYPE, type.toString())
+                                   .withValueBackReference(ProviderTableMeta.VIRTUAL_OCFILE_ID, insertIndex)
+                                   .build());
+            }
+            savedFiles.add(file);
+        }
+
+        Log_OC.d(TAG, String.format(Locale.ENGLISH, SENDING_TO_FILECONTENTPROVIDER_MSG, operations.size()));
+
+        ContentProviderResult[] results;
+        try {
+            if (getContentResolver() != null) {
+                results = getContentResolver().applyBatch(MainApp.getAuthority(), operations);
+            } else {
+                results = getContentProviderClient().applyBatch(operations);
+            }
+        } catch (OperationApplicationException | RemoteException e) {
+            Log_OC.e(TAG, EXCEPTION_MSG + e.getMessage(), e);
+            return new ArrayList<>();
+        }
+
+        for (Map.Entry<Integer, OCFile> entry : insertedFiles.entrySet()) {
+            Uri uri = results[entry.getKey()].uri;
+            if (uri != null) {
+                entry.getValue().setFileId(ContentUris.parseId(uri));
+            }
+        }
+
+        for (OCFile file : savedFiles) {
+            if (file.isFolder() && file.fileExists()) {
+                cacheFolder(file);
+            }
+        }
+
+        return savedFiles;
+    }
+
+    private String getParentPath(String remotePath) {
+        if (OCFile.ROOT_PATH.equals(remotePath)) {
+            return OCFile.ROOT_PATH;
+        }
+
+        String parentPath = new File(remotePath).getParent();
+        return parentPath.endsWith(OCFile.PATH_SEPARATOR) ? parentPath : parentPath + OCFile.PATH_SEPARATOR;
+    }
+
+    /**
+     * @return ids of all given paths which are already stored for the current account
+     */
+    private Map<String, Long> getFileIdsByPath(Collection<String> paths) {
+        Map<String, Long> ids = new HashMap<>();
+        String[] projection = new String[]{ProviderTableMeta._ID, ProviderTableMeta.FILE_PATH};
+
+        for (InSelection chunk : selectPaths(paths)) {
+            Cursor c = null;
+            try {
+                if (getContentResolver() != null) {
+                    c = getContentResolver().query(ProviderTableMeta.CONTENT_URI, projection, chunk.selection,
+                                                   chunk.selectionArgs, null);
+                } else {
+                    c = getContentProviderClient().query(ProviderTableMeta.CONTENT_URI, projection,
+                                                         chunk.selection, chunk.selectionArgs, null);
+                }
+
+                if (c != null && c.moveToFirst()) {
+                    do {
+                        ids.put(c.getString(c.getColumnIndex(ProviderTableMeta.FILE_PATH)),
+                                c.getLong(c.getColumnIndex(ProviderTableMeta._ID)));
+                    } while (c.moveToNext());
+                }
+            } catch (RemoteException e) {
+                Log_OC.e(TAG, "Could not get file ids: " + e.getMessage(), e);
+            } finally {
+                if (c != null) {
+                    c.close();
+                }
+            }
+        }
+
+        return ids;
+    }
+
+    /**
+     * @return all stored files of the current account with one of the given paths, in no particular order
+     */
+    public List<OCFile> getFilesByPath(Collection<String> paths) {
+        List<OCFile> files = new ArrayList<>(paths.size());
+
+        for (InSelection chunk : selectPaths(paths)) {
+            Cursor c = null;
+            try {
+                c = queryFiles(null, chunk.selection, chunk.selectionArgs);
+
+                if (c != null && c.moveToFirst()) {
+                    do {
+                        files.add(createFileInstance(c));
+                    } while (c.moveToNext());
+                }
+            } catch (RemoteException e) {
+                Log_OC.e(TAG, "Could not get files: " + e.getMessage(), e);
+            } finally {
+                if (c != null) {
+                    c.close();
+                }
+            }
+        }
+
+        return files;
+    }
+
+    private List<InSelection> selectPaths(Collection<String> paths) {
+        return InSelection.chunked(ProviderTableMeta.FILE_PATH,
+                                   new ArrayList<>(paths),
+                                   ProviderTableMeta.FILE_ACCOUNT_OWNER + "=?",
+                                   account.name);
+    }
+
     public void saveNewFile(OCFile newFile) {
         String remoteParentPath = new File(newFile.getRemotePath()).getParent();
         remoteParentPath = remoteParentPath.endsWith(OCFile.PATH_SEPARATOR) ?
@@ -431,6 +787,28 @@ public class FileDataStorageManager {
                 }
             }
         }
+
+        // keep cached folder tree in sync with what was written; nothing was written if the batch failed
+        if (results != null && folder.fileExists()) {
+            cacheFolder(folder);
+            for (OCFile file : updatedFiles) {
+                // files without id were not inserted
+                if (file.isFolder() && file.fileExists()) {
+                    file.setParentId(folder.getFileId());
+                    cacheFolder(file);
+                }
+            }
+        }
+        for (OCFile file : filesToRemove) {
+            if (results != null && file.isFolder()) {
+                // removed with all descendants
+                FolderEncryptionCache.invalidate(account.name);
+                break;
+            }
+        }
+
+        // favorites of the children may have changed
+        updateKeptInSyncMarker(folder.getFileId());
     }
 
     private ContentValues createContentValueForFile(OCFile folder) {
@@ -469,6 +847,10 @@ public class FileDataStorageManager {
     }
 
     private ContentValues createContentValueForFile(OCFile file, OCFile folder) {
+        return createContentValueForFile(file, folder.getFileId());
+    }
+
+    private ContentValues createContentValueForFile(OCFile file, long parentId) {
         ContentValues cv = new ContentValues();
         cv.put(ProviderTableMeta.FILE_MODIFIED, file.getModificationTimestamp());
         cv.put(ProviderTableMeta.FILE_MODIFIED_AT_LAST_SYNC_FOR_DATA, file.getModificationTimestampAtLastSyncForData());
@@ -477,7 +859,7 @@ public class FileDataStorageManager {
         cv.put(ProviderTableMeta.FILE_CONTENT_TYPE, file.getMimeType());
         cv.put(ProviderTableMeta.FILE_NAME, file.getFileName());
         cv.put(ProviderTableMeta.FILE_ENCRYPTED_NAME, file.getEncryptedFileName());
-        cv.put(ProviderTableMeta.FILE_PARENT, folder.getFileId());
+        cv.put(ProviderTableMeta.FILE_PARENT, parentId);
         cv.put(ProviderTableMeta.FILE_PATH, file.getRemotePath());
         if (!file.isFolder()) {
             cv.put(ProviderTableMeta.FILE_STORAGE_PATH, file.getStoragePath());
@@ -556,6 +938,114 @@ public class FileDataStorageManager {
     }
 
 
+    /**
+     * Removes files and folders, with all their descendants, from the database in a single batch and deletes their
+     * local copies.
+     *
+     * @return files which were removed completely
+     */
+    public List<OCFile> removeFiles(Collection<OCFile> files) {
+        ArrayList<ContentProviderOperation> operations = new ArrayList<>(files.size());
+        List<OCFile> filesToRemove = new ArrayList<>(files.size());
+        String where = ProviderTableMeta.FILE_ACCOUNT_OWNER + AND + ProviderTableMeta.FILE_PATH + "=?";
+
+        for (OCFile file : files) {
+            if (file == null || file.getFileId() == -1) {
+                continue;
+            }
+            // folder URI for recursive deletion
+            Uri uri = ContentUris.withAppendedId(file.isFolder() ? ProviderTableMeta.CONTENT_URI_DIR :
+                                                     ProviderTableMeta.CONTENT_URI_FILE, file.getFileId());
+            operations.add(ContentProviderOperation.newDelete(uri)
+                               .withSelection(where, new String[]{account.name, file.getRemotePath()})
+                               .build());
+            filesToRemove.add(file);
+        }
+
+        ContentProviderResult[] results = null;
+        try {
+            if (getContentResolver() != null) {
+                results = getContentResolver().applyBatch(MainApp.getAuthority(), operations);
+            } else {
+                results = getContentProviderClient().applyBatch(operations);
+            }
+        } catch (OperationApplicationException | RemoteException e) {
+            Log_OC.e(TAG, EXCEPTION_MSG + e.getMessage(), e);
+        }
+
+        if (results == null) {
+            return new ArrayList<>();
+        }
+
+        FolderEncryptionCache.invalidate(account.name);
+
+        List<OCFile> removedFiles = new ArrayList<>(filesToRemove.size());
+        for (int i = 0; i < filesToRemove.size() && i < results.length; i++) {
+            OCFile file = filesToRemove.get(i);
+            Integer deleted = results[i].count;
+            boolean success = deleted != null && deleted > 0;
+
+            if (success) {
+                if (file.isFolder()) {
+                    success = removeLocalFolder(file);
+                } else if (file.isDown() && file.getStoragePath() != null) {
+                    success = new File(file.getStoragePath()).delete();
+                    if (success) {
+                        deleteFileInMediaScan(file.getStoragePath());
+                    }
+                }
+            }
+
+            if (success) {
+                removedFiles.add(file);
+            }
+        }
+
+        return removedFiles;
+    }
+
+    /**
+     * Sets the favorite flag of several files in a single batch and updates the kept-in-sync markers of their
+     * folders. Files not stored in the database, e.g. search results, are skipped.
+     */
+    public void saveFavorites(Collection<OCFile> files, boolean favorite) {
+        ArrayList<ContentProviderOperation> operations = new ArrayList<>(files.size());
+        List<String> paths = new ArrayList<>(files.size());
+        String where = ProviderTableMeta.FILE_ACCOUNT_OWNER + AND + ProviderTableMeta.FILE_PATH + "=?";
+
+        for (OCFile file : files) {
+            operations.add(ContentProviderOperation.newUpdate(ProviderTableMeta.CONTENT_URI)
+                               .withValue(ProviderTableMeta.FILE_FAVORITE, favorite)
+                               .withSelection(where, new String[]{account.name, file.getRemotePath()})
+                               .build());
+            paths.add(file.getRemotePath());
+        }
+
+        if (operations.isEmpty()) {
+            return;
+        }
+
+        try {
+            if (getContentResolver() != null) {
+                getContentResolver().applyBatch(MainApp.getAuthority(), operations);
+            } else {
+                getContentProviderClient().applyBatch(operations);
+            }
+        } catch (OperationApplicationException | RemoteException e) {
+            Log_OC.e(TAG, "Fail to update favorite flag of " + files.size() + " files: " + e.getMessage(), e);
+            return;
+        }
+
+        // parent ids of passed files may be unknown, read them from the database
+        Set<Long> parentIds = new HashSet<>();
+        for (OCFile file : getFilesByPath(paths)) {
+            parentIds.add(file.getParentId());
+        }
+        for (Long parentId : parentIds) {
+            updateKeptInSyncMarker(parentId);
+        }
+    }
+
     public boolean removeFolder(OCFile folder, boolean removeDBData, boolean removeLocalContent) {
         boolean success = true;
         if (folder != null && folder.isFolder()) {
@@ -587,6 +1077,7 @@ public class FileDataStorageManager {
         } else {
             deleted = getContentResolver().delete(folder_uri, where, whereArgs);
         }
+        FolderEncryptionCache.invalidate(account.name);
         return deleted > 0;
     }
 
@@ -642,16 +1133,42 @@ public class FileDataStorageManager {
     /**
      * Updates database and file system for a file or folder that was moved to a different location.
      *
-     * TODO explore better (faster) implementations
      * TODO throw exceptions up !
      */
     public void moveLocalFile(OCFile file, String targetPath, String targetParentPath) {
+        moveLocalFiles(Collections.singletonList(file), Collections.singletonList(targetPath), targetParentPath);
+    }
 
-        if (file != null && file.fileExists() && !OCFile.ROOT_PATH.equals(file.getFileName())) {
+    /**
+     * Updates database and file system for files or folders that were moved into the same folder. The rows of all
+     * moved files and their descendants are updated in a single batch.
+     *
+     * @param files            Moved files, as stored before the move.
+     * @param targetPaths      New remote path of each file, in the same order.
+     * @param targetParentPath Remote path of the folder the files were moved into.
+     */
+    public void moveLocalFiles(List<OCFile> files, List<String> targetPaths, String targetParentPath) {
+        OCFile targetParent = null;
+        ArrayList<ContentProviderOperation> operations = new ArrayList<>();
+        List<OCFile> movedFiles = new ArrayList<>(files.size());
+        List<String> movedTargetPaths = new ArrayList<>(files.size());
+        List<List<String>> originalPathsToTriggerMediaScan = new ArrayList<>(files.size());
+        List<List<String>> newPathsToTriggerMediaScan = new ArrayList<>(files.size());
+        String defaultSavePath = FileStorageUtils.getSavePath(account.name);
+
+        for (int i = 0; i < files.size(); i++) {
+            OCFile file = files.get(i);
+            String targetPath = targetPaths.get(i);
+
+            if (file == null || !file.fileExists() || OCFile.ROOT_PATH.equals(file.getFileName())) {
+                continue;
+            }
 
-            OCFile targetParent = getFileByPath(targetParentPath);
             if (targetParent == null) {
-                throw new IllegalStateException("Parent folder of the target path does not exist!!");
+                targetParent = getFileByPath(targetParentPath);
+                if (targetParent == null) {
+                    throw new IllegalStateException("Parent folder of the target path does not exist!!");
+                }
             }
 
             /// 1. get all the descendants of the moved element in a single QUERY
@@ -679,15 +1196,12 @@ public class FileDataStorageManager {
                 );
             }
 
-            /// 2. prepare a batch of update operations to change all the descendants
-            ArrayList<ContentProviderOperation> operations = new ArrayList<>(c.getCount());
-            String defaultSavePath = FileStorageUtils.getSavePath(account.name);
-            List<String> originalPathsToTriggerMediaScan = new ArrayList<>();
-            List<String> newPathsToTriggerMediaScan = new ArrayList<>();
-            if (c.moveToFirst()) {
+            /// 2. prepare update operations to change all the descendants
+            List<String> originalMediaPaths = new ArrayList<>();
+            List<String> newMediaPaths = new ArrayList<>();
+            if (c != null && c.moveToFirst()) {
                 int lengthOfOldPath = file.getRemotePath().length();
                 int lengthOfOldStoragePath = defaultSavePath.length() + lengthOfOldPath;
-                String[] fileId = new String[1];
                 do {
                     ContentValues cv = new ContentValues(); // keep construction in the loop
                     OCFile child = createFileInstance(c);
@@ -703,40 +1217,57 @@ public class FileDataStorageManager {
                         cv.put(ProviderTableMeta.FILE_STORAGE_PATH, targetLocalPath);
 
                         if (MimeTypeUtil.isMedia(child.getMimeType())) {
-                            originalPathsToTriggerMediaScan.add(child.getStoragePath());
-                            newPathsToTriggerMediaScan.add(targetLocalPath);
+                            originalMediaPaths.add(child.getStoragePath());
+                            newMediaPaths.add(targetLocalPath);
                         }
 
                     }
                     if (child.getRemotePath().equals(file.getRemotePath())) {
                         cv.put(ProviderTableMeta.FILE_PARENT, targetParent.getFileId());
                     }
-                    fileId[0] = String.valueOf(child.getFileId());
                     operations.add(
                             ContentProviderOperation.newUpdate(ProviderTableMeta.CONTENT_URI).
                                     withValues(cv).
-                                    withSelection(ProviderTableMeta._ID + "=?", fileId)
+                                    withSelection(ProviderTableMeta._ID + "=?",
+                                                  new String[]{String.valueOf(child.getFileId())})
                                     .build());
 
                 } while (c.moveToNext());
             }
-            c.close();
+            if (c != null) {
+                c.close();
+            }
 
-            /// 3. apply updates in batch
-            try {
-                if (getContentResolver() != null) {
-                    getContentResolver().applyBatch(MainApp.getAuthority(), operations);
-                } else {
-                    getContentProviderClient().applyBatch(operations);
-                }
+            movedFiles.add(file);
+            movedTargetPaths.add(targetPath);
+            originalPathsToTriggerMediaScan.add(originalMediaPaths);
+            newPathsToTriggerMediaScan.add(newMediaPaths);
+        }
 
-            } catch (Exception e) {
-                Log_OC.e(TAG, "Fail to update " + file.getFileId() + " and descendants in database", e);
+        if (movedFiles.isEmpty()) {
+            return;
+        }
+
+        // moved folders get new ancestors
+        FolderEncryptionCache.invalidate(account.name);
+
+        /// 3. apply updates in batch
+        try {
+            if (getContentResolver() != null) {
+                getContentResolver().applyBatch(MainApp.getAuthority(), operations);
+            } else {
+                getContentProviderClient().applyBatch(operations);
             }
 
-            /// 4. move in local file system
+        } catch (Exception e) {
+            Log_OC.e(TAG, "Fail to update " + movedFiles.size() + " moved files and descendants in database", e);
+        }
+
+        /// 4. move in local file system
+        for (int i = 0; i < movedFiles.size(); i++) {
+            OCFile file = movedFiles.get(i);
             String originalLocalPath = FileStorageUtils.getDefaultSavePathFor(account.name, file);
-            String targetLocalPath = defaultSavePath + targetPath;
+            String targetLocalPath = defaultSavePath + movedTargetPaths.get(i);
             File localFile = new File(originalLocalPath);
             boolean renamed = false;
             if (localFile.exists()) {
@@ -749,92 +1280,83 @@ public class FileDataStorageManager {
             }
 
             if (renamed) {
-                Iterator<String> it = originalPathsToTriggerMediaScan.iterator();
-                while (it.hasNext()) {
+                for (String path : originalPathsToTriggerMediaScan.get(i)) {
                     // Notify MediaScanner about removed file
-                    deleteFileInMediaScan(it.next());
+                    deleteFileInMediaScan(path);
                 }
-                it = newPathsToTriggerMediaScan.iterator();
-                while (it.hasNext()) {
+                for (String path : newPathsToTriggerMediaScan.get(i)) {
                     // Notify MediaScanner about new file/folder
-                    triggerMediaScan(it.next());
+                    triggerMediaScan(path);
                 }
             }
         }
     }
 
     public void copyLocalFile(OCFile file, String targetPath) {
-
-        if (file != null && file.fileExists() && !OCFile.ROOT_PATH.equals(file.getFileName())) {
-            String localPath = FileStorageUtils.getDefaultSavePathFor(account.name, file);
-            File localFile = new File(localPath);
-            boolean copied = false;
-            String defaultSavePath = FileStorageUtils.getSavePath(account.name);
-            if (localFile.exists()) {
-                File targetFile = new File(defaultSavePath + targetPath);
-                File targetFolder = targetFile.getParentFile();
-                if (!targetFolder.exists() && !targetFolder.mkdirs()) {
-                    Log_OC.e(TAG, "Unable to create parent folder " + targetFolder.getAbsolutePath());
-                }
-                copied = FileStorageUtils.copyFile(localFile, targetFile);
-            }
-            Log_OC.d(TAG, "Local file COPIED : " + copied);
-        }
+        copyLocalFiles(Collections.singletonList(file), Collections.singletonList(targetPath));
     }
 
-    public void migrateStoredFiles(String srcPath, String dstPath)
-            throws RemoteException, OperationApplicationException {
-        Cursor cursor;
-        try {
-            if (getContentResolver() != null) {
-                cursor = getContentResolver().query(ProviderTableMeta.CONTENT_URI_FILE,
-                        null,
-                        ProviderTableMeta.FILE_STORAGE_PATH + " IS NOT NULL",
-                        null,
-                        null);
+    /**
+     * Copies the downloaded contents of files that were copied on the server. Each target folder is created once.
+     *
+     * @param files       Copied files.
+     * @param targetPaths New remote path of each file, in the same order.
+     * @return files whose downloaded content, if any, was copied
+     */
+    public List<OCFile> copyLocalFiles(List<OCFile> files, List<String> targetPaths) {
+        List<OCFile> copiedFiles = new ArrayList<>(files.size());
+        Set<File> targetFolders = new HashSet<>();
+        String defaultSavePath = FileStorageUtils.getSavePath(account.name);
 
-            } else {
-                cursor = getContentProviderClient().query(ProviderTableMeta.CONTENT_URI_FILE,
-                        new String[]{ProviderTableMeta._ID, ProviderTableMeta.FILE_STORAGE_PATH},
-                        ProviderTableMeta.FILE_STORAGE_PATH + " IS NOT NULL",
-                        null,
-                        null);
+        for (int i = 0; i < files.size(); i++) {
+            OCFile file = files.get(i);
+            if (file == null || !file.fileExists() || OCFile.ROOT_PATH.equals(file.getFileName())) {
+                copiedFiles.add(file);
+                continue;
             }
-        } catch (RemoteException e) {
-            Log_OC.e(TAG, e.getMessage(), e);
-            throw e;
-        }
 
-        ArrayList<ContentProviderOperation> operations = new ArrayList<>(cursor.getCount());
-        if (cursor.moveToFirst()) {
-            String[] fileId = new String[1];
-            do {
-                ContentValues cv = new ContentValues();
-                fileId[0] = String.valueOf(cursor.getLong(cursor.getColumnIndex(ProviderTableMeta._ID)));
-                String oldFileStoragePath =
-                        cursor.getString(cursor.getColumnIndex(ProviderTableMeta.FILE_STORAGE_PATH));
+            File localFile = new File(FileStorageUtils.getDefaultSavePathFor(account.name, file));
+            if (!localFile.exists()) {
+                copiedFiles.add(file);
+                continue;
+            }
 
-                if (oldFileStoragePath.startsWith(srcPath)) {
+            File targetFile = new File(defaultSavePath + targetPaths.get(i));
+            File targetFolder = targetFile.getParentFile();
+            if (targetFolders.add(targetFolder) && !targetFolder.exists() && !targetFolder.mkdirs()) {
+                Log_OC.e(TAG, "Unable to create parent folder " + targetFolder.getAbsolutePath());
+            }
 
-                    cv.put(ProviderTableMeta.FILE_STORAGE_PATH, oldFileStoragePath.replaceFirst(srcPath, dstPath));
+            if (FileStorageUtils.copyFile(localFile, targetFile)) {
+                copiedFiles.add(file);
+            } else {
+                Log_OC.e(TAG, "Local file NOT COPIED: " + localFile.getAbsolutePath());
+            }
+        }
 
-                    operations.add(
-                            ContentProviderOperation.newUpdate(ProviderTableMeta.CONTENT_URI).
-                                    withValues(cv).
-                                    withSelection(ProviderTableMeta._ID + "=?", fileId)
-                                    .build());
-                }
+        Log_OC.d(TAG, "Local files COPIED: " + copiedFiles.size() + " of " + files.size());
+        return copiedFiles;
+    }
 
-            } while (cursor.moveToNext());
-        }
-        cursor.close();
+    public void migrateStoredFiles(String srcPath, String dstPath) throws RemoteException {
+        ContentValues cv = new ContentValues();
+        cv.put(ProviderTableMeta.FILE_STORAGE_PATH, dstPath);
+        String[] oldPrefix = new String[]{srcPath};
 
-        /// 3. apply updates in batch
+        int updated;
         if (getContentResolver() != null) {
-            getContentResolver().applyBatch(MainApp.getAuthority(), operations);
+            updated = getContentResolver().update(ProviderTableMeta.CONTENT_URI_STORAGE_PATH_PREFIX,
+                                                  cv,
+                                                  null,
+                                                  oldPrefix);
         } else {
-            getContentProviderClient().applyBatch(operations);
+            updated = getContentProviderClient().update(ProviderTableMeta.CONTENT_URI_STORAGE_PATH_PREFIX,
+                                                        cv,
+                                                        null,
+                                                        oldPrefix);
         }
+
+        Log_OC.d(TAG, "Migrated storage path of " + updated + " files");
     }
 
     private List<OCFile> getFolderContent(long parentId, boolean onlyOnDevice) {
@@ -946,17 +1468,6 @@ public class FileDataStorageManager {
         return c;
     }
 
-    @Nullable
-    private OCFile createFileInstanceFromVirtual(Cursor c) {
-        OCFile file = null;
-        if (c != null) {
-            long fileId = c.getLong(c.getColumnIndex(ProviderTableMeta.VIRTUAL_OCFILE_ID));
-            file = getFileById(fileId);
-        }
-
-        return file;
-    }
-
     private OCFile createFileInstance(Cursor c) {
         OCFile file = null;
         if (c != null) {
@@ -2206,59 +2717,72 @@ public class FileDataStorageManager {
         }
     }
 
+    /**
+     * Loads files of a virtual folder with a single joined query, ordered by the database. Photos are ordered by
+     * modification date, newest first; all other types folders first, then by name.
+     *
+     * @param onlyImages only return images as of {@code MimeTypeUtil.isImage(file)}. The query preselects files with
+     *                   an image content type or a common image extension, the file name based type guess of
+     *                   isImage decides after the query.
+     */
     public List<OCFile> getVirtualFolderContent(VirtualFolderType type, boolean onlyImages) {
         List<OCFile> ocFiles = new ArrayList<>();
-        Uri req_uri = ProviderTableMeta.CONTENT_URI_VIRTUAL;
+        Uri req_uri = ProviderTableMeta.CONTENT_URI_VIRTUAL_FILES;
+
+        StringBuilder selection = new StringBuilder(ProviderTableMeta.VIRTUAL_TABLE_NAME + "."
+                                                        + ProviderTableMeta.VIRTUAL_TYPE + AND
+                                                        + ProviderTableMeta.FILE_ACCOUNT_OWNER + "=?");
+        List<String> selectionArgs = new ArrayList<>();
+        selectionArgs.add(String.valueOf(type));
+        selectionArgs.add(account.name);
+
+        if (onlyImages) {
+            selection.append(" AND (").append(ProviderTableMeta.FILE_CONTENT_TYPE).append(" LIKE ?");
+            selectionArgs.add("image/%");
+            for (String extension : IMAGE_EXTENSIONS) {
+                selection.append(" OR ").append(ProviderTableMeta.FILE_PATH).append(" LIKE ?");
+                selectionArgs.add("%." + extension);
+            }
+            selection.append(')');
+        }
+
+        String sortOrder;
+
+        if (VirtualFolderType.PHOTOS == type) {
+            sortOrder = ProviderTableMeta.FILE_MODIFIED + " DESC";
+        } else {
+            sortOrder = "(" + ProviderTableMeta.FILE_CONTENT_TYPE + "='" + MimeType.DIRECTORY + "') DESC, "
+                + ProviderTableMeta.FILE_TABLE_NAME + "." + ProviderTableMeta.FILE_DEFAULT_SORT_ORDER;
+        }
+
         Cursor c;
+        String[] args = selectionArgs.toArray(new String[0]);
 
         if (getContentProviderClient() != null) {
             try {
-                c = getContentProviderClient().query(
-                        req_uri,
-                        null,
-                        ProviderTableMeta.VIRTUAL_TYPE + "=?",
-                        new String[]{String.valueOf(type)},
-                        null
-                );
+                c = getContentProviderClient().query(req_uri, null, selection.toString(), args, sortOrder);
             } catch (RemoteException e) {
                 Log_OC.e(TAG, e.getMessage(), e);
                 return ocFiles;
             }
         } else {
-            c = getContentResolver().query(
-                    req_uri,
-                    null,
-                    ProviderTableMeta.VIRTUAL_TYPE + "=?",
-                    new String[]{String.valueOf(type)},
-                    null
-            );
+            c = getContentResolver().query(req_uri, null, selection.toString(), args, sortOrder);
         }
 
         if (c != null) {
             if (c.moveToFirst()) {
                 do {
-                    OCFile child = createFileInstanceFromVirtual(c);
-
-                    if (child != null) {
-                        ocFiles.add(child);
+                    OCFile file = createFileInstance(c);
+                    if (!onlyImages || MimeTypeUtil.isImage(file)) {
+                        ocFiles.add(file);
                     }
                 } while (c.moveToNext());
             }
             c.close();
         }
 
-        if (onlyImages) {
-            List<OCFile> temp = new ArrayList<>();
-
-            for (OCFile file : ocFiles) {
-                if (MimeTypeUtil.isImage(file)) {
-                    temp.add(file);
-                }
-            }
-            ocFiles = temp;
-        }
-
-        if (ocFiles.size() > 0) {
+        if (VirtualFolderType.PHOTOS != type && ocFiles.size() > 0) {
+            // natural ordering of names cannot be expressed in SQL
             Collections.sort(ocFiles);
         }
 
@@ -2266,6 +2790,8 @@ public class FileDataStorageManager {
     }
 
     public void deleteAllFiles() {
+        FolderEncryptionCache.invalidate(account.name);
+
         String where = ProviderTableMeta.FILE_ACCOUNT_OWNER + "= ? AND " +
             ProviderTableMeta.FILE_PATH + "= ?";
         String[] whereArgs = new String[]{account.name, OCFile.ROOT_PATH};
@@ -0,0 +1,85 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.owncloud.android.datamodel;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Process-wide, per account tree of known folders with their parent and own encryption flag, so that checking for an
+ * encrypted ancestor does not need one database query per level. Kept up to date by {@link FileDataStorageManager}
+ * whenever it writes folders.
+ *
+ * Each tree keeps the {@link #MAX_FOLDERS_PER_ACCOUNT} most recently used folders; the ancestor check reads evicted
+ * folders from the database again.
+ */
+final class FolderEncryptionCache {
+
+    static final class Node {
+        final long parentId;
+        final boolean encrypted;
+
+        Node(long parentId, boolean encrypted) {
+            this.parentId = parentId;
+            this.encrypted = encrypted;
+        }
+    }
+
+    static final int MAX_FOLDERS_PER_ACCOUNT = 10000;
+
+    private static final Map<String, Map<Long, Node>> trees = new HashMap<>();
+
+    private FolderEncryptionCache() {
+        // utility class -> private constructor
+    }
+
+    static synchronized Node get(String accountName, long folderId) {
+        Map<Long, Node> tree = trees.get(accountName);
+        return tree == null ? null : tree.get(folderId);
+    }
+
+    static synchronized void put(String accountName, long folderId, long parentId, boolean encrypted) {
+        Map<Long, Node> tree = trees.get(accountName);
+
+        if (tree == null) {
+            tree = new LinkedHashMap<Long, Node>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Node> eldest) {
+                    return size() > MAX_FOLDERS_PER_ACCOUNT;
+                }
+            };
+            trees.put(accountName, tree);
+        }
+        tree.put(folderId, new Node(parentId, encrypted));
+    }
+
+    static synchronized void remove(String accountName, long folderId) {
+        Map<Long, Node> tree = trees.get(accountName);
+
+        if (tree != null) {
+            tree.remove(folderId);
+        }
+    }
+
+    static synchronized void invalidate(String accountName) {
+        trees.remove(accountName);
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.owncloud.android.datamodel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Selection of the rows with one of many values in a column, as {@code column IN (?,…)}. Values are split into
+ * chunks, so that each query stays below the SQLite limit of bound parameters.
+ */
+final class InSelection {
+
+    static final int MAX_VALUES_PER_QUERY = 500;
+
+    final String selection;
+    final String[] selectionArgs;
+
+    private InSelection(String selection, String... selectionArgs) {
+        this.selection = selection;
+        this.selectionArgs = selectionArgs;
+    }
+
+    /**
+     * @param column    column to match the values against
+     * @param values    values to select, converted with {@link String#valueOf(Object)}
+     * @param selection additional selection, combined with AND, or null
+     * @param args      arguments of the additional selection
+     * @return one selection per chunk of values, none if there are no values
+     */
+    static List<InSelection> chunked(String column,
+                                     List<?> values,
+                                     @Nullable String selection,
+                                     String... args) {
+        List<InSelection> chunks = new ArrayList<>(values.size() / MAX_VALUES_PER_QUERY + 1);
+        String prefix = (selection == null ? "" : selection + " AND ") + column + " IN (";
+
+        for (int start = 0; start < values.size(); start += MAX_VALUES_PER_QUERY) {
+            int end = Math.min(start + MAX_VALUES_PER_QUERY, values.size());
+            String[] selectionArgs = new String[args.length + end - start];
+            System.arraycopy(args, 0, selectionArgs, 0, args.length);
+
+            StringBuilder chunkSelection = new StringBuilder(prefix.length() + (end - start) * 2);
+            chunkSelection.append(prefix);
+            for (int i = start; i < end; i++) {
+                chunkSelection.append(i == start ? "?" : ",?");
+                selectionArgs[args.length + i - start] = String.valueOf(values.get(i));
+            }
+            chunkSelection.append(')');
+
+            chunks.add(new InSelection(chunkSelection.toString(), selectionArgs));
+        }
+
+        return chunks;
+    }
+}
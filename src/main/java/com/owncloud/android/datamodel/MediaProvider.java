@@ -37,7 +37,7 @@ import com.owncloud.android.utils.ThemeUtils;
 
 import java.io.File;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -51,14 +51,14 @@ public final class MediaProvider {
 
     // fixed query parameters
     private static final Uri IMAGES_MEDIA_URI = android.provider.MediaStore.Images.Media.EXTERNAL_CONTENT_URI;
-    private static final String[] FILE_PROJECTION = new String[]{MediaStore.MediaColumns.DATA};
-    private static final String IMAGES_FILE_SELECTION = MediaStore.Images.Media.BUCKET_ID + "=";
     private static final String[] IMAGES_FOLDER_PROJECTION = {MediaStore.Images.Media.BUCKET_ID,
-            MediaStore.Images.Media.BUCKET_DISPLAY_NAME};
-    private static final String IMAGES_FOLDER_SORT_ORDER = MediaStore.Images.Media.BUCKET_DISPLAY_NAME + " ASC";
+            MediaStore.Images.Media.BUCKET_DISPLAY_NAME, MediaStore.MediaColumns.DATA};
+    private static final String IMAGES_FOLDER_SORT_ORDER = MediaStore.Images.Media.DATE_TAKEN + " DESC";
 
+    private static final Uri VIDEOS_MEDIA_URI = MediaStore.Video.Media.EXTERNAL_CONTENT_URI;
     private static final String[] VIDEOS_FOLDER_PROJECTION = {MediaStore.Video.Media.BUCKET_ID,
-            MediaStore.Video.Media.BUCKET_DISPLAY_NAME};
+            MediaStore.Video.Media.BUCKET_DISPLAY_NAME, MediaStore.MediaColumns.DATA};
+    private static final String VIDEOS_FOLDER_SORT_ORDER = MediaStore.Video.Media.DATE_TAKEN + " DESC";
 
     private MediaProvider() {
         // utility class -> private constructor
@@ -77,84 +77,87 @@ public final class MediaProvider {
         checkPermissions(activity);
 
         // query media/image folders
-        Cursor cursorFolders = null;
+        Cursor cursor = null;
         if ((activity != null && PermissionUtil.checkSelfPermission(activity.getApplicationContext(),
                 Manifest.permission.WRITE_EXTERNAL_STORAGE)) || getWithoutActivity) {
-            cursorFolders = contentResolver.query(IMAGES_MEDIA_URI, IMAGES_FOLDER_PROJECTION, null, null,
+            cursor = contentResolver.query(IMAGES_MEDIA_URI, IMAGES_FOLDER_PROJECTION, null, null,
                     IMAGES_FOLDER_SORT_ORDER);
         }
 
-        List<MediaFolder> mediaFolders = new ArrayList<>();
-        String dataPath = MainApp.getStoragePath() + File.separator + MainApp.getDataFolder();
-
-        if (cursorFolders != null) {
-            String fileSortOrder = MediaStore.Images.Media.DATE_TAKEN + " DESC LIMIT " + itemLimit;
-            Cursor cursorImages;
-
-            Map<String, String> uniqueFolders = new HashMap<>();
+        return collectMediaFolders(cursor, MediaFolderType.IMAGE, itemLimit);
+    }
 
-            // since sdk 29 we have to manually distinct on bucket id
-            while (cursorFolders.moveToNext()) {
-                uniqueFolders.put(cursorFolders.getString(
-                    cursorFolders.getColumnIndex(MediaStore.Images.Media.BUCKET_ID)),
-                                  cursorFolders.getString(
-                                      cursorFolders.getColumnIndex(MediaStore.Images.Media.BUCKET_DISPLAY_NAME))
-                );
-            }
-            cursorFolders.close();
+    public static List<MediaFolder> getVideoFolders(ContentResolver contentResolver, int itemLimit,
+                                                    @Nullable final Activity activity, boolean getWithoutActivity) {
+        // check permissions
+        checkPermissions(activity);
 
-            for (Map.Entry<String, String> folder : uniqueFolders.entrySet()) {
-                MediaFolder mediaFolder = new MediaFolder();
+        // query media/video folders
+        Cursor cursor = null;
+        if ((activity != null && PermissionUtil.checkSelfPermission(activity.getApplicationContext(),
+                Manifest.permission.WRITE_EXTERNAL_STORAGE)) || getWithoutActivity) {
+            cursor = contentResolver.query(VIDEOS_MEDIA_URI, VIDEOS_FOLDER_PROJECTION, null, null,
+                    VIDEOS_FOLDER_SORT_ORDER);
+        }
 
-                mediaFolder.type = MediaFolderType.IMAGE;
-                mediaFolder.folderName = folder.getValue();
-                mediaFolder.filePaths = new ArrayList<>();
+        return collectMediaFolders(cursor, MediaFolderType.VIDEO, itemLimit);
+    }
 
-                // query images
-                cursorImages = contentResolver.query(
-                    IMAGES_MEDIA_URI,
-                    FILE_PROJECTION,
-                    IMAGES_FILE_SELECTION + folder.getKey(),
-                    null,
-                    fileSortOrder
-                );
-                Log.d(TAG, "Reading images for " + mediaFolder.folderName);
+    /**
+     * Groups all media files, newest first, into their folders in a single pass: the folders get their number of
+     * files and the paths of the newest files, up to the item limit.
+     *
+     * Paths are not checked for existence, as MediaStore may know of deleted files for a while; the thumbnails of
+     * missing files are shown as placeholders.
+     *
+     * @param cursor columns bucket id, bucket name and path of media files, newest first; closed when done
+     */
+    private static List<MediaFolder> collectMediaFolders(@Nullable Cursor cursor, MediaFolderType type,
+                                                         int itemLimit) {
+        List<MediaFolder> mediaFolders = new ArrayList<>();
+        if (cursor == null) {
+            return mediaFolders;
+        }
 
-                if (cursorImages != null) {
-                    String filePath;
+        // since sdk 29 we have to manually distinct on bucket id
+        Map<String, MediaFolder> folders = new LinkedHashMap<>();
+        try {
+            while (cursor.moveToNext()) {
+                String bucketId = cursor.getString(0);
+                MediaFolder mediaFolder = folders.get(bucketId);
+                if (mediaFolder == null) {
+                    mediaFolder = new MediaFolder();
+                    mediaFolder.type = type;
+                    mediaFolder.folderName = cursor.getString(1);
+                    mediaFolder.filePaths = new ArrayList<>();
+                    folders.put(bucketId, mediaFolder);
+                }
 
-                    while (cursorImages.moveToNext()) {
-                        filePath = cursorImages.getString(cursorImages.getColumnIndexOrThrow(
-                            MediaStore.MediaColumns.DATA));
+                mediaFolder.numberOfFiles++;
 
-                        // check if valid path and file exists
-                        if (isValidAndExistingFilePath(filePath)) {
+                if (mediaFolder.filePaths.size() < itemLimit || mediaFolder.absolutePath == null) {
+                    String filePath = cursor.getString(2);
+                    if (isValidFilePath(filePath)) {
+                        if (mediaFolder.filePaths.size() < itemLimit) {
                             mediaFolder.filePaths.add(filePath);
+                        }
+                        if (mediaFolder.absolutePath == null) {
                             mediaFolder.absolutePath = filePath.substring(0, filePath.lastIndexOf('/'));
                         }
                     }
-                    cursorImages.close();
-
-                    // only do further work if folder is not within the Nextcloud app itself
-                    if (isFolderOutsideOfAppPath(dataPath, mediaFolder)) {
-
-                        // count images
-                        Cursor count = contentResolver.query(
-                            IMAGES_MEDIA_URI,
-                            FILE_PROJECTION,
-                            IMAGES_FILE_SELECTION + folder.getKey(),
-                            null,
-                            null);
-
-                        if (count != null) {
-                            mediaFolder.numberOfFiles = count.getCount();
-                            count.close();
-                        }
-
-                        mediaFolders.add(mediaFolder);
-                    }
                 }
             }
+        } finally {
+            cursor.close();
+        }
+        Log.d(TAG, "Read " + folders.size() + " " + type + " folders");
+
+        // only show folders that are not within the Nextcloud app itself
+        String dataPath = MainApp.getStoragePath() + File.separator + MainApp.getDataFolder();
+        for (MediaFolder mediaFolder : folders.values()) {
+            if (isFolderOutsideOfAppPath(dataPath, mediaFolder)) {
+                mediaFolders.add(mediaFolder);
+            }
         }
 
         return mediaFolders;
@@ -164,8 +167,8 @@ public final class MediaProvider {
         return mediaFolder.absolutePath != null && !mediaFolder.absolutePath.startsWith(dataPath);
     }
 
-    private static boolean isValidAndExistingFilePath(String filePath) {
-        return filePath != null && filePath.lastIndexOf('/') > 0 && new File(filePath).exists();
+    private static boolean isValidFilePath(String filePath) {
+        return filePath != null && filePath.lastIndexOf('/') > 0;
     }
 
     private static void checkPermissions(@Nullable Activity activity) {
@@ -189,90 +192,4 @@ public final class MediaProvider {
             }
         }
     }
-
-    public static List<MediaFolder> getVideoFolders(ContentResolver contentResolver, int itemLimit,
-                                                    @Nullable final Activity activity, boolean getWithoutActivity) {
-        // check permissions
-        checkPermissions(activity);
-
-        // query media/image folders
-        Cursor cursorFolders = null;
-        if ((activity != null && PermissionUtil.checkSelfPermission(activity.getApplicationContext(),
-                Manifest.permission.WRITE_EXTERNAL_STORAGE)) || getWithoutActivity) {
-            cursorFolders = contentResolver.query(MediaStore.Video.Media.EXTERNAL_CONTENT_URI, VIDEOS_FOLDER_PROJECTION,
-                    null, null, null);
-        }
-
-        List<MediaFolder> mediaFolders = new ArrayList<>();
-        String dataPath = MainApp.getStoragePath() + File.separator + MainApp.getDataFolder();
-
-        if (cursorFolders != null) {
-            String fileSortOrder = MediaStore.Video.Media.DATE_TAKEN + " DESC LIMIT " + itemLimit;
-            Cursor cursorVideos;
-
-            Map<String, String> uniqueFolders = new HashMap<>();
-
-            // since sdk 29 we have to manually distinct on bucket id
-            while (cursorFolders.moveToNext()) {
-                uniqueFolders.put(cursorFolders.getString(
-                    cursorFolders.getColumnIndex(MediaStore.Video.Media.BUCKET_ID)),
-                                  cursorFolders.getString(
-                                      cursorFolders.getColumnIndex(MediaStore.Video.Media.BUCKET_DISPLAY_NAME))
-                );
-            }
-            cursorFolders.close();
-
-            for (Map.Entry<String, String> folder : uniqueFolders.entrySet()) {
-                MediaFolder mediaFolder = new MediaFolder();
-                mediaFolder.type = MediaFolderType.VIDEO;
-                mediaFolder.folderName = folder.getValue();
-                mediaFolder.filePaths = new ArrayList<>();
-
-                // query videos
-                cursorVideos = contentResolver.query(
-                    MediaStore.Video.Media.EXTERNAL_CONTENT_URI,
-                    FILE_PROJECTION,
-                    MediaStore.Video.Media.BUCKET_ID + "=" + folder.getKey(),
-                    null,
-                    fileSortOrder);
-                Log.d(TAG, "Reading videos for " + mediaFolder.folderName);
-
-                if (cursorVideos != null) {
-                    String filePath;
-                    while (cursorVideos.moveToNext()) {
-                        filePath = cursorVideos.getString(cursorVideos.getColumnIndexOrThrow(
-                            MediaStore.MediaColumns.DATA));
-
-                        if (filePath != null) {
-                            mediaFolder.filePaths.add(filePath);
-                            mediaFolder.absolutePath = filePath.substring(0, filePath.lastIndexOf('/'));
-                        }
-                    }
-                    cursorVideos.close();
-
-                    // only do further work if folder is not within the Nextcloud app itself
-                    if (isFolderOutsideOfAppPath(dataPath, mediaFolder)) {
-
-                        // count images
-                        Cursor count = contentResolver.query(
-                            MediaStore.Video.Media.EXTERNAL_CONTENT_URI,
-                            FILE_PROJECTION,
-                            MediaStore.Video.Media.BUCKET_ID + "=" + folder.getKey(),
-                            null,
-                            null);
-
-                        if (count != null) {
-                            mediaFolder.numberOfFiles = count.getCount();
-                            count.close();
-                        }
-
-                        mediaFolders.add(mediaFolder);
-                    }
-                }
-            }
-            cursorFolders.close();
-        }
-
-        return mediaFolders;
-    }
 }
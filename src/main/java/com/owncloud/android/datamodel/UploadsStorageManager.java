@@ -28,6 +28,9 @@ import android.content.ContentResolver;
 import android.content.ContentValues;
 import android.database.Cursor;
 import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.TextUtils;
 
 import com.nextcloud.client.account.CurrentAccountProvider;
 import com.nextcloud.client.account.User;
@@ -39,8 +42,14 @@ import com.owncloud.android.lib.common.operations.RemoteOperationResult;
 import com.owncloud.android.lib.common.utils.Log_OC;
 import com.owncloud.android.operations.UploadFileOperation;
 
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Observable;
+import java.util.Set;
 
 import androidx.annotation.Nullable;
 
@@ -54,9 +63,30 @@ public class UploadsStorageManager extends Observable {
     private static final String AND = " AND ";
     private static final int SINGLE_RESULT = 1;
 
+    private static final String FINISHED_FOR_ACCOUNT = ProviderTableMeta.UPLOADS_STATUS + "==" +
+        UploadStatus.UPLOAD_SUCCEEDED.value + AND + ProviderTableMeta.UPLOADS_ACCOUNT_NAME + "== ?";
+
+    private static final String FAILED_BUT_NOT_DELAYED_FOR_ACCOUNT = ProviderTableMeta.UPLOADS_STATUS + "==" +
+        UploadStatus.UPLOAD_FAILED.value +
+        AND + ProviderTableMeta.UPLOADS_LAST_RESULT + "<>" + UploadResult.DELAYED_FOR_WIFI.getValue() +
+        AND + ProviderTableMeta.UPLOADS_LAST_RESULT + "<>" + UploadResult.LOCK_FAILED.getValue() +
+        AND + ProviderTableMeta.UPLOADS_LAST_RESULT + "<>" + UploadResult.DELAYED_FOR_CHARGING.getValue() +
+        AND + ProviderTableMeta.UPLOADS_LAST_RESULT + "<>" + UploadResult.DELAYED_IN_POWER_SAVE_MODE.getValue() +
+        AND + ProviderTableMeta.UPLOADS_ACCOUNT_NAME + "== ?";
+
+    /**
+     * Minimum time between two notifications of the observers, about one frame.
+     */
+    private static final long NOTIFICATION_INTERVAL_MILLIS = 16;
+
     private ContentResolver mContentResolver;
     private CurrentAccountProvider currentAccountProvider;
 
+    private final Handler mainThreadHandler = new Handler(Looper.getMainLooper());
+    private final Set<Long> pendingChangedUploadIds = new HashSet<>();
+    private boolean pendingChangeOfAllUploads;
+    private boolean notificationScheduled;
+
     public UploadsStorageManager(
         CurrentAccountProvider currentAccountProvider,
         ContentResolver contentResolver
@@ -87,6 +117,7 @@ public class UploadsStorageManager extends Observable {
         cv.put(ProviderTableMeta.UPLOADS_NAME_COLLISION_POLICY, ocUpload.getNameCollisionPolicy().serialize());
         cv.put(ProviderTableMeta.UPLOADS_IS_CREATE_REMOTE_FOLDER, ocUpload.isCreateRemoteFolder() ? 1 : 0);
         cv.put(ProviderTableMeta.UPLOADS_LAST_RESULT, ocUpload.getLastResult().getValue());
+        cv.put(ProviderTableMeta.UPLOADS_UPLOAD_END_TIMESTAMP, ocUpload.getUploadEndTimestamp());
         cv.put(ProviderTableMeta.UPLOADS_CREATED_BY, ocUpload.getCreatedBy());
         cv.put(ProviderTableMeta.UPLOADS_IS_WHILE_CHARGING_ONLY, ocUpload.isWhileChargingOnly() ? 1 : 0);
         cv.put(ProviderTableMeta.UPLOADS_IS_WIFI_ONLY, ocUpload.isUseWifiOnly() ? 1 : 0);
@@ -100,7 +131,7 @@ public class UploadsStorageManager extends Observable {
         } else {
             long new_id = Long.parseLong(result.getPathSegments().get(1));
             ocUpload.setUploadId(new_id);
-            notifyObserversNow();
+            notifyUploadsChanged(Collections.singleton(new_id));
             return new_id;
         }
     }
@@ -134,47 +165,15 @@ public class UploadsStorageManager extends Observable {
         if (result != SINGLE_RESULT) {
             Log_OC.e(TAG, "Failed to update item " + ocUpload.getLocalPath() + " into upload db.");
         } else {
-            notifyObserversNow();
+            notifyUploadsChanged(Collections.singleton(ocUpload.getUploadId()));
         }
 
         return result;
     }
 
-    private int updateUploadInternal(Cursor c, UploadStatus status, UploadResult result, String remotePath,
-                                     String localPath) {
-
-        int r = 0;
-        while (c.moveToNext()) {
-            // read upload object and update
-            OCUpload upload = createOCUploadFromCursor(c);
-
-            String path = c.getString(c.getColumnIndex(ProviderTableMeta.UPLOADS_LOCAL_PATH));
-            Log_OC.v(
-                    TAG,
-                    "Updating " + path + " with status:" + status + " and result:"
-                            + (result == null ? "null" : result.toString()) + " (old:"
-                            + upload.toFormattedString() + ")");
-
-            upload.setUploadStatus(status);
-            upload.setLastResult(result);
-            upload.setRemotePath(remotePath);
-            if (localPath != null) {
-                upload.setLocalPath(localPath);
-            }
-            if (status == UploadStatus.UPLOAD_SUCCEEDED) {
-                upload.setUploadEndTimestamp(Calendar.getInstance().getTimeInMillis());
-            }
-
-            // store update upload object to db
-            r = updateUpload(upload);
-
-        }
-
-        return r;
-    }
-
     /**
-     * Update upload status of file uniquely referenced by id.
+     * Update upload status of file uniquely referenced by id. Only the changed columns are written, the row is not
+     * read before.
      *
      * @param id         upload id.
      * @param status     new status.
@@ -185,40 +184,77 @@ public class UploadsStorageManager extends Observable {
      */
     private int updateUploadStatus(long id, UploadStatus status, UploadResult result, String remotePath,
                                    String localPath) {
-        //Log_OC.v(TAG, "Updating "+filepath+" with uploadStatus="+status +" and result="+result);
+        Log_OC.v(TAG, "Updating upload " + id + " with status:" + status + " and result:" + result);
 
-        int returnValue = 0;
-        Cursor c = getDB().query(
-                ProviderTableMeta.CONTENT_URI_UPLOADS,
-                null,
-                ProviderTableMeta._ID + "=?",
-                new String[]{String.valueOf(id)},
-                null
+        ContentValues cv = new ContentValues();
+        cv.put(ProviderTableMeta.UPLOADS_STATUS, status.value);
+        cv.put(ProviderTableMeta.UPLOADS_LAST_RESULT, result.getValue());
+        cv.put(ProviderTableMeta.UPLOADS_REMOTE_PATH, remotePath);
+        if (localPath != null) {
+            cv.put(ProviderTableMeta.UPLOADS_LOCAL_PATH, localPath);
+        }
+        if (status == UploadStatus.UPLOAD_SUCCEEDED) {
+            cv.put(ProviderTableMeta.UPLOADS_UPLOAD_END_TIMESTAMP, Calendar.getInstance().getTimeInMillis());
+        }
+
+        int updated = getDB().update(ProviderTableMeta.CONTENT_URI_UPLOADS,
+                                     cv,
+                                     ProviderTableMeta._ID + "=?",
+                                     new String[]{String.valueOf(id)}
         );
 
-        if (c != null) {
-            if (c.getCount() != SINGLE_RESULT) {
-                Log_OC.e(TAG, c.getCount() + " items for id=" + id
-                        + " available in UploadDb. Expected 1. Failed to update upload db.");
-            } else {
-                returnValue = updateUploadInternal(c, status, result, remotePath, localPath);
-            }
-            c.close();
+        if (updated != SINGLE_RESULT) {
+            Log_OC.e(TAG, updated + " items for id=" + id + " updated in UploadDb. Expected 1.");
         } else {
-            Log_OC.e(TAG, "Cursor is null");
+            notifyUploadsChanged(Collections.singleton(id));
         }
 
-        return returnValue;
+        return updated;
     }
 
     /**
-     * Should be called when some value of this DB was changed. All observers
-     * are informed.
+     * Should be called when some value of this DB was changed. All observers are informed that any upload may have
+     * changed; notifications are coalesced, see {@link #notifyUploadsChanged(Collection)}.
      */
     public void notifyObserversNow() {
-        Log_OC.d(TAG, "notifyObserversNow");
+        notifyUploadsChanged(null);
+    }
+
+    /**
+     * Informs the observers about changed uploads. Changes are collected and dispatched on the main thread at most
+     * once per {@link #NOTIFICATION_INTERVAL_MILLIS}. The argument passed to
+     * {@link java.util.Observer#update(Observable, Object)} is the {@link Set} of changed upload ids, or null if any
+     * upload may have changed.
+     *
+     * @param uploadIds ids of the changed uploads, null if unknown
+     */
+    private void notifyUploadsChanged(@Nullable Collection<Long> uploadIds) {
+        synchronized (pendingChangedUploadIds) {
+            if (uploadIds == null) {
+                pendingChangeOfAllUploads = true;
+            } else {
+                pendingChangedUploadIds.addAll(uploadIds);
+            }
+
+            if (!notificationScheduled) {
+                notificationScheduled = true;
+                mainThreadHandler.postDelayed(this::dispatchPendingChanges, NOTIFICATION_INTERVAL_MILLIS);
+            }
+        }
+    }
+
+    private void dispatchPendingChanges() {
+        Set<Long> changedUploadIds;
+        synchronized (pendingChangedUploadIds) {
+            changedUploadIds = pendingChangeOfAllUploads ? null : new HashSet<>(pendingChangedUploadIds);
+            pendingChangedUploadIds.clear();
+            pendingChangeOfAllUploads = false;
+            notificationScheduled = false;
+        }
+
+        Log_OC.d(TAG, "notifyObservers: " + (changedUploadIds == null ? "all" : changedUploadIds.size()));
         setChanged();
-        notifyObservers();
+        notifyObservers(changedUploadIds);
     }
 
     /**
@@ -235,7 +271,7 @@ public class UploadsStorageManager extends Observable {
         );
         Log_OC.d(TAG, "delete returns " + result + " for upload " + upload);
         if (result > 0) {
-            notifyObserversNow();
+            notifyUploadsChanged(Collections.singleton(upload.getUploadId()));
         }
         return result;
     }
@@ -284,14 +320,21 @@ public class UploadsStorageManager extends Observable {
     }
 
     private OCUpload[] getUploads(@Nullable String selection, @Nullable String... selectionArgs) {
+        return getUploads(ProviderTableMeta.CONTENT_URI_UPLOADS, selection, selectionArgs, null);
+    }
+
+    private OCUpload[] getUploads(Uri uri,
+                                  @Nullable String selection,
+                                  @Nullable String[] selectionArgs,
+                                  @Nullable String sortOrder) {
         OCUpload[] list;
 
         Cursor c = getDB().query(
-                ProviderTableMeta.CONTENT_URI_UPLOADS,
+                uri,
                 null,
                 selection,
                 selectionArgs,
-                null
+                sortOrder
         );
 
         if (c != null) {
@@ -365,7 +408,17 @@ public class UploadsStorageManager extends Observable {
      * Get all failed uploads.
      */
     public OCUpload[] getFailedUploads() {
-        return getUploads("(" + ProviderTableMeta.UPLOADS_STATUS + "== ?" +
+        return getFailedUploads(null, null);
+    }
+
+    /**
+     * Get failed uploads, filtered in the database.
+     *
+     * @param accountName  If not null, only failed uploads of this account are returned.
+     * @param uploadResult If not null, only failed uploads with this result are returned.
+     */
+    public OCUpload[] getFailedUploads(@Nullable String accountName, @Nullable UploadResult uploadResult) {
+        StringBuilder selection = new StringBuilder("(" + ProviderTableMeta.UPLOADS_STATUS + "== ?" +
                 " OR " + ProviderTableMeta.UPLOADS_LAST_RESULT +
                         "==" + UploadResult.DELAYED_FOR_WIFI.getValue() +
                         " OR " + ProviderTableMeta.UPLOADS_LAST_RESULT +
@@ -375,15 +428,173 @@ public class UploadsStorageManager extends Observable {
                         " OR " + ProviderTableMeta.UPLOADS_LAST_RESULT +
                         "==" + UploadResult.DELAYED_IN_POWER_SAVE_MODE.getValue() +
                         " ) AND " + ProviderTableMeta.UPLOADS_LAST_RESULT +
-                        "!= " + UploadResult.VIRUS_DETECTED.getValue()
-            , String.valueOf(UploadStatus.UPLOAD_FAILED.value));
+                        "!= " + UploadResult.VIRUS_DETECTED.getValue());
+        List<String> selectionArgs = new ArrayList<>();
+        selectionArgs.add(String.valueOf(UploadStatus.UPLOAD_FAILED.value));
+
+        if (accountName != null) {
+            selection.append(AND).append(ProviderTableMeta.UPLOADS_ACCOUNT_NAME).append("== ?");
+            selectionArgs.add(accountName);
+        }
+        if (uploadResult != null) {
+            selection.append(AND).append(ProviderTableMeta.UPLOADS_LAST_RESULT).append("== ?");
+            selectionArgs.add(String.valueOf(uploadResult.getValue()));
+        }
+
+        return getUploads(selection.toString(), selectionArgs.toArray(new String[0]));
+    }
+
+    /**
+     * Get the uploads with given ids; ids not found are skipped.
+     */
+    public OCUpload[] getUploadsByIds(long[] uploadIds) {
+        List<OCUpload> uploads = new ArrayList<>(uploadIds.length);
+        List<Long> ids = new ArrayList<>(uploadIds.length);
+        for (long uploadId : uploadIds) {
+            ids.add(uploadId);
+        }
+
+        for (InSelection chunk : InSelection.chunked(ProviderTableMeta._ID, ids, null)) {
+            for (OCUpload upload : getUploads(chunk.selection, chunk.selectionArgs)) {
+                if (upload != null) {
+                    uploads.add(upload);
+                }
+            }
+        }
+
+        return uploads.toArray(new OCUpload[0]);
+    }
+
+    /**
+     * Sets the last result of several uploads at once, observers are notified once.
+     *
+     * @return num of updated uploads.
+     */
+    public int updateUploadsLastResult(List<Long> uploadIds, UploadResult result) {
+        int updated = 0;
+        ContentValues cv = new ContentValues();
+        cv.put(ProviderTableMeta.UPLOADS_LAST_RESULT, result.getValue());
+
+        for (InSelection chunk : InSelection.chunked(ProviderTableMeta._ID, uploadIds, null)) {
+            updated += getDB().update(ProviderTableMeta.CONTENT_URI_UPLOADS,
+                                      cv,
+                                      chunk.selection,
+                                      chunk.selectionArgs);
+        }
+
+        if (updated > 0) {
+            notifyUploadsChanged(uploadIds);
+        }
+        return updated;
     }
 
     public OCUpload[] getFinishedUploadsForCurrentAccount() {
         User user = currentAccountProvider.getUser();
 
-        return getUploads(ProviderTableMeta.UPLOADS_STATUS + "==" + UploadStatus.UPLOAD_SUCCEEDED.value + AND +
-                              ProviderTableMeta.UPLOADS_ACCOUNT_NAME + "== ?", user.getAccountName());
+        return getUploads(FINISHED_FOR_ACCOUNT, user.getAccountName());
+    }
+
+    /**
+     * Get a page of the successfully completed uploads of the current account, ordered by end timestamp, newest
+     * first.
+     *
+     * @param after last upload of the previous page, null for the first page
+     * @param limit maximum number of uploads to return
+     */
+    public OCUpload[] getFinishedUploadsForCurrentAccount(@Nullable OCUpload after, int limit) {
+        User user = currentAccountProvider.getUser();
+
+        return getUploadsPage(FINISHED_FOR_ACCOUNT, user.getAccountName(), after, limit);
+    }
+
+    public int countFinishedUploadsForCurrentAccount() {
+        User user = currentAccountProvider.getUser();
+
+        return countUploads(FINISHED_FOR_ACCOUNT, user.getAccountName());
+    }
+
+    /**
+     * Keyset paging: continues after the given upload in the order of the upload list, which is end timestamp
+     * descending, then id ascending.
+     */
+    private OCUpload[] getUploadsPage(String selection, String accountName, @Nullable OCUpload after, int limit) {
+        String pageSelection = selection;
+        String[] selectionArgs;
+
+        if (after == null) {
+            selectionArgs = new String[]{accountName};
+        } else {
+            pageSelection += AND + "(" + ProviderTableMeta.UPLOADS_UPLOAD_END_TIMESTAMP + " < ? OR (" +
+                ProviderTableMeta.UPLOADS_UPLOAD_END_TIMESTAMP + " = ?" + AND + ProviderTableMeta._ID + " > ?))";
+            String endTimestamp = String.valueOf(after.getUploadEndTimestamp());
+            selectionArgs = new String[]{accountName, endTimestamp, endTimestamp,
+                String.valueOf(after.getUploadId())};
+        }
+
+        Uri uri = ProviderTableMeta.CONTENT_URI_UPLOADS.buildUpon()
+            .appendQueryParameter(ProviderTableMeta.QUERY_PARAMETER_LIMIT, String.valueOf(limit))
+            .build();
+
+        return getUploads(uri, pageSelection, selectionArgs, ProviderTableMeta.UPLOADS_UPLOAD_END_TIMESTAMP +
+            " DESC, " + ProviderTableMeta._ID + " ASC");
+    }
+
+    private int countUploads(String selection, String... selectionArgs) {
+        int count = 0;
+        Cursor c = getDB().query(ProviderTableMeta.CONTENT_URI_UPLOADS,
+                                 new String[]{"count(*)"},
+                                 selection,
+                                 selectionArgs,
+                                 null);
+
+        if (c != null) {
+            if (c.moveToFirst()) {
+                count = c.getInt(0);
+            }
+            c.close();
+        }
+
+        return count;
+    }
+
+    /**
+     * Removes successfully completed uploads of all accounts which ended before the given age, and all but the
+     * newest ones beyond the given number.
+     *
+     * @param maxAgeMillis maximum age of kept uploads, 0 to keep uploads of any age
+     * @param maxCount     maximum number of kept uploads, 0 for no limit
+     * @return number of removed uploads
+     */
+    public int pruneFinishedUploads(long maxAgeMillis, int maxCount) {
+        List<String> conditions = new ArrayList<>();
+        List<String> selectionArgs = new ArrayList<>();
+        String succeeded = ProviderTableMeta.UPLOADS_STATUS + "==" + UploadStatus.UPLOAD_SUCCEEDED.value;
+
+        if (maxAgeMillis > 0) {
+            conditions.add(ProviderTableMeta.UPLOADS_UPLOAD_END_TIMESTAMP + " < ?");
+            selectionArgs.add(String.valueOf(Calendar.getInstance().getTimeInMillis() - maxAgeMillis));
+        }
+        if (maxCount > 0) {
+            conditions.add(ProviderTableMeta._ID + " NOT IN (SELECT " + ProviderTableMeta._ID +
+                               " FROM " + ProviderTableMeta.UPLOADS_TABLE_NAME + " WHERE " + succeeded +
+                               " ORDER BY " + ProviderTableMeta.UPLOADS_UPLOAD_END_TIMESTAMP + " DESC, " +
+                               ProviderTableMeta._ID + " DESC LIMIT ?)");
+            selectionArgs.add(String.valueOf(maxCount));
+        }
+
+        if (conditions.isEmpty()) {
+            return 0;
+        }
+
+        int deleted = getDB().delete(ProviderTableMeta.CONTENT_URI_UPLOADS,
+                                     succeeded + AND + "(" + TextUtils.join(" OR ", conditions) + ")",
+                                     selectionArgs.toArray(new String[0]));
+
+        Log_OC.d(TAG, "pruned " + deleted + " finished uploads");
+        if (deleted > 0) {
+            notifyObserversNow();
+        }
+        return deleted;
     }
 
     /**
@@ -397,17 +608,26 @@ public class UploadsStorageManager extends Observable {
     public OCUpload[] getFailedButNotDelayedUploadsForCurrentAccount() {
         User user = currentAccountProvider.getUser();
 
-        return getUploads(ProviderTableMeta.UPLOADS_STATUS + "==" + UploadStatus.UPLOAD_FAILED.value +
-                        AND + ProviderTableMeta.UPLOADS_LAST_RESULT +
-                        "<>" + UploadResult.DELAYED_FOR_WIFI.getValue() +
-                        AND + ProviderTableMeta.UPLOADS_LAST_RESULT +
-                        "<>" + UploadResult.LOCK_FAILED.getValue() +
-                        AND + ProviderTableMeta.UPLOADS_LAST_RESULT +
-                        "<>" + UploadResult.DELAYED_FOR_CHARGING.getValue() +
-                        AND + ProviderTableMeta.UPLOADS_LAST_RESULT +
-                        "<>" + UploadResult.DELAYED_IN_POWER_SAVE_MODE.getValue() +
-                        AND + ProviderTableMeta.UPLOADS_ACCOUNT_NAME + "== ?",
-                        user.getAccountName());
+        return getUploads(FAILED_BUT_NOT_DELAYED_FOR_ACCOUNT, user.getAccountName());
+    }
+
+    /**
+     * Get a page of the failed uploads of the current account, except for those that were delayed, ordered by end
+     * timestamp, newest first.
+     *
+     * @param after last upload of the previous page, null for the first page
+     * @param limit maximum number of uploads to return
+     */
+    public OCUpload[] getFailedButNotDelayedUploadsForCurrentAccount(@Nullable OCUpload after, int limit) {
+        User user = currentAccountProvider.getUser();
+
+        return getUploadsPage(FAILED_BUT_NOT_DELAYED_FOR_ACCOUNT, user.getAccountName(), after, limit);
+    }
+
+    public int countFailedButNotDelayedUploadsForCurrentAccount() {
+        User user = currentAccountProvider.getUser();
+
+        return countUploads(FAILED_BUT_NOT_DELAYED_FOR_ACCOUNT, user.getAccountName());
     }
 
     /**
@@ -31,7 +31,7 @@ import com.owncloud.android.MainApp;
  */
 public class ProviderMeta {
     public static final String DB_NAME = "filelist";
-    public static final int DB_VERSION = 55;
+    public static final int DB_VERSION = 58;
 
     private ProviderMeta() {
         // No instance
@@ -49,6 +49,7 @@ public class ProviderMeta {
         public static final String FILESYSTEM_TABLE_NAME = "filesystem";
         public static final String EDITORS_TABLE_NAME = "editors";
         public static final String CREATORS_TABLE_NAME = "creators";
+        public static final String ACTIVITIES_TABLE_NAME = "activities";
 
         private static final String CONTENT_PREFIX = "content://";
 
@@ -71,10 +72,22 @@ public class ProviderMeta {
         public static final Uri CONTENT_URI_ARBITRARY_DATA = Uri.parse(CONTENT_PREFIX
                 + MainApp.getAuthority() + "/arbitrary_data");
         public static final Uri CONTENT_URI_VIRTUAL = Uri.parse(CONTENT_PREFIX + MainApp.getAuthority() + "/virtual");
+        public static final Uri CONTENT_URI_VIRTUAL_FILES = Uri.parse(CONTENT_PREFIX
+                + MainApp.getAuthority() + "/virtual_files");
         public static final Uri CONTENT_URI_FILESYSTEM = Uri.parse(CONTENT_PREFIX
                 + MainApp.getAuthority() + "/filesystem");
+        public static final Uri CONTENT_URI_ACTIVITIES = Uri.parse(CONTENT_PREFIX
+                + MainApp.getAuthority() + "/activities");
+        /**
+         * Update only: replaces the {@link #FILE_STORAGE_PATH} prefix given as only selection argument by the
+         * {@link #FILE_STORAGE_PATH} value, in all files.
+         */
+        public static final Uri CONTENT_URI_STORAGE_PATH_PREFIX = Uri.parse(CONTENT_PREFIX
+                + MainApp.getAuthority() + "/storage_path_prefix");
 
 
+        public static final String QUERY_PARAMETER_LIMIT = "limit";
+
         public static final String CONTENT_TYPE = "vnd.android.cursor.dir/vnd.owncloud.file";
         public static final String CONTENT_TYPE_ITEM = "vnd.android.cursor.item/vnd.owncloud.file";
 
@@ -113,6 +126,7 @@ public class ProviderMeta {
         public static final String FILE_NOTE = "note";
         public static final String FILE_SHAREES = "sharees";
         public static final String FILE_RICH_WORKSPACE = "rich_workspace";
+        public static final String FILE_SUBTREE_KEPT_IN_SYNC = "subtree_kept_in_sync";
 
         public static final String[] FILE_ALL_COLUMNS = {
             _ID, FILE_PARENT, FILE_NAME, FILE_CREATION, FILE_MODIFIED,
@@ -121,7 +135,7 @@ public class ProviderMeta {
             FILE_ETAG_ON_SERVER, FILE_SHARED_VIA_LINK, FILE_SHARED_WITH_SHAREE, FILE_PUBLIC_LINK, FILE_PERMISSIONS,
             FILE_REMOTE_ID, FILE_UPDATE_THUMBNAIL, FILE_IS_DOWNLOADING, FILE_ETAG_IN_CONFLICT, FILE_FAVORITE,
             FILE_IS_ENCRYPTED, FILE_MOUNT_TYPE, FILE_HAS_PREVIEW, FILE_UNREAD_COMMENTS_COUNT, FILE_SHAREES,
-            FILE_RICH_WORKSPACE
+            FILE_RICH_WORKSPACE, FILE_SUBTREE_KEPT_IN_SYNC
         };
 
         public static final String FILE_DEFAULT_SORT_ORDER = FILE_NAME + " collate nocase asc";
@@ -260,6 +274,11 @@ public class ProviderMeta {
         public static final String FILESYSTEM_SYNCED_FOLDER_ID = "syncedfolder_id";
         public static final String FILESYSTEM_CRC32 = "crc32";
 
+        // Columns of activities table
+        public static final String ACTIVITIES_ACCOUNT_NAME = "account_name";
+        public static final String ACTIVITIES_ACTIVITY_ID = "activity_id";
+        public static final String ACTIVITIES_JSON = "json";
+
         private ProviderTableMeta() {
             // No instance
         }
@@ -47,7 +47,6 @@ import com.owncloud.android.utils.NextcloudServer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
 
 import androidx.annotation.Nullable;
@@ -61,7 +60,9 @@ public class FileMenuFilter {
     private static final int SINGLE_SELECT_ITEMS = 1;
 
     private int numberOfAllFiles;
+    private SelectionSummary selection;
     private Collection<OCFile> files;
+    private OCCapability capability;
     private ComponentsGetter componentsGetter;
     private Account account;
     private Context context;
@@ -87,9 +88,43 @@ public class FileMenuFilter {
                           boolean overflowMenu,
                           DeviceInfo deviceInfo,
                           User user
+    ) {
+        this(numberOfAllFiles,
+             new SelectionSummary(files == null ? Collections.<OCFile>emptyList() : files),
+             null,
+             account,
+             componentsGetter,
+             context,
+             overflowMenu,
+             deviceInfo,
+             user);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param numberOfAllFiles  Number of all displayed files
+     * @param selection         Summary of the {@link OCFile} file targets of the action to filter in the {@link Menu}.
+     * @param capability        {@link OCCapability} of the account, read from the storage manager if null.
+     * @param account           ownCloud {@link Account} holding targetFile.
+     * @param componentsGetter  Accessor to app components, needed to access synchronization services
+     * @param context           Android {@link Context}, needed to access build setup resources.
+     * @param overflowMenu      true if the overflow menu items are being filtered
+     */
+    public FileMenuFilter(int numberOfAllFiles,
+                          SelectionSummary selection,
+                          @Nullable OCCapability capability,
+                          Account account,
+                          ComponentsGetter componentsGetter,
+                          Context context,
+                          boolean overflowMenu,
+                          DeviceInfo deviceInfo,
+                          User user
     ) {
         this.numberOfAllFiles = numberOfAllFiles;
-        this.files = files;
+        this.selection = selection;
+        this.files = selection.getFiles();
+        this.capability = capability;
         this.account = account;
         this.componentsGetter = componentsGetter;
         this.context = context;
@@ -193,7 +228,10 @@ public class FileMenuFilter {
                         boolean inSingleFileFragment,
                         boolean isMediaSupported) {
         boolean synchronizing = anyFileSynchronizing();
-        OCCapability capability = componentsGetter.getStorageManager().getCapability(account.name);
+        OCCapability capability = this.capability;
+        if (capability == null) {
+            capability = componentsGetter.getStorageManager().getCapability(account.name);
+        }
         boolean endToEndEncryptionEnabled = capability.getEndToEndEncryption().isTrue();
 
         filterEdit(toShow, toHide, capability);
@@ -432,46 +470,26 @@ public class FileMenuFilter {
     }
 
     private boolean anyFileSynchronizing() {
-        boolean synchronizing = false;
-        if (componentsGetter != null && !files.isEmpty() && account != null) {
-            OperationsServiceBinder opsBinder = componentsGetter.getOperationsServiceBinder();
-            FileUploaderBinder uploaderBinder = componentsGetter.getFileUploaderBinder();
-            FileDownloaderBinder downloaderBinder = componentsGetter.getFileDownloaderBinder();
-            synchronizing = anyFileSynchronizing(opsBinder) ||      // comparing local and remote
-                            anyFileDownloading(downloaderBinder) ||
-                            anyFileUploading(uploaderBinder);
-        }
-        return synchronizing;
-    }
-
-    private boolean anyFileSynchronizing(OperationsServiceBinder opsBinder) {
-        boolean synchronizing = false;
-        if (opsBinder != null) {
-            for (Iterator<OCFile> iterator = files.iterator(); !synchronizing && iterator.hasNext(); ) {
-                synchronizing = opsBinder.isSynchronizing(account, iterator.next());
-            }
+        if (componentsGetter == null || files.isEmpty() || account == null) {
+            return false;
         }
-        return synchronizing;
-    }
 
-    private boolean anyFileDownloading(FileDownloaderBinder downloaderBinder) {
-        boolean downloading = false;
-        if (downloaderBinder != null) {
-            for (Iterator<OCFile> iterator = files.iterator(); !downloading && iterator.hasNext(); ) {
-                downloading = downloaderBinder.isDownloading(account, iterator.next());
-            }
+        OperationsServiceBinder opsBinder = componentsGetter.getOperationsServiceBinder();
+        FileUploaderBinder uploaderBinder = componentsGetter.getFileUploaderBinder();
+        FileDownloaderBinder downloaderBinder = componentsGetter.getFileDownloaderBinder();
+        if (opsBinder == null && uploaderBinder == null && downloaderBinder == null) {
+            return false;
         }
-        return downloading;
-    }
 
-    private boolean anyFileUploading(FileUploaderBinder uploaderBinder) {
-        boolean uploading = false;
-        if (uploaderBinder != null) {
-            for (Iterator<OCFile> iterator = files.iterator(); !uploading && iterator.hasNext(); ) {
-                uploading = uploaderBinder.isUploading(account, iterator.next());
+        // a single pass over the selection, checking all services for each file
+        for (OCFile file : files) {
+            if ((opsBinder != null && opsBinder.isSynchronizing(account, file)) ||      // comparing local and remote
+                (downloaderBinder != null && downloaderBinder.isDownloading(account, file)) ||
+                (uploaderBinder != null && uploaderBinder.isUploading(account, file))) {
+                return true;
             }
         }
-        return uploading;
+        return false;
     }
 
     private boolean isShareApiEnabled(OCCapability capability) {
@@ -519,56 +537,26 @@ public class FileMenuFilter {
     }
 
     private boolean containsEncryptedFile() {
-        for (OCFile file : files) {
-            if (!file.isFolder() && file.isEncrypted()) {
-                return true;
-            }
-        }
-        return false;
+        return selection.containsEncryptedFile();
     }
 
     private boolean containsEncryptedFolder() {
-        for (OCFile file : files) {
-            if (file.isFolder() && file.isEncrypted()) {
-                return true;
-            }
-        }
-        return false;
+        return selection.containsEncryptedFolder();
     }
 
     private boolean containsFolder() {
-        for (OCFile file : files) {
-            if (file.isFolder()) {
-                return true;
-            }
-        }
-        return false;
+        return selection.containsFolder();
     }
 
     private boolean anyFileDown() {
-        for (OCFile file : files) {
-            if (file.isDown()) {
-                return true;
-            }
-        }
-        return false;
+        return selection.anyFileDown();
     }
 
     private boolean allFavorites() {
-        for (OCFile file : files) {
-            if (!file.isFavorite()) {
-                return false;
-            }
-        }
-        return true;
+        return selection.allFavorites();
     }
 
     private boolean allNotFavorites() {
-        for (OCFile file : files) {
-            if (file.isFavorite()) {
-                return false;
-            }
-        }
-        return true;
+        return selection.allNotFavorites();
     }
 }
@@ -0,0 +1,213 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.owncloud.android.files;
+
+import com.owncloud.android.datamodel.OCFile;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Selected files together with counts of their properties, so that the menu of a large selection is filtered
+ * without iterating it. Counts are updated as files are added or removed; properties of a file are read when it is
+ * added, and again when it is passed to {@link #update(OCFile)} after they changed.
+ */
+public class SelectionSummary {
+
+    private static final int FOLDER = 1;
+    private static final int ENCRYPTED = 1 << 1;
+    private static final int DOWN = 1 << 2;
+    private static final int FAVORITE = 1 << 3;
+
+    // properties of each file, as last counted
+    private final Map<OCFile, Integer> files = new HashMap<>();
+    private final Set<OCFile> filesView = Collections.unmodifiableSet(files.keySet());
+
+    private int folderCount;
+    private int encryptedFileCount;
+    private int encryptedFolderCount;
+    private int downCount;
+    private int favoriteCount;
+
+    public SelectionSummary() {
+        // empty selection
+    }
+
+    public SelectionSummary(Collection<OCFile> files) {
+        addAll(files);
+    }
+
+    /**
+     * @return true if the file was not selected yet
+     */
+    public boolean add(OCFile file) {
+        if (files.containsKey(file)) {
+            return false;
+        }
+
+        int properties = propertiesOf(file);
+        files.put(file, properties);
+        count(properties, 1);
+        return true;
+    }
+
+    public void addAll(Collection<OCFile> files) {
+        for (OCFile file : files) {
+            add(file);
+        }
+    }
+
+    /**
+     * @return true if the file was selected
+     */
+    public boolean remove(OCFile file) {
+        Integer properties = files.remove(file);
+        if (properties == null) {
+            return false;
+        }
+
+        count(properties, -1);
+        return true;
+    }
+
+    /**
+     * Counts the current properties of a selected file, which replaces the selected instance equal to it.
+     *
+     * @return true if the file is selected
+     */
+    public boolean update(OCFile file) {
+        Integer oldProperties = files.remove(file);
+        if (oldProperties == null) {
+            return false;
+        }
+
+        int properties = propertiesOf(file);
+        files.put(file, properties);
+        count(oldProperties, -1);
+        count(properties, 1);
+        return true;
+    }
+
+    /**
+     * Updates those of the files that are selected, see {@link #update(OCFile)}.
+     */
+    public void updateAll(Collection<OCFile> files) {
+        if (this.files.isEmpty()) {
+            return;
+        }
+
+        for (OCFile file : files) {
+            update(file);
+        }
+    }
+
+    public void clear() {
+        files.clear();
+        folderCount = 0;
+        encryptedFileCount = 0;
+        encryptedFolderCount = 0;
+        downCount = 0;
+        favoriteCount = 0;
+    }
+
+    public boolean contains(OCFile file) {
+        return files.containsKey(file);
+    }
+
+    /**
+     * @return read-only view of the selected files
+     */
+    public Set<OCFile> getFiles() {
+        return filesView;
+    }
+
+    public int size() {
+        return files.size();
+    }
+
+    public boolean isEmpty() {
+        return files.isEmpty();
+    }
+
+    public boolean containsFolder() {
+        return folderCount > 0;
+    }
+
+    public boolean containsEncryptedFile() {
+        return encryptedFileCount > 0;
+    }
+
+    public boolean containsEncryptedFolder() {
+        return encryptedFolderCount > 0;
+    }
+
+    public boolean anyFileDown() {
+        return downCount > 0;
+    }
+
+    public boolean allFavorites() {
+        return favoriteCount == files.size();
+    }
+
+    public boolean allNotFavorites() {
+        return favoriteCount == 0;
+    }
+
+    private void count(int properties, int delta) {
+        boolean folder = (properties & FOLDER) != 0;
+        if (folder) {
+            folderCount += delta;
+        }
+        if ((properties & ENCRYPTED) != 0) {
+            if (folder) {
+                encryptedFolderCount += delta;
+            } else {
+                encryptedFileCount += delta;
+            }
+        }
+        if ((properties & DOWN) != 0) {
+            downCount += delta;
+        }
+        if ((properties & FAVORITE) != 0) {
+            favoriteCount += delta;
+        }
+    }
+
+    private static int propertiesOf(OCFile file) {
+        int properties = 0;
+        if (file.isFolder()) {
+            properties |= FOLDER;
+        }
+        if (file.isEncrypted()) {
+            properties |= ENCRYPTED;
+        }
+        // checks the local file, so it is not done whenever the menu is filtered
+        if (file.isDown()) {
+            properties |= DOWN;
+        }
+        if (file.isFavorite()) {
+            properties |= FAVORITE;
+        }
+        return properties;
+    }
+}
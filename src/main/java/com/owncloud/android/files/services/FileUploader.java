@@ -48,6 +48,7 @@ import android.os.Process;
 import android.util.Pair;
 
 import com.evernote.android.job.JobRequest;
+import com.evernote.android.job.util.BatteryStatus;
 import com.evernote.android.job.util.Device;
 import com.nextcloud.client.account.UserAccountManager;
 import com.nextcloud.client.device.PowerManagementService;
@@ -89,6 +90,7 @@ import javax.inject.Inject;
 import androidx.annotation.NonNull;
 import androidx.core.app.NotificationCompat;
 import dagger.android.AndroidInjection;
+import kotlin.jvm.functions.Function1;
 
 /**
  * Service for uploading files. Invoke using context.startService(...).
@@ -136,6 +138,15 @@ public class FileUploader extends Service
      * Call this Service with KEY_RETRY and KEY_RETRY_UPLOAD to retry upload of file identified by KEY_RETRY_UPLOAD.
      */
     private static final String KEY_RETRY_UPLOAD = "KEY_RETRY_UPLOAD";
+
+    /**
+     * Call this Service with KEY_RETRY and KEY_RETRY_UPLOAD_IDS to retry the uploads with the given ids at once.
+     */
+    private static final String KEY_RETRY_UPLOAD_IDS = "KEY_RETRY_UPLOAD_IDS";
+    /**
+     * Upload ids sent with one request, keeping the Intent far below the binder transaction limit.
+     */
+    static final int MAX_RETRY_UPLOAD_IDS_PER_REQUEST = 1000;
     /**
      * {@link Account} to which file is to be uploaded.
      */
@@ -313,11 +324,17 @@ public class FileUploader extends Service
                 return error;
             }
         } else { // Retry uploads
-            if (!intent.hasExtra(KEY_ACCOUNT) || !intent.hasExtra(KEY_RETRY_UPLOAD)) {
+            if (intent.hasExtra(KEY_RETRY_UPLOAD_IDS)) {
+                long[] uploadIds = intent.getLongArrayExtra(KEY_RETRY_UPLOAD_IDS);
+                for (OCUpload upload : mUploadsStorageManager.getUploadsByIds(uploadIds)) {
+                    retryUpload(account, upload, requestedUploads);
+                }
+            } else if (intent.hasExtra(KEY_RETRY_UPLOAD)) {
+                retryUpload(account, intent.getParcelableExtra(KEY_RETRY_UPLOAD), requestedUploads);
+            } else {
                 Log_OC.e(TAG, "Not enough information provided in intent: no KEY_RETRY_UPLOAD_KEY");
                 return START_NOT_STICKY;
             }
-            retryUploads(intent, account, requestedUploads);
         }
 
         if (requestedUploads.size() > 0) {
@@ -487,12 +504,11 @@ public class FileUploader extends Service
     }
 
     /**
-     * Retries a list of uploads.
+     * Retries an upload.
      */
-    private void retryUploads(Intent intent, Account account, List<String> requestedUploads) {
+    private void retryUpload(Account account, OCUpload upload, List<String> requestedUploads) {
         boolean onWifiOnly;
         boolean whileChargingOnly;
-        OCUpload upload = intent.getParcelableExtra(KEY_RETRY_UPLOAD);
 
         onWifiOnly = upload.isUseWifiOnly();
         whileChargingOnly = upload.isWhileChargingOnly();
@@ -984,6 +1000,23 @@ public class FileUploader extends Service
         }
     }
 
+    /**
+     * Retry the {@link OCUpload}s with given ids, all of the same account, with a single request to the service.
+     * Callers send at most {@link #MAX_RETRY_UPLOAD_IDS_PER_REQUEST} ids at once.
+     */
+    public static void retryUploads(@NonNull Context context, @NonNull Account account, @NonNull long[] uploadIds) {
+        Intent i = new Intent(context, FileUploader.class);
+        i.putExtra(FileUploader.KEY_RETRY, true);
+        i.putExtra(FileUploader.KEY_ACCOUNT, account);
+        i.putExtra(FileUploader.KEY_RETRY_UPLOAD_IDS, uploadIds);
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            context.startForegroundService(i);
+        } else {
+            context.startService(i);
+        }
+    }
+
     /**
      * Retry a subset of all the stored failed uploads.
      *
@@ -1002,46 +1035,95 @@ public class FileUploader extends Service
         @NonNull final PowerManagementService powerManagementService,
         @Nullable final UploadResult uploadResult
     ) {
-        OCUpload[] failedUploads = uploadsStorageManager.getFailedUploads();
-        Account currentAccount = null;
-        boolean resultMatch;
-        boolean accountMatch;
-
-        boolean gotNetwork = connectivityService.getActiveNetworkType() != JobRequest.NetworkType.ANY &&
-            !connectivityService.isInternetWalled();
-        boolean gotWifi = gotNetwork && Device.getNetworkType(context).equals(JobRequest.NetworkType.UNMETERED);
-        boolean charging = Device.getBatteryStatus(context).isCharging();
+        retryFailedUploads(context,
+                           account,
+                           uploadsStorageManager,
+                           connectivityService,
+                           accountManager,
+                           powerManagementService,
+                           uploadResult,
+                           new FileExistenceCheck());
+    }
+
+    static void retryFailedUploads(
+        @NonNull final Context context,
+        @Nullable final Account account,
+        @NonNull final UploadsStorageManager uploadsStorageManager,
+        @NonNull final ConnectivityService connectivityService,
+        @NonNull final UserAccountManager accountManager,
+        @NonNull final PowerManagementService powerManagementService,
+        @Nullable final UploadResult uploadResult,
+        @NonNull final Function1<String, Boolean> fileExists
+    ) {
+        OCUpload[] failedUploads = uploadsStorageManager.getFailedUploads(account == null ? null : account.name,
+                                                                          uploadResult);
+        if (failedUploads.length == 0) {
+            return;
+        }
+
+        // device state is the same for all uploads
+        JobRequest.NetworkType networkType = connectivityService.getActiveNetworkType();
+        boolean gotNetwork = networkType != JobRequest.NetworkType.ANY && !connectivityService.isInternetWalled();
+        boolean gotWifi = gotNetwork && networkType == JobRequest.NetworkType.UNMETERED;
+        BatteryStatus batteryStatus = Device.getBatteryStatus(context);
+        boolean charging = batteryStatus.isCharging() || batteryStatus.getBatteryPercent() == 1;
         boolean isPowerSaving = powerManagementService.isPowerSavingEnabled();
 
+        List<Long> notFoundUploadIds = new ArrayList<>();
+        Map<String, List<Long>> retryUploadIds = new HashMap<>();
+
         for (OCUpload failedUpload : failedUploads) {
-            accountMatch = account == null || account.name.equals(failedUpload.getAccountName());
-            resultMatch = uploadResult == null || uploadResult == failedUpload.getLastResult();
-            if (accountMatch && resultMatch) {
-                if (currentAccount == null || !currentAccount.name.equals(failedUpload.getAccountName())) {
-                    currentAccount = failedUpload.getAccount(accountManager);
+            if (!fileExists.invoke(failedUpload.getLocalPath())) {
+                if (failedUpload.getLastResult() != UploadResult.FILE_NOT_FOUND) {
+                    notFoundUploadIds.add(failedUpload.getUploadId());
                 }
+            } else if (!isPowerSaving && gotNetwork && canUploadBeRetried(failedUpload, gotWifi, charging)) {
+                List<Long> uploadIds = retryUploadIds.get(failedUpload.getAccountName());
+                if (uploadIds == null) {
+                    uploadIds = new ArrayList<>();
+                    retryUploadIds.put(failedUpload.getAccountName(), uploadIds);
+                }
+                uploadIds.add(failedUpload.getUploadId());
+            }
+        }
 
-                if (!new File(failedUpload.getLocalPath()).exists()) {
-                    if (failedUpload.getLastResult() != UploadResult.FILE_NOT_FOUND) {
-                        failedUpload.setLastResult(UploadResult.FILE_NOT_FOUND);
-                        uploadsStorageManager.updateUpload(failedUpload);
-                    }
-                } else {
-                    charging = charging || Device.getBatteryStatus(context).getBatteryPercent() == 1;
-                    if (!isPowerSaving && gotNetwork && canUploadBeRetried(failedUpload, gotWifi, charging)) {
-                        retryUpload(context, currentAccount, failedUpload);
-                    }
+        if (!notFoundUploadIds.isEmpty()) {
+            uploadsStorageManager.updateUploadsLastResult(notFoundUploadIds, UploadResult.FILE_NOT_FOUND);
+        }
+
+        for (Map.Entry<String, List<Long>> entry : retryUploadIds.entrySet()) {
+            Account uploadAccount = accountManager.getAccountByName(entry.getKey());
+            if (uploadAccount == null) {
+                continue;
+            }
+
+            List<Long> uploadIds = entry.getValue();
+            for (int start = 0; start < uploadIds.size(); start += MAX_RETRY_UPLOAD_IDS_PER_REQUEST) {
+                int end = Math.min(start + MAX_RETRY_UPLOAD_IDS_PER_REQUEST, uploadIds.size());
+                long[] ids = new long[end - start];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = uploadIds.get(start + i);
                 }
+                retryUploads(context, uploadAccount, ids);
             }
         }
     }
 
+    /**
+     * Only checks the settings of the upload, existence of the local file is checked by the caller.
+     */
     private static boolean canUploadBeRetried(OCUpload upload, boolean gotWifi, boolean isCharging) {
-        File file = new File(upload.getLocalPath());
         boolean needsWifi = upload.isUseWifiOnly();
         boolean needsCharging = upload.isWhileChargingOnly();
 
-        return file.exists() && (!needsWifi || gotWifi) && (!needsCharging || isCharging);
+        return (!needsWifi || gotWifi) && (!needsCharging || isCharging);
+    }
+
+    static class FileExistenceCheck implements Function1<String, Boolean> {
+        @Override
+        public Boolean invoke(String path) {
+            return new File(path).exists();
+        }
     }
 
     public static String getUploadsAddedMessage() {
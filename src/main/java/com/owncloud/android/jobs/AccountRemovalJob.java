@@ -38,10 +38,12 @@ import com.nextcloud.client.account.User;
 import com.nextcloud.client.account.UserAccountManager;
 import com.nextcloud.client.core.Clock;
 import com.nextcloud.client.jobs.BackgroundJobManager;
+import com.nextcloud.client.jobs.ContactVersionTable;
 import com.nextcloud.client.preferences.AppPreferencesImpl;
 import com.nextcloud.java.util.Optional;
 import com.owncloud.android.MainApp;
 import com.owncloud.android.R;
+import com.owncloud.android.datamodel.ActivityDataProvider;
 import com.owncloud.android.datamodel.ArbitraryDataProvider;
 import com.owncloud.android.datamodel.FileDataStorageManager;
 import com.owncloud.android.datamodel.FilesystemDataProvider;
@@ -153,9 +155,16 @@ public class AccountRemovalJob extends Job {
         // delete all uploads for account
         uploadsStorageManager.removeAccountUploads(user.toPlatformAccount());
 
+        // delete stored activities
+        new ActivityDataProvider(context.getContentResolver()).deleteActivities(user.getAccountName());
+
+        // delete contact versions of the last backup
+        ContactVersionTable.forAccount(context.getFilesDir(), user.getAccountName()).delete();
+
         // delete stored E2E keys
         arbitraryDataProvider.deleteKeyForAccount(user.getAccountName(), EncryptionUtils.PRIVATE_KEY);
         arbitraryDataProvider.deleteKeyForAccount(user.getAccountName(), EncryptionUtils.PUBLIC_KEY);
+        EncryptionUtils.clearCachedKeys(user.getAccountName());
 
         if (remoteWipe) {
             Optional<OwnCloudClient> optionalClient = createClient(user);
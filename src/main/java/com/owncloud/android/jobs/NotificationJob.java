@@ -118,7 +118,6 @@ public class NotificationJob extends Job {
             try {
                 byte[] base64DecodedSubject = Base64.decode(subject, Base64.DEFAULT);
                 byte[] base64DecodedSignature = Base64.decode(signature, Base64.DEFAULT);
-                PrivateKey privateKey = (PrivateKey) PushUtils.readKeyFromFile(false);
 
                 try {
                     SignatureVerification signatureVerification = PushUtils.verifySignature(context,
@@ -127,6 +126,7 @@ public class NotificationJob extends Job {
                                                                                             base64DecodedSubject);
 
                     if (signatureVerification != null && signatureVerification.isSignatureValid()) {
+                        PrivateKey privateKey = (PrivateKey) PushUtils.readKeyFromFile(false);
                         Cipher cipher = Cipher.getInstance("RSA/None/PKCS1Padding");
                         cipher.init(Cipher.DECRYPT_MODE, privateKey);
                         byte[] decryptedSubject = cipher.doFinal(base64DecodedSubject);
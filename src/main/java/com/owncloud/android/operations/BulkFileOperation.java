@@ -0,0 +1,219 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.owncloud.android.operations;
+
+import com.owncloud.android.datamodel.OCFile;
+import com.owncloud.android.lib.common.OwnCloudClient;
+import com.owncloud.android.lib.common.operations.RemoteOperationResult;
+import com.owncloud.android.lib.common.operations.RemoteOperationResult.ResultCode;
+import com.owncloud.android.lib.common.utils.Log_OC;
+import com.owncloud.android.operations.common.SyncOperation;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Base for operations applying the same change to several files at once.
+ *
+ * The remote requests for the single files are sent with bounded concurrency, the local database is then updated once
+ * for all files that succeeded. The operation finishes with one aggregated result: OK if all files succeeded, the
+ * first failure otherwise. The failures of all files are kept, see {@link #getFailures()}.
+ */
+public abstract class BulkFileOperation extends SyncOperation {
+    private static final String TAG = BulkFileOperation.class.getSimpleName();
+
+    private static final int MAX_PARALLEL_REQUESTS = 4;
+
+    private final List<String> remotePaths;
+    private final List<OCFile> knownFiles;
+    private final List<OCFile> succeededFiles = new ArrayList<>();
+    private final Map<String, RemoteOperationResult> failures = new LinkedHashMap<>();
+
+    /**
+     * @param remotePaths Remote paths of the {@link OCFile}s to handle.
+     */
+    protected BulkFileOperation(List<String> remotePaths) {
+        this.remotePaths = remotePaths;
+        this.knownFiles = null;
+    }
+
+    /**
+     * @param files {@link OCFile}s to handle, used as they are without reading them from the database.
+     */
+    protected BulkFileOperation(Collection<OCFile> files) {
+        this.remotePaths = null;
+        this.knownFiles = new ArrayList<>(files);
+    }
+
+    /**
+     * @return files the operation succeeded for
+     */
+    public List<OCFile> getSucceededFiles() {
+        return succeededFiles;
+    }
+
+    /**
+     * @return number of files the operation failed for
+     */
+    public int getFailedCount() {
+        return failures.size();
+    }
+
+    /**
+     * @return result of each file the operation failed for, by remote path, in the order the files were given
+     */
+    public Map<String, RemoteOperationResult> getFailures() {
+        return failures;
+    }
+
+    @Override
+    protected RemoteOperationResult run(OwnCloudClient client) {
+        succeededFiles.clear();
+        failures.clear();
+
+        List<OCFile> files;
+        if (knownFiles != null) {
+            files = knownFiles;
+        } else {
+            Map<String, OCFile> filesByPath = new HashMap<>();
+            for (OCFile file : getStorageManager().getFilesByPath(remotePaths)) {
+                filesByPath.put(file.getRemotePath(), file);
+            }
+
+            files = new ArrayList<>(remotePaths.size());
+            for (String remotePath : remotePaths) {
+                OCFile file = filesByPath.get(remotePath);
+                if (file == null) {
+                    addFailure(remotePath, new RemoteOperationResult(ResultCode.FILE_NOT_FOUND));
+                } else {
+                    files.add(file);
+                }
+            }
+        }
+
+        /// 1. remote requests
+        List<RemoteOperationResult> results = runRemoteRequests(client, files);
+
+        List<OCFile> remoteSucceeded = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            RemoteOperationResult result = results.get(i);
+            if (isSuccess(result)) {
+                remoteSucceeded.add(files.get(i));
+            } else {
+                addFailure(files.get(i).getRemotePath(), result);
+            }
+        }
+
+        /// 2. local changes, at once
+        if (!remoteSucceeded.isEmpty()) {
+            List<OCFile> localSucceeded = applyLocally(remoteSucceeded);
+            succeededFiles.addAll(localSucceeded);
+
+            if (localSucceeded.size() < remoteSucceeded.size()) {
+                Set<OCFile> localSucceededSet = new HashSet<>(localSucceeded);
+                for (OCFile file : remoteSucceeded) {
+                    if (!localSucceededSet.contains(file)) {
+                        addFailure(file.getRemotePath(), new RemoteOperationResult(getLocalFailureCode()));
+                    }
+                }
+            }
+        }
+
+        Log_OC.d(TAG, getClass().getSimpleName() + ": " + succeededFiles.size() + " succeeded, " + failures.size() +
+            " failed");
+
+        return failures.isEmpty() ? new RemoteOperationResult(ResultCode.OK) : failures.values().iterator().next();
+    }
+
+    private void addFailure(String remotePath, RemoteOperationResult result) {
+        Log_OC.w(TAG, getClass().getSimpleName() + " failed for " + remotePath + ": " + result.getCode());
+        failures.put(remotePath, result);
+    }
+
+    private List<RemoteOperationResult> runRemoteRequests(final OwnCloudClient client, List<OCFile> files) {
+        List<RemoteOperationResult> results = new ArrayList<>(files.size());
+        if (files.isEmpty()) {
+            return results;
+        }
+
+        List<Callable<RemoteOperationResult>> tasks = new ArrayList<>(files.size());
+        for (final OCFile file : files) {
+            tasks.add(() -> runRemote(client, file));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(MAX_PARALLEL_REQUESTS, files.size()));
+        try {
+            for (Future<RemoteOperationResult> future : executor.invokeAll(tasks)) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    Log_OC.e(TAG, "Remote request failed", e.getCause());
+                    results.add(new RemoteOperationResult(new Exception(e.getCause())));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            while (results.size() < files.size()) {
+                results.add(new RemoteOperationResult(ResultCode.CANCELLED));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return results;
+    }
+
+    /**
+     * Result of a remote request, which counts as success for the file.
+     */
+    protected boolean isSuccess(RemoteOperationResult result) {
+        return result.isSuccess();
+    }
+
+    /**
+     * Sends the remote request for a single file. Called concurrently for several files.
+     */
+    protected abstract RemoteOperationResult runRemote(OwnCloudClient client, OCFile file);
+
+    /**
+     * Applies the local changes for all files whose remote request succeeded.
+     *
+     * @return files the local changes succeeded for; failures are reported with {@link #getLocalFailureCode()}
+     */
+    protected abstract List<OCFile> applyLocally(List<OCFile> files);
+
+    /**
+     * Result code of files whose local changes failed.
+     */
+    protected ResultCode getLocalFailureCode() {
+        return ResultCode.LOCAL_STORAGE_NOT_REMOVED;
+    }
+}
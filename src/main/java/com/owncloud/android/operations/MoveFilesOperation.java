@@ -0,0 +1,80 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.owncloud.android.operations;
+
+import com.owncloud.android.datamodel.OCFile;
+import com.owncloud.android.lib.common.OwnCloudClient;
+import com.owncloud.android.lib.common.operations.RemoteOperationResult;
+import com.owncloud.android.lib.common.operations.RemoteOperationResult.ResultCode;
+import com.owncloud.android.lib.resources.files.MoveFileRemoteOperation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Operation moving several {@link OCFile}s into the same folder, see {@link MoveFileOperation} for a single one.
+ */
+public class MoveFilesOperation extends BulkFileOperation {
+
+    private String targetParentPath;
+
+    /**
+     * Constructor
+     *
+     * @param srcPaths          Remote paths of the {@link OCFile}s to move.
+     * @param targetParentPath  Path to the folder where the files will be moved into.
+     */
+    public MoveFilesOperation(List<String> srcPaths, String targetParentPath) {
+        super(srcPaths);
+        this.targetParentPath = targetParentPath;
+        if (!this.targetParentPath.endsWith(OCFile.PATH_SEPARATOR)) {
+            this.targetParentPath += OCFile.PATH_SEPARATOR;
+        }
+    }
+
+    @Override
+    protected RemoteOperationResult runRemote(OwnCloudClient client, OCFile file) {
+        if (targetParentPath.startsWith(file.getRemotePath())) {
+            return new RemoteOperationResult(ResultCode.INVALID_MOVE_INTO_DESCENDANT);
+        }
+
+        return new MoveFileRemoteOperation(file.getRemotePath(), getTargetPath(file), false).execute(client);
+    }
+
+    @Override
+    protected List<OCFile> applyLocally(List<OCFile> files) {
+        List<String> targetPaths = new ArrayList<>(files.size());
+        for (OCFile file : files) {
+            targetPaths.add(getTargetPath(file));
+        }
+
+        getStorageManager().moveLocalFiles(files, targetPaths, targetParentPath);
+
+        return files;
+    }
+
+    private String getTargetPath(OCFile file) {
+        String targetPath = targetParentPath + file.getFileName();
+        if (file.isFolder()) {
+            targetPath += OCFile.PATH_SEPARATOR;
+        }
+        return targetPath;
+    }
+}
@@ -204,6 +204,14 @@ public class RefreshFolderOperation extends RemoteOperation {
         return mChildren;
     }
 
+    /**
+     * @return 'true' if the folder content was read from the server, 'false' if its etag was unchanged and the
+     * children were taken from the local database
+     */
+    public boolean isRemoteFolderChanged() {
+        return mRemoteFolderChanged;
+    }
+
     /**
      * Performs the synchronization.
      *
@@ -228,6 +236,7 @@ public class RefreshFolderOperation extends RemoteOperation {
                 result = fetchAndSyncRemoteFolder(client);
             } else {
                 mChildren = mStorageManager.getFolderContent(mLocalFolder, false);
+                mLocalFolder.setEtagOnServer(mLocalFolder.getEtag());
             }
 
             if (result.isSuccess()) {
@@ -409,6 +418,8 @@ public class RefreshFolderOperation extends RemoteOperation {
         OCFile remoteFolder = FileStorageUtils.fillOCFile((RemoteFile) folderAndFiles.get(0));
         remoteFolder.setParentId(mLocalFolder.getParentId());
         remoteFolder.setFileId(mLocalFolder.getFileId());
+        // in sync now; full account syncs skip folders whose etag equals the one on server
+        remoteFolder.setEtagOnServer(remoteFolder.getEtag());
 
         Log_OC.d(TAG, "Remote folder " + mLocalFolder.getRemotePath() + " changed - starting update of local data ");
 
@@ -425,7 +436,7 @@ public class RefreshFolderOperation extends RemoteOperation {
         // update richWorkpace
         mLocalFolder.setRichWorkspace(remoteFolder.getRichWorkspace());
 
-        DecryptedFolderMetadata metadata = getDecryptedFolderMetadata(encryptedAncestor);
+        DecryptedFolderMetadata metadata = getDecryptedFolderMetadata(encryptedAncestor, remoteFolder.getEtag());
 
         // get current data about local contents of the folder to synchronize
         Map<String, OCFile> localFilesMap = prefillLocalFilesMap(metadata,
@@ -481,10 +492,12 @@ public class RefreshFolderOperation extends RemoteOperation {
     }
 
     @Nullable
-    private DecryptedFolderMetadata getDecryptedFolderMetadata(boolean encryptedAncestor) {
+    private DecryptedFolderMetadata getDecryptedFolderMetadata(boolean encryptedAncestor, String remoteEtag) {
         DecryptedFolderMetadata metadata;
         if (encryptedAncestor && android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.KITKAT) {
-            metadata = EncryptionUtils.downloadFolderMetadata(mLocalFolder, getClient(), mContext, mAccount);
+            // metadata cannot change without changing the folder etag, so unchanged folders can reuse it
+            metadata = EncryptionUtils.downloadFolderMetadata(mLocalFolder, remoteEtag, getClient(), mContext,
+                                                              mAccount);
         } else {
             metadata = null;
         }
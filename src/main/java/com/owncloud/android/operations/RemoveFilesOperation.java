@@ -0,0 +1,109 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.owncloud.android.operations;
+
+import android.accounts.Account;
+import android.content.Context;
+
+import com.owncloud.android.datamodel.OCFile;
+import com.owncloud.android.datamodel.ThumbnailsCacheManager;
+import com.owncloud.android.lib.common.OwnCloudClient;
+import com.owncloud.android.lib.common.operations.RemoteOperationResult;
+import com.owncloud.android.lib.common.operations.RemoteOperationResult.ResultCode;
+import com.owncloud.android.lib.resources.files.RemoveFileRemoteOperation;
+import com.owncloud.android.utils.MimeTypeUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Operation removing several {@link OCFile}s, see {@link RemoveFileOperation} for a single one.
+ */
+public class RemoveFilesOperation extends BulkFileOperation {
+
+    private final boolean onlyLocalCopy;
+    private final Account account;
+    private final boolean inBackground;
+    private final Context context;
+
+    /** Encrypted files lock their parent folder on removal, so they are removed one after the other */
+    private final Object encryptedLock = new Object();
+
+    /**
+     * Constructor
+     *
+     * @param remotePaths   Remote paths of the files or folders to remove from the server
+     * @param onlyLocalCopy When 'true', and a local copy of the file exists, only this is removed.
+     */
+    public RemoveFilesOperation(List<String> remotePaths, boolean onlyLocalCopy, Account account,
+                                boolean inBackground, Context context) {
+        super(remotePaths);
+        this.onlyLocalCopy = onlyLocalCopy;
+        this.account = account;
+        this.inBackground = inBackground;
+        this.context = context;
+    }
+
+    public boolean isInBackground() {
+        return inBackground;
+    }
+
+    @Override
+    protected RemoteOperationResult runRemote(OwnCloudClient client, OCFile file) {
+        if (MimeTypeUtil.isImage(file.getMimeType())) {
+            // store resized image
+            ThumbnailsCacheManager.generateResizedImage(file);
+        }
+
+        if (onlyLocalCopy) {
+            return new RemoteOperationResult(ResultCode.OK);
+        }
+
+        if (file.isEncrypted() && android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.KITKAT) {
+            synchronized (encryptedLock) {
+                OCFile parent = getStorageManager().getFileByPath(file.getParentRemotePath());
+                return new RemoveRemoteEncryptedFileOperation(file.getRemotePath(), parent.getLocalId(), account,
+                                                              context, file.getEncryptedFileName()).execute(client);
+            }
+        } else {
+            return new RemoveFileRemoteOperation(file.getRemotePath()).execute(client);
+        }
+    }
+
+    @Override
+    protected boolean isSuccess(RemoteOperationResult result) {
+        return result.isSuccess() || result.getCode() == ResultCode.FILE_NOT_FOUND;
+    }
+
+    @Override
+    protected List<OCFile> applyLocally(List<OCFile> files) {
+        if (!onlyLocalCopy) {
+            return getStorageManager().removeFiles(files);
+        }
+
+        List<OCFile> removedFiles = new ArrayList<>(files.size());
+        for (OCFile file : files) {
+            if (getStorageManager().removeFile(file, false, true)) {
+                removedFiles.add(file);
+            }
+        }
+        return removedFiles;
+    }
+}
@@ -88,7 +88,7 @@ public class RemoveRemoteEncryptedFileOperation extends RemoteOperation {
         String token = null;
         DecryptedFolderMetadata metadata;
 
-        String privateKey = arbitraryDataProvider.getValue(account.name, EncryptionUtils.PRIVATE_KEY);
+        String privateKey = EncryptionUtils.getPrivateKey(arbitraryDataProvider, account.name);
 
         // unlock
 
@@ -0,0 +1,61 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.owncloud.android.operations;
+
+import com.owncloud.android.datamodel.OCFile;
+import com.owncloud.android.lib.common.OwnCloudClient;
+import com.owncloud.android.lib.common.operations.RemoteOperationResult;
+import com.owncloud.android.lib.resources.files.ToggleFavoriteRemoteOperation;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Operation setting or removing the favorite flag of several {@link OCFile}s. The flags of all changed files are
+ * written to the database in one batch.
+ */
+public class ToggleFavoritesOperation extends BulkFileOperation {
+
+    private final boolean favorite;
+
+    /**
+     * @param files    {@link OCFile}s to change, they do not need to be stored in the database.
+     * @param favorite true to mark the files as favorite, false to unmark them.
+     */
+    public ToggleFavoritesOperation(Collection<OCFile> files, boolean favorite) {
+        super(files);
+        this.favorite = favorite;
+    }
+
+    public boolean isFavorite() {
+        return favorite;
+    }
+
+    @Override
+    protected RemoteOperationResult runRemote(OwnCloudClient client, OCFile file) {
+        return new ToggleFavoriteRemoteOperation(favorite, file.getRemotePath()).execute(client);
+    }
+
+    @Override
+    protected List<OCFile> applyLocally(List<OCFile> files) {
+        getStorageManager().saveFavorites(files, favorite);
+        return files;
+    }
+}
@@ -27,7 +27,6 @@ import android.content.Context;
 import android.net.Uri;
 import android.os.Build;
 import android.text.TextUtils;
-import android.util.Log;
 
 import com.evernote.android.job.JobRequest;
 import com.evernote.android.job.util.Device;
@@ -63,6 +62,7 @@ import com.owncloud.android.lib.resources.files.UploadFileRemoteOperation;
 import com.owncloud.android.lib.resources.files.model.RemoteFile;
 import com.owncloud.android.operations.common.SyncOperation;
 import com.owncloud.android.utils.EncryptionUtils;
+import com.owncloud.android.utils.FileCopyUtils;
 import com.owncloud.android.utils.FileStorageUtils;
 import com.owncloud.android.utils.MimeType;
 import com.owncloud.android.utils.MimeTypeUtil;
@@ -74,12 +74,10 @@ import org.lukhnos.nnio.file.Files;
 import org.lukhnos.nnio.file.Paths;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.io.RandomAccessFile;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
@@ -447,7 +445,7 @@ public class UploadFileOperation extends SyncOperation {
 
         ArbitraryDataProvider arbitraryDataProvider = new ArbitraryDataProvider(getContext().getContentResolver());
 
-        String privateKey = arbitraryDataProvider.getValue(getAccount().name, EncryptionUtils.PRIVATE_KEY);
+        String privateKey = EncryptionUtils.getPrivateKey(arbitraryDataProvider, getAccount().name);
         String publicKey = arbitraryDataProvider.getValue(getAccount().name, EncryptionUtils.PUBLIC_KEY);
 
         try {
@@ -987,11 +985,7 @@ public class UploadFileOperation extends SyncOperation {
 
             case FileUploader.LOCAL_BEHAVIOUR_COPY:
                 if (temporalFile != null) {
-                    try {
-                        move(temporalFile, expectedFile);
-                    } catch (IOException e) {
-                        Log_OC.e(TAG, e.getMessage());
-                    }
+                    move(temporalFile, expectedFile);
                 }
                 mFile.setStoragePath(expectedFile.getAbsolutePath());
                 saveUploadedFile(client);
@@ -1004,11 +998,7 @@ public class UploadFileOperation extends SyncOperation {
                 String expectedPath = FileStorageUtils.getDefaultSavePathFor(mAccount.name, mFile);
                 File newFile = new File(expectedPath);
 
-                try {
-                    move(originalFile, newFile);
-                } catch (IOException e) {
-                    Log.e(TAG, "Error moving file", e);
-                }
+                move(originalFile, newFile);
                 getStorageManager().deleteFileInMediaScan(originalFile.getAbsolutePath());
                 mFile.setStoragePath(newFile.getAbsolutePath());
                 saveUploadedFile(client);
@@ -1203,31 +1193,23 @@ public class UploadFileOperation extends SyncOperation {
 
             Log_OC.d(TAG, "Copying file contents");
             InputStream in = null;
-            OutputStream out = null;
 
             try {
                 if (!mOriginalStoragePath.equals(targetFile.getAbsolutePath())) {
+                    boolean completed;
                     // In case document provider schema as 'content://'
                     if (mOriginalStoragePath.startsWith(UriUtils.URI_CONTENT_SCHEME)) {
                         Uri uri = Uri.parse(mOriginalStoragePath);
                         in = mContext.getContentResolver().openInputStream(uri);
+                        completed = FileCopyUtils.copy(in, targetFile, mCancellationRequested, true);
                     } else {
-                        in = new FileInputStream(sourceFile);
+                        completed = FileCopyUtils.copy(sourceFile, targetFile, mCancellationRequested, true);
                     }
-                    out = new FileOutputStream(targetFile);
-                    int nRead;
-                    byte[] buf = new byte[4096];
-                    while (!mCancellationRequested.get() &&
-                            (nRead = in.read(buf)) > -1) {
-                        out.write(buf, 0, nRead);
-                    }
-                    out.flush();
 
+                    if (!completed) {
+                        return new RemoteOperationResult(new OperationCancelledException());
+                    }
                 } // else: weird but possible situation, nothing to copy
-
-                if (mCancellationRequested.get()) {
-                    return new RemoteOperationResult(new OperationCancelledException());
-                }
             } catch (Exception e) {
                 return new RemoteOperationResult(ResultCode.LOCAL_STORAGE_NOT_COPIED);
             } finally {
@@ -1239,14 +1221,6 @@ public class UploadFileOperation extends SyncOperation {
                     Log_OC.d(TAG, "Weird exception while closing input stream for " +
                             mOriginalStoragePath + " (ignoring)", e);
                 }
-                try {
-                    if (out != null) {
-                        out.close();
-                    }
-                } catch (Exception e) {
-                    Log_OC.d(TAG, "Weird exception while closing output stream for " +
-                            targetFile.getAbsolutePath() + " (ignoring)", e);
-                }
             }
         }
         return new RemoteOperationResult(ResultCode.OK);
@@ -1260,35 +1234,18 @@ public class UploadFileOperation extends SyncOperation {
      *
      * @param sourceFile Source file to move.
      * @param targetFile Target location to move the file.
-     * @throws IOException exception if file cannot be read/wrote
      */
-    private void move(File sourceFile, File targetFile) throws IOException {
+    private void move(File sourceFile, File targetFile) {
 
         if (!targetFile.equals(sourceFile)) {
             File expectedFolder = targetFile.getParentFile();
             expectedFolder.mkdirs();
 
             if (expectedFolder.isDirectory()) {
-                if (!sourceFile.renameTo(targetFile)) {
-                    // try to copy and then delete
-                    targetFile.createNewFile();
-                    FileChannel inChannel = new FileInputStream(sourceFile).getChannel();
-                    FileChannel outChannel = new FileOutputStream(targetFile).getChannel();
-                    try {
-                        inChannel.transferTo(0, inChannel.size(), outChannel);
-                        sourceFile.delete();
-                    } catch (Exception e) {
-                        mFile.setStoragePath(""); // forget the local file
-                        // by now, treat this as a success; the file was uploaded
-                        // the best option could be show a warning message
-                    } finally {
-                        if (inChannel != null) {
-                            inChannel.close();
-                        }
-                        if (outChannel != null) {
-                            outChannel.close();
-                        }
-                    }
+                if (!FileCopyUtils.move(sourceFile, targetFile)) {
+                    mFile.setStoragePath(""); // forget the local file
+                    // by now, treat this as a success; the file was uploaded
+                    // the best option could be show a warning message
                 }
 
             } else {
@@ -38,6 +38,7 @@ import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteException;
 import android.database.sqlite.SQLiteOpenHelper;
 import android.database.sqlite.SQLiteQueryBuilder;
+import android.database.sqlite.SQLiteStatement;
 import android.net.Uri;
 import android.os.Binder;
 import android.text.TextUtils;
@@ -83,6 +84,9 @@ public class FileContentProvider extends ContentProvider {
     private static final int ARBITRARY_DATA = 9;
     private static final int VIRTUAL = 10;
     private static final int FILESYSTEM = 11;
+    private static final int VIRTUAL_FILES = 12;
+    private static final int STORAGE_PATH_PREFIX = 13;
+    private static final int ACTIVITIES = 14;
     private static final String TAG = FileContentProvider.class.getSimpleName();
     // todo avoid string concatenation and use string formatting instead later.
     private static final String ERROR = "ERROR ";
@@ -91,6 +95,9 @@ public class FileContentProvider extends ContentProvider {
     private static final String TEXT = " TEXT, ";
     private static final String ALTER_TABLE = "ALTER TABLE ";
     private static final String ADD_COLUMN = " ADD COLUMN ";
+    private static final String LIKE_ESCAPE = "\\";
+    private static final String UPLOADS_LIST_INDEX = "uploads_account_status_end_timestamp";
+    private static final String ACTIVITIES_INDEX = "activities_account_activity_id";
     private static final String UPGRADE_VERSION_MSG = "OUT of the ADD in onUpgrade; oldVersion == %d, newVersion == %d";
     private static final int SINGLE_PATH_SEGMENT = 1;
     public static final int ARBITRARY_DATA_TABLE_INTRODUCTION_VERSION = 20;
@@ -160,6 +167,9 @@ public class FileContentProvider extends ContentProvider {
             case FILESYSTEM:
                 count = db.delete(ProviderTableMeta.FILESYSTEM_TABLE_NAME, where, whereArgs);
                 break;
+            case ACTIVITIES:
+                count = db.delete(ProviderTableMeta.ACTIVITIES_TABLE_NAME, where, whereArgs);
+                break;
             default:
                 throw new IllegalArgumentException(String.format(Locale.US, "Unknown uri: %s", uri.toString()));
         }
@@ -168,40 +178,53 @@ public class FileContentProvider extends ContentProvider {
     }
 
     private int deleteDirectory(SQLiteDatabase db, Uri uri, String where, String... whereArgs) {
+        if (uri.getPathSegments().size() <= MINIMUM_PATH_SEGMENTS_SIZE) {
+            // no folder given, every file is a descendant
+            return db.delete(ProviderTableMeta.FILE_TABLE_NAME, null, null);
+        }
+
+        String folderId = uri.getPathSegments().get(1);
         int count = 0;
 
-        Cursor children = query(uri, null, null, null, null);
-        if (children != null) {
-            if (children.moveToFirst()) {
-                long childId;
-                boolean isDir;
-                while (!children.isAfterLast()) {
-                    childId = children.getLong(children.getColumnIndex(ProviderTableMeta._ID));
-                    isDir = MimeType.DIRECTORY.equals(children.getString(
-                        children.getColumnIndex(ProviderTableMeta.FILE_CONTENT_TYPE)
-                    ));
-                    if (isDir) {
-                        count += delete(db, ContentUris.withAppendedId(ProviderTableMeta.CONTENT_URI_DIR, childId),
-                                        null, (String[]) null);
-                    } else {
-                        count += delete(db, ContentUris.withAppendedId(ProviderTableMeta.CONTENT_URI_FILE, childId),
-                                        null, (String[]) null);
-                    }
-                    children.moveToNext();
-                }
+        Cursor folder = db.query(ProviderTableMeta.FILE_TABLE_NAME,
+                                 new String[]{ProviderTableMeta.FILE_ACCOUNT_OWNER, ProviderTableMeta.FILE_PATH},
+                                 ProviderTableMeta._ID + "=?",
+                                 new String[]{folderId},
+                                 null,
+                                 null,
+                                 null);
+        if (folder != null) {
+            if (folder.moveToFirst()) {
+                String accountName = folder.getString(folder.getColumnIndex(ProviderTableMeta.FILE_ACCOUNT_OWNER));
+                String path = folder.getString(folder.getColumnIndex(ProviderTableMeta.FILE_PATH));
+                if (!path.endsWith(OCFile.PATH_SEPARATOR)) {
+                    path = path + OCFile.PATH_SEPARATOR;
+                }
+
+                // all descendants at once, instead of walking down folder by folder
+                db.execSQL("PRAGMA case_sensitive_like = true");
+                count = db.delete(ProviderTableMeta.FILE_TABLE_NAME,
+                                  ProviderTableMeta.FILE_ACCOUNT_OWNER + "=? AND " +
+                                      ProviderTableMeta.FILE_PATH + " LIKE ? ESCAPE '" + LIKE_ESCAPE + "' AND " +
+                                      ProviderTableMeta._ID + "<>?",
+                                  new String[]{accountName, escapeLikePattern(path) + "%", folderId});
             }
-            children.close();
+            folder.close();
         }
 
-        if (uri.getPathSegments().size() > MINIMUM_PATH_SEGMENTS_SIZE) {
-            count += db.delete(ProviderTableMeta.FILE_TABLE_NAME,
-                               ProviderTableMeta._ID + "=" + uri.getPathSegments().get(1)
-                                   + (!TextUtils.isEmpty(where) ? " AND (" + where + ")" : ""), whereArgs);
-        }
+        count += db.delete(ProviderTableMeta.FILE_TABLE_NAME,
+                           ProviderTableMeta._ID + "=" + folderId
+                               + (!TextUtils.isEmpty(where) ? " AND (" + where + ")" : ""), whereArgs);
 
         return count;
     }
 
+    private static String escapeLikePattern(String value) {
+        return value.replace(LIKE_ESCAPE, LIKE_ESCAPE + LIKE_ESCAPE)
+            .replace("%", LIKE_ESCAPE + "%")
+            .replace("_", LIKE_ESCAPE + "_");
+    }
+
     private int deleteSingleFile(SQLiteDatabase db, Uri uri, String where, String... whereArgs) {
         int count = 0;
         Cursor c = query(db, uri, null, where, whereArgs, null);
@@ -383,6 +406,17 @@ public class FileContentProvider extends ContentProvider {
                     throw new SQLException("ERROR " + uri);
                 }
                 return insertedFilesystemUri;
+            case ACTIVITIES:
+                // activities are fetched again from time to time, the newer copy wins
+                long activityId = db.insertWithOnConflict(ProviderTableMeta.ACTIVITIES_TABLE_NAME,
+                                                          null,
+                                                          values,
+                                                          SQLiteDatabase.CONFLICT_REPLACE);
+                if (activityId > 0) {
+                    return ContentUris.withAppendedId(ProviderTableMeta.CONTENT_URI_ACTIVITIES, activityId);
+                } else {
+                    throw new SQLException(ERROR + uri);
+                }
             default:
                 throw new IllegalArgumentException("Unknown uri id: " + uri);
         }
@@ -447,6 +481,9 @@ public class FileContentProvider extends ContentProvider {
         mUriMatcher.addURI(authority, "arbitrary_data", ARBITRARY_DATA);
         mUriMatcher.addURI(authority, "virtual", VIRTUAL);
         mUriMatcher.addURI(authority, "filesystem", FILESYSTEM);
+        mUriMatcher.addURI(authority, "virtual_files", VIRTUAL_FILES);
+        mUriMatcher.addURI(authority, "storage_path_prefix", STORAGE_PATH_PREFIX);
+        mUriMatcher.addURI(authority, "activities", ACTIVITIES);
 
         return true;
     }
@@ -548,6 +585,21 @@ public class FileContentProvider extends ContentProvider {
                     sqlQuery.appendWhere(ProviderTableMeta._ID + "=" + uri.getPathSegments().get(1));
                 }
                 break;
+            case ACTIVITIES:
+                sqlQuery.setTables(ProviderTableMeta.ACTIVITIES_TABLE_NAME);
+                break;
+            case VIRTUAL_FILES:
+                // files referenced by virtual folders, resolved in one go instead of one query per entry
+                sqlQuery.setTables(ProviderTableMeta.FILE_TABLE_NAME + " INNER JOIN "
+                                       + ProviderTableMeta.VIRTUAL_TABLE_NAME + " ON "
+                                       + ProviderTableMeta.FILE_TABLE_NAME + "." + ProviderTableMeta._ID + "="
+                                       + ProviderTableMeta.VIRTUAL_TABLE_NAME + "."
+                                       + ProviderTableMeta.VIRTUAL_OCFILE_ID);
+                if (projectionArray == null) {
+                    // _id exists in both tables, only file columns are of interest
+                    projectionArray = new String[]{ProviderTableMeta.FILE_TABLE_NAME + ".*"};
+                }
+                break;
             default:
                 throw new IllegalArgumentException("Unknown uri id: " + uri);
         }
@@ -582,6 +634,12 @@ public class FileContentProvider extends ContentProvider {
                 case FILESYSTEM:
                     order = ProviderTableMeta.FILESYSTEM_FILE_LOCAL_PATH;
                     break;
+                case VIRTUAL_FILES:
+                    order = ProviderTableMeta.FILE_TABLE_NAME + "." + ProviderTableMeta.FILE_DEFAULT_SORT_ORDER;
+                    break;
+                case ACTIVITIES:
+                    order = ProviderTableMeta.ACTIVITIES_ACTIVITY_ID + " DESC";
+                    break;
             }
         } else {
             order = sortOrder;
@@ -608,8 +666,11 @@ public class FileContentProvider extends ContentProvider {
             selection = "(?)";
         }
 
+        // optional paging, in SQLite notation "offset,limit" or "limit"
+        String limit = uri.getQueryParameter(ProviderTableMeta.QUERY_PARAMETER_LIMIT);
+
         sqlQuery.setStrict(true);
-        Cursor c = sqlQuery.query(db, projectionArray, selection, selectionArgs, null, null, order);
+        Cursor c = sqlQuery.query(db, projectionArray, selection, selectionArgs, null, null, order, limit);
         c.setNotificationUri(mContext.getContentResolver(), uri);
         return c;
     }
@@ -649,11 +710,38 @@ public class FileContentProvider extends ContentProvider {
                 return db.update(ProviderTableMeta.ARBITRARY_DATA_TABLE_NAME, values, selection, selectionArgs);
             case FILESYSTEM:
                 return db.update(ProviderTableMeta.FILESYSTEM_TABLE_NAME, values, selection, selectionArgs);
+            case ACTIVITIES:
+                return db.update(ProviderTableMeta.ACTIVITIES_TABLE_NAME, values, selection, selectionArgs);
+            case STORAGE_PATH_PREFIX:
+                return updateStoragePathPrefix(db,
+                                               selectionArgs[0],
+                                               values.getAsString(ProviderTableMeta.FILE_STORAGE_PATH));
             default:
                 return db.update(ProviderTableMeta.FILE_TABLE_NAME, values, selection, selectionArgs);
         }
     }
 
+    /**
+     * Rewrites the storage paths starting with the old prefix in one statement.
+     */
+    private int updateStoragePathPrefix(SQLiteDatabase db, String oldPrefix, String newPrefix) {
+        db.execSQL("PRAGMA case_sensitive_like = true");
+        SQLiteStatement statement = db.compileStatement(
+            "UPDATE " + ProviderTableMeta.FILE_TABLE_NAME +
+                " SET " + ProviderTableMeta.FILE_STORAGE_PATH + " = ? || substr(" +
+                ProviderTableMeta.FILE_STORAGE_PATH + ", ?)" +
+                " WHERE " + ProviderTableMeta.FILE_STORAGE_PATH + " LIKE ? ESCAPE '" + LIKE_ESCAPE + "'");
+        try {
+            statement.bindString(1, newPrefix);
+            // substr counts characters, not UTF-16 units
+            statement.bindLong(2, oldPrefix.codePointCount(0, oldPrefix.length()) + 1);
+            statement.bindString(3, escapeLikePattern(oldPrefix) + "%");
+            return statement.executeUpdateDelete();
+        } finally {
+            statement.close();
+        }
+    }
+
     @NonNull
     @Override
     public ContentProviderResult[] applyBatch(@NonNull ArrayList<ContentProviderOperation> operations)
@@ -721,6 +809,7 @@ public class FileContentProvider extends ContentProvider {
                        + ProviderTableMeta.FILE_OWNER_DISPLAY_NAME + TEXT
                        + ProviderTableMeta.FILE_NOTE + TEXT
                        + ProviderTableMeta.FILE_SHAREES + TEXT
+                       + ProviderTableMeta.FILE_SUBTREE_KEPT_IN_SYNC + INTEGER // boolean
                        + ProviderTableMeta.FILE_RICH_WORKSPACE + " TEXT);"
         );
     }
@@ -822,6 +911,18 @@ public class FileContentProvider extends ContentProvider {
         // uploadStatus is used to easy filtering, it has precedence over
         // uploadObject.getUploadStatus()
         */
+
+        createUploadsIndex(db);
+    }
+
+    /**
+     * Index for the paged upload list, which is filtered by account and status and ordered by end timestamp.
+     */
+    private void createUploadsIndex(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS " + UPLOADS_LIST_INDEX + " ON " + ProviderTableMeta.UPLOADS_TABLE_NAME
+                       + "(" + ProviderTableMeta.UPLOADS_ACCOUNT_NAME + ", "
+                       + ProviderTableMeta.UPLOADS_STATUS + ", "
+                       + ProviderTableMeta.UPLOADS_UPLOAD_END_TIMESTAMP + ")");
     }
 
     private void createSyncedFoldersTable(SQLiteDatabase db) {
@@ -885,6 +986,20 @@ public class FileContentProvider extends ContentProvider {
         );
     }
 
+    private void createActivitiesTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + ProviderTableMeta.ACTIVITIES_TABLE_NAME + "("
+                       + ProviderTableMeta._ID + " INTEGER PRIMARY KEY, "          // id
+                       + ProviderTableMeta.ACTIVITIES_ACCOUNT_NAME + TEXT          // account name
+                       + ProviderTableMeta.ACTIVITIES_ACTIVITY_ID + INTEGER        // activity id on the server
+                       + ProviderTableMeta.ACTIVITIES_JSON + " TEXT );"            // activity as JSON
+        );
+        db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS " + ACTIVITIES_INDEX + " ON "
+                       + ProviderTableMeta.ACTIVITIES_TABLE_NAME + "("
+                       + ProviderTableMeta.ACTIVITIES_ACCOUNT_NAME + ", "
+                       + ProviderTableMeta.ACTIVITIES_ACTIVITY_ID + ")"
+        );
+    }
+
     /**
      * Version 10 of database does not modify its scheme. It coincides with the upgrade of the
      * ownCloud account names structure to include in it the path to the server instance. Updating
@@ -1015,6 +1130,9 @@ public class FileContentProvider extends ContentProvider {
             case ARBITRARY_DATA:
             case VIRTUAL:
             case FILESYSTEM:
+            case VIRTUAL_FILES:
+            case STORAGE_PATH_PREFIX:
+            case ACTIVITIES:
                 String callingPackage = mContext.getPackageManager().getNameForUid(Binder.getCallingUid());
                 return callingPackage == null || !callingPackage.equals(mContext.getPackageName());
 
@@ -1060,6 +1178,9 @@ public class FileContentProvider extends ContentProvider {
 
             // Create filesystem table
             createFileSystemTable(db);
+
+            // Create activities table
+            createActivitiesTable(db);
         }
 
         @Override
@@ -2193,6 +2314,76 @@ public class FileContentProvider extends ContentProvider {
             if (!upgraded) {
                 Log_OC.i(SQL, String.format(Locale.ENGLISH, UPGRADE_VERSION_MSG, oldVersion, newVersion));
             }
+
+            if (oldVersion < 56 && newVersion >= 56) {
+                Log_OC.i(SQL, "Entering in the #56 add subtree kept-in-sync marker to file table");
+                db.beginTransaction();
+                try {
+                    db.execSQL(ALTER_TABLE + ProviderTableMeta.FILE_TABLE_NAME +
+                                   ADD_COLUMN + ProviderTableMeta.FILE_SUBTREE_KEPT_IN_SYNC + " INTEGER DEFAULT 0");
+
+                    // mark all ancestors of favorites, one folder level per round
+                    SQLiteStatement markParents = db.compileStatement(
+                        "UPDATE " + ProviderTableMeta.FILE_TABLE_NAME +
+                            " SET " + ProviderTableMeta.FILE_SUBTREE_KEPT_IN_SYNC + " = 1" +
+                            " WHERE " + ProviderTableMeta.FILE_SUBTREE_KEPT_IN_SYNC + " = 0" +
+                            " AND " + ProviderTableMeta.FILE_CONTENT_TYPE + " = '" + MimeType.DIRECTORY + "'" +
+                            " AND " + ProviderTableMeta._ID + " IN (SELECT " + ProviderTableMeta.FILE_PARENT +
+                            " FROM " + ProviderTableMeta.FILE_TABLE_NAME +
+                            " WHERE " + ProviderTableMeta.FILE_FAVORITE + " = 1" +
+                            " OR " + ProviderTableMeta.FILE_SUBTREE_KEPT_IN_SYNC + " = 1)");
+                    while (markParents.executeUpdateDelete() > 0) {
+                        // next level
+                    }
+
+                    upgraded = true;
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+            }
+
+            if (!upgraded) {
+                Log_OC.i(SQL, String.format(Locale.ENGLISH, UPGRADE_VERSION_MSG, oldVersion, newVersion));
+            }
+
+            if (oldVersion < 57 && newVersion >= 57) {
+                Log_OC.i(SQL, "Entering in the #57 add index for paged upload list");
+                db.beginTransaction();
+                try {
+                    // keyset paging needs comparable end timestamps
+                    db.execSQL("UPDATE " + ProviderTableMeta.UPLOADS_TABLE_NAME +
+                                   " SET " + ProviderTableMeta.UPLOADS_UPLOAD_END_TIMESTAMP + " = 0" +
+                                   " WHERE " + ProviderTableMeta.UPLOADS_UPLOAD_END_TIMESTAMP + " IS NULL");
+                    createUploadsIndex(db);
+
+                    upgraded = true;
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+            }
+
+            if (!upgraded) {
+                Log_OC.i(SQL, String.format(Locale.ENGLISH, UPGRADE_VERSION_MSG, oldVersion, newVersion));
+            }
+
+            if (oldVersion < 58 && newVersion >= 58) {
+                Log_OC.i(SQL, "Entering in the #58 add activities table");
+                db.beginTransaction();
+                try {
+                    createActivitiesTable(db);
+
+                    upgraded = true;
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+            }
+
+            if (!upgraded) {
+                Log_OC.i(SQL, String.format(Locale.ENGLISH, UPGRADE_VERSION_MSG, oldVersion, newVersion));
+            }
         }
     }
 }
@@ -0,0 +1,266 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.owncloud.android.providers;
+
+import com.nextcloud.client.core.Clock;
+import com.owncloud.android.lib.common.utils.Log_OC;
+import com.owncloud.android.lib.resources.shares.GetShareesRemoteOperation;
+
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * Sharee search for the autocompletion of a search view, which issues a query for each typed character.
+ *
+ * Server requests are debounced: a query waits a moment and is dropped if the user typed on meanwhile. Requests of
+ * queries the user typed past are abandoned. Results are cached for a while; if the server returned less than a full
+ * page for a query, all results of a longer query are contained in it, so the longer query is answered by filtering.
+ */
+class ShareeSearch {
+    private static final String TAG = ShareeSearch.class.getSimpleName();
+
+    static final long DEBOUNCE_MILLIS = 300;
+    static final long CACHE_TTL_MILLIS = 60 * 1000;
+    private static final int MAX_CACHED_QUERIES = 20;
+
+    /**
+     * Searches sharees on the server.
+     */
+    interface Remote {
+        /**
+         * @return found sharees as returned by {@link GetShareesRemoteOperation}, null if the request failed
+         */
+        @Nullable
+        List<JSONObject> search(String accountName, String query);
+    }
+
+    private static class CachedResult {
+        private final List<JSONObject> sharees;
+        private final long time;
+
+        CachedResult(List<JSONObject> sharees, long time) {
+            this.sharees = sharees;
+            this.time = time;
+        }
+    }
+
+    private static class Request {
+        private Future<?> future;
+        private boolean done;
+        private List<JSONObject> sharees;
+    }
+
+    private final Remote remote;
+    private final Clock clock;
+    private final int pageSize;
+    private final long debounceMillis;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final Object lock = new Object();
+
+    // guarded by lock
+    private final Map<String, CachedResult> cache = new LinkedHashMap<String, CachedResult>(MAX_CACHED_QUERIES,
+                                                                                            0.75f,
+                                                                                            true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+            return size() > MAX_CACHED_QUERIES;
+        }
+    };
+    private final Map<String, Request> requests = new HashMap<>();
+    private String cachedAccountName;
+    private String latestQuery;
+
+    ShareeSearch(Remote remote, Clock clock, int pageSize) {
+        this(remote, clock, pageSize, DEBOUNCE_MILLIS);
+    }
+
+    @VisibleForTesting
+    ShareeSearch(Remote remote, Clock clock, int pageSize, long debounceMillis) {
+        this.remote = remote;
+        this.clock = clock;
+        this.pageSize = pageSize;
+        this.debounceMillis = debounceMillis;
+    }
+
+    /**
+     * Sets the query the user typed last, as soon as it is typed. Waiting searches for other queries are dropped.
+     */
+    void setLatestQuery(@Nullable String query) {
+        synchronized (lock) {
+            latestQuery = query == null ? null : normalize(query);
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Blocks until the sharees are known.
+     *
+     * @return found sharees, null if the request failed or the query was dropped in favour of a newer one
+     */
+    @Nullable
+    List<JSONObject> search(String accountName, String query) {
+        String normalizedQuery = normalize(query);
+        Request request;
+
+        synchronized (lock) {
+            if (!accountName.equals(cachedAccountName)) {
+                cache.clear();
+                cachedAccountName = accountName;
+            }
+
+            List<JSONObject> cached = getCached(normalizedQuery);
+            if (cached != null) {
+                return cached;
+            }
+
+            request = requests.get(normalizedQuery);
+            try {
+                if (request == null) {
+                    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(debounceMillis);
+                    long remaining = debounceMillis;
+                    while (remaining > 0 && !isSuperseded(normalizedQuery)) {
+                        lock.wait(remaining);
+                        remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                    }
+                    if (isSuperseded(normalizedQuery)) {
+                        return null;
+                    }
+
+                    // another search may have got further meanwhile
+                    cached = getCached(normalizedQuery);
+                    if (cached != null) {
+                        return cached;
+                    }
+                    request = requests.get(normalizedQuery);
+                    if (request == null) {
+                        Request newRequest = new Request();
+                        newRequest.future = executor.submit(() -> run(newRequest, accountName, normalizedQuery));
+                        requests.put(normalizedQuery, newRequest);
+                        request = newRequest;
+                    }
+                }
+
+                while (!request.done && !isSuperseded(normalizedQuery)) {
+                    lock.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+
+            if (!request.done) {
+                requests.remove(normalizedQuery);
+                request.future.cancel(true);
+                return null;
+            }
+            return request.sharees;
+        }
+    }
+
+    private void run(Request request, String accountName, String query) {
+        List<JSONObject> sharees = null;
+        try {
+            sharees = remote.search(accountName, query);
+        } catch (RuntimeException e) {
+            Log_OC.e(TAG, "Error searching sharees", e);
+        } finally {
+            synchronized (lock) {
+                if (requests.get(query) == request) {
+                    requests.remove(query);
+                }
+                if (sharees != null && accountName.equals(cachedAccountName)) {
+                    cache.put(query, new CachedResult(Collections.unmodifiableList(sharees), clock.getCurrentTime()));
+                }
+                request.sharees = sharees;
+                request.done = true;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * @return the cached result of the query, or of a shorter one if it was complete; null if none is cached
+     */
+    @Nullable
+    private List<JSONObject> getCached(String query) {
+        long now = clock.getCurrentTime();
+
+        CachedResult exact = cache.get(query);
+        if (exact != null && now - exact.time < CACHE_TTL_MILLIS) {
+            return exact.sharees;
+        }
+
+        // remote and email sharees are made up from the typed query, so they cannot be found in shorter queries
+        if (query.indexOf('@') >= 0) {
+            return null;
+        }
+
+        for (int length = query.length() - 1; length > 0; length--) {
+            CachedResult prefix = cache.get(query.substring(0, length));
+            if (prefix != null && now - prefix.time < CACHE_TTL_MILLIS && prefix.sharees.size() < pageSize) {
+                List<JSONObject> filtered = new ArrayList<>();
+                for (JSONObject sharee : prefix.sharees) {
+                    if (matches(sharee, query)) {
+                        filtered.add(sharee);
+                    }
+                }
+                return Collections.unmodifiableList(filtered);
+            }
+        }
+
+        return null;
+    }
+
+    private boolean isSuperseded(String query) {
+        return latestQuery != null && !latestQuery.equals(query);
+    }
+
+    private static boolean matches(JSONObject sharee, String query) {
+        if (contains(sharee.optString(GetShareesRemoteOperation.PROPERTY_LABEL), query)) {
+            return true;
+        }
+
+        JSONObject value = sharee.optJSONObject(GetShareesRemoteOperation.NODE_VALUE);
+        return value != null && contains(value.optString(GetShareesRemoteOperation.PROPERTY_SHARE_WITH), query);
+    }
+
+    private static boolean contains(String text, String query) {
+        return text.toLowerCase(Locale.ROOT).contains(query);
+    }
+
+    private static String normalize(String query) {
+        return query.toLowerCase(Locale.ROOT);
+    }
+}
@@ -35,6 +35,7 @@ import android.widget.Toast;
 
 import com.nextcloud.client.account.User;
 import com.nextcloud.client.account.UserAccountManager;
+import com.nextcloud.client.core.Clock;
 import com.owncloud.android.R;
 import com.owncloud.android.datamodel.FileDataStorageManager;
 import com.owncloud.android.lib.common.operations.RemoteOperationResult;
@@ -96,6 +97,11 @@ public class UsersAndGroupsSearchProvider extends ContentProvider {
     @Inject
     protected UserAccountManager accountManager;
 
+    @Inject
+    protected Clock clock;
+
+    private static ShareeSearch shareeSearch;
+
     private static Map<String, ShareType> sShareTypes = new HashMap<>();
 
     public static ShareType getShareType(String authority) {
@@ -103,6 +109,17 @@ public class UsersAndGroupsSearchProvider extends ContentProvider {
         return sShareTypes.get(authority);
     }
 
+    /**
+     * To be called whenever the text of the sharee search view changes, so that searches for outdated text are
+     * dropped before or while they reach the server.
+     */
+    public static void onQueryTextChange(String newText) {
+        ShareeSearch search = shareeSearch;
+        if (search != null) {
+            search.setLatestQuery(newText);
+        }
+    }
+
     private static void setActionShareWith(@NonNull Context context) {
         ACTION_SHARE_WITH = context.getResources().getString(R.string.users_and_groups_share_with);
     }
@@ -141,6 +158,8 @@ public class UsersAndGroupsSearchProvider extends ContentProvider {
         mUriMatcher = new UriMatcher(UriMatcher.NO_MATCH);
         mUriMatcher.addURI(AUTHORITY, SearchManager.SUGGEST_URI_PATH_QUERY + "/*", SEARCH);
 
+        shareeSearch = new ShareeSearch(this::requestSharees, clock, RESULTS_PER_PAGE);
+
         return true;
     }
 
@@ -187,23 +206,12 @@ public class UsersAndGroupsSearchProvider extends ContentProvider {
 
         String userQuery = lastPathSegment.toLowerCase(Locale.ROOT);
 
-        // request to the OC server about users and groups matching userQuery
-        GetShareesRemoteOperation searchRequest = new GetShareesRemoteOperation(userQuery, REQUESTED_PAGE,
-                                                                                RESULTS_PER_PAGE);
-        RemoteOperationResult result = searchRequest.execute(user.toPlatformAccount(), getContext());
-        List<JSONObject> names = new ArrayList<>();
-
-        if (result.isSuccess()) {
-            for (Object o : result.getData()) {
-                names.add((JSONObject) o);
-            }
-        } else {
-            showErrorMessage(result);
-        }
+        // debounced and cached request to the OC server about users and groups matching userQuery
+        List<JSONObject> names = shareeSearch.search(user.getAccountName(), userQuery);
 
         MatrixCursor response = null;
         // convert the responses from the OC server to the expected format
-        if (names.size() > 0) {
+        if (names != null && names.size() > 0) {
             if (getContext() == null) {
                 throw new IllegalArgumentException("Context may not be null!");
             }
@@ -306,6 +314,29 @@ public class UsersAndGroupsSearchProvider extends ContentProvider {
         return response;
     }
 
+    @Nullable
+    private List<JSONObject> requestSharees(String accountName, String query) {
+        User user = accountManager.getUser(accountName).orElse(null);
+        if (user == null) {
+            return null;
+        }
+
+        GetShareesRemoteOperation searchRequest = new GetShareesRemoteOperation(query, REQUESTED_PAGE,
+                                                                                RESULTS_PER_PAGE);
+        RemoteOperationResult result = searchRequest.execute(user.toPlatformAccount(), getContext());
+
+        if (!result.isSuccess()) {
+            showErrorMessage(result);
+            return null;
+        }
+
+        List<JSONObject> names = new ArrayList<>();
+        for (Object o : result.getData()) {
+            names.add((JSONObject) o);
+        }
+        return names;
+    }
+
     @Nullable
     @Override
     public Uri insert(@NonNull Uri uri, ContentValues values) {
@@ -56,12 +56,15 @@ import com.owncloud.android.lib.resources.shares.ShareType;
 import com.owncloud.android.lib.resources.users.GetUserInfoRemoteOperation;
 import com.owncloud.android.operations.CheckCurrentCredentialsOperation;
 import com.owncloud.android.operations.CopyFileOperation;
+import com.owncloud.android.operations.CopyFilesOperation;
 import com.owncloud.android.operations.CreateFolderOperation;
 import com.owncloud.android.operations.CreateShareViaLinkOperation;
 import com.owncloud.android.operations.CreateShareWithShareeOperation;
 import com.owncloud.android.operations.GetServerInfoOperation;
 import com.owncloud.android.operations.MoveFileOperation;
+import com.owncloud.android.operations.MoveFilesOperation;
 import com.owncloud.android.operations.RemoveFileOperation;
+import com.owncloud.android.operations.RemoveFilesOperation;
 import com.owncloud.android.operations.RenameFileOperation;
 import com.owncloud.android.operations.SynchronizeFileOperation;
 import com.owncloud.android.operations.SynchronizeFolderOperation;
@@ -90,6 +93,7 @@ public class OperationsService extends Service {
     public static final String EXTRA_SERVER_URL = "SERVER_URL";
     public static final String EXTRA_OAUTH2_QUERY_PARAMETERS = "OAUTH2_QUERY_PARAMETERS";
     public static final String EXTRA_REMOTE_PATH = "REMOTE_PATH";
+    public static final String EXTRA_REMOTE_PATHS = "REMOTE_PATHS";
     public static final String EXTRA_NEWNAME = "NEWNAME";
     public static final String EXTRA_REMOVE_ONLY_LOCAL = "REMOVE_LOCAL_COPY";
     public static final String EXTRA_CREATE_FULL_PATH = "CREATE_FULL_PATH";
@@ -120,11 +124,14 @@ public class OperationsService extends Service {
     public static final String ACTION_GET_USER_NAME = "GET_USER_NAME";
     public static final String ACTION_RENAME = "RENAME";
     public static final String ACTION_REMOVE = "REMOVE";
+    public static final String ACTION_REMOVE_FILES = "REMOVE_FILES";
     public static final String ACTION_CREATE_FOLDER = "CREATE_FOLDER";
     public static final String ACTION_SYNC_FILE = "SYNC_FILE";
     public static final String ACTION_SYNC_FOLDER = "SYNC_FOLDER";
     public static final String ACTION_MOVE_FILE = "MOVE_FILE";
     public static final String ACTION_COPY_FILE = "COPY_FILE";
+    public static final String ACTION_MOVE_FILES = "MOVE_FILES";
+    public static final String ACTION_COPY_FILES = "COPY_FILES";
     public static final String ACTION_CHECK_CURRENT_CREDENTIALS = "CHECK_CURRENT_CREDENTIALS";
     public static final String ACTION_RESTORE_VERSION = "RESTORE_VERSION";
 
@@ -643,6 +650,16 @@ public class OperationsService extends Service {
                                 getApplicationContext());
                         break;
 
+                    case ACTION_REMOVE_FILES:
+                        // Remove several files or folders at once
+                        operation = new RemoveFilesOperation(
+                            operationIntent.getStringArrayListExtra(EXTRA_REMOTE_PATHS),
+                            operationIntent.getBooleanExtra(EXTRA_REMOVE_ONLY_LOCAL, false),
+                            account,
+                            operationIntent.getBooleanExtra(EXTRA_IN_BACKGROUND, false),
+                            getApplicationContext());
+                        break;
+
                     case ACTION_CREATE_FOLDER:
                         remotePath = operationIntent.getStringExtra(EXTRA_REMOTE_PATH);
                         boolean createFullPath = operationIntent.getBooleanExtra(EXTRA_CREATE_FULL_PATH, true);
@@ -678,6 +695,18 @@ public class OperationsService extends Service {
                         operation = new CopyFileOperation(remotePath, newParentPath);
                         break;
 
+                    case ACTION_MOVE_FILES:
+                        newParentPath = operationIntent.getStringExtra(EXTRA_NEW_PARENT_PATH);
+                        operation = new MoveFilesOperation(operationIntent.getStringArrayListExtra(EXTRA_REMOTE_PATHS),
+                                                           newParentPath);
+                        break;
+
+                    case ACTION_COPY_FILES:
+                        newParentPath = operationIntent.getStringExtra(EXTRA_NEW_PARENT_PATH);
+                        operation = new CopyFilesOperation(operationIntent.getStringArrayListExtra(EXTRA_REMOTE_PATHS),
+                                                           newParentPath);
+                        break;
+
                     case ACTION_CHECK_CURRENT_CREDENTIALS:
                     operation = new CheckCurrentCredentialsOperation(account);
                         break;
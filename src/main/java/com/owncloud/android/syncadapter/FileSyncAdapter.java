@@ -33,6 +33,7 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.SyncResult;
 import android.os.Bundle;
+import android.text.TextUtils;
 
 import com.owncloud.android.R;
 import com.owncloud.android.authentication.AuthenticatorActivity;
@@ -41,6 +42,8 @@ import com.owncloud.android.datamodel.OCFile;
 import com.owncloud.android.lib.common.operations.RemoteOperationResult;
 import com.owncloud.android.lib.common.operations.RemoteOperationResult.ResultCode;
 import com.owncloud.android.lib.common.utils.Log_OC;
+import com.owncloud.android.lib.resources.files.SearchRemoteOperation;
+import com.owncloud.android.lib.resources.files.model.RemoteFile;
 import com.owncloud.android.operations.RefreshFolderOperation;
 import com.owncloud.android.operations.SynchronizeFolderOperation;
 import com.owncloud.android.operations.UpdateOCVersionOperation;
@@ -54,9 +57,12 @@ import org.apache.jackrabbit.webdav.DavException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
+import androidx.annotation.Nullable;
 import androidx.annotation.PluralsRes;
 import androidx.core.app.NotificationCompat;
 
@@ -75,6 +81,9 @@ public class FileSyncAdapter extends AbstractOwnCloudSyncAdapter {
      * the synchronization operation */
     private static final int MAX_FAILED_RESULTS = 3;
 
+    /** Maximum number of folders synchronized at the same time */
+    private static final int MAX_PARALLEL_FOLDER_SYNCS = 4;
+
 
     public static final String EVENT_FULL_SYNC_START = FileSyncAdapter.class.getName() +
             ".EVENT_FULL_SYNC_START";
@@ -93,7 +102,10 @@ public class FileSyncAdapter extends AbstractOwnCloudSyncAdapter {
     private long mCurrentSyncTime;
 
     /** Flag made 'true' when a request to cancel the synchronization is received */
-    private boolean mCancellation;
+    private volatile boolean mCancellation;
+
+    /** Guards the results below, updated by the workers synchronizing folders */
+    private final Object mResultsLock = new Object();
 
     /** Counter for failed operations in the synchronization process */
     private int mFailedResultsCounter;
@@ -177,7 +189,7 @@ public class FileSyncAdapter extends AbstractOwnCloudSyncAdapter {
             updateOCVersion();
             mCurrentSyncTime = System.currentTimeMillis();
             if (!mCancellation) {
-                synchronizeFolder(getStorageManager().getFileByPath(OCFile.ROOT_PATH));
+                synchronizeFolderTree(getStorageManager().getFileByPath(OCFile.ROOT_PATH));
 
             } else {
                 Log_OC.d(TAG, "Leaving synchronization before synchronizing the root folder " +
@@ -217,7 +229,7 @@ public class FileSyncAdapter extends AbstractOwnCloudSyncAdapter {
      * locally saved.
      *
      * See {@link #onPerformSync(Account, Bundle, String, ContentProviderClient, SyncResult)}
-     * and {@link #synchronizeFolder(OCFile)}.
+     * and {@link #synchronizeFolderTree(OCFile)}.
      */
     @Override
     public void onSyncCanceled() {
@@ -239,22 +251,65 @@ public class FileSyncAdapter extends AbstractOwnCloudSyncAdapter {
     }
 
 
+    /**
+     * Synchronizes the folder tree below the given folder.
+     *
+     * Child folders whose etag did not change and which have no kept-in-sync content in their subtree are skipped,
+     * the others are synchronized by a small pool of workers. See {@link FolderTraversalPlanner}.
+     *
+     * @param root                      Folder to synchronize.
+     */
+    private void synchronizeFolderTree(OCFile root) {
+        FolderListing folderListing = new FolderListing(getRemoteFavoriteFolders());
+        FolderTraversalPlanner.Stats stats =
+            new FolderTraversalPlanner<>(folderListing, MAX_PARALLEL_FOLDER_SYNCS).traverse(root);
+
+        if (mCancellation) {
+            Log_OC.d(TAG, "Leaving synchronization of " + getAccount().name + " due to cancellation request");
+        }
+        Log_OC.d(TAG, "Synchronization of " + getAccount().name + " walked folders: " + stats);
+    }
+
+    /**
+     * Favorites set by other clients do not change the etags of their folders, so they are searched on the server.
+     *
+     * @return remote paths of the favorite folders and of all folders containing favorites, null if the search failed
+     */
+    @Nullable
+    private Set<String> getRemoteFavoriteFolders() {
+        SearchRemoteOperation searchOperation =
+            new SearchRemoteOperation("", SearchRemoteOperation.SearchType.FAVORITE_SEARCH, false);
+        RemoteOperationResult result = searchOperation.execute(getClient());
+        if (!result.isSuccess() || result.getData() == null) {
+            Log_OC.w(TAG, "Searching favorites failed, no folder is skipped: " + result.getLogMessage());
+            return null;
+        }
+
+        Set<String> folders = new HashSet<>();
+        for (Object data : result.getData()) {
+            String path = ((RemoteFile) data).getRemotePath();
+            if (!path.endsWith(OCFile.PATH_SEPARATOR)) {
+                // favorite file
+                path = path.substring(0, path.lastIndexOf(OCFile.PATH_SEPARATOR) + 1);
+            }
+            // ancestors of a folder already added were added with it
+            while (!OCFile.ROOT_PATH.equals(path) && folders.add(path)) {
+                path = path.substring(0, path.lastIndexOf(OCFile.PATH_SEPARATOR, path.length() - 2) + 1);
+            }
+        }
+        return folders;
+    }
+
     /**
      *  Synchronizes the list of files contained in a folder identified with its remote path.
      *
      *  Fetches the list and properties of the files contained in the given folder, including their
      *  properties, and updates the local database with them.
      *
-     *  Enters in the child folders to synchronize their contents also, following a recursive
-     *  depth first strategy.
-     *
      *  @param folder                   Folder to synchronize.
+     *  @return                         Finished operation, if it succeeded; null otherwise.
      */
-    private void synchronizeFolder(OCFile folder) {
-
-        if (mFailedResultsCounter > MAX_FAILED_RESULTS || isFinisher(mLastFailedResult)) {
-            return;
-        }
+    private RefreshFolderOperation synchronizeFolder(OCFile folder) {
 
         // folder synchronization
         RefreshFolderOperation synchFolderOp = new RefreshFolderOperation( folder,
@@ -267,45 +322,46 @@ public class FileSyncAdapter extends AbstractOwnCloudSyncAdapter {
                                                                                   );
         RemoteOperationResult result = synchFolderOp.execute(getClient());
 
+        // folders are synchronized in parallel
+        synchronized (mResultsLock) {
+
+            // synchronized folder -> notice to UI - ALWAYS, although !result.isSuccess
+            sendLocalBroadcast(EVENT_FULL_SYNC_FOLDER_CONTENTS_SYNCED, folder.getRemotePath(), result);
+
+            // check the result of synchronizing the folder
+            if (result.isSuccess() || result.getCode() == ResultCode.SYNC_CONFLICT) {
+
+                if (result.getCode() == ResultCode.SYNC_CONFLICT) {
+                    mConflictsFound += synchFolderOp.getConflictsFound();
+                    mFailsInFavouritesFound += synchFolderOp.getFailsInKeptInSyncFound();
+                }
+                if (synchFolderOp.getForgottenLocalFiles().size() > 0) {
+                    mForgottenLocalFiles.putAll(synchFolderOp.getForgottenLocalFiles());
+                }
+                if (result.isSuccess()) {
+                    return synchFolderOp;
+                }
+
+            } else if (result.getCode() != ResultCode.FILE_NOT_FOUND) {
+                // in failures, the statistics for the global result are updated
+                if (RemoteOperationResult.ResultCode.UNAUTHORIZED.equals(result.getCode())) {
+                    mSyncResult.stats.numAuthExceptions++;
+
+                } else if (result.getException() instanceof DavException) {
+                    mSyncResult.stats.numParseExceptions++;
+
+                } else if (result.getException() instanceof IOException) {
+                    mSyncResult.stats.numIoExceptions++;
+                }
+                mFailedResultsCounter++;
+                mLastFailedResult = result;
+
+            } // else, ResultCode.FILE_NOT_FOUND is ignored, remote folder was
+              // removed from other thread or other client during the synchronization,
+              // before this thread fetched its contents
+        }
 
-        // synchronized folder -> notice to UI - ALWAYS, although !result.isSuccess
-        sendLocalBroadcast(EVENT_FULL_SYNC_FOLDER_CONTENTS_SYNCED, folder.getRemotePath(), result);
-
-        // check the result of synchronizing the folder
-        if (result.isSuccess() || result.getCode() == ResultCode.SYNC_CONFLICT) {
-
-            if (result.getCode() == ResultCode.SYNC_CONFLICT) {
-                mConflictsFound += synchFolderOp.getConflictsFound();
-                mFailsInFavouritesFound += synchFolderOp.getFailsInKeptInSyncFound();
-            }
-            if (synchFolderOp.getForgottenLocalFiles().size() > 0) {
-                mForgottenLocalFiles.putAll(synchFolderOp.getForgottenLocalFiles());
-            }
-            if (result.isSuccess()) {
-                // synchronize children folders
-                List<OCFile> children = synchFolderOp.getChildren();
-                // beware of the 'hidden' recursion here!
-                syncChildren(children);
-            }
-
-        } else if (result.getCode() != ResultCode.FILE_NOT_FOUND) {
-            // in failures, the statistics for the global result are updated
-            if (RemoteOperationResult.ResultCode.UNAUTHORIZED.equals(result.getCode())) {
-                mSyncResult.stats.numAuthExceptions++;
-
-            } else if (result.getException() instanceof DavException) {
-                mSyncResult.stats.numParseExceptions++;
-
-            } else if (result.getException() instanceof IOException) {
-                mSyncResult.stats.numIoExceptions++;
-            }
-            mFailedResultsCounter++;
-            mLastFailedResult = result;
-
-        } // else, ResultCode.FILE_NOT_FOUND is ignored, remote folder was
-          // removed from other thread or other client during the synchronization,
-          // before this thread fetched its contents
-
+        return null;
     }
 
     /**
@@ -328,27 +384,69 @@ public class FileSyncAdapter extends AbstractOwnCloudSyncAdapter {
     }
 
     /**
-     * Triggers the synchronization of any folder contained in the list of received files.
-     *
-     * No consideration of etag here because it MUST walk down anyway, in case that kept-in-sync files
-     * have local changes.
+     * Folder tree of the synchronized account, as seen by {@link FolderTraversalPlanner}.
      *
-     * @param files         Files to recursively synchronize.
+     * Unchanged folders still have to be walked down if they contain kept-in-sync files, in case those have local
+     * changes; the local database keeps a marker for that on every folder. Folders with favorites set by other
+     * clients are walked down as well, as known from the server.
      */
-    private void syncChildren(List<OCFile> files) {
-        int i;
-        OCFile newFile;
-        for (i=0; i < files.size() && !mCancellation; i++) {
-            newFile = files.get(i);
-            if (newFile.isFolder()) {
-                synchronizeFolder(newFile);
+    private class FolderListing implements FolderTraversalPlanner.RemoteListing<OCFile> {
+
+        @Nullable private final Set<String> remoteFavoriteFolders;
+
+        /**
+         * @param remoteFavoriteFolders folders with favorites on the server, null if unknown; no folder is skipped then
+         */
+        FolderListing(@Nullable Set<String> remoteFavoriteFolders) {
+            this.remoteFavoriteFolders = remoteFavoriteFolders;
+        }
+
+        @Override
+        public FolderTraversalPlanner.Listing<OCFile> refresh(OCFile folder) {
+            RefreshFolderOperation synchFolderOp = synchronizeFolder(folder);
+
+            if (synchFolderOp == null) {
+                return null;
             }
+
+            List<OCFile> childFolders = new ArrayList<>();
+            for (OCFile child : synchFolderOp.getChildren()) {
+                if (child.isFolder()) {
+                    childFolders.add(child);
+                }
+            }
+
+            List<OCFile> keptInSyncFolders = new ArrayList<>();
+            if (!childFolders.isEmpty()) {
+                Set<Long> keptInSyncIds = getStorageManager().getKeptInSyncChildFolderIds(folder);
+                for (OCFile child : childFolders) {
+                    if (keptInSyncIds.contains(child.getFileId()) ||
+                        remoteFavoriteFolders != null && remoteFavoriteFolders.contains(child.getRemotePath())) {
+                        keptInSyncFolders.add(child);
+                    }
+                }
+            }
+
+            return new FolderTraversalPlanner.Listing<>(synchFolderOp.isRemoteFolderChanged(),
+                                                        childFolders,
+                                                        keptInSyncFolders);
+        }
+
+        @Override
+        public boolean isUnchanged(OCFile folder) {
+            if (remoteFavoriteFolders == null) {
+                return false;
+            }
+            // etag is only updated when the folder itself is synchronized
+            String etag = folder.getEtag();
+            return !TextUtils.isEmpty(etag) && etag.equalsIgnoreCase(folder.getEtagOnServer());
         }
 
-        if (mCancellation && i <files.size()) {
-            Log_OC.d(TAG,
-                    "Leaving synchronization before synchronizing " + files.get(i).getRemotePath() +
-                            " due to cancellation request");
+        @Override
+        public boolean isCancelled() {
+            synchronized (mResultsLock) {
+                return mCancellation || mFailedResultsCounter > MAX_FAILED_RESULTS || isFinisher(mLastFailedResult);
+            }
         }
     }
 
@@ -0,0 +1,216 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.owncloud.android.syncadapter;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Walks a folder tree for the synchronization of a full account.
+ *
+ * A child folder is pruned, together with its whole subtree, if its etag did not change since it was synchronized
+ * last time and it contains no kept-in-sync content. All other folders are refreshed by a small pool of workers
+ * instead of a plain depth first recursion.
+ *
+ * @param <F> type of the folders
+ */
+public class FolderTraversalPlanner<F> {
+
+    /**
+     * Access to the server side of the folder tree.
+     */
+    public interface RemoteListing<F> {
+
+        /**
+         * Synchronizes given folder with the server. Called from the worker threads.
+         *
+         * @return listing of the folder or null, if it could not be synchronized; its subtree is skipped then
+         */
+        @Nullable
+        Listing<F> refresh(F folder);
+
+        /**
+         * @return true if the etag of the child folder, as known from its parent listing, is the one it had when it
+         * was synchronized last time
+         */
+        boolean isUnchanged(F folder);
+
+        /**
+         * @return true if the traversal has to stop, e.g. because it was cancelled or failed too often
+         */
+        boolean isCancelled();
+    }
+
+    /**
+     * Result of synchronizing a single folder.
+     */
+    public static class Listing<F> {
+        private final boolean fetched;
+        private final List<F> childFolders;
+        private final Collection<F> keptInSyncFolders;
+
+        /**
+         * @param fetched           true if the folder content was read from the server, false if it was unchanged
+         * @param childFolders      all child folders
+         * @param keptInSyncFolders child folders which are kept in sync or have kept-in-sync content in their subtree
+         */
+        public Listing(boolean fetched, List<F> childFolders, Collection<F> keptInSyncFolders) {
+            this.fetched = fetched;
+            this.childFolders = childFolders;
+            this.keptInSyncFolders = keptInSyncFolders;
+        }
+    }
+
+    /**
+     * Numbers of folders handled during a traversal.
+     */
+    public static class Stats {
+        private final int visited;
+        private final int pruned;
+        private final int fetched;
+
+        Stats(int visited, int pruned, int fetched) {
+            this.visited = visited;
+            this.pruned = pruned;
+            this.fetched = fetched;
+        }
+
+        /** @return number of folders which were synchronized */
+        public int getVisited() {
+            return visited;
+        }
+
+        /** @return number of child folders which were skipped together with their subtree */
+        public int getPruned() {
+            return pruned;
+        }
+
+        /** @return number of visited folders whose content was read from the server */
+        public int getFetched() {
+            return fetched;
+        }
+
+        @Override
+        public String toString() {
+            return "visited=" + visited + ", pruned=" + pruned + ", fetched=" + fetched;
+        }
+    }
+
+    private final RemoteListing<F> remoteListing;
+    private final int parallelism;
+
+    private final AtomicInteger visited = new AtomicInteger();
+    private final AtomicInteger pruned = new AtomicInteger();
+    private final AtomicInteger fetched = new AtomicInteger();
+
+    private final Object lock = new Object();
+    private int pendingFolders;
+
+    public FolderTraversalPlanner(RemoteListing<F> remoteListing, int parallelism) {
+        this.remoteListing = remoteListing;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Walks the tree below given root folder, which is always synchronized. Blocks until all folders are done or
+     * the traversal was cancelled.
+     */
+    public Stats traverse(F root) {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+
+        try {
+            submit(executor, root);
+
+            synchronized (lock) {
+                while (pendingFolders > 0) {
+                    lock.wait();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return new Stats(visited.get(), pruned.get(), fetched.get());
+    }
+
+    private void submit(ExecutorService executor, F folder) {
+        synchronized (lock) {
+            pendingFolders++;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    visit(executor, folder);
+                } finally {
+                    done();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // traversal was interrupted and the executor is shut down
+            done();
+        }
+    }
+
+    private void done() {
+        synchronized (lock) {
+            pendingFolders--;
+            if (pendingFolders == 0) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private void visit(ExecutorService executor, F folder) {
+        if (remoteListing.isCancelled()) {
+            return;
+        }
+
+        visited.incrementAndGet();
+        Listing<F> listing = remoteListing.refresh(folder);
+
+        if (listing == null) {
+            return;
+        }
+        if (listing.fetched) {
+            fetched.incrementAndGet();
+        }
+
+        for (F child : listing.childFolders) {
+            if (remoteListing.isCancelled()) {
+                return;
+            }
+
+            if (remoteListing.isUnchanged(child) && !listing.keptInSyncFolders.contains(child)) {
+                pruned.incrementAndGet();
+            } else {
+                submit(executor, child);
+            }
+        }
+    }
+}
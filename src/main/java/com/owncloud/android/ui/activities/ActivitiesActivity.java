@@ -245,13 +245,16 @@ public class ActivitiesActivity extends FileActivity implements ActivityListInte
     }
 
     @Override
-    public void showActivities(List<Object> activities, NextcloudClient client, int lastGiven) {
-        boolean clear = false;
-        if (this.lastGiven == UNDEFINED) {
-            clear = true;
-        }
-        adapter.setActivityItems(activities, client, clear);
+    public void showActivities(List<Object> activities, NextcloudClient client, int lastGiven, boolean clear) {
         this.lastGiven = lastGiven;
+        adapter.setActivityItems(activities, client, clear, this::updateEmptyContent);
+    }
+
+    private void updateEmptyContent() {
+        if (recyclerView == null) {
+            // items were prepared after the views were unbound
+            return;
+        }
 
         // Hide the recyclerView if list is empty
         if (adapter.isEmpty()) {
@@ -27,7 +27,7 @@ import java.util.List;
 public interface ActivitiesContract {
 
     interface View {
-        void showActivities(List<Object> activities, NextcloudClient client, int lastGiven);
+        void showActivities(List<Object> activities, NextcloudClient client, int lastGiven, boolean clear);
         void showActivitiesLoadError(String error);
         void showActivityDetailUI(OCFile ocFile);
         void showActivityDetailUIIsNull();
@@ -32,6 +32,8 @@ import androidx.annotation.Nullable;
 
 public class ActivitiesPresenter implements ActivitiesContract.ActionListener {
 
+    static final int UNDEFINED = -1;
+
     private final ActivitiesContract.View activitiesView;
     private final ActivitiesRepository activitiesRepository;
     private final FilesRepository filesRepository;
@@ -49,13 +51,22 @@ public class ActivitiesPresenter implements ActivitiesContract.ActionListener {
     @Override
     public void loadActivities(int lastGiven) {
         activitiesView.setProgressIndicatorState(true);
+        boolean firstPage = lastGiven <= 0;
         activitiesRepository.getActivities(lastGiven, new ActivitiesRepository.LoadActivitiesCallback() {
+            @Override
+            public void onActivitiesLoadedFromCache(List<Object> activities, NextcloudClient client) {
+                // newer activities are still loading, paging continues once they are known
+                if (!activityStopped) {
+                    activitiesView.showActivities(activities, client, UNDEFINED, true);
+                }
+            }
+
             @Override
             public void onActivitiesLoaded(List<Object> activities, NextcloudClient client, int lastGiven) {
 
                 if (!activityStopped) {
                     activitiesView.setProgressIndicatorState(false);
-                    activitiesView.showActivities(activities, client, lastGiven);
+                    activitiesView.showActivities(activities, client, lastGiven, firstPage);
                 }
             }
 
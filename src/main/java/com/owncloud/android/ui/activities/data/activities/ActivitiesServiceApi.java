@@ -31,6 +31,7 @@ import java.util.List;
 public interface ActivitiesServiceApi {
 
     interface ActivitiesServiceCallback<T> {
+        void onLoadedFromCache(T activities, NextcloudClient client);
         void onLoaded(T activities, NextcloudClient client, int lastGiven);
         void onError (String error);
     }
@@ -32,11 +32,13 @@ import com.nextcloud.client.account.UserAccountManager;
 import com.nextcloud.common.NextcloudClient;
 import com.owncloud.android.MainApp;
 import com.owncloud.android.R;
+import com.owncloud.android.datamodel.ActivityDataProvider;
 import com.owncloud.android.lib.common.OwnCloudAccount;
 import com.owncloud.android.lib.common.OwnCloudClientManagerFactory;
 import com.owncloud.android.lib.common.operations.RemoteOperationResult;
 import com.owncloud.android.lib.common.utils.Log_OC;
 import com.owncloud.android.lib.resources.activities.GetActivitiesRemoteOperation;
+import com.owncloud.android.lib.resources.activities.model.Activity;
 
 import org.apache.commons.httpclient.HttpStatus;
 
@@ -44,39 +46,57 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
+import androidx.annotation.Nullable;
+
 /**
- * Implementation of the Activities Service API that communicates with the NextCloud remote server
+ * Implementation of the Activities Service API that communicates with the NextCloud remote server.
+ *
+ * Fetched activities are stored, so that the stored ones are shown at once while newer ones are fetched.
  */
 public class ActivitiesServiceApiImpl implements ActivitiesServiceApi {
 
     private static final String TAG = ActivitiesServiceApiImpl.class.getSimpleName();
+
+    /**
+     * Newest pages fetched at most to reach the stored activities, else they are replaced.
+     */
+    private static final int MAX_NEWER_PAGES = 5;
+
     private UserAccountManager accountManager;
+    private ActivityDataProvider activityDataProvider;
 
-    public ActivitiesServiceApiImpl(UserAccountManager accountManager) {
+    public ActivitiesServiceApiImpl(UserAccountManager accountManager, ActivityDataProvider activityDataProvider) {
         this.accountManager = accountManager;
+        this.activityDataProvider = activityDataProvider;
     }
 
     @Override
     public void getAllActivities(int lastGiven, ActivitiesServiceCallback<List<Object>> callback) {
         GetActivityListTask getActivityListTask = new GetActivityListTask(accountManager.getUser().toPlatformAccount(),
+                                                                          activityDataProvider,
                                                                           lastGiven,
                                                                           callback);
-        getActivityListTask.execute();
+        // not on the serial executor, which would hold back the preparation of the stored activities
+        getActivityListTask.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
     }
 
-    private static class GetActivityListTask extends AsyncTask<Void, Void, Boolean> {
+    private static class GetActivityListTask extends AsyncTask<Void, List<Object>, Boolean> {
 
         private final ActivitiesServiceCallback<List<Object>> callback;
+        private final ActivityDataProvider activityDataProvider;
         private List<Object> activities;
         private Account account;
         private int lastGiven;
         private String errorMessage;
+        private boolean noMoreActivities;
         private NextcloudClient client;
 
         private GetActivityListTask(Account account,
+                                    ActivityDataProvider activityDataProvider,
                                     int lastGiven,
                                     ActivitiesServiceCallback<List<Object>> callback) {
             this.account = account;
+            this.activityDataProvider = activityDataProvider;
             this.lastGiven = lastGiven;
             this.callback = callback;
             activities = new ArrayList<>();
@@ -92,30 +112,10 @@ public class ActivitiesServiceApiImpl implements ActivitiesServiceApi {
                 client = OwnCloudClientManagerFactory.getDefaultSingleton().
                     getNextcloudClientFor(ocAccount, MainApp.getAppContext());
 
-                GetActivitiesRemoteOperation getRemoteActivitiesOperation;
                 if (lastGiven > 0) {
-                    getRemoteActivitiesOperation = new GetActivitiesRemoteOperation(lastGiven);
-                } else {
-                    getRemoteActivitiesOperation = new GetActivitiesRemoteOperation();
-                }
-
-                final RemoteOperationResult result = getRemoteActivitiesOperation.execute(client);
-
-                if (result.isSuccess() && result.getData() != null) {
-                    final ArrayList<Object> data = result.getData();
-                    activities = (ArrayList) data.get(0);
-
-                    lastGiven = (int) data.get(1);
-                    return Boolean.TRUE;
+                    return loadOlderActivities(context);
                 } else {
-                    Log_OC.d(TAG, result.getLogMessage());
-                    // show error
-                    errorMessage = result.getLogMessage();
-                    if (result.getHttpCode() == HttpStatus.SC_NOT_MODIFIED) {
-                        errorMessage = context.getString(R.string.file_list_empty_headline_server_search);
-                    }
-                    return Boolean.FALSE;
-
+                    return loadNewestActivities(context);
                 }
             } catch (com.owncloud.android.lib.common.accounts.AccountUtils.AccountNotFoundException e) {
                 Log_OC.e(TAG, "Account not found", e);
@@ -134,6 +134,107 @@ public class ActivitiesServiceApiImpl implements ActivitiesServiceApi {
             return Boolean.FALSE;
         }
 
+        /**
+         * Publishes the stored activities, then fetches the newest pages until they reach the newest stored activity.
+         * The server has no parameter for activities newer than a given one.
+         */
+        private Boolean loadNewestActivities(Context context) {
+            List<Activity> stored = activityDataProvider.getActivities(account.name);
+            if (!stored.isEmpty()) {
+                publishProgress(new ArrayList<>(stored));
+            }
+            int newestStoredId = stored.isEmpty() ? -1 : stored.get(0).getActivityId();
+
+            List<Activity> fetched = new ArrayList<>();
+            int pageLastGiven = -1;
+            boolean reachedStored = false;
+            for (int page = 0; page < MAX_NEWER_PAGES && !reachedStored; page++) {
+                RemoteOperationResult result = fetchPage(context, pageLastGiven);
+                if (result == null) {
+                    if (page == 0 || !noMoreActivities) {
+                        return Boolean.FALSE;
+                    }
+                    reachedStored = true;
+                    break;
+                }
+
+                List<Activity> pageActivities = (ArrayList) result.getData().get(0);
+                pageLastGiven = (int) result.getData().get(1);
+                for (Activity activity : pageActivities) {
+                    if (activity.getActivityId() <= newestStoredId) {
+                        reachedStored = true;
+                        break;
+                    }
+                    fetched.add(activity);
+                }
+                if (pageActivities.isEmpty() || pageLastGiven <= 0) {
+                    reachedStored = true;
+                }
+            }
+
+            if (reachedStored && !stored.isEmpty()) {
+                activityDataProvider.storeActivities(account.name, fetched);
+                activities.addAll(fetched);
+                activities.addAll(stored);
+                lastGiven = stored.get(stored.size() - 1).getActivityId();
+            } else {
+                // the stored activities are too old to be continued
+                activityDataProvider.deleteActivities(account.name);
+                activityDataProvider.storeActivities(account.name, fetched);
+                activities.addAll(fetched);
+                lastGiven = pageLastGiven;
+            }
+            return Boolean.TRUE;
+        }
+
+        private Boolean loadOlderActivities(Context context) {
+            RemoteOperationResult result = fetchPage(context, lastGiven);
+            if (result == null) {
+                return Boolean.FALSE;
+            }
+
+            List<Activity> pageActivities = (ArrayList) result.getData().get(0);
+            activityDataProvider.storeActivities(account.name, pageActivities);
+            activities.addAll(pageActivities);
+            lastGiven = (int) result.getData().get(1);
+            return Boolean.TRUE;
+        }
+
+        /**
+         * @return successful result with data, null and the error message set if the request failed or there are no
+         * more activities
+         */
+        @Nullable
+        private RemoteOperationResult fetchPage(Context context, int pageLastGiven) {
+            GetActivitiesRemoteOperation getRemoteActivitiesOperation;
+            if (pageLastGiven > 0) {
+                getRemoteActivitiesOperation = new GetActivitiesRemoteOperation(pageLastGiven);
+            } else {
+                getRemoteActivitiesOperation = new GetActivitiesRemoteOperation();
+            }
+
+            final RemoteOperationResult result = getRemoteActivitiesOperation.execute(client);
+
+            if (result.isSuccess() && result.getData() != null) {
+                return result;
+            } else {
+                Log_OC.d(TAG, result.getLogMessage());
+                // show error
+                errorMessage = result.getLogMessage();
+                noMoreActivities = result.getHttpCode() == HttpStatus.SC_NOT_MODIFIED;
+                if (noMoreActivities) {
+                    errorMessage = context.getString(R.string.file_list_empty_headline_server_search);
+                }
+                return null;
+            }
+        }
+
+        @SafeVarargs
+        @Override
+        protected final void onProgressUpdate(List<Object>... storedActivities) {
+            callback.onLoadedFromCache(storedActivities[0], client);
+        }
+
         @Override
         protected void onPostExecute(Boolean success) {
             super.onPostExecute(success);
@@ -37,6 +37,11 @@ public class RemoteActivitiesRepository implements ActivitiesRepository {
     public void getActivities(int lastGiven, @NonNull LoadActivitiesCallback callback) {
         activitiesServiceApi.getAllActivities(lastGiven,
                                               new ActivitiesServiceApi.ActivitiesServiceCallback<List<Object>>() {
+            @Override
+            public void onLoadedFromCache(List<Object> activities, NextcloudClient client) {
+                callback.onActivitiesLoadedFromCache(activities, client);
+            }
+
             @Override
             public void onLoaded(List<Object> activities, NextcloudClient client, int lastGiven) {
                 callback.onActivitiesLoaded(activities, client, lastGiven);
@@ -78,13 +78,17 @@ import com.owncloud.android.lib.resources.files.SearchRemoteOperation;
 import com.owncloud.android.lib.resources.shares.OCShare;
 import com.owncloud.android.lib.resources.shares.ShareType;
 import com.owncloud.android.lib.resources.status.OwnCloudVersion;
+import com.owncloud.android.operations.BulkFileOperation;
 import com.owncloud.android.operations.CopyFileOperation;
+import com.owncloud.android.operations.CopyFilesOperation;
 import com.owncloud.android.operations.CreateFolderOperation;
 import com.owncloud.android.operations.CreateShareViaLinkOperation;
 import com.owncloud.android.operations.CreateShareWithShareeOperation;
 import com.owncloud.android.operations.MoveFileOperation;
+import com.owncloud.android.operations.MoveFilesOperation;
 import com.owncloud.android.operations.RefreshFolderOperation;
 import com.owncloud.android.operations.RemoveFileOperation;
+import com.owncloud.android.operations.RemoveFilesOperation;
 import com.owncloud.android.operations.RenameFileOperation;
 import com.owncloud.android.operations.SynchronizeFileOperation;
 import com.owncloud.android.operations.UnshareOperation;
@@ -1752,6 +1756,10 @@ public class FileDisplayActivity extends FileActivity
             onMoveFileOperationFinish((MoveFileOperation) operation, result);
         } else if (operation instanceof CopyFileOperation) {
             onCopyFileOperationFinish((CopyFileOperation) operation, result);
+        } else if (operation instanceof RemoveFilesOperation) {
+            onRemoveFilesOperationFinish((RemoveFilesOperation) operation, result);
+        } else if (operation instanceof MoveFilesOperation || operation instanceof CopyFilesOperation) {
+            onMoveOrCopyFilesOperationFinish(operation, result);
         } else if (operation instanceof CreateShareViaLinkOperation) {
             onCreateShareViaLinkOperationFinish((CreateShareViaLinkOperation) operation, result);
         } else if (operation instanceof CreateShareWithShareeOperation) {
@@ -1832,6 +1840,36 @@ public class FileDisplayActivity extends FileActivity
         }
     }
 
+    private void onRemoveFilesOperationFinish(RemoveFilesOperation operation, RemoteOperationResult result) {
+        if (!operation.isInBackground()) {
+            DisplayUtils.showSnackMessage(this, getBulkOperationMessage(operation, result));
+        }
+
+        FileFragment second = getSecondFragment();
+        for (OCFile removedFile : operation.getSucceededFiles()) {
+            tryStopPlaying(removedFile);
+
+            if (second != null && removedFile.equals(second.getFile())) {
+                if (second instanceof PreviewMediaFragment) {
+                    ((PreviewMediaFragment) second).stopPreview(true);
+                }
+                setFile(getStorageManager().getFileById(removedFile.getParentId()));
+                cleanSecondFragment();
+                second = null;
+            }
+        }
+
+        if (!operation.getSucceededFiles().isEmpty()) {
+            updateListOfFilesFragment(false);
+            supportInvalidateOptionsMenu();
+        }
+
+        if (!result.isSuccess() && result.isSslRecoverableException()) {
+            mLastSslUntrustedServerResult = result;
+            showUntrustedCertDialog(mLastSslUntrustedServerResult);
+        }
+    }
+
     private void onRestoreFileVersionOperationFinish(RemoteOperationResult result) {
         if (result.isSuccess()) {
             OCFile file = getFile();
@@ -2031,6 +2069,47 @@ public class FileDisplayActivity extends FileActivity
         }
     }
 
+    /**
+     * Updates the view associated to the activity after the finish of an operation trying to move or
+     * copy several files.
+     *
+     * @param operation Move or copy operation performed.
+     * @param result    Result of the operation.
+     */
+    private void onMoveOrCopyFilesOperationFinish(RemoteOperation operation, RemoteOperationResult result) {
+        boolean moved = operation instanceof MoveFilesOperation &&
+            !((MoveFilesOperation) operation).getSucceededFiles().isEmpty();
+
+        if (moved) {
+            syncAndUpdateFolder(true);
+        } else {
+            updateListOfFilesFragment(false);
+        }
+
+        if (!result.isSuccess()) {
+            try {
+                DisplayUtils.showSnackMessage(this, getBulkOperationMessage((BulkFileOperation) operation, result));
+
+            } catch (NotFoundException e) {
+                Log_OC.e(TAG, "Error while trying to show fail message ", e);
+            }
+        }
+    }
+
+    /**
+     * @return message for the result of an operation on several files, with the number of failed files if more than
+     * one failed
+     */
+    private String getBulkOperationMessage(BulkFileOperation operation, RemoteOperationResult result) {
+        String message = ErrorMessageAdapter.getErrorCauseMessage(result, operation, getResources());
+        int failedCount = operation.getFailedCount();
+        if (failedCount > 1) {
+            message = getResources().getQuantityString(R.plurals.bulk_operation_failed_files, failedCount, message,
+                                                       failedCount);
+        }
+        return message;
+    }
+
     /**
      * Updates the view associated to the activity after the finish of an operation trying to rename
      * a file.
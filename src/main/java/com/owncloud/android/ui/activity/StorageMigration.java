@@ -34,9 +34,16 @@ import com.owncloud.android.MainApp;
 import com.owncloud.android.R;
 import com.owncloud.android.datamodel.FileDataStorageManager;
 import com.owncloud.android.lib.common.utils.Log_OC;
-import com.owncloud.android.utils.FileStorageUtils;
+import com.owncloud.android.utils.FileCopyUtils;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import androidx.appcompat.app.AlertDialog;
 
@@ -316,6 +323,10 @@ public class StorageMigration {
     }
 
     static private class FileMigrationTask extends FileMigrationTaskBase {
+        private static final String MIGRATION_MARKER = ".migration_in_progress";
+        private static final String PARTIAL_SUFFIX = ".migration_part";
+        private static final int COPY_THREADS = 4;
+
         private class MigrationException extends Exception {
             private static final long serialVersionUID = -4575848188034992066L;
             private int mResId;
@@ -346,18 +357,23 @@ public class StorageMigration {
             publishProgress(R.string.file_migration_preparing);
 
             boolean[] syncState = null;
+            boolean renamed = false;
 
             try {
                 File dstFile = new File(mStorageTarget + File.separator + MainApp.getDataFolder());
-                deleteRecursive(dstFile);
-                dstFile.delete();
+                // an interrupted copy is resumed, anything else in the way is replaced
+                boolean resume = new File(dstFile, MIGRATION_MARKER).exists();
+                if (!resume) {
+                    deleteRecursive(dstFile);
+                    dstFile.delete();
+                }
 
                 File srcFile = new File(mStorageSource + File.separator + MainApp.getDataFolder());
                 srcFile.mkdirs();
 
                 publishProgress(R.string.file_migration_checking_destination);
 
-                checkDestinationAvailability();
+                checkDestinationAvailability(resume);
 
                 publishProgress(R.string.file_migration_saving_accounts_configuration);
                 syncState = saveAccountsSyncStatus();
@@ -367,16 +383,22 @@ public class StorageMigration {
                 waitForUnfinishedSynchronizations();
 
                 publishProgress(R.string.file_migration_migrating);
-                copyFiles();
+                // instant on the same volume
+                renamed = !resume && srcFile.renameTo(dstFile);
+                if (!renamed) {
+                    copyFiles(srcFile, dstFile);
+                }
 
                 publishProgress(R.string.file_migration_updating_index);
                 updateIndex(mContext);
 
-                publishProgress(R.string.file_migration_cleaning);
-                cleanup();
+                if (!renamed) {
+                    publishProgress(R.string.file_migration_cleaning);
+                    cleanup();
+                }
 
             } catch (MigrationException e) {
-                rollback();
+                rollback(renamed);
                 return e.getResId();
             } finally {
                 publishProgress(R.string.file_migration_restoring_accounts_configuration);
@@ -389,7 +411,7 @@ public class StorageMigration {
         }
 
 
-        private void checkDestinationAvailability() throws MigrationException {
+        private void checkDestinationAvailability(boolean resume) throws MigrationException {
             File srcFile = new File(mStorageSource);
             File dstFile = new File(mStorageTarget);
 
@@ -401,35 +423,104 @@ public class StorageMigration {
                 throw new MigrationException(R.string.file_migration_failed_not_writable);
             }
 
-            if (new File(dstFile, MainApp.getDataFolder()).exists()) {
+            if (!resume && new File(dstFile, MainApp.getDataFolder()).exists()) {
                 throw new MigrationException(R.string.file_migration_failed_dir_already_exists);
             }
 
-            if (dstFile.getFreeSpace() < FileStorageUtils.getFolderSize(new File(srcFile, MainApp.getDataFolder()))) {
+            // free space is only needed, and checked, when the data folder cannot be renamed
+        }
+
+        /**
+         * Copies all files which are not in the target folder yet, with a few threads. Every file is copied to a
+         * temporary name and renamed when it is complete, so that an interrupted migration can be resumed by
+         * skipping the files already there.
+         */
+        private void copyFiles(File srcFile, File dstFile) throws MigrationException {
+            File marker = new File(dstFile, MIGRATION_MARKER);
+            try {
+                if (!dstFile.isDirectory() && !dstFile.mkdirs() || !marker.exists() && !marker.createNewFile()) {
+                    throw new MigrationException(R.string.file_migration_failed_while_coping);
+                }
+            } catch (IOException e) {
+                throw new MigrationException(R.string.file_migration_failed_while_coping, e);
+            }
+
+            List<File[]> pendingCopies = new ArrayList<>();
+            long pendingBytes = collectPendingCopies(srcFile, dstFile, pendingCopies);
+            if (dstFile.getFreeSpace() < pendingBytes) {
                 throw new MigrationException(R.string.file_migration_failed_not_enough_space);
             }
-        }
 
-        private void copyFiles() throws MigrationException {
-            File srcFile = new File(mStorageSource + File.separator + MainApp.getDataFolder());
-            File dstFile = new File(mStorageTarget + File.separator + MainApp.getDataFolder());
+            ExecutorService executor = Executors.newFixedThreadPool(COPY_THREADS);
+            try {
+                List<Future<Boolean>> results = new ArrayList<>(pendingCopies.size());
+                for (File[] copy : pendingCopies) {
+                    results.add(executor.submit(() -> copyFile(copy[0], copy[1])));
+                }
+                for (Future<Boolean> result : results) {
+                    if (!result.get()) {
+                        throw new MigrationException(R.string.file_migration_failed_while_coping);
+                    }
+                }
+            } catch (ExecutionException e) {
+                throw new MigrationException(R.string.file_migration_failed_while_coping, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MigrationException(R.string.file_migration_failed_while_coping, e);
+            } finally {
+                executor.shutdownNow();
+            }
 
-            copyDirs(srcFile, dstFile);
+            // the copies are not synced one by one, but once before the sources are deleted
+            List<File> copiedFiles = new ArrayList<>(pendingCopies.size());
+            for (File[] copy : pendingCopies) {
+                copiedFiles.add(copy[1]);
+            }
+            try {
+                FileCopyUtils.sync(copiedFiles);
+            } catch (IOException e) {
+                throw new MigrationException(R.string.file_migration_failed_while_coping, e);
+            }
+
+            if (!marker.delete()) {
+                Log_OC.w(TAG, "Could not delete migration marker");
+            }
         }
 
-        private void copyDirs(File src, File dst) throws MigrationException {
-            if (!dst.mkdirs()) {
+        /**
+         * Creates the folders of the target tree and collects the files which still have to be copied.
+         *
+         * @return number of bytes to copy
+         */
+        private long collectPendingCopies(File src, File dst, List<File[]> pendingCopies) throws MigrationException {
+            if (!dst.isDirectory() && !dst.mkdirs()) {
                 throw new MigrationException(R.string.file_migration_failed_while_coping);
             }
 
-            for (File f : src.listFiles()) {
+            File[] files = src.listFiles();
+            if (files == null) {
+                throw new MigrationException(R.string.file_migration_failed_not_readable);
+            }
+
+            long bytes = 0;
+            for (File f : files) {
+                File target = new File(dst, f.getName());
                 if (f.isDirectory()) {
-                    copyDirs(f, new File(dst, f.getName()));
-                } else if (!FileStorageUtils.copyFile(f, new File(dst, f.getName()))) {
-                    throw new MigrationException(R.string.file_migration_failed_while_coping);
+                    bytes += collectPendingCopies(f, target, pendingCopies);
+                } else {
+                    long length = f.length();
+                    if (!target.isFile() || target.length() != length) {
+                        pendingCopies.add(new File[]{f, target});
+                        bytes += length;
+                    }
                 }
             }
+            return bytes;
+        }
 
+        private static boolean copyFile(File source, File target) throws IOException {
+            File partialFile = new File(target.getPath() + PARTIAL_SUFFIX);
+            return FileCopyUtils.copy(source, partialFile, null) && partialFile.renameTo(target);
         }
 
         private void updateIndex(Context context) throws MigrationException {
@@ -461,10 +552,16 @@ public class StorageMigration {
             return f.delete() && res;
         }
 
-        private void rollback() {
+        private void rollback(boolean renamed) {
             File dstFile = new File(mStorageTarget + File.separator + MainApp.getDataFolder());
-            if (dstFile.exists() && !dstFile.delete()) {
-                Log_OC.w(TAG, "Rollback step failed");
+            if (renamed) {
+                File srcFile = new File(mStorageSource + File.separator + MainApp.getDataFolder());
+                if (!dstFile.renameTo(srcFile)) {
+                    Log_OC.w(TAG, "Rollback step failed");
+                }
+            } else if (dstFile.exists()) {
+                // the copied files are kept, so that the next attempt resumes
+                Log_OC.w(TAG, "Migration interrupted, copied files are kept in " + dstFile.getAbsolutePath());
             }
         }
     }
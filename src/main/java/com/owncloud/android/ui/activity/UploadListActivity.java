@@ -30,8 +30,10 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.content.ServiceConnection;
+import android.os.AsyncTask;
 import android.os.Bundle;
 import android.os.IBinder;
+import android.text.format.DateUtils;
 import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
@@ -62,6 +64,8 @@ import com.owncloud.android.ui.decoration.MediaGridItemDecoration;
 import com.owncloud.android.utils.FilesSyncHelper;
 import com.owncloud.android.utils.ThemeUtils;
 
+import java.util.Observable;
+import java.util.Observer;
 import java.util.Set;
 
 import javax.inject.Inject;
@@ -166,9 +170,22 @@ public class UploadListActivity extends FileActivity {
 
         swipeListRefreshLayout.setOnRefreshListener(this::refresh);
 
+        pruneFinishedUploads();
         loadItems();
     }
 
+    /**
+     * Removes old successfully completed uploads in the background; the list is reloaded by the observer if any
+     * upload was removed.
+     */
+    private void pruneFinishedUploads() {
+        final long maxAgeMillis = preferences.getFinishedUploadsMaxAgeDays() * DateUtils.DAY_IN_MILLIS;
+        final int maxCount = preferences.getFinishedUploadsMaxCount();
+
+        AsyncTask.THREAD_POOL_EXECUTOR.execute(
+            () -> uploadsStorageManager.pruneFinishedUploads(maxAgeMillis, maxCount));
+    }
+
     private void loadItems() {
         uploadListAdapter.loadUploadItemsFromDb();
 
@@ -236,6 +253,8 @@ public class UploadListActivity extends FileActivity {
         uploadIntentFilter.addAction(FileUploader.getUploadFinishMessage());
         registerReceiver(uploadMessagesReceiver, uploadIntentFilter);
 
+        uploadsStorageManager.addObserver(uploadsObserver);
+
         Log_OC.v(TAG, "onResume() end");
 
     }
@@ -243,6 +262,7 @@ public class UploadListActivity extends FileActivity {
     @Override
     protected void onPause() {
         Log_OC.v(TAG, "onPause() start");
+        uploadsStorageManager.deleteObserver(uploadsObserver);
         if (uploadMessagesReceiver != null) {
             unregisterReceiver(uploadMessagesReceiver);
             uploadMessagesReceiver = null;
@@ -358,22 +378,25 @@ public class UploadListActivity extends FileActivity {
     }
 
     /**
-     * Once the file upload has changed its status -> update uploads list view
+     * Once uploads have changed in the database -> update the changed items of the uploads list view
+     */
+    private final Observer uploadsObserver = new Observer() {
+        @Override
+        @SuppressWarnings("unchecked")
+        public void update(Observable observable, Object changedUploadIds) {
+            uploadListAdapter.refreshUploads((Set<Long>) changedUploadIds);
+        }
+    };
+
+    /**
+     * Consumes the sticky upload broadcasts; the list view itself is updated by {@link #uploadsObserver}
      */
     private class UploadMessagesReceiver extends BroadcastReceiver {
-        /**
-         * {@link BroadcastReceiver} to enable syncing feedback in UI
-         */
         @Override
         public void onReceive(Context context, Intent intent) {
-            try {
-                uploadListAdapter.loadUploadItemsFromDb();
-            } finally {
-                if (intent != null) {
-                    removeStickyBroadcast(intent);
-                }
+            if (intent != null) {
+                removeStickyBroadcast(intent);
             }
-
         }
     }
 }
@@ -77,6 +77,7 @@ public class ActivityAndVersionListAdapter extends ActivityListAdapter {
         }
         if (clear) {
             values.clear();
+            subjects.clear();
             Collections.sort(items, (o1, o2) -> {
                 long o1Date;
                 long o2Date;
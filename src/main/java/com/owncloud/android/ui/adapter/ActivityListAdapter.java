@@ -26,6 +26,7 @@ import android.content.Context;
 import android.content.res.Resources;
 import android.graphics.drawable.PictureDrawable;
 import android.net.Uri;
+import android.os.AsyncTask;
 import android.text.Spannable;
 import android.text.SpannableStringBuilder;
 import android.text.TextPaint;
@@ -75,10 +76,17 @@ import com.owncloud.android.utils.svg.SvgSoftwareLayerSetter;
 
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.recyclerview.widget.RecyclerView;
 
 /**
@@ -91,6 +99,8 @@ public class ActivityListAdapter extends RecyclerView.Adapter<RecyclerView.ViewH
     private final ActivityListInterface activityListInterface;
     private final int px;
     private static final String TAG = ActivityListAdapter.class.getSimpleName();
+    // own executor keeps pages in order, without waiting for other tasks such as the fetch of activities
+    private static final Executor PREPARE_EXECUTOR = Executors.newSingleThreadExecutor();
     protected NextcloudClient client;
 
     protected Context context;
@@ -99,6 +109,8 @@ public class ActivityListAdapter extends RecyclerView.Adapter<RecyclerView.ViewH
     private FileDataStorageManager storageManager;
     private OCCapability capability;
     protected List<Object> values;
+    // subjects are built once per activity, bound rows reuse them; main thread only
+    protected final Map<Activity, CharSequence> subjects = new IdentityHashMap<>();
     private boolean isDetailView;
 
     public ActivityListAdapter(
@@ -121,34 +133,98 @@ public class ActivityListAdapter extends RecyclerView.Adapter<RecyclerView.ViewH
         this.isDetailView = isDetailView;
     }
 
-    public void setActivityItems(List<Object> activityItems, NextcloudClient client, boolean clear) {
-        this.client = client;
-        String sTime = "";
+    /**
+     * Sets the activities; their section headers and subjects are prepared off the main thread, so the items are
+     * shown some moments later.
+     *
+     * @param onItemsSet called on the main thread once the items are shown, may be null
+     */
+    public void setActivityItems(List<Object> activityItems,
+                                 NextcloudClient client,
+                                 boolean clear,
+                                 @Nullable Runnable onItemsSet) {
+        new PrepareItemsTask(this, new ArrayList<>(activityItems), client, clear, onItemsSet)
+            .executeOnExecutor(PREPARE_EXECUTOR);
+    }
 
-        if (clear) {
-            values.clear();
+    /**
+     * Builds the rows and subjects of a page of activities, a header only where the day changes. Tasks run one
+     * after the other, so pages are added in the order they were set.
+     */
+    private static class PrepareItemsTask extends AsyncTask<Void, Void, List<Object>> {
+        private final ActivityListAdapter adapter;
+        private final List<Object> activityItems;
+        private final NextcloudClient client;
+        private final boolean clear;
+        private final Runnable onItemsSet;
+        private final Map<Activity, CharSequence> subjects = new IdentityHashMap<>();
+
+        PrepareItemsTask(ActivityListAdapter adapter,
+                         List<Object> activityItems,
+                         NextcloudClient client,
+                         boolean clear,
+                         @Nullable Runnable onItemsSet) {
+            this.adapter = adapter;
+            this.activityItems = activityItems;
+            this.client = client;
+            this.clear = clear;
+            this.onItemsSet = onItemsSet;
         }
 
-        for (Object o : activityItems) {
-            Activity activity = (Activity) o;
-            String time;
-            if (activity.getDatetime() != null) {
-                time = getHeaderDateString(context, activity.getDatetime().getTime()).toString();
-            } else if (activity.getDate() != null) {
-                time = getHeaderDateString(context, activity.getDate().getTime()).toString();
-            } else {
-                time = context.getString(R.string.date_unknown);
+        @Override
+        protected List<Object> doInBackground(Void... voids) {
+            List<Object> rows = new ArrayList<>(activityItems.size() * 2);
+            TimeZone timeZone = TimeZone.getDefault();
+            long lastDay = Long.MIN_VALUE;
+            String lastHeader = "";
+
+            for (Object o : activityItems) {
+                Activity activity = (Activity) o;
+                Date date = activity.getDatetime() != null ? activity.getDatetime() : activity.getDate();
+                long day = date == null ? Long.MAX_VALUE : toLocalDay(date.getTime(), timeZone);
+
+                if (rows.isEmpty() || day != lastDay) {
+                    String header = date == null ? adapter.context.getString(R.string.date_unknown) :
+                        adapter.getHeaderDateString(adapter.context, date.getTime()).toString();
+                    if (rows.isEmpty() || !lastHeader.equalsIgnoreCase(header)) {
+                        rows.add(header);
+                    }
+                    lastDay = day;
+                    lastHeader = header;
+                }
+                rows.add(activity);
+
+                CharSequence subject = adapter.buildSubject(activity);
+                if (subject != null) {
+                    subjects.put(activity, subject);
+                }
             }
+            return rows;
+        }
 
-            if (sTime.equalsIgnoreCase(time)) {
-                values.add(activity);
-            } else {
-                sTime = time;
-                values.add(sTime);
-                values.add(activity);
+        @Override
+        protected void onPostExecute(List<Object> rows) {
+            adapter.client = client;
+            if (clear) {
+                adapter.values.clear();
+                adapter.subjects.clear();
+            } else if (!rows.isEmpty() && !adapter.values.isEmpty() &&
+                adapter.values.get(adapter.getHeaderPositionForItem(adapter.values.size() - 1)).equals(rows.get(0))) {
+                // the page continues the day the list ended with
+                rows.remove(0);
+            }
+            adapter.values.addAll(rows);
+            adapter.subjects.putAll(subjects);
+            adapter.notifyDataSetChanged();
+
+            if (onItemsSet != null) {
+                onItemsSet.run();
             }
         }
-        notifyDataSetChanged();
+
+        private static long toLocalDay(long time, TimeZone timeZone) {
+            return (time + timeZone.getOffset(time)) / DateUtils.DAY_IN_MILLIS;
+        }
     }
 
     @NonNull
@@ -175,15 +251,14 @@ public class ActivityListAdapter extends RecyclerView.Adapter<RecyclerView.ViewH
                 activityViewHolder.dateTime.setVisibility(View.GONE);
             }
 
-            if (activity.getRichSubjectElement() != null &&
-                !TextUtils.isEmpty(activity.getRichSubjectElement().getRichSubject())) {
+            CharSequence subject = getSubject(activity);
+            if (subject instanceof Spannable) {
                 activityViewHolder.subject.setVisibility(View.VISIBLE);
                 activityViewHolder.subject.setMovementMethod(LinkMovementMethod.getInstance());
-                activityViewHolder.subject.setText(addClickablePart(activity.getRichSubjectElement()), TextView.BufferType.SPANNABLE);
-                activityViewHolder.subject.setVisibility(View.VISIBLE);
-            } else if (!TextUtils.isEmpty(activity.getSubject())) {
+                activityViewHolder.subject.setText(subject, TextView.BufferType.SPANNABLE);
+            } else if (subject != null) {
                 activityViewHolder.subject.setVisibility(View.VISIBLE);
-                activityViewHolder.subject.setText(activity.getSubject());
+                activityViewHolder.subject.setText(subject);
             } else {
                 activityViewHolder.subject.setVisibility(View.GONE);
             }
@@ -350,6 +425,36 @@ public class ActivityListAdapter extends RecyclerView.Adapter<RecyclerView.ViewH
             .into(itemViewType);
     }
 
+    /**
+     * @return the prepared subject of the activity, built now if the activity was not prepared
+     */
+    @Nullable
+    private CharSequence getSubject(Activity activity) {
+        CharSequence subject = subjects.get(activity);
+        if (subject == null) {
+            subject = buildSubject(activity);
+            if (subject != null) {
+                subjects.put(activity, subject);
+            }
+        }
+        return subject;
+    }
+
+    /**
+     * @return the rich subject with clickable objects, else the plain subject; null if there is none
+     */
+    @Nullable
+    private CharSequence buildSubject(Activity activity) {
+        if (activity.getRichSubjectElement() != null &&
+            !TextUtils.isEmpty(activity.getRichSubjectElement().getRichSubject())) {
+            return addClickablePart(activity.getRichSubjectElement());
+        } else if (!TextUtils.isEmpty(activity.getSubject())) {
+            return activity.getSubject();
+        } else {
+            return null;
+        }
+    }
+
     private SpannableStringBuilder addClickablePart(RichElement richElement) {
         String text = richElement.getRichSubject();
         SpannableStringBuilder ssb = new SpannableStringBuilder(text);
@@ -23,6 +23,8 @@ package com.owncloud.android.ui.adapter;
 import android.content.Context;
 import android.content.res.Resources;
 import android.graphics.Bitmap;
+import android.os.Handler;
+import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -37,18 +39,21 @@ import com.owncloud.android.lib.common.utils.Log_OC;
 import com.owncloud.android.ui.interfaces.LocalFileListFragmentInterface;
 import com.owncloud.android.utils.DisplayUtils;
 import com.owncloud.android.utils.FileSortOrder;
+import com.owncloud.android.utils.LocalFolderCache;
 import com.owncloud.android.utils.MimeTypeUtil;
 import com.owncloud.android.utils.ThemeUtils;
 
 import java.io.File;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.recyclerview.widget.RecyclerView;
 
 /**
@@ -59,6 +64,10 @@ public class LocalFileListAdapter extends RecyclerView.Adapter<RecyclerView.View
     private static final String TAG = LocalFileListAdapter.class.getSimpleName();
 
     private static final int showFilenameColumnThreshold = 4;
+
+    // listing and sorting in order of the requests, off the main thread
+    private static final Executor loader = Executors.newSingleThreadExecutor();
+
     private AppPreferences preferences;
     private Context mContext;
     private List<File> mFiles = new ArrayList<>();
@@ -67,6 +76,10 @@ public class LocalFileListAdapter extends RecyclerView.Adapter<RecyclerView.View
     private boolean gridView = false;
     private LocalFileListFragmentInterface localFileListFragmentInterface;
     private Set<File> checkedFiles;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private int loadGeneration;
+    @Nullable private File loadingDirectory;
+    @Nullable private Runnable loadingOnLoaded;
 
     private static final int VIEWTYPE_ITEM = 0;
     private static final int VIEWTYPE_FOOTER = 1;
@@ -300,64 +313,91 @@ public class LocalFileListAdapter extends RecyclerView.Adapter<RecyclerView.View
     }
 
     /**
-     * Change the adapted directory for a new one
+     * Change the adapted directory for a new one. The directory is listed, filtered and sorted in the background,
+     * the adapter is updated when this is done.
      *
      * @param directory New file to adapt. Can be NULL, meaning "no content to adapt".
      */
     public void swapDirectory(final File directory) {
-        if (mLocalFolderPicker) {
-            if (directory == null) {
-                mFiles.clear();
-            } else {
-                mFiles = getFolders(directory);
-            }
-        } else {
-            if (directory == null) {
-                mFiles.clear();
-            } else {
-                mFiles = getFiles(directory);
-            }
-        }
-
-        FileSortOrder sortOrder = preferences.getSortOrderByType(FileSortOrder.Type.localFileListView);
-        mFiles = sortOrder.sortLocalFiles(mFiles);
+        swapDirectory(directory, null);
+    }
 
-        // Fetch preferences for showing hidden files
-        boolean showHiddenFiles = preferences.isShowHiddenFilesEnabled();
-        if (!showHiddenFiles) {
-            mFiles = filterHiddenFiles(mFiles);
+    /**
+     * Lists the directory in background.
+     *
+     * @param onLoaded run on the main thread once the files are shown, unless another directory was requested
+     *                 meanwhile
+     */
+    public void swapDirectory(final File directory, @Nullable final Runnable onLoaded) {
+        final int generation = ++loadGeneration;
+        loadingDirectory = null;
+        loadingOnLoaded = null;
+
+        if (directory == null) {
+            mFiles = new ArrayList<>();
+            mFilesAll = new ArrayList<>();
+            notifyDataSetChanged();
+            if (onLoaded != null) {
+                onLoaded.run();
+            }
+            return;
         }
 
-        mFilesAll.clear();
-        mFilesAll.addAll(mFiles);
-
-        notifyDataSetChanged();
+        final FileSortOrder sortOrder = preferences.getSortOrderByType(FileSortOrder.Type.localFileListView);
+        final boolean showHiddenFiles = preferences.isShowHiddenFilesEnabled();
+        final boolean foldersOnly = mLocalFolderPicker;
+        loadingDirectory = directory;
+        loadingOnLoaded = onLoaded;
+
+        loader.execute(() -> {
+            List<File> files = new ArrayList<>();
+            for (File file : LocalFolderCache.list(directory)) {
+                if ((!foldersOnly || file.isDirectory()) && (showHiddenFiles || !file.isHidden())) {
+                    files.add(file);
+                }
+            }
+            final List<File> sortedFiles = sortOrder.sortLocalFiles(files);
+
+            mainHandler.post(() -> {
+                if (generation == loadGeneration) {
+                    loadingDirectory = null;
+                    loadingOnLoaded = null;
+                    mFiles = sortedFiles;
+                    mFilesAll = new ArrayList<>(sortedFiles);
+                    notifyDataSetChanged();
+                    if (onLoaded != null) {
+                        onLoaded.run();
+                    }
+                }
+            });
+        });
     }
 
-    public void setSortOrder(FileSortOrder sortOrder) {
+    public void setSortOrder(final FileSortOrder sortOrder) {
         preferences.setSortOrder(FileSortOrder.Type.localFileListView, sortOrder);
-        mFiles = sortOrder.sortLocalFiles(mFiles);
-        notifyDataSetChanged();
-    }
 
-    private List<File> getFolders(final File directory) {
-        File[] folders = directory.listFiles(File::isDirectory);
-
-        if (folders != null && folders.length > 0) {
-            return new ArrayList<>(Arrays.asList(folders));
-        } else {
-            return new ArrayList<>();
+        if (loadingDirectory != null) {
+            // the shown files are stale, list the requested directory again in the new order
+            swapDirectory(loadingDirectory, loadingOnLoaded);
+            return;
         }
-    }
 
-    private List<File> getFiles(File directory) {
-        File[] files = directory.listFiles();
+        final int generation = ++loadGeneration;
+        final List<File> files = new ArrayList<>(mFiles);
+        final List<File> allFiles = new ArrayList<>(mFilesAll);
 
-        if (files != null && files.length > 0) {
-            return new ArrayList<>(Arrays.asList(files));
-        } else {
-            return new ArrayList<>();
-        }
+        loader.execute(() -> {
+            sortOrder.sortLocalFiles(files);
+            sortOrder.sortLocalFiles(allFiles);
+
+            mainHandler.post(() -> {
+                if (generation == loadGeneration) {
+                    mFiles = files;
+                    mFilesAll = allFiles;
+                    notifyDataSetChanged();
+                }
+            });
+        });
     }
 
     public void filter(String text) {
@@ -376,23 +416,6 @@ public class LocalFileListAdapter extends RecyclerView.Adapter<RecyclerView.View
         notifyDataSetChanged();
     }
 
-    /**
-     * Filter for hidden files
-     *
-     * @param files ArrayList of files to filter
-     * @return Non-hidden files
-     */
-    private List<File> filterHiddenFiles(List<File> files) {
-        List<File> ret = new ArrayList<>();
-
-        for (File file : files) {
-            if (!file.isHidden()) {
-                ret.add(file);
-            }
-        }
-        return ret;
-    }
-
     private String getFooterText() {
         int filesCount = 0;
         int foldersCount = 0;
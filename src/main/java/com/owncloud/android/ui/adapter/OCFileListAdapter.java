@@ -26,7 +26,6 @@ package com.owncloud.android.ui.adapter;
 
 import android.accounts.AccountManager;
 import android.app.Activity;
-import android.content.ContentValues;
 import android.content.Context;
 import android.content.res.Resources;
 import android.graphics.Bitmap;
@@ -57,10 +56,9 @@ import com.owncloud.android.datamodel.FileDataStorageManager;
 import com.owncloud.android.datamodel.OCFile;
 import com.owncloud.android.datamodel.ThumbnailsCacheManager;
 import com.owncloud.android.datamodel.VirtualFolderType;
-import com.owncloud.android.db.ProviderMeta;
+import com.owncloud.android.files.SelectionSummary;
 import com.owncloud.android.files.services.FileDownloader;
 import com.owncloud.android.files.services.FileUploader;
-import com.owncloud.android.lib.common.operations.RemoteOperation;
 import com.owncloud.android.lib.common.operations.RemoteOperationResult;
 import com.owncloud.android.lib.common.utils.Log_OC;
 import com.owncloud.android.lib.resources.files.ReadFileRemoteOperation;
@@ -68,8 +66,6 @@ import com.owncloud.android.lib.resources.files.model.RemoteFile;
 import com.owncloud.android.lib.resources.shares.OCShare;
 import com.owncloud.android.lib.resources.shares.ShareType;
 import com.owncloud.android.lib.resources.shares.ShareeUser;
-import com.owncloud.android.operations.RefreshFolderOperation;
-import com.owncloud.android.operations.RemoteOperationFailedException;
 import com.owncloud.android.services.OperationsService;
 import com.owncloud.android.ui.TextDrawable;
 import com.owncloud.android.ui.activity.ComponentsGetter;
@@ -85,8 +81,8 @@ import com.owncloud.android.utils.ThemeUtils;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
@@ -117,7 +113,7 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
     private long lastTimestamp;
     private boolean gridView;
     private boolean multiSelect;
-    private Set<OCFile> checkedFiles;
+    private final SelectionSummary checkedFiles = new SelectionSummary();
 
     private FileDataStorageManager mStorageManager;
     private User user;
@@ -154,7 +150,6 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
         this.user = user;
         hideItemOptions = argHideItemOptions;
         this.gridView = gridView;
-        checkedFiles = new HashSet<>();
 
         this.transferServiceGetter = transferServiceGetter;
 
@@ -205,17 +200,24 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
     }
 
     public void setFavoriteAttributeForItemID(String fileId, boolean favorite) {
+        setFavoriteAttributeForItemIDs(Collections.singleton(fileId), favorite);
+    }
+
+    /**
+     * Sets the favorite flag of several files, the list is sorted and refreshed only once.
+     */
+    public void setFavoriteAttributeForItemIDs(Collection<String> fileIds, boolean favorite) {
         for (OCFile file : mFiles) {
-            if (file.getRemoteId().equals(fileId)) {
+            if (fileIds.contains(file.getRemoteId())) {
                 file.setFavorite(favorite);
-                break;
+                checkedFiles.update(file);
             }
         }
 
         for (OCFile file : mFilesAll) {
-            if (file.getRemoteId().equals(fileId)) {
+            if (fileIds.contains(file.getRemoteId())) {
                 file.setFavorite(favorite);
-                break;
+                checkedFiles.update(file);
             }
         }
 
@@ -248,6 +250,7 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
         for (int i = 0; i < filesSize; i++) {
             if (mFiles.get(i).getRemoteId().equals(fileId)) {
                 mFiles.get(i).setEncrypted(encrypted);
+                checkedFiles.update(mFiles.get(i));
                 break;
             }
         }
@@ -256,6 +259,7 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
         for (int i = 0; i < filesSize; i++) {
             if (mFilesAll.get(i).getRemoteId().equals(fileId)) {
                 mFilesAll.get(i).setEncrypted(encrypted);
+                checkedFiles.update(mFilesAll.get(i));
                 break;
             }
         }
@@ -811,6 +815,8 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
             mFiles = sortOrder.sortCloudFiles(mFiles);
             mFilesAll.clear();
             mFilesAll.addAll(mFiles);
+            // selected files are kept across reloads, e.g. after a download finished; count their current state
+            checkedFiles.updateAll(mFiles);
 
             currentDirectory = directory;
         } else {
@@ -825,34 +831,14 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
 
     public void setData(List<Object> objects, ExtendedListFragment.SearchType searchType,
                         FileDataStorageManager storageManager, OCFile folder, boolean clear) {
-        if (storageManager != null && mStorageManager == null) {
-            mStorageManager = storageManager;
-            showShareAvatar = mStorageManager.getCapability(user.getAccountName()).getVersion().isShareesOnDavSupported();
-        }
-
-        if (mStorageManager == null) {
-            mStorageManager = new FileDataStorageManager(user.toPlatformAccount(), activity.getContentResolver());
-        }
+        initStorageManager(storageManager);
 
         if (clear) {
             mFiles.clear();
             resetLastTimestamp();
             preferences.setPhotoSearchTimestamp(0);
 
-            VirtualFolderType type;
-            switch (searchType) {
-                case FAVORITE_SEARCH:
-                    type = VirtualFolderType.FAVORITE;
-                    break;
-                case PHOTO_SEARCH:
-                    type = VirtualFolderType.PHOTOS;
-                    break;
-                default:
-                    type = VirtualFolderType.NONE;
-                    break;
-            }
-
-            mStorageManager.deleteVirtuals(type);
+            mStorageManager.deleteVirtuals(getVirtualFolderType(searchType));
         }
 
         // early exit
@@ -860,10 +846,40 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
             if (searchType == ExtendedListFragment.SearchType.SHARED_FILTER) {
                 parseShares(objects);
             } else {
-                parseVirtuals(objects, searchType);
+                parseVirtuals(saveVirtuals(objects, searchType, mStorageManager), searchType);
             }
         }
 
+        finishData(searchType, folder);
+    }
+
+    /**
+     * Adds search results which were already stored via {@link #saveVirtuals}, so that only the cheap list update
+     * happens on the calling thread.
+     */
+    public void setVirtualData(List<OCFile> files, ExtendedListFragment.SearchType searchType,
+                               FileDataStorageManager storageManager, OCFile folder) {
+        initStorageManager(storageManager);
+
+        if (files.size() > 0) {
+            parseVirtuals(files, searchType);
+        }
+
+        finishData(searchType, folder);
+    }
+
+    private void initStorageManager(FileDataStorageManager storageManager) {
+        if (storageManager != null && mStorageManager == null) {
+            mStorageManager = storageManager;
+            showShareAvatar = mStorageManager.getCapability(user.getAccountName()).getVersion().isShareesOnDavSupported();
+        }
+
+        if (mStorageManager == null) {
+            mStorageManager = new FileDataStorageManager(user.toPlatformAccount(), activity.getContentResolver());
+        }
+    }
+
+    private void finishData(ExtendedListFragment.SearchType searchType, OCFile folder) {
         if (searchType != ExtendedListFragment.SearchType.PHOTO_SEARCH &&
                 searchType != ExtendedListFragment.SearchType.PHOTOS_SEARCH_FILTER &&
                 searchType != ExtendedListFragment.SearchType.RECENTLY_MODIFIED_SEARCH &&
@@ -880,6 +896,17 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
         new Handler(Looper.getMainLooper()).post(this::notifyDataSetChanged);
     }
 
+    private VirtualFolderType getVirtualFolderType(ExtendedListFragment.SearchType searchType) {
+        switch (searchType) {
+            case FAVORITE_SEARCH:
+                return VirtualFolderType.FAVORITE;
+            case PHOTO_SEARCH:
+                return VirtualFolderType.PHOTOS;
+            default:
+                return VirtualFolderType.NONE;
+        }
+    }
+
     private void parseShares(List<Object> objects) {
         List<OCShare> shares = new ArrayList<>();
 
@@ -924,85 +951,52 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
         mStorageManager.saveShares(shares);
     }
 
-    private void parseVirtuals(List<Object> objects, ExtendedListFragment.SearchType searchType) {
-        VirtualFolderType type;
-        boolean onlyImages = false;
-
-        switch (searchType) {
-            case FAVORITE_SEARCH:
-                type = VirtualFolderType.FAVORITE;
-                break;
-            case PHOTO_SEARCH:
-                type = VirtualFolderType.PHOTOS;
-                onlyImages = true;
-
-                int lastPosition = objects.size() - 1;
-
-                if (lastPosition < 0) {
-                    lastTimestamp = -1;
-                    break;
-                }
-
-                RemoteFile lastFile = (RemoteFile) objects.get(lastPosition);
-                lastTimestamp = lastFile.getModifiedTimestamp() / 1000;
-                break;
-            default:
-                type = VirtualFolderType.NONE;
-                break;
-        }
-
-        List<ContentValues> contentValues = new ArrayList<>();
+    /**
+     * Stores remote search results in one batch, without touching the adapter state, so it can run off the UI
+     * thread. Found folders are not refreshed here, but once they are browsed into.
+     *
+     * @return stored files, to be handed to {@link #setVirtualData}
+     */
+    public List<OCFile> saveVirtuals(List<Object> objects,
+                                     ExtendedListFragment.SearchType searchType,
+                                     FileDataStorageManager storageManager) {
+        List<OCFile> files = new ArrayList<>(objects.size());
 
         for (Object remoteFile : objects) {
             OCFile ocFile = FileStorageUtils.fillOCFile((RemoteFile) remoteFile);
             FileStorageUtils.searchForLocalFileInDefaultPath(ocFile, user.toPlatformAccount());
+            files.add(ocFile);
+        }
 
-            try {
-                if (ExtendedListFragment.SearchType.PHOTO_SEARCH == searchType) {
-                    mStorageManager.saveFile(ocFile);
-                } else {
+        boolean resolveParents = ExtendedListFragment.SearchType.PHOTO_SEARCH != searchType;
+        return storageManager.saveSearchResults(files, getVirtualFolderType(searchType), resolveParents, activity);
+    }
 
-                    ocFile = mStorageManager.saveFileWithParent(ocFile, activity);
-
-                    // also sync folder content
-                    if (ocFile.isFolder()) {
-                        long currentSyncTime = System.currentTimeMillis();
-                        RemoteOperation refreshFolderOperation = new RefreshFolderOperation(ocFile,
-                                                                                            currentSyncTime,
-                                                                                            true,
-                                                                                            false,
-                                                                                            mStorageManager,
-                                                                                            user.toPlatformAccount(),
-                                                                                            activity);
-                        refreshFolderOperation.execute(user.toPlatformAccount(), activity);
-                    }
-                }
+    private void parseVirtuals(List<OCFile> files, ExtendedListFragment.SearchType searchType) {
+        boolean onlyImages = false;
 
-                if (!onlyImages || MimeTypeUtil.isImage(ocFile)) {
-                    mFiles.add(ocFile);
-                }
+        if (ExtendedListFragment.SearchType.PHOTO_SEARCH == searchType) {
+            onlyImages = true;
 
-                ContentValues cv = new ContentValues();
-                cv.put(ProviderMeta.ProviderTableMeta.VIRTUAL_TYPE, type.toString());
-                cv.put(ProviderMeta.ProviderTableMeta.VIRTUAL_OCFILE_ID, ocFile.getFileId());
+            if (files.isEmpty()) {
+                lastTimestamp = -1;
+            } else {
+                lastTimestamp = files.get(files.size() - 1).getModificationTimestamp() / 1000;
+            }
+        }
 
-                contentValues.add(cv);
-            } catch (RemoteOperationFailedException e) {
-                Log_OC.e(TAG, "Error saving file with parent" + e.getMessage(), e);
+        for (OCFile ocFile : files) {
+            if (!onlyImages || MimeTypeUtil.isImage(ocFile)) {
+                mFiles.add(ocFile);
             }
         }
 
         preferences.setPhotoSearchTimestamp(System.currentTimeMillis());
-        mStorageManager.saveVirtuals(type, contentValues);
     }
 
     public void showVirtuals(VirtualFolderType type, boolean onlyImages, FileDataStorageManager storageManager) {
         mFiles = storageManager.getVirtualFolderContent(type, onlyImages);
 
-        if (VirtualFolderType.PHOTOS == type) {
-            mFiles = FileStorageUtils.sortOcFolderDescDateModifiedWithoutFavoritesFirst(mFiles);
-        }
-
         mFilesAll.clear();
         mFilesAll.addAll(mFiles);
 
@@ -1017,6 +1011,13 @@ public class OCFileListAdapter extends RecyclerView.Adapter<RecyclerView.ViewHol
     }
 
     public Set<OCFile> getCheckedItems() {
+        return checkedFiles.getFiles();
+    }
+
+    /**
+     * @return checked files together with counts of their properties, kept up to date as files are (un)checked
+     */
+    public SelectionSummary getSelectionSummary() {
         return checkedFiles;
     }
 
@@ -43,7 +43,10 @@ import com.owncloud.android.utils.FileSortOrder;
 import com.owncloud.android.utils.MimeTypeUtil;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
@@ -69,6 +72,10 @@ public class TrashbinListAdapter extends RecyclerView.Adapter<RecyclerView.ViewH
     private final FileDataStorageManager storageManager;
     private final AppPreferences preferences;
 
+    // full remote paths, as files are replaced when the folder is reloaded
+    private final Set<String> checkedPaths = new HashSet<>();
+    private boolean multiSelect;
+
     private final List<ThumbnailsCacheManager.ThumbnailGenerationTask> asyncTasks = new ArrayList<>();
 
     public TrashbinListAdapter(
@@ -121,6 +128,8 @@ public class TrashbinListAdapter extends RecyclerView.Adapter<RecyclerView.ViewH
 
             // layout
             trashbinFileViewHolder.itemLayout.setOnClickListener(v -> trashbinActivityInterface.onItemClicked(file));
+            trashbinFileViewHolder.itemLayout.setOnLongClickListener(v ->
+                    trashbinActivityInterface.onLongItemClicked(file));
 
             // thumbnail
             trashbinFileViewHolder.thumbnail.setTag(file.getRemoteId());
@@ -147,7 +156,13 @@ public class TrashbinListAdapter extends RecyclerView.Adapter<RecyclerView.ViewH
                     file.getDeletionTimestamp() * 1000));
 
             // checkbox
-            trashbinFileViewHolder.checkbox.setVisibility(View.GONE);
+            if (multiSelect) {
+                trashbinFileViewHolder.checkbox.setVisibility(View.VISIBLE);
+                trashbinFileViewHolder.checkbox.setImageResource(isChecked(file) ? R.drawable.ic_checkbox_marked :
+                    R.drawable.ic_checkbox_blank_outline);
+            } else {
+                trashbinFileViewHolder.checkbox.setVisibility(View.GONE);
+            }
 
             // overflow menu
             trashbinFileViewHolder.overflowMenu.setOnClickListener(v ->
@@ -163,15 +178,71 @@ public class TrashbinListAdapter extends RecyclerView.Adapter<RecyclerView.ViewH
         }
     }
 
-    public void removeFile(TrashbinFile file) {
-        int index = files.indexOf(file);
+    /**
+     * Removes the files without sorting the list again.
+     */
+    public void removeFiles(Collection<TrashbinFile> removedFiles) {
+        Set<String> removedPaths = new HashSet<>();
+        for (TrashbinFile file : removedFiles) {
+            removedPaths.add(file.getFullRemotePath());
+        }
+        checkedPaths.removeAll(removedPaths);
+
+        boolean removed = false;
+        for (int index = files.size() - 1; index >= 0; index--) {
+            if (removedPaths.contains(files.get(index).getFullRemotePath())) {
+                files.remove(index);
+                notifyItemRemoved(index);
+                removed = true;
+            }
+        }
 
+        if (removed) {
+            // footer
+            notifyItemChanged(files.size());
+        }
+    }
+
+    public void setMultiSelect(boolean multiSelect) {
+        if (this.multiSelect != multiSelect) {
+            this.multiSelect = multiSelect;
+            if (!multiSelect) {
+                checkedPaths.clear();
+            }
+            notifyItemRangeChanged(0, files.size());
+        }
+    }
+
+    public boolean isMultiSelect() {
+        return multiSelect;
+    }
+
+    public void toggleChecked(TrashbinFile file) {
+        String path = file.getFullRemotePath();
+        if (!checkedPaths.remove(path)) {
+            checkedPaths.add(path);
+        }
+
+        int index = files.indexOf(file);
         if (index != -1) {
-            files.remove(index);
-            notifyItemRemoved(index);
+            notifyItemChanged(index);
         }
     }
 
+    public List<TrashbinFile> getCheckedFiles() {
+        List<TrashbinFile> checkedFiles = new ArrayList<>();
+        for (TrashbinFile file : files) {
+            if (isChecked(file)) {
+                checkedFiles.add(file);
+            }
+        }
+        return checkedFiles;
+    }
+
+    private boolean isChecked(TrashbinFile file) {
+        return checkedPaths.contains(file.getFullRemotePath());
+    }
+
     public void removeAllFiles() {
         files.clear();
         notifyDataSetChanged();
@@ -31,6 +31,7 @@ import android.content.Intent;
 import android.graphics.Bitmap;
 import android.graphics.drawable.Drawable;
 import android.net.Uri;
+import android.os.AsyncTask;
 import android.text.format.DateUtils;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -72,8 +73,10 @@ import com.owncloud.android.utils.ThemeUtils;
 
 import java.io.File;
 import java.util.Arrays;
+import java.util.Collection;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import butterknife.BindView;
 import butterknife.ButterKnife;
 
@@ -83,6 +86,10 @@ import butterknife.ButterKnife;
 public class UploadListAdapter extends SectionedRecyclerViewAdapter<SectionedViewHolder> {
     private static final String TAG = UploadListAdapter.class.getSimpleName();
 
+    private static final int PAGE_SIZE = 100;
+    // next page is loaded when one of the last items of a group is shown
+    private static final int LOAD_MORE_THRESHOLD = 20;
+
     private ProgressListener progressListener;
     private FileActivity parentActivity;
     private UploadsStorageManager uploadsStorageManager;
@@ -93,6 +100,7 @@ public class UploadListAdapter extends SectionedRecyclerViewAdapter<SectionedVie
     private Clock clock;
     private UploadGroup[] uploadGroups;
     private boolean showUser;
+    private int loadGeneration;
 
     @Override
     public int getSectionCount() {
@@ -111,7 +119,7 @@ public class UploadListAdapter extends SectionedRecyclerViewAdapter<SectionedVie
         UploadGroup group = uploadGroups[section];
 
         headerViewHolder.title.setText(String.format(parentActivity.getString(R.string.uploads_view_group_header),
-                                                     group.getGroupName(), group.getGroupItemCount()));
+                                                     group.getGroupName(), group.getTotalCount()));
         headerViewHolder.title.setTextColor(ThemeUtils.primaryAccentColor(parentActivity));
 
         headerViewHolder.title.setOnClickListener(v -> toggleSectionExpanded(section));
@@ -190,24 +198,36 @@ public class UploadListAdapter extends SectionedRecyclerViewAdapter<SectionedVie
         uploadGroups[0] = new UploadGroup(Type.CURRENT,
                                           parentActivity.getString(R.string.uploads_view_group_current_uploads)) {
             @Override
-            public void refresh() {
-                fixAndSortItems(uploadsStorageManager.getCurrentAndPendingUploadsForCurrentAccount());
+            OCUpload[] loadPage(@Nullable OCUpload after, int limit) {
+                // current uploads are few, they are loaded at once
+                return after == null ? uploadsStorageManager.getCurrentAndPendingUploadsForCurrentAccount() :
+                    new OCUpload[0];
             }
         };
 
         uploadGroups[1] = new UploadGroup(Type.FAILED,
                                           parentActivity.getString(R.string.uploads_view_group_failed_uploads)) {
             @Override
-            public void refresh() {
-                fixAndSortItems(uploadsStorageManager.getFailedButNotDelayedUploadsForCurrentAccount());
+            OCUpload[] loadPage(@Nullable OCUpload after, int limit) {
+                return uploadsStorageManager.getFailedButNotDelayedUploadsForCurrentAccount(after, limit);
+            }
+
+            @Override
+            int loadTotalCount(OCUpload[] firstPage) {
+                return uploadsStorageManager.countFailedButNotDelayedUploadsForCurrentAccount();
             }
         };
 
         uploadGroups[2] = new UploadGroup(Type.FINISHED,
                                           parentActivity.getString(R.string.uploads_view_group_finished_uploads)) {
             @Override
-            public void refresh() {
-                fixAndSortItems(uploadsStorageManager.getFinishedUploadsForCurrentAccount());
+            OCUpload[] loadPage(@Nullable OCUpload after, int limit) {
+                return uploadsStorageManager.getFinishedUploadsForCurrentAccount(after, limit);
+            }
+
+            @Override
+            int loadTotalCount(OCUpload[] firstPage) {
+                return uploadsStorageManager.countFinishedUploadsForCurrentAccount();
             }
         };
 
@@ -220,7 +240,12 @@ public class UploadListAdapter extends SectionedRecyclerViewAdapter<SectionedVie
     public void onBindViewHolder(SectionedViewHolder holder, int section, int relativePosition, int absolutePosition) {
         ItemViewHolder itemViewHolder = (ItemViewHolder) holder;
 
-        OCUpload item = uploadGroups[section].getItem(relativePosition);
+        UploadGroup group = uploadGroups[section];
+        OCUpload item = group.getItem(relativePosition);
+
+        if (relativePosition >= group.getItems().length - LOAD_MORE_THRESHOLD) {
+            loadMore(group);
+        }
 
         itemViewHolder.name.setText(item.getLocalPath());
 
@@ -709,18 +734,197 @@ public class UploadListAdapter extends SectionedRecyclerViewAdapter<SectionedVie
     }
 
     /**
-     * Load upload items from {@link UploadsStorageManager}.
+     * Load upload items from {@link UploadsStorageManager} in the background. Each group is reloaded with as many
+     * items as it shows currently, but at least one page.
      */
     public void loadUploadItemsFromDb() {
         Log_OC.d(TAG, "loadUploadItemsFromDb");
 
-        for (UploadGroup group : uploadGroups) {
-            group.refresh();
+        final int generation = ++loadGeneration;
+        final int[] limits = new int[uploadGroups.length];
+        for (int i = 0; i < uploadGroups.length; i++) {
+            limits[i] = Math.max(PAGE_SIZE, uploadGroups[i].getItems().length);
         }
 
+        new LoadGroupsTask(this, generation, limits).executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+    }
+
+    private void onGroupsLoaded(int generation, OCUpload[][] pages, int... totalCounts) {
+        if (generation != loadGeneration) {
+            // outdated by a newer load
+            return;
+        }
+        for (int i = 0; i < uploadGroups.length; i++) {
+            uploadGroups[i].pageCursor = null;
+            uploadGroups[i].setPageCursor(pages[i]);
+            uploadGroups[i].fixAndSortItems(pages[i]);
+            uploadGroups[i].totalCount = totalCounts[i];
+        }
         notifyDataSetChanged();
     }
 
+    /**
+     * Appends the next page of the given group, read in the background.
+     */
+    private void loadMore(final UploadGroup group) {
+        final OCUpload[] items = group.getItems();
+        if (group.loadingMore || items.length == 0 || items.length >= group.totalCount) {
+            return;
+        }
+
+        group.loadingMore = true;
+        new LoadMoreTask(this, group, loadGeneration).executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+    }
+
+    private void onMoreLoaded(UploadGroup group, int generation, OCUpload... page) {
+        group.loadingMore = false;
+        if (generation != loadGeneration || page.length == 0) {
+            return;
+        }
+        group.setPageCursor(page);
+        OCUpload[] merged = Arrays.copyOf(group.getItems(), group.getItems().length + page.length);
+        System.arraycopy(page, 0, merged, group.getItems().length, page.length);
+        group.fixAndSortItems(merged);
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Reads the first pages of all groups and their total counts in the background.
+     */
+    private static class LoadGroupsTask extends AsyncTask<Void, Void, Void> {
+        private final UploadListAdapter adapter;
+        private final int generation;
+        private final int[] limits;
+        private final OCUpload[][] pages;
+        private final int[] totalCounts;
+
+        private LoadGroupsTask(UploadListAdapter adapter, int generation, int... limits) {
+            this.adapter = adapter;
+            this.generation = generation;
+            this.limits = limits;
+            pages = new OCUpload[limits.length][];
+            totalCounts = new int[limits.length];
+        }
+
+        @Override
+        protected Void doInBackground(Void... voids) {
+            for (int i = 0; i < limits.length; i++) {
+                pages[i] = adapter.uploadGroups[i].loadPage(null, limits[i]);
+                totalCounts[i] = adapter.uploadGroups[i].loadTotalCount(pages[i]);
+            }
+            return null;
+        }
+
+        @Override
+        protected void onPostExecute(Void result) {
+            adapter.onGroupsLoaded(generation, pages, totalCounts);
+        }
+    }
+
+    /**
+     * Reads the page following the uploads shown of a group in the background.
+     */
+    private static class LoadMoreTask extends AsyncTask<Void, Void, OCUpload[]> {
+        private final UploadListAdapter adapter;
+        private final UploadGroup group;
+        private final int generation;
+        private final OCUpload after;
+
+        private LoadMoreTask(UploadListAdapter adapter, UploadGroup group, int generation) {
+            this.adapter = adapter;
+            this.group = group;
+            this.generation = generation;
+            after = group.pageCursor;
+        }
+
+        @Override
+        protected OCUpload[] doInBackground(Void... voids) {
+            return group.loadPage(after, PAGE_SIZE);
+        }
+
+        @Override
+        protected void onPostExecute(OCUpload[] page) {
+            adapter.onMoreLoaded(group, generation, page);
+        }
+    }
+
+    /**
+     * Reads only the given uploads from the database and updates them in place, moving them to another group if
+     * their status changed. All uploads are reloaded if any upload is new or removed.
+     *
+     * @param uploadIds ids of changed uploads, null to reload all uploads
+     */
+    public void refreshUploads(@Nullable Collection<Long> uploadIds) {
+        if (uploadIds == null) {
+            loadUploadItemsFromDb();
+            return;
+        }
+
+        long[] ids = new long[uploadIds.size()];
+        int i = 0;
+        for (Long id : uploadIds) {
+            ids[i++] = id;
+        }
+        OCUpload[] changedUploads = uploadsStorageManager.getUploadsByIds(ids);
+        if (changedUploads.length != ids.length) {
+            // removed uploads
+            loadUploadItemsFromDb();
+            return;
+        }
+
+        String accountName = accountManager.getUser().getAccountName();
+        FileUploader.FileUploaderBinder binder = parentActivity.getFileUploaderBinder();
+        boolean changed = false;
+        for (OCUpload upload : changedUploads) {
+            if (!accountName.equals(upload.getAccountName())) {
+                continue;
+            }
+
+            upload.setDataFixed(binder);
+            if (!replaceItem(upload)) {
+                loadUploadItemsFromDb();
+                return;
+            }
+            changed = true;
+        }
+
+        if (changed) {
+            for (UploadGroup group : uploadGroups) {
+                Arrays.sort(group.getItems(), new OCUploadComparator());
+            }
+            notifyDataSetChanged();
+        }
+    }
+
+    /**
+     * Replaces a shown upload by its changed version, which is moved to another group if it does not belong to its
+     * group any more.
+     *
+     * @return false if the upload is not shown yet
+     */
+    private boolean replaceItem(OCUpload upload) {
+        for (UploadGroup group : uploadGroups) {
+            int position = group.indexOf(upload.getUploadId());
+            if (position < 0) {
+                continue;
+            }
+
+            if (group.accepts(upload)) {
+                group.getItems()[position] = upload;
+            } else {
+                group.removeItem(position);
+                for (UploadGroup target : uploadGroups) {
+                    if (target.accepts(upload)) {
+                        target.insertItem(upload);
+                        break;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
     private void onUploadItemClick(OCUpload file) {
         File f = new File(file.getLocalPath());
         if (!f.exists()) {
@@ -800,18 +1004,18 @@ public class UploadListAdapter extends SectionedRecyclerViewAdapter<SectionedVie
         }
     }
 
-    interface Refresh {
-        void refresh();
-    }
-
     enum Type {
         CURRENT, FINISHED, FAILED
     }
 
-    abstract class UploadGroup implements Refresh {
+    abstract class UploadGroup {
         private Type type;
         private OCUpload[] items;
         private String name;
+        private int totalCount;
+        private boolean loadingMore;
+        // last upload read, in database order; the shown items are sorted differently
+        private OCUpload pageCursor;
 
         UploadGroup(Type type, String groupName) {
             this.type = type;
@@ -835,6 +1039,94 @@ public class UploadListAdapter extends SectionedRecyclerViewAdapter<SectionedVie
             this.items = items;
         }
 
+        /**
+         * Reads uploads of the group from the database. Called from a background thread.
+         *
+         * @param after last upload of the previous page, null for the first page
+         * @param limit maximum number of uploads to read
+         */
+        abstract OCUpload[] loadPage(@Nullable OCUpload after, int limit);
+
+        /**
+         * Reads the number of all uploads of the group. Called from a background thread.
+         */
+        int loadTotalCount(OCUpload[] firstPage) {
+            return firstPage.length;
+        }
+
+        int getTotalCount() {
+            return totalCount;
+        }
+
+        /**
+         * Remembers where the next page starts. Must be called before the page is sorted.
+         */
+        void setPageCursor(OCUpload... page) {
+            if (page.length > 0) {
+                pageCursor = page[page.length - 1];
+            }
+        }
+
+        int indexOf(long uploadId) {
+            for (int i = 0; i < items.length; i++) {
+                if (items[i].getUploadId() == uploadId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * @return true if the upload belongs to this group, as selected by {@link #loadPage(OCUpload, int)}
+         */
+        boolean accepts(OCUpload upload) {
+            UploadResult lastResult = upload.getLastResult();
+            boolean delayed = lastResult == UploadResult.DELAYED_FOR_WIFI ||
+                lastResult == UploadResult.LOCK_FAILED ||
+                lastResult == UploadResult.DELAYED_FOR_CHARGING ||
+                lastResult == UploadResult.DELAYED_IN_POWER_SAVE_MODE;
+
+            switch (type) {
+                case CURRENT:
+                    return upload.getUploadStatus() == UploadStatus.UPLOAD_IN_PROGRESS || delayed;
+                case FAILED:
+                    return upload.getUploadStatus() == UploadStatus.UPLOAD_FAILED && !delayed;
+                default:
+                    return upload.getUploadStatus() == UploadStatus.UPLOAD_SUCCEEDED;
+            }
+        }
+
+        void removeItem(int position) {
+            OCUpload[] remaining = new OCUpload[items.length - 1];
+            System.arraycopy(items, 0, remaining, 0, position);
+            System.arraycopy(items, position + 1, remaining, position, remaining.length - position);
+            items = remaining;
+            totalCount--;
+        }
+
+        /**
+         * Adds an upload which moved to this group. It is not added if it follows the pages read so far, the next
+         * page contains it then.
+         */
+        void insertItem(OCUpload upload) {
+            boolean allRead = items.length >= totalCount;
+            totalCount++;
+
+            if (allRead || pageCursor == null || precedesInDatabase(upload, pageCursor)) {
+                items = Arrays.copyOf(items, items.length + 1);
+                items[items.length - 1] = upload;
+            }
+        }
+
+        /**
+         * @return true if the first upload is read before the second one, newest end timestamp first
+         */
+        private boolean precedesInDatabase(OCUpload upload, OCUpload other) {
+            return upload.getUploadEndTimestamp() > other.getUploadEndTimestamp() ||
+                upload.getUploadEndTimestamp() == other.getUploadEndTimestamp() &&
+                    upload.getUploadId() < other.getUploadId();
+        }
+
         void fixAndSortItems(OCUpload... array) {
             FileUploader.FileUploaderBinder binder = parentActivity.getFileUploaderBinder();
 
@@ -845,9 +1137,5 @@ public class UploadListAdapter extends SectionedRecyclerViewAdapter<SectionedVie
 
             setItems(array);
         }
-
-        private int getGroupItemCount() {
-            return items == null ? 0 : items.length;
-        }
     }
 }
@@ -33,11 +33,11 @@ import com.owncloud.android.files.services.FileUploader;
 import com.owncloud.android.lib.common.operations.RemoteOperationResult.ResultCode;
 import com.owncloud.android.lib.common.utils.Log_OC;
 import com.owncloud.android.operations.UploadFileOperation;
+import com.owncloud.android.utils.FileCopyUtils;
 import com.owncloud.android.utils.FileStorageUtils;
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.lang.ref.WeakReference;
 
@@ -126,7 +126,6 @@ public class CopyAndUploadContentUrisTask extends AsyncTask<Object, Void, Result
         ResultCode result = ResultCode.UNKNOWN_ERROR;
 
         InputStream inputStream = null;
-        FileOutputStream outputStream = null;
         String fullTempPath = null;
         Uri currentUri = null;
 
@@ -151,13 +150,9 @@ public class CopyAndUploadContentUrisTask extends AsyncTask<Object, Void, Result
                     tempDir.mkdirs();
                 }
                 cacheFile.createNewFile();
-                outputStream = new FileOutputStream(fullTempPath);
-                byte[] buffer = new byte[4096];
-
-                int count;
-                while ((count = inputStream.read(buffer)) > 0) {
-                    outputStream.write(buffer, 0, count);
-                }
+                FileCopyUtils.copy(inputStream, cacheFile, null);
+                inputStream.close();
+                inputStream = null;
 
                 requestUpload(
                     account,
@@ -205,14 +200,6 @@ public class CopyAndUploadContentUrisTask extends AsyncTask<Object, Void, Result
                     Log_OC.w(TAG, "Ignoring exception of inputStream closure");
                 }
             }
-
-            if (outputStream != null) {
-                try {
-                    outputStream.close();
-                } catch (Exception e) {
-                    Log_OC.w(TAG, "Ignoring exception of outStream closure");
-                }
-            }
         }
 
         return result;
@@ -25,6 +25,7 @@ import android.os.AsyncTask;
 
 import com.nextcloud.client.account.User;
 import com.owncloud.android.datamodel.FileDataStorageManager;
+import com.owncloud.android.datamodel.OCFile;
 import com.owncloud.android.lib.common.operations.RemoteOperationResult;
 import com.owncloud.android.lib.common.utils.Log_OC;
 import com.owncloud.android.lib.resources.files.SearchRemoteOperation;
@@ -34,6 +35,8 @@ import com.owncloud.android.ui.fragment.ExtendedListFragment;
 import com.owncloud.android.ui.fragment.PhotoFragment;
 
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
 
 public class PhotoSearchTask extends AsyncTask<Void, Void, RemoteOperationResult> {
 
@@ -42,6 +45,8 @@ public class PhotoSearchTask extends AsyncTask<Void, Void, RemoteOperationResult
     private WeakReference<PhotoFragment> photoFragmentWeakReference;
     private SearchRemoteOperation searchRemoteOperation;
     private FileDataStorageManager storageManager;
+    private List<OCFile> photos = new ArrayList<>();
+    private long searchResponseTime;
 
     public PhotoSearchTask(int columnsCount,
                            PhotoFragment photoFragment,
@@ -88,7 +93,18 @@ public class PhotoSearchTask extends AsyncTask<Void, Void, RemoteOperationResult
             searchRemoteOperation.setTimestamp(timestamp);
 
             if (photoFragment.getContext() != null) {
-                return searchRemoteOperation.execute(user.toPlatformAccount(), photoFragment.getContext());
+                RemoteOperationResult result = searchRemoteOperation.execute(user.toPlatformAccount(),
+                                                                             photoFragment.getContext());
+                searchResponseTime = System.currentTimeMillis();
+
+                if (result.isSuccess() && result.getData() != null && !isCancelled()) {
+                    // store results here, so that only the list update is left for the UI thread
+                    photos = adapter.saveVirtuals(result.getData(),
+                                                  ExtendedListFragment.SearchType.PHOTO_SEARCH,
+                                                  storageManager);
+                }
+
+                return result;
             } else {
                 return new RemoteOperationResult(new IllegalStateException("No context available"));
             }
@@ -106,13 +122,15 @@ public class PhotoSearchTask extends AsyncTask<Void, Void, RemoteOperationResult
                 } else {
                     OCFileListAdapter adapter = photoFragment.getAdapter();
 
-                    adapter.setData(result.getData(),
-                                    ExtendedListFragment.SearchType.PHOTO_SEARCH,
-                                    storageManager,
-                                    null,
-                                    false);
+                    adapter.setVirtualData(photos,
+                                           ExtendedListFragment.SearchType.PHOTO_SEARCH,
+                                           storageManager,
+                                           null);
                     adapter.notifyDataSetChanged();
                     Log_OC.d(this, "Search: count: " + result.getData().size() + " total: " + adapter.getFiles().size());
+
+                    photoFragment.getRecyclerView().post(() -> Log_OC.d(this, "Search: first frame after " +
+                        (System.currentTimeMillis() - searchResponseTime) + "ms"));
                 }
             }
 
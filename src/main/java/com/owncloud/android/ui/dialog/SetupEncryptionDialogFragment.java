@@ -194,6 +194,7 @@ public class SetupEncryptionDialogFragment extends DialogFragment {
 
                                     arbitraryDataProvider.storeOrUpdateKeyValue(account.name,
                                             EncryptionUtils.PRIVATE_KEY, decryptedPrivateKey);
+                                    EncryptionUtils.clearCachedKeys(account.name);
 
                                     dialog.dismiss();
                                     Log_OC.d(TAG, "Private key successfully decrypted and stored");
@@ -367,6 +368,7 @@ public class SetupEncryptionDialogFragment extends DialogFragment {
                     arbitraryDataProvider.storeOrUpdateKeyValue(account.name, EncryptionUtils.PRIVATE_KEY,
                             privateKeyString);
                     arbitraryDataProvider.storeOrUpdateKeyValue(account.name, EncryptionUtils.PUBLIC_KEY, publicKey);
+                    EncryptionUtils.clearCachedKeys(account.name);
                     arbitraryDataProvider.storeOrUpdateKeyValue(account.name, EncryptionUtils.MNEMONIC,
                             generateMnemonicString(true));
 
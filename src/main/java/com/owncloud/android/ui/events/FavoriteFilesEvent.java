@@ -0,0 +1,36 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.owncloud.android.ui.events;
+
+import com.owncloud.android.datamodel.OCFile;
+
+import java.util.List;
+
+/**
+ * Event for (un)favoriting several files at once
+ */
+public class FavoriteFilesEvent {
+    public final List<OCFile> files;
+    public final boolean shouldFavorite;
+
+    public FavoriteFilesEvent(List<OCFile> files, boolean shouldFavorite) {
+        this.files = files;
+        this.shouldFavorite = shouldFavorite;
+    }
+}
@@ -165,7 +165,7 @@ public class ExtendedListFragment extends Fragment implements
         mRecyclerView.setAdapter(recyclerViewAdapter);
     }
 
-    protected RecyclerView getRecyclerView() {
+    public RecyclerView getRecyclerView() {
         return mRecyclerView;
     }
 
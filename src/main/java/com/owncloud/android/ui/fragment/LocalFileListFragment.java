@@ -43,6 +43,7 @@ import java.io.File;
 import javax.inject.Inject;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -192,10 +193,12 @@ public class LocalFileListFragment extends ExtendedListFragment implements
         if (mDirectory != null) {
             parentDir = mDirectory.getParentFile();  // can be null
         }
-        listDirectory(parentDir);
-
-        // restore index and top position
-        restoreIndexAndTopPosition();
+        // restore index and top position once the parent is listed
+        listDirectory(parentDir, () -> {
+            if (isAdded()) {
+                restoreIndexAndTopPosition();
+            }
+        });
     }
 
 
@@ -227,6 +230,15 @@ public class LocalFileListFragment extends ExtendedListFragment implements
      * @param directory     Directory to be listed
      */
     public void listDirectory(File directory) {
+        listDirectory(directory, null);
+    }
+
+    /**
+     * Lists the given directory on the view, see {@link #listDirectory(File)}.
+     *
+     * @param onListed  run when the files of the directory are shown
+     */
+    private void listDirectory(File directory, @Nullable Runnable onListed) {
 
         // Check input parameters for null
         if (directory == null) {
@@ -236,6 +248,9 @@ public class LocalFileListFragment extends ExtendedListFragment implements
                 directory = Environment.getExternalStorageDirectory();
                 // TODO be careful with the state of the storage; could not be available
                 if (directory == null) {
+                    if (onListed != null) {
+                        onListed.run();
+                    }
                     return; // no files to show
                 }
             }
@@ -250,7 +265,7 @@ public class LocalFileListFragment extends ExtendedListFragment implements
 
         // by now, only files in the same directory will be kept as selected
         mAdapter.removeAllFilesFromCheckedFiles();
-        mAdapter.swapDirectory(directory);
+        mAdapter.swapDirectory(directory, onListed);
 
         mDirectory = directory;
     }
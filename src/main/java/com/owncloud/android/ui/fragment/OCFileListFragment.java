@@ -59,6 +59,7 @@ import com.owncloud.android.datamodel.FileDataStorageManager;
 import com.owncloud.android.datamodel.OCFile;
 import com.owncloud.android.datamodel.VirtualFolderType;
 import com.owncloud.android.files.FileMenuFilter;
+import com.owncloud.android.files.SelectionSummary;
 import com.owncloud.android.lib.common.Creator;
 import com.owncloud.android.lib.common.OwnCloudClient;
 import com.owncloud.android.lib.common.operations.RemoteOperation;
@@ -69,6 +70,7 @@ import com.owncloud.android.lib.resources.files.SearchRemoteOperation;
 import com.owncloud.android.lib.resources.files.ToggleFavoriteRemoteOperation;
 import com.owncloud.android.lib.resources.shares.GetSharesRemoteOperation;
 import com.owncloud.android.lib.resources.status.OCCapability;
+import com.owncloud.android.operations.ToggleFavoritesOperation;
 import com.owncloud.android.ui.activity.FileActivity;
 import com.owncloud.android.ui.activity.FileDisplayActivity;
 import com.owncloud.android.ui.activity.FolderPickerActivity;
@@ -88,6 +90,7 @@ import com.owncloud.android.ui.events.ChangeMenuEvent;
 import com.owncloud.android.ui.events.CommentsEvent;
 import com.owncloud.android.ui.events.EncryptionEvent;
 import com.owncloud.android.ui.events.FavoriteEvent;
+import com.owncloud.android.ui.events.FavoriteFilesEvent;
 import com.owncloud.android.ui.events.SearchEvent;
 import com.owncloud.android.ui.helpers.FileOperationsHelper;
 import com.owncloud.android.ui.interfaces.OCFileListFragmentInterface;
@@ -568,6 +571,11 @@ public class OCFileListFragment extends ExtendedListFragment implements
          */
         private Set<OCFile> mSelectionWhenActionModeClosedByDrawer = new HashSet<>();
 
+        /**
+         * Capability of the account, read once per action mode instead of on every selection change
+         */
+        private OCCapability mCapability;
+
         @Override
         public void onDrawerSlide(@NonNull View drawerView, float slideOffset) {
             // nothing to do
@@ -628,6 +636,10 @@ public class OCFileListFragment extends ExtendedListFragment implements
         @Override
         public boolean onCreateActionMode(ActionMode mode, Menu menu) {
             mActiveActionMode = mode;
+            Account currentAccount = ((FileActivity) getActivity()).getAccount();
+            if (currentAccount != null && mContainerActivity.getStorageManager() != null) {
+                mCapability = mContainerActivity.getStorageManager().getCapability(currentAccount.name);
+            }
 
             MenuInflater inflater = getActivity().getMenuInflater();
             inflater.inflate(R.menu.item_file, menu);
@@ -649,14 +661,15 @@ public class OCFileListFragment extends ExtendedListFragment implements
          */
         @Override
         public boolean onPrepareActionMode(ActionMode mode, Menu menu) {
-            Set<OCFile> checkedFiles = mAdapter.getCheckedItems();
-            final int checkedCount = mAdapter.getCheckedItems().size();
+            SelectionSummary selection = mAdapter.getSelectionSummary();
+            final int checkedCount = selection.size();
             String title = getResources().getQuantityString(R.plurals.items_selected_count, checkedCount, checkedCount);
             mode.setTitle(title);
             Account currentAccount = ((FileActivity) getActivity()).getAccount();
             FileMenuFilter mf = new FileMenuFilter(
                 mAdapter.getFiles().size(),
-                checkedFiles,
+                selection,
+                mCapability,
                 currentAccount,
                 mContainerActivity,
                 getActivity(),
@@ -686,6 +699,7 @@ public class OCFileListFragment extends ExtendedListFragment implements
         @Override
         public void onDestroyActionMode(ActionMode mode) {
             mActiveActionMode = null;
+            mCapability = null;
 
             // reset to previous color
             final FragmentActivity activity = getActivity();
@@ -1493,6 +1507,13 @@ public class OCFileListFragment extends ExtendedListFragment implements
             RemoteOperationResult remoteOperationResult = toggleFavoriteOperation.execute(client);
 
             if (remoteOperationResult.isSuccess()) {
+                FileDataStorageManager storageManager = mContainerActivity == null ? null :
+                    mContainerActivity.getStorageManager();
+                OCFile file = storageManager == null ? null : storageManager.getFileByPath(event.remotePath);
+                if (file != null) {
+                    // also updates the kept-in-sync markers of its folders, which the account sync relies on
+                    storageManager.saveFavorites(Collections.singletonList(file), event.shouldFavorite);
+                }
                 mAdapter.setFavoriteAttributeForItemID(event.remoteId, event.shouldFavorite);
             }
 
@@ -1501,6 +1522,33 @@ public class OCFileListFragment extends ExtendedListFragment implements
         }
     }
 
+    @Subscribe(threadMode = ThreadMode.BACKGROUND)
+    public void onMessageEvent(FavoriteFilesEvent event) {
+        if (mContainerActivity == null || mContainerActivity.getStorageManager() == null) {
+            return;
+        }
+
+        try {
+            User user = accountManager.getUser();
+            OwnCloudClient client = clientFactory.create(user);
+
+            ToggleFavoritesOperation toggleFavoritesOperation = new ToggleFavoritesOperation(event.files,
+                                                                                             event.shouldFavorite);
+            toggleFavoritesOperation.execute(client, mContainerActivity.getStorageManager());
+
+            Set<String> remoteIds = new HashSet<>();
+            for (OCFile file : toggleFavoritesOperation.getSucceededFiles()) {
+                remoteIds.add(file.getRemoteId());
+            }
+            if (!remoteIds.isEmpty()) {
+                mAdapter.setFavoriteAttributeForItemIDs(remoteIds, event.shouldFavorite);
+            }
+
+        } catch (ClientFactory.CreationException e) {
+            Log_OC.e(TAG, "Error processing event", e);
+        }
+    }
+
     @Subscribe(threadMode = ThreadMode.BACKGROUND)
     public void onMessageEvent(final SearchEvent event) {
         if (SearchRemoteOperation.SearchType.PHOTO_SEARCH == event.searchType) {
@@ -1605,6 +1653,13 @@ public class OCFileListFragment extends ExtendedListFragment implements
             final RemoteOperationResult remoteOperationResult = toggleEncryptionOperation.execute(client);
 
             if (remoteOperationResult.isSuccess()) {
+                FileDataStorageManager storageManager = mContainerActivity.getStorageManager();
+                OCFile folder = storageManager.getFileByPath(event.remotePath);
+
+                if (folder != null) {
+                    storageManager.updateEncryptionStatus(folder, event.shouldBeEncrypted);
+                }
+
                 mAdapter.setEncryptionAttributeForItemID(event.remoteId, event.shouldBeEncrypted);
             } else if (remoteOperationResult.getHttpCode() == HttpStatus.SC_FORBIDDEN) {
                 Snackbar.make(getRecyclerView(), R.string.end_to_end_encryption_folder_not_empty, Snackbar.LENGTH_LONG).show();
@@ -1685,9 +1740,7 @@ public class OCFileListFragment extends ExtendedListFragment implements
             ocFileListAdapter.removeAllFilesFromCheckedFiles();
         }
 
-        for (int i = 0; i < mAdapter.getItemCount(); i++) {
-            mAdapter.notifyItemChanged(i);
-        }
+        mAdapter.notifyItemRangeChanged(0, mAdapter.getItemCount());
 
         mActiveActionMode.invalidate();
     }
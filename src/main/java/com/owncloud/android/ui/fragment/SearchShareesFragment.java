@@ -37,6 +37,7 @@ import com.owncloud.android.R;
 import com.owncloud.android.datamodel.OCFile;
 import com.owncloud.android.lib.common.utils.Log_OC;
 import com.owncloud.android.lib.resources.shares.OCShare;
+import com.owncloud.android.providers.UsersAndGroupsSearchProvider;
 import com.owncloud.android.ui.activity.FileActivity;
 import com.owncloud.android.ui.adapter.ShareUserListAdapter;
 
@@ -131,6 +132,7 @@ public class SearchShareesFragment extends Fragment implements ShareUserListAdap
 
             @Override
             public boolean onQueryTextChange(String newText) {
+                UsersAndGroupsSearchProvider.onQueryTextChange(newText);
                 return false;   // let it for the parent listener in the hierarchy / default behaviour
             }
         });
@@ -26,6 +26,7 @@ import android.view.View;
 import android.view.inputmethod.EditorInfo;
 
 import com.owncloud.android.lib.resources.status.OCCapability;
+import com.owncloud.android.providers.UsersAndGroupsSearchProvider;
 
 import androidx.annotation.Nullable;
 import androidx.appcompat.widget.SearchView;
@@ -70,6 +71,8 @@ public final class FileDetailSharingFragmentHelper {
 
             @Override
             public boolean onQueryTextChange(String newText) {
+                UsersAndGroupsSearchProvider.onQueryTextChange(newText);
+
                 // leave it for the parent listener in the hierarchy / default behaviour
                 return false;
             }
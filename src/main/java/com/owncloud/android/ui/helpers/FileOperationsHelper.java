@@ -76,6 +76,7 @@ import com.owncloud.android.ui.activity.TextEditorWebView;
 import com.owncloud.android.ui.dialog.SendShareDialog;
 import com.owncloud.android.ui.events.EncryptionEvent;
 import com.owncloud.android.ui.events.FavoriteEvent;
+import com.owncloud.android.ui.events.FavoriteFilesEvent;
 import com.owncloud.android.ui.events.SyncEventFinished;
 import com.owncloud.android.utils.DisplayUtils;
 import com.owncloud.android.utils.FileStorageUtils;
@@ -842,17 +843,15 @@ public class FileOperationsHelper {
     }
 
     public void toggleFavoriteFiles(Collection<OCFile> files, boolean shouldBeFavorite) {
-        List<OCFile> alreadyRightStateList = new ArrayList<>();
+        List<OCFile> toToggle = new ArrayList<>();
         for (OCFile file : files) {
-            if (file.isFavorite() == shouldBeFavorite) {
-                alreadyRightStateList.add(file);
+            if (file.isFavorite() != shouldBeFavorite) {
+                toToggle.add(file);
             }
         }
 
-        files.removeAll(alreadyRightStateList);
-
-        for (OCFile file : files) {
-            toggleFavoriteFile(file, shouldBeFavorite);
+        if (!toToggle.isEmpty()) {
+            EventBus.getDefault().post(new FavoriteFilesEvent(toToggle, shouldBeFavorite));
         }
     }
 
@@ -891,16 +890,20 @@ public class FileOperationsHelper {
      * @param inBackground  When 'true', do not show any loading dialog
      */
     public void removeFiles(Collection<OCFile> files, boolean onlyLocalCopy, boolean inBackground) {
-        for (OCFile file : files) {
+        Intent service = new Intent(fileActivity, OperationsService.class);
+        if (files.size() == 1) {
             // RemoveFile
-            Intent service = new Intent(fileActivity, OperationsService.class);
             service.setAction(OperationsService.ACTION_REMOVE);
-            service.putExtra(OperationsService.EXTRA_ACCOUNT, fileActivity.getAccount());
-            service.putExtra(OperationsService.EXTRA_REMOTE_PATH, file.getRemotePath());
-            service.putExtra(OperationsService.EXTRA_REMOVE_ONLY_LOCAL, onlyLocalCopy);
-            service.putExtra(OperationsService.EXTRA_IN_BACKGROUND, inBackground);
-            mWaitingForOpId = fileActivity.getOperationsServiceBinder().queueNewOperation(service);
+            service.putExtra(OperationsService.EXTRA_REMOTE_PATH, files.iterator().next().getRemotePath());
+        } else {
+            // one operation for all files
+            service.setAction(OperationsService.ACTION_REMOVE_FILES);
+            service.putStringArrayListExtra(OperationsService.EXTRA_REMOTE_PATHS, getRemotePaths(files));
         }
+        service.putExtra(OperationsService.EXTRA_ACCOUNT, fileActivity.getAccount());
+        service.putExtra(OperationsService.EXTRA_REMOVE_ONLY_LOCAL, onlyLocalCopy);
+        service.putExtra(OperationsService.EXTRA_IN_BACKGROUND, inBackground);
+        mWaitingForOpId = fileActivity.getOperationsServiceBinder().queueNewOperation(service);
 
         if (!inBackground) {
             fileActivity.showLoadingDialog(fileActivity.getString(R.string.wait_a_moment));
@@ -953,14 +956,17 @@ public class FileOperationsHelper {
      * @param targetFolder Folder where the files while be moved into
      */
     public void moveFiles(Collection<OCFile> files, OCFile targetFolder) {
-        for (OCFile file : files) {
-            Intent service = new Intent(fileActivity, OperationsService.class);
+        Intent service = new Intent(fileActivity, OperationsService.class);
+        if (files.size() == 1) {
             service.setAction(OperationsService.ACTION_MOVE_FILE);
-            service.putExtra(OperationsService.EXTRA_NEW_PARENT_PATH, targetFolder.getRemotePath());
-            service.putExtra(OperationsService.EXTRA_REMOTE_PATH, file.getRemotePath());
-            service.putExtra(OperationsService.EXTRA_ACCOUNT, fileActivity.getAccount());
-            mWaitingForOpId = fileActivity.getOperationsServiceBinder().queueNewOperation(service);
+            service.putExtra(OperationsService.EXTRA_REMOTE_PATH, files.iterator().next().getRemotePath());
+        } else {
+            service.setAction(OperationsService.ACTION_MOVE_FILES);
+            service.putStringArrayListExtra(OperationsService.EXTRA_REMOTE_PATHS, getRemotePaths(files));
         }
+        service.putExtra(OperationsService.EXTRA_NEW_PARENT_PATH, targetFolder.getRemotePath());
+        service.putExtra(OperationsService.EXTRA_ACCOUNT, fileActivity.getAccount());
+        mWaitingForOpId = fileActivity.getOperationsServiceBinder().queueNewOperation(service);
         fileActivity.showLoadingDialog(fileActivity.getString(R.string.wait_a_moment));
     }
 
@@ -971,17 +977,28 @@ public class FileOperationsHelper {
      * @param targetFolder Folder where the files while be copied into
      */
     public void copyFiles(Collection<OCFile> files, OCFile targetFolder) {
-        for (OCFile file : files) {
-            Intent service = new Intent(fileActivity, OperationsService.class);
+        Intent service = new Intent(fileActivity, OperationsService.class);
+        if (files.size() == 1) {
             service.setAction(OperationsService.ACTION_COPY_FILE);
-            service.putExtra(OperationsService.EXTRA_NEW_PARENT_PATH, targetFolder.getRemotePath());
-            service.putExtra(OperationsService.EXTRA_REMOTE_PATH, file.getRemotePath());
-            service.putExtra(OperationsService.EXTRA_ACCOUNT, fileActivity.getAccount());
-            mWaitingForOpId = fileActivity.getOperationsServiceBinder().queueNewOperation(service);
+            service.putExtra(OperationsService.EXTRA_REMOTE_PATH, files.iterator().next().getRemotePath());
+        } else {
+            service.setAction(OperationsService.ACTION_COPY_FILES);
+            service.putStringArrayListExtra(OperationsService.EXTRA_REMOTE_PATHS, getRemotePaths(files));
         }
+        service.putExtra(OperationsService.EXTRA_NEW_PARENT_PATH, targetFolder.getRemotePath());
+        service.putExtra(OperationsService.EXTRA_ACCOUNT, fileActivity.getAccount());
+        mWaitingForOpId = fileActivity.getOperationsServiceBinder().queueNewOperation(service);
         fileActivity.showLoadingDialog(fileActivity.getString(R.string.wait_a_moment));
     }
 
+    private ArrayList<String> getRemotePaths(Collection<OCFile> files) {
+        ArrayList<String> remotePaths = new ArrayList<>(files.size());
+        for (OCFile file : files) {
+            remotePaths.add(file.getRemotePath());
+        }
+        return remotePaths;
+    }
+
     public long getOpIdWaitingFor() {
         return mWaitingForOpId;
     }
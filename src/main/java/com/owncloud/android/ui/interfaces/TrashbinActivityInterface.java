@@ -35,5 +35,7 @@ public interface TrashbinActivityInterface {
 
     void onItemClicked(TrashbinFile file);
 
+    boolean onLongItemClicked(TrashbinFile file);
+
     void onRestoreIconClicked(TrashbinFile file, View view);
 }
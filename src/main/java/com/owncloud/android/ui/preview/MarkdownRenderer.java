@@ -0,0 +1,253 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.owncloud.android.ui.preview;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.Intent;
+import android.graphics.Color;
+import android.graphics.PorterDuff;
+import android.net.Uri;
+import android.os.AsyncTask;
+import android.text.Spanned;
+import android.util.LruCache;
+import android.widget.TextView;
+
+import com.owncloud.android.R;
+import com.owncloud.android.lib.common.utils.Log_OC;
+import com.owncloud.android.utils.DisplayUtils;
+import com.owncloud.android.utils.ThemeUtils;
+
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import androidx.annotation.NonNull;
+import io.noties.markwon.AbstractMarkwonPlugin;
+import io.noties.markwon.Markwon;
+import io.noties.markwon.MarkwonConfiguration;
+import io.noties.markwon.core.MarkwonTheme;
+import io.noties.markwon.ext.strikethrough.StrikethroughPlugin;
+import io.noties.markwon.ext.tables.TablePlugin;
+import io.noties.markwon.ext.tasklist.TaskListDrawable;
+import io.noties.markwon.ext.tasklist.TaskListPlugin;
+import io.noties.markwon.html.HtmlPlugin;
+import io.noties.markwon.syntax.Prism4jThemeDefault;
+import io.noties.markwon.syntax.SyntaxHighlightPlugin;
+import io.noties.prism4j.Prism4j;
+
+/**
+ * Renders markdown through one process-wide {@link Markwon} instance per theme color and keeps recently rendered
+ * texts, e.g. rich workspaces of visited folders, in memory. Long texts are rendered in background.
+ */
+public final class MarkdownRenderer {
+    private static final String TAG = MarkdownRenderer.class.getSimpleName();
+
+    private static final int BACKGROUND_RENDER_THRESHOLD = 4 * 1024;
+    private static final int CACHE_SIZE = 32;
+
+    private static final Map<Integer, Markwon> markwonInstances = new HashMap<>();
+    private static final LruCache<Integer, RenderedText> renderedTexts = new LruCache<>(CACHE_SIZE);
+    private static final Map<TextView, RenderTask> pendingTasks = new WeakHashMap<>();
+
+    private static Prism4j prism4j;
+
+    private MarkdownRenderer() {
+        // utility class -> private constructor
+    }
+
+    /**
+     * Renders markdown synchronously, using the cache if possible.
+     */
+    public static Spanned render(Context context, String markdown) {
+        int themeColor = ThemeUtils.primaryColor(context, true);
+        Spanned cached = getCached(themeColor, markdown);
+
+        if (cached != null) {
+            return cached;
+        }
+
+        return renderAndCache(getMarkwon(context, themeColor), themeColor, markdown);
+    }
+
+    /**
+     * Renders markdown into given text view. Cached or short texts are set immediately, all others are rendered in
+     * background and set once done, unless the text view got a newer text in the meantime.
+     */
+    public static void renderInto(TextView textView, String markdown) {
+        Context context = textView.getContext();
+        int themeColor = ThemeUtils.primaryColor(context, true);
+
+        cancel(textView);
+
+        Spanned cached = getCached(themeColor, markdown);
+        if (cached != null) {
+            textView.setText(cached);
+        } else if (markdown.length() < BACKGROUND_RENDER_THRESHOLD) {
+            textView.setText(renderAndCache(getMarkwon(context, themeColor), themeColor, markdown));
+        } else {
+            textView.setText(markdown);
+
+            RenderTask task = new RenderTask(textView, getMarkwon(context, themeColor), themeColor, markdown);
+            synchronized (pendingTasks) {
+                pendingTasks.put(textView, task);
+            }
+            task.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+        }
+    }
+
+    /**
+     * Drops a pending background rendering for given text view, e.g. if its text gets replaced otherwise.
+     */
+    public static void cancel(TextView textView) {
+        synchronized (pendingTasks) {
+            RenderTask task = pendingTasks.remove(textView);
+            if (task != null) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    private static Spanned getCached(int themeColor, String markdown) {
+        RenderedText renderedText = renderedTexts.get(cacheKey(themeColor, markdown));
+
+        if (renderedText != null && renderedText.source.equals(markdown)) {
+            return renderedText.spanned;
+        }
+        return null;
+    }
+
+    private static Spanned renderAndCache(Markwon markwon, int themeColor, String markdown) {
+        Spanned spanned = markwon.toMarkdown(markdown);
+        renderedTexts.put(cacheKey(themeColor, markdown), new RenderedText(markdown, spanned));
+        return spanned;
+    }
+
+    private static int cacheKey(int themeColor, String markdown) {
+        return 31 * themeColor + markdown.hashCode();
+    }
+
+    private static synchronized Markwon getMarkwon(Context context, int themeColor) {
+        Markwon markwon = markwonInstances.get(themeColor);
+
+        if (markwon == null) {
+            markwon = createMarkwon(context.getApplicationContext(), themeColor);
+            markwonInstances.put(themeColor, markwon);
+        }
+        return markwon;
+    }
+
+    private static Markwon createMarkwon(Context context, int themeColor) {
+        if (prism4j == null) {
+            prism4j = new Prism4j(new MarkwonGrammarLocator());
+        }
+
+        TaskListDrawable drawable = new TaskListDrawable(Color.GRAY, Color.GRAY, Color.WHITE);
+        drawable.setColorFilter(themeColor, PorterDuff.Mode.SRC_ATOP);
+
+        return Markwon.builder(context)
+            .usePlugin(new AbstractMarkwonPlugin() {
+                @Override
+                public void configureTheme(@NonNull MarkwonTheme.Builder builder) {
+                    builder.linkColor(themeColor);
+                    builder.headingBreakHeight(0);
+                }
+
+                @Override
+                public void configureConfiguration(@NonNull MarkwonConfiguration.Builder builder) {
+                    builder.linkResolver((view, link) -> {
+                        Intent intent = new Intent(Intent.ACTION_VIEW, Uri.parse(link));
+                        Activity activity = findActivity(view.getContext());
+
+                        if (activity != null) {
+                            DisplayUtils.startIntentIfAppAvailable(intent, activity, R.string.no_browser_available);
+                        } else {
+                            Log_OC.w(TAG, "No activity to open link: " + link);
+                        }
+                    });
+                }
+            })
+            .usePlugin(TablePlugin.create(context))
+            .usePlugin(TaskListPlugin.create(drawable))
+            .usePlugin(StrikethroughPlugin.create())
+            .usePlugin(HtmlPlugin.create())
+            .usePlugin(SyntaxHighlightPlugin.create(prism4j, Prism4jThemeDefault.create()))
+            .build();
+    }
+
+    private static Activity findActivity(Context context) {
+        while (context instanceof ContextWrapper) {
+            if (context instanceof Activity) {
+                return (Activity) context;
+            }
+            context = ((ContextWrapper) context).getBaseContext();
+        }
+        return null;
+    }
+
+    private static class RenderedText {
+        private final String source;
+        private final Spanned spanned;
+
+        RenderedText(String source, Spanned spanned) {
+            this.source = source;
+            this.spanned = spanned;
+        }
+    }
+
+    private static class RenderTask extends AsyncTask<Void, Void, Spanned> {
+        private final WeakReference<TextView> textViewReference;
+        private final Markwon markwon;
+        private final int themeColor;
+        private final String markdown;
+
+        RenderTask(TextView textView, Markwon markwon, int themeColor, String markdown) {
+            this.textViewReference = new WeakReference<>(textView);
+            this.markwon = markwon;
+            this.themeColor = themeColor;
+            this.markdown = markdown;
+        }
+
+        @Override
+        protected Spanned doInBackground(Void... voids) {
+            return renderAndCache(markwon, themeColor, markdown);
+        }
+
+        @Override
+        protected void onPostExecute(Spanned spanned) {
+            TextView textView = textViewReference.get();
+
+            if (textView == null) {
+                return;
+            }
+
+            synchronized (pendingTasks) {
+                if (pendingTasks.get(textView) != this) {
+                    return;
+                }
+                pendingTasks.remove(textView);
+            }
+
+            textView.setText(spanned);
+        }
+    }
+}
@@ -30,7 +30,6 @@ import com.owncloud.android.datamodel.OCFile;
 import com.owncloud.android.datamodel.VirtualFolderType;
 import com.owncloud.android.ui.fragment.FileFragment;
 import com.owncloud.android.utils.FileSortOrder;
-import com.owncloud.android.utils.FileStorageUtils;
 
 import java.util.HashSet;
 import java.util.List;
@@ -118,10 +117,6 @@ public class PreviewImagePagerAdapter extends FragmentStatePagerAdapter {
         mStorageManager = storageManager;
         mImageFiles = mStorageManager.getVirtualFolderContent(type, true);
 
-        if (type == VirtualFolderType.PHOTOS) {
-            mImageFiles = FileStorageUtils.sortOcFolderDescDateModifiedWithoutFavoritesFirst(mImageFiles);
-        }
-
         mObsoleteFragments = new HashSet<>();
         mObsoletePositions = new HashSet<>();
         mDownloadErrors = new HashSet<>();
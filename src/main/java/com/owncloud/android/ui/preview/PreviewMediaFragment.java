@@ -58,6 +58,7 @@ import com.nextcloud.client.di.Injectable;
 import com.nextcloud.client.media.ErrorFormat;
 import com.nextcloud.client.media.PlayerServiceConnection;
 import com.owncloud.android.R;
+import com.owncloud.android.datamodel.FileDataStorageManager;
 import com.owncloud.android.datamodel.OCFile;
 import com.owncloud.android.files.FileMenuFilter;
 import com.owncloud.android.files.StreamMediaFileOperation;
@@ -72,9 +73,13 @@ import com.owncloud.android.ui.activity.FileActivity;
 import com.owncloud.android.ui.dialog.ConfirmationDialogFragment;
 import com.owncloud.android.ui.dialog.RemoveFilesDialogFragment;
 import com.owncloud.android.ui.fragment.FileFragment;
+import com.owncloud.android.utils.FileSortOrder;
 import com.owncloud.android.utils.MimeTypeUtil;
 
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import javax.inject.Inject;
 
@@ -101,6 +106,7 @@ public class PreviewMediaFragment extends FileFragment implements OnTouchListene
     private static final String EXTRA_PLAY_POSITION = "PLAY_POSITION";
     private static final String EXTRA_PLAYING = "PLAYING";
     private static final double MIN_DENSITY_RATIO = 24.0;
+    private static final int MAX_PLAYLIST_SIZE = 50;
 
     private static final String FILE = "FILE";
     private static final String ACCOUNT = "ACCOUNT";
@@ -322,7 +328,11 @@ public class PreviewMediaFragment extends FileFragment implements OnTouchListene
             if (MimeTypeUtil.isAudio(file)) {
                 mMediaController.setMediaPlayer(mMediaPlayerServiceConnection);
                 mMediaPlayerServiceConnection.bind();
-                mMediaPlayerServiceConnection.start(mAccount, file, mAutoplay, mSavedPlaybackPosition);
+                mMediaPlayerServiceConnection.start(mAccount,
+                                                    file,
+                                                    mAutoplay,
+                                                    mSavedPlaybackPosition,
+                                                    getFollowingAudioFiles(file));
                 mMultiView.setVisibility(View.GONE);
                 mPreviewContainer.setVisibility(View.VISIBLE);
             } else if (MimeTypeUtil.isVideo(file)) {
@@ -332,6 +342,36 @@ public class PreviewMediaFragment extends FileFragment implements OnTouchListene
         }
     }
 
+    /**
+     * @return audio files following the given one in its folder, sorted by name
+     */
+    private List<OCFile> getFollowingAudioFiles(OCFile file) {
+        FileDataStorageManager storageManager = containerActivity.getStorageManager();
+        if (storageManager == null) {
+            return Collections.emptyList();
+        }
+        OCFile folder = storageManager.getFileById(file.getParentId());
+        if (folder == null) {
+            return Collections.emptyList();
+        }
+
+        List<OCFile> audioFiles = new ArrayList<>();
+        for (OCFile sibling : storageManager.getFolderContent(folder, false)) {
+            if (MimeTypeUtil.isAudio(sibling)) {
+                audioFiles.add(sibling);
+            }
+        }
+        audioFiles = FileSortOrder.sort_a_to_z.sortCloudFiles(audioFiles);
+
+        for (int i = 0; i < audioFiles.size(); i++) {
+            if (audioFiles.get(i).getFileId() == file.getFileId()) {
+                int end = Math.min(audioFiles.size(), i + 1 + MAX_PLAYLIST_SIZE);
+                return new ArrayList<>(audioFiles.subList(i + 1, end));
+            }
+        }
+        return Collections.emptyList();
+    }
+
     private void stopAudio() {
         mMediaPlayerServiceConnection.stop();
     }
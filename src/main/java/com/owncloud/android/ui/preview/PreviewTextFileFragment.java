@@ -60,15 +60,24 @@ import java.util.Scanner;
 import javax.inject.Inject;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.appcompat.widget.SearchView;
 import androidx.core.view.MenuItemCompat;
+import androidx.recyclerview.widget.LinearLayoutManager;
 
 public class PreviewTextFileFragment extends PreviewTextFragment {
     private static final String EXTRA_FILE = "FILE";
     private static final String EXTRA_ACCOUNT = "ACCOUNT";
     private static final String TAG = PreviewTextFileFragment.class.getSimpleName();
 
+    /**
+     * Larger files are shown line by line as they are scrolled, without markdown or syntax highlighting.
+     */
+    static final long PAGED_PREVIEW_THRESHOLD = 1024 * 1024;
+
     private TextLoadAsyncTask textLoadAsyncTask;
+    private LinesLoadAsyncTask linesLoadAsyncTask;
+    private TextFileLinesAdapter linesAdapter;
     private Account account;
 
     @Inject UserAccountManager accountManager;
@@ -140,10 +149,112 @@ public class PreviewTextFileFragment extends PreviewTextFragment {
 
     @Override
     void loadAndShowTextPreview() {
+        File file = new File(getFile().getStoragePath());
+        if (file.length() > PAGED_PREVIEW_THRESHOLD) {
+            linesLoadAsyncTask = new LinesLoadAsyncTask();
+            // indexing takes a while, it must not hold up the serial executor
+            linesLoadAsyncTask.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR, file);
+        } else {
+            loadFullText();
+        }
+    }
+
+    private void loadFullText() {
         textLoadAsyncTask = new TextLoadAsyncTask(new WeakReference<>(mTextPreview));
         textLoadAsyncTask.execute(getFile().getStoragePath());
     }
 
+    @Override
+    protected boolean isTextLoaded() {
+        return linesAdapter != null || super.isTextLoaded();
+    }
+
+    @Override
+    protected void showSearchResult(@Nullable String query) {
+        if (linesAdapter != null) {
+            linesAdapter.setQuery(query);
+        } else {
+            super.showSearchResult(query);
+        }
+    }
+
+    /**
+     * Shows a large file line by line, lines are added while the file is indexed.
+     */
+    private class LinesLoadAsyncTask extends AsyncTask<File, TextFileLines, Boolean> {
+        private volatile TextFileLines lines;
+
+        @Override
+        protected Boolean doInBackground(File... files) {
+            try {
+                lines = TextFileLines.open(files[0]);
+                if (lines == null) {
+                    // not split into lines by bytes, loaded as a whole
+                    return Boolean.FALSE;
+                }
+                lines.index(() -> publishProgress(lines));
+            } catch (IOException e) {
+                Log_OC.e(TAG, e.getMessage(), e);
+                finish();
+            }
+            return Boolean.TRUE;
+        }
+
+        @Override
+        protected void onProgressUpdate(TextFileLines... progress) {
+            if (isCancelled() || mTextPreviewLines == null) {
+                return;
+            }
+
+            if (linesAdapter == null) {
+                showLines(progress[0]);
+            } else {
+                linesAdapter.updateLineCount();
+            }
+        }
+
+        @Override
+        protected void onPostExecute(Boolean linesShown) {
+            if (!linesShown) {
+                loadFullText();
+            }
+        }
+
+        @Override
+        protected void onCancelled() {
+            close();
+        }
+
+        private void close() {
+            if (lines != null) {
+                try {
+                    lines.close();
+                } catch (IOException e) {
+                    Log_OC.e(TAG, e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    private void showLines(TextFileLines lines) {
+        linesAdapter = new TextFileLinesAdapter(lines, getResources().getColor(R.color.primary));
+        mTextPreviewLines.setLayoutManager(new LinearLayoutManager(getContext()));
+        mTextPreviewLines.setAdapter(linesAdapter);
+        mTextPreviewLines.setVisibility(View.VISIBLE);
+
+        if (mSearchView != null) {
+            mSearchView.setOnQueryTextListener(this);
+
+            if (mSearchOpen) {
+                mSearchView.setQuery(mSearchQuery, true);
+            }
+        }
+
+        if (mMultiView != null) {
+            mMultiView.setVisibility(View.GONE);
+        }
+    }
+
     /**
      * Reads the file to preview and shows its contents. Too critical to be anonymous.
      */
@@ -400,6 +511,14 @@ public class PreviewTextFileFragment extends PreviewTextFragment {
         if (textLoadAsyncTask != null) {
             textLoadAsyncTask.cancel(true);
         }
+
+        if (linesLoadAsyncTask != null) {
+            linesLoadAsyncTask.cancel(true);
+            // stops the indexing, the task may still be running
+            linesLoadAsyncTask.close();
+            linesLoadAsyncTask = null;
+        }
+        linesAdapter = null;
     }
 
 }
@@ -20,14 +20,9 @@
 package com.owncloud.android.ui.preview;
 
 import android.app.Activity;
-import android.content.Intent;
-import android.graphics.Color;
-import android.graphics.PorterDuff;
-import android.net.Uri;
 import android.os.Bundle;
 import android.os.Handler;
 import android.text.Html;
-import android.text.Spanned;
 import android.text.method.LinkMovementMethod;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -45,29 +40,15 @@ import com.owncloud.android.datamodel.OCFile;
 import com.owncloud.android.lib.common.utils.Log_OC;
 import com.owncloud.android.ui.activity.FileDisplayActivity;
 import com.owncloud.android.ui.fragment.FileFragment;
-import com.owncloud.android.utils.DisplayUtils;
 import com.owncloud.android.utils.MimeTypeUtil;
 import com.owncloud.android.utils.StringUtils;
-import com.owncloud.android.utils.ThemeUtils;
 
 import javax.inject.Inject;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.widget.SearchView;
-import io.noties.markwon.AbstractMarkwonPlugin;
-import io.noties.markwon.Markwon;
-import io.noties.markwon.MarkwonConfiguration;
-import io.noties.markwon.core.MarkwonTheme;
-import io.noties.markwon.ext.strikethrough.StrikethroughPlugin;
-import io.noties.markwon.ext.tables.TablePlugin;
-import io.noties.markwon.ext.tasklist.TaskListDrawable;
-import io.noties.markwon.ext.tasklist.TaskListPlugin;
-import io.noties.markwon.html.HtmlPlugin;
-import io.noties.markwon.syntax.Prism4jTheme;
-import io.noties.markwon.syntax.Prism4jThemeDefault;
-import io.noties.markwon.syntax.SyntaxHighlightPlugin;
-import io.noties.prism4j.Prism4j;
+import androidx.recyclerview.widget.RecyclerView;
 import io.noties.prism4j.annotations.PrismBundle;
 
 @PrismBundle(
@@ -85,6 +66,7 @@ public abstract class PreviewTextFragment extends FileFragment implements Search
     protected String mSearchQuery = "";
     protected boolean mSearchOpen;
     protected TextView mTextPreview;
+    protected RecyclerView mTextPreviewLines;
     protected Handler mHandler;
     protected RelativeLayout mMultiView;
     protected String mOriginalText;
@@ -108,6 +90,7 @@ public abstract class PreviewTextFragment extends FileFragment implements Search
 
         View ret = inflater.inflate(R.layout.text_file_preview, container, false);
         mTextPreview = ret.findViewById(R.id.text_preview);
+        mTextPreviewLines = ret.findViewById(R.id.text_preview_lines);
 
         mMultiView = ret.findViewById(R.id.multi_view);
 
@@ -160,22 +143,12 @@ public abstract class PreviewTextFragment extends FileFragment implements Search
     private void performSearch(final String query, int delay) {
         mHandler.removeCallbacksAndMessages(null);
 
-        if (mOriginalText != null) {
+        if (isTextLoaded()) {
             if (getActivity() instanceof FileDisplayActivity) {
                 FileDisplayActivity fileDisplayActivity = (FileDisplayActivity) getActivity();
                 fileDisplayActivity.setSearchQuery(query);
             }
-            mHandler.postDelayed(() -> {
-                if (query != null && !query.isEmpty()) {
-                    if (getContext() != null && getContext().getResources() != null) {
-                        String coloredText = StringUtils.searchAndColor(mOriginalText, query,
-                            getContext().getResources().getColor(R.color.primary));
-                        mTextPreview.setText(Html.fromHtml(coloredText.replace("\n", "<br \\>")));
-                    }
-                } else {
-                    setText(mTextPreview, mOriginalText, getFile(), getActivity());
-                }
-            }, delay);
+            mHandler.postDelayed(() -> showSearchResult(query), delay);
         }
 
         if (delay == 0 && mSearchView != null) {
@@ -183,36 +156,27 @@ public abstract class PreviewTextFragment extends FileFragment implements Search
         }
     }
 
-    protected static Spanned getRenderedMarkdownText(Activity activity, String markdown) {
-        Prism4j prism4j = new Prism4j(new MarkwonGrammarLocator());
-        Prism4jTheme prism4jTheme = Prism4jThemeDefault.create();
-        TaskListDrawable drawable = new TaskListDrawable(Color.GRAY, Color.GRAY, Color.WHITE);
-        drawable.setColorFilter(ThemeUtils.primaryColor(activity, true), PorterDuff.Mode.SRC_ATOP);
-
-        final Markwon markwon = Markwon.builder(activity)
-            .usePlugin(new AbstractMarkwonPlugin() {
-                @Override
-                public void configureTheme(@NonNull MarkwonTheme.Builder builder) {
-                    builder.linkColor(ThemeUtils.primaryColor(activity, true));
-                    builder.headingBreakHeight(0);
-                }
-
-                @Override
-                public void configureConfiguration(@NonNull MarkwonConfiguration.Builder builder) {
-                    builder.linkResolver((view, link) -> {
-                        Intent intent = new Intent(Intent.ACTION_VIEW, Uri.parse(link));
-                        DisplayUtils.startIntentIfAppAvailable(intent, activity, R.string.no_browser_available);
-                    });
-                }
-            })
-            .usePlugin(TablePlugin.create(activity))
-            .usePlugin(TaskListPlugin.create(drawable))
-            .usePlugin(StrikethroughPlugin.create())
-            .usePlugin(HtmlPlugin.create())
-            .usePlugin(SyntaxHighlightPlugin.create(prism4j, prism4jTheme))
-            .build();
-
-        return markwon.toMarkdown(markdown);
+    /**
+     * @return true once the text is shown and can be searched
+     */
+    protected boolean isTextLoaded() {
+        return mOriginalText != null;
+    }
+
+    /**
+     * Highlights the query in the shown text, or shows the plain text if the query is empty.
+     */
+    protected void showSearchResult(@Nullable String query) {
+        if (query != null && !query.isEmpty()) {
+            if (getContext() != null && getContext().getResources() != null) {
+                String coloredText = StringUtils.searchAndColor(mOriginalText, query,
+                    getContext().getResources().getColor(R.color.primary));
+                MarkdownRenderer.cancel(mTextPreview);
+                mTextPreview.setText(Html.fromHtml(coloredText.replace("\n", "<br \\>")));
+            }
+        } else {
+            setText(mTextPreview, mOriginalText, getFile(), getActivity());
+        }
     }
 
     /**
@@ -242,8 +206,9 @@ public abstract class PreviewTextFragment extends FileFragment implements Search
                 // clickable links prevent to open full view of rich workspace
                 textView.setMovementMethod(LinkMovementMethod.getInstance());
             }
-            textView.setText(getRenderedMarkdownText(activity, text));
+            MarkdownRenderer.renderInto(textView, text);
         } else {
+            MarkdownRenderer.cancel(textView);
             textView.setText(text);
         }
     }
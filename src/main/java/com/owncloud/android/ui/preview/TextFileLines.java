@@ -0,0 +1,266 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.owncloud.android.ui.preview;
+
+import org.mozilla.universalchardet.UniversalDetector;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Lines of a text file that is too large to be loaded at once. The file is read in windows of
+ * {@link #WINDOW_SIZE} bytes, of which a few are kept, so only the lines that are shown are read.
+ *
+ * Line offsets are indexed by {@link #index(Runnable)}, in background; lines are available as soon as they are
+ * indexed. Lines are split at '\n' bytes, so files in encodings with wider line breaks are not supported.
+ */
+class TextFileLines implements Closeable {
+
+    static final int WINDOW_SIZE = 64 * 1024;
+
+    /**
+     * Longer lines are cut, a row must not hold an arbitrary part of the file.
+     */
+    static final int MAX_LINE_LENGTH = 16 * 1024;
+
+    private static final int CACHED_WINDOWS = 8;
+    private static final int PROGRESS_INTERVAL = 16 * WINDOW_SIZE;
+    private static final Charset DEFAULT_CHARSET = Charset.forName("UTF-8");
+    private static final byte[] UTF8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    private final File file;
+    private final RandomAccessFile randomAccessFile;
+    private final long length;
+    private final Charset charset;
+
+    // guarded by this
+    private long[] lineStarts = new long[1024];
+    private int lineStartCount;
+    private boolean indexed;
+    private final Map<Long, byte[]> windows = new LinkedHashMap<Long, byte[]>(CACHED_WINDOWS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, byte[]> eldest) {
+            return size() > CACHED_WINDOWS;
+        }
+    };
+
+    private volatile boolean closed;
+
+    private TextFileLines(File file, RandomAccessFile randomAccessFile, Charset charset, long firstLineStart)
+        throws IOException {
+        this.file = file;
+        this.randomAccessFile = randomAccessFile;
+        this.charset = charset;
+        length = randomAccessFile.length();
+        if (length > firstLineStart) {
+            lineStarts[lineStartCount++] = firstLineStart;
+        }
+    }
+
+    /**
+     * Opens the file and detects its encoding from the first window.
+     *
+     * @return lines of the file, null if its encoding does not use single byte line breaks
+     */
+    @Nullable
+    static TextFileLines open(File file) throws IOException {
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        try {
+            byte[] head = new byte[(int) Math.min(WINDOW_SIZE, randomAccessFile.length())];
+            randomAccessFile.readFully(head);
+
+            UniversalDetector detector = new UniversalDetector(null);
+            detector.handleData(head, 0, head.length);
+            detector.dataEnd();
+            String detectedCharset = detector.getDetectedCharset();
+
+            Charset charset = DEFAULT_CHARSET;
+            if (detectedCharset != null && Charset.isSupported(detectedCharset)) {
+                charset = Charset.forName(detectedCharset);
+            }
+            if (charset.name().startsWith("UTF-16") || charset.name().startsWith("UTF-32")) {
+                randomAccessFile.close();
+                return null;
+            }
+
+            boolean bom = head.length >= UTF8_BOM.length &&
+                Arrays.equals(Arrays.copyOf(head, UTF8_BOM.length), UTF8_BOM);
+            return new TextFileLines(file, randomAccessFile, charset, bom ? UTF8_BOM.length : 0);
+        } catch (IOException | RuntimeException e) {
+            randomAccessFile.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Finds all line starts. Blocks until the file is indexed or closed, so it must not be called on the main thread.
+     *
+     * @param onProgress called on the indexing thread whenever more lines are available
+     */
+    void index(Runnable onProgress) throws IOException {
+        long position;
+        synchronized (this) {
+            if (indexed || lineStartCount == 0) {
+                indexed = true;
+                onProgress.run();
+                return;
+            }
+            position = lineStarts[0];
+        }
+
+        byte[] buffer = new byte[WINDOW_SIZE];
+        long lastProgress = 0;
+        try (InputStream input = new FileInputStream(file)) {
+            skipFully(input, position);
+            int read;
+            while (!closed && (read = input.read(buffer)) > 0) {
+                synchronized (this) {
+                    for (int i = 0; i < read; i++) {
+                        long next = position + i + 1;
+                        if (buffer[i] == '\n' && next < length) {
+                            addLineStart(next);
+                        }
+                    }
+                }
+                position += read;
+
+                if (position - lastProgress >= PROGRESS_INTERVAL) {
+                    lastProgress = position;
+                    onProgress.run();
+                }
+            }
+        }
+
+        synchronized (this) {
+            indexed = !closed;
+        }
+        onProgress.run();
+    }
+
+    /**
+     * @return number of lines that can be read; grows while the file is indexed
+     */
+    synchronized int getLineCount() {
+        // the end of the last found line is not known before the file is indexed
+        return indexed ? lineStartCount : Math.max(0, lineStartCount - 1);
+    }
+
+    synchronized boolean isIndexed() {
+        return indexed;
+    }
+
+    Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * @return the line without line break, cut after {@link #MAX_LINE_LENGTH} bytes
+     */
+    synchronized String getLine(int index) throws IOException {
+        if (index < 0 || index >= getLineCount()) {
+            throw new IndexOutOfBoundsException("Line " + index + " of " + getLineCount());
+        }
+
+        long start = lineStarts[index];
+        long end = index + 1 < lineStartCount ? lineStarts[index + 1] : length;
+        int lineLength = (int) Math.min(end - start, MAX_LINE_LENGTH);
+
+        byte[] line = new byte[lineLength];
+        int copied = 0;
+        while (copied < lineLength) {
+            long position = start + copied;
+            byte[] window = getWindow(position / WINDOW_SIZE);
+            int offset = (int) (position % WINDOW_SIZE);
+            int count = Math.min(lineLength - copied, window.length - offset);
+            if (count <= 0) {
+                // the file was truncated meanwhile
+                break;
+            }
+            System.arraycopy(window, offset, line, copied, count);
+            copied += count;
+        }
+
+        int lineEnd = copied;
+        if (lineEnd > 0 && line[lineEnd - 1] == '\n') {
+            lineEnd--;
+        }
+        if (lineEnd > 0 && line[lineEnd - 1] == '\r') {
+            lineEnd--;
+        }
+        return new String(line, 0, lineEnd, charset);
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        synchronized (this) {
+            windows.clear();
+            randomAccessFile.close();
+        }
+    }
+
+    private byte[] getWindow(long windowIndex) throws IOException {
+        byte[] window = windows.get(windowIndex);
+        if (window == null) {
+            long windowStart = windowIndex * WINDOW_SIZE;
+            window = new byte[(int) Math.max(0, Math.min(WINDOW_SIZE, length - windowStart))];
+            randomAccessFile.seek(windowStart);
+            int read = 0;
+            while (read < window.length) {
+                int count = randomAccessFile.read(window, read, window.length - read);
+                if (count < 0) {
+                    window = Arrays.copyOf(window, read);
+                    break;
+                }
+                read += count;
+            }
+            windows.put(windowIndex, window);
+        }
+        return window;
+    }
+
+    private void addLineStart(long lineStart) {
+        if (lineStartCount == lineStarts.length) {
+            lineStarts = Arrays.copyOf(lineStarts, lineStarts.length * 2);
+        }
+        lineStarts[lineStartCount++] = lineStart;
+    }
+
+    private static void skipFully(InputStream input, long count) throws IOException {
+        long remaining = count;
+        while (remaining > 0) {
+            long skipped = input.skip(remaining);
+            if (skipped <= 0) {
+                throw new IOException("Unexpected end of file");
+            }
+            remaining -= skipped;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.owncloud.android.ui.preview;
+
+import android.graphics.Typeface;
+import android.text.SpannableString;
+import android.text.Spanned;
+import android.text.TextUtils;
+import android.text.style.ForegroundColorSpan;
+import android.text.style.StyleSpan;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import com.owncloud.android.R;
+import com.owncloud.android.lib.common.utils.Log_OC;
+
+import java.io.IOException;
+import java.util.Locale;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Shows the lines of a {@link TextFileLines}, reading only the lines that are bound. Lines indexed later are added
+ * by {@link #updateLineCount()}.
+ */
+class TextFileLinesAdapter extends RecyclerView.Adapter<TextFileLinesAdapter.LineViewHolder> {
+    private static final String TAG = TextFileLinesAdapter.class.getSimpleName();
+
+    private final TextFileLines lines;
+    @ColorInt private final int highlightColor;
+    private int lineCount;
+    private String query = "";
+
+    TextFileLinesAdapter(TextFileLines lines, @ColorInt int highlightColor) {
+        this.lines = lines;
+        this.highlightColor = highlightColor;
+        lineCount = lines.getLineCount();
+    }
+
+    /**
+     * Shows the lines indexed meanwhile. Must be called on the main thread.
+     */
+    void updateLineCount() {
+        int newLineCount = lines.getLineCount();
+        if (newLineCount > lineCount) {
+            int oldLineCount = lineCount;
+            lineCount = newLineCount;
+            notifyItemRangeInserted(oldLineCount, newLineCount - oldLineCount);
+        }
+    }
+
+    /**
+     * Highlights occurrences of the query in the shown lines.
+     */
+    void setQuery(String query) {
+        this.query = query == null ? "" : query;
+        notifyDataSetChanged();
+    }
+
+    @NonNull
+    @Override
+    public LineViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.text_file_preview_line, parent, false);
+        return new LineViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull LineViewHolder holder, int position) {
+        String line;
+        try {
+            line = lines.getLine(position);
+        } catch (IOException e) {
+            Log_OC.e(TAG, "Could not read line " + position, e);
+            line = "";
+        }
+
+        if (TextUtils.isEmpty(query)) {
+            holder.text.setText(line);
+        } else {
+            holder.text.setText(highlight(line, query), TextView.BufferType.SPANNABLE);
+        }
+    }
+
+    @Override
+    public int getItemCount() {
+        return lineCount;
+    }
+
+    private SpannableString highlight(String line, String query) {
+        SpannableString spannable = new SpannableString(line);
+        String lowerCaseLine = line.toLowerCase(Locale.getDefault());
+        String lowerCaseQuery = query.toLowerCase(Locale.getDefault());
+
+        int start = lowerCaseLine.indexOf(lowerCaseQuery);
+        while (start >= 0 && start + lowerCaseQuery.length() <= line.length()) {
+            int end = start + lowerCaseQuery.length();
+            spannable.setSpan(new ForegroundColorSpan(highlightColor), start, end, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+            spannable.setSpan(new StyleSpan(Typeface.BOLD), start, end, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+            start = lowerCaseLine.indexOf(lowerCaseQuery, end);
+        }
+        return spannable;
+    }
+
+    static class LineViewHolder extends RecyclerView.ViewHolder {
+        private final TextView text;
+
+        LineViewHolder(View itemView) {
+            super(itemView);
+            text = itemView.findViewById(R.id.text_preview_line);
+        }
+    }
+}
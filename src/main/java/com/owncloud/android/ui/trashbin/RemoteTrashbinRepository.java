@@ -29,6 +29,7 @@ import com.nextcloud.client.account.User;
 import com.nextcloud.client.network.ClientFactory;
 import com.owncloud.android.R;
 import com.owncloud.android.lib.common.OwnCloudClient;
+import com.owncloud.android.lib.common.operations.RemoteOperation;
 import com.owncloud.android.lib.common.operations.RemoteOperationResult;
 import com.owncloud.android.lib.common.utils.Log_OC;
 import com.owncloud.android.lib.resources.trashbin.EmptyTrashbinRemoteOperation;
@@ -37,116 +38,169 @@ import com.owncloud.android.lib.resources.trashbin.RemoveTrashbinFileRemoteOpera
 import com.owncloud.android.lib.resources.trashbin.RestoreTrashbinFileRemoteOperation;
 import com.owncloud.android.lib.resources.trashbin.model.TrashbinFile;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import androidx.annotation.NonNull;
 
 public class RemoteTrashbinRepository implements TrashbinRepository {
 
+    private static final int BATCH_THREADS = 4;
+    private static final long BATCH_THREAD_KEEP_ALIVE_SECONDS = 30;
+
+    /**
+     * Runs the requests of batch operations, a few at a time.
+     */
+    private static final ThreadPoolExecutor BATCH_EXECUTOR = createBatchExecutor();
+
     private final User user;
     private final ClientFactory clientFactory;
+    private final TrashbinCache cache;
 
-    RemoteTrashbinRepository(User user, ClientFactory clientFactory) {
+    RemoteTrashbinRepository(User user, ClientFactory clientFactory, TrashbinCache cache) {
         this.user = user;
         this.clientFactory = clientFactory;
+        this.cache = cache;
     }
 
-    public void removeTrashbinFile(TrashbinFile file, OperationCallback callback) {
-        new RemoveTrashbinFileTask(user, clientFactory, file, callback).execute();
+    private static ThreadPoolExecutor createBatchExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(BATCH_THREADS,
+                                                             BATCH_THREADS,
+                                                             BATCH_THREAD_KEEP_ALIVE_SECONDS,
+                                                             TimeUnit.SECONDS,
+                                                             new LinkedBlockingQueue<>());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
-    private static class RemoveTrashbinFileTask extends AsyncTask<Void, Void, Boolean> {
+    @Override
+    public void removeTrashbinFiles(List<TrashbinFile> files, BatchOperationCallback callback) {
+        new BatchTask(user,
+                      clientFactory,
+                      cache,
+                      files,
+                      file -> new RemoveTrashbinFileRemoteOperation(file.getFullRemotePath()),
+                      callback).executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+    }
+
+    @Override
+    public void restoreFiles(List<TrashbinFile> files, BatchOperationCallback callback) {
+        new BatchTask(user,
+                      clientFactory,
+                      cache,
+                      files,
+                      file -> new RestoreTrashbinFileRemoteOperation(file.getFullRemotePath(), file.getFileName()),
+                      callback).executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+    }
+
+    private interface OperationFactory {
+        RemoteOperation create(TrashbinFile file);
+    }
+
+    /**
+     * Runs an operation for each file on {@link #BATCH_EXECUTOR} and reports once all are done. Waits for the
+     * operations, so it runs on the thread pool rather than blocking the serial executor of other tasks.
+     */
+    private static class BatchTask extends AsyncTask<Void, Void, Void> {
 
         private User user;
         private ClientFactory clientFactory;
-        private TrashbinFile file;
-        private OperationCallback callback;
-
-        private RemoveTrashbinFileTask(User user,
-                                       ClientFactory clientFactory,
-                                       TrashbinFile file,
-                                       OperationCallback callback) {
+        private TrashbinCache cache;
+        private List<TrashbinFile> files;
+        private OperationFactory operationFactory;
+        private BatchOperationCallback callback;
+        private List<TrashbinFile> succeeded = new ArrayList<>();
+        private List<TrashbinFile> failed = new ArrayList<>();
+
+        private BatchTask(User user,
+                          ClientFactory clientFactory,
+                          TrashbinCache cache,
+                          List<TrashbinFile> files,
+                          OperationFactory operationFactory,
+                          BatchOperationCallback callback) {
             this.user = user;
             this.clientFactory = clientFactory;
-            this.file = file;
+            this.cache = cache;
+            this.files = new ArrayList<>(files);
+            this.operationFactory = operationFactory;
             this.callback = callback;
         }
 
         @Override
-        protected Boolean doInBackground(Void... voids) {
-            try {
-                OwnCloudClient client = clientFactory.create(user);
-                RemoteOperationResult result = new RemoveTrashbinFileRemoteOperation(file.getFullRemotePath())
-                    .execute(client);
-                return result.isSuccess();
-            } catch (ClientFactory.CreationException e) {
-                Log_OC.e(this, "Cannot create client", e);
-                return false;
+        protected Void doInBackground(Void... voids) {
+            List<Future<Boolean>> results = new ArrayList<>(files.size());
+            for (TrashbinFile file : files) {
+                results.add(BATCH_EXECUTOR.submit(createCall(file)));
             }
-        }
 
-        @Override
-        protected void onPostExecute(Boolean success) {
-            super.onPostExecute(success);
+            for (int i = 0; i < files.size(); i++) {
+                if (isSuccess(results.get(i))) {
+                    succeeded.add(files.get(i));
+                } else {
+                    failed.add(files.get(i));
+                }
+            }
 
-            callback.onResult(success);
+            cache.remove(succeeded);
+            return null;
         }
-    }
-
-    public void emptyTrashbin(OperationCallback callback) {
-        new EmptyTrashbinTask(user, clientFactory, callback).execute();
-    }
 
-    private static class EmptyTrashbinTask extends AsyncTask<Void, Void, Boolean> {
-
-        private User user;
-        private ClientFactory clientFactory;
-        private OperationCallback callback;
-
-        private EmptyTrashbinTask(User user, ClientFactory clientFactory, OperationCallback callback) {
-            this.user = user;
-            this.clientFactory = clientFactory;
-            this.callback = callback;
+        private Callable<Boolean> createCall(TrashbinFile file) {
+            return () -> {
+                try {
+                    OwnCloudClient client = clientFactory.create(user);
+                    return operationFactory.create(file).execute(client).isSuccess();
+                } catch (ClientFactory.CreationException e) {
+                    Log_OC.e(this, "Cannot create client", e);
+                    return false;
+                }
+            };
         }
 
-        @Override
-        protected Boolean doInBackground(Void... voids) {
+        private boolean isSuccess(Future<Boolean> result) {
             try {
-                OwnCloudClient client = clientFactory.create(user);
-                EmptyTrashbinRemoteOperation emptyTrashbinFileOperation = new EmptyTrashbinRemoteOperation();
-                RemoteOperationResult result = emptyTrashbinFileOperation.execute(client);
-                return result.isSuccess();
-            } catch (ClientFactory.CreationException e) {
-                Log_OC.e(this, "Cannot create client", e);
-                return Boolean.FALSE;
+                return result.get();
+            } catch (ExecutionException e) {
+                Log_OC.e(this, "Trashbin operation failed", e);
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
             }
         }
 
         @Override
-        protected void onPostExecute(Boolean success) {
-            super.onPostExecute(success);
+        protected void onPostExecute(Void result) {
+            super.onPostExecute(result);
 
-            callback.onResult(success);
+            callback.onResult(succeeded, failed);
         }
     }
 
-    @Override
-    public void restoreFile(TrashbinFile file, OperationCallback callback) {
-        new RestoreTrashbinFileTask(file, user, clientFactory, callback).execute();
+    public void emptyTrashbin(OperationCallback callback) {
+        new EmptyTrashbinTask(user, clientFactory, cache, callback).execute();
     }
 
-    private static class RestoreTrashbinFileTask extends AsyncTask<Void, Void, Boolean> {
+    private static class EmptyTrashbinTask extends AsyncTask<Void, Void, Boolean> {
 
-        private TrashbinFile file;
         private User user;
         private ClientFactory clientFactory;
-        private TrashbinRepository.OperationCallback callback;
+        private TrashbinCache cache;
+        private OperationCallback callback;
 
-        private RestoreTrashbinFileTask(TrashbinFile file, User user, ClientFactory clientFactory,
-                                        TrashbinRepository.OperationCallback callback) {
-            this.file = file;
+        private EmptyTrashbinTask(User user,
+                                  ClientFactory clientFactory,
+                                  TrashbinCache cache,
+                                  OperationCallback callback) {
             this.user = user;
             this.clientFactory = clientFactory;
+            this.cache = cache;
             this.callback = callback;
         }
 
@@ -154,13 +208,15 @@ public class RemoteTrashbinRepository implements TrashbinRepository {
         protected Boolean doInBackground(Void... voids) {
             try {
                 OwnCloudClient client = clientFactory.create(user);
-                RemoteOperationResult result = new RestoreTrashbinFileRemoteOperation(file.getFullRemotePath(),
-                                                                                      file.getFileName()).execute(client);
-
+                EmptyTrashbinRemoteOperation emptyTrashbinFileOperation = new EmptyTrashbinRemoteOperation();
+                RemoteOperationResult result = emptyTrashbinFileOperation.execute(client);
+                if (result.isSuccess()) {
+                    cache.clear();
+                }
                 return result.isSuccess();
             } catch (ClientFactory.CreationException e) {
                 Log_OC.e(this, "Cannot create client", e);
-                return false;
+                return Boolean.FALSE;
             }
         }
 
@@ -173,33 +229,58 @@ public class RemoteTrashbinRepository implements TrashbinRepository {
     }
 
     @Override
-    public void getFolder(String remotePath, @NonNull LoadFolderCallback callback) {
-        new ReadRemoteTrashbinFolderTask(remotePath, user, clientFactory, callback).execute();
+    public void getFolder(String remotePath, boolean refresh, @NonNull LoadFolderCallback callback) {
+        new ReadRemoteTrashbinFolderTask(remotePath, refresh, user, clientFactory, cache, callback).execute();
     }
 
     private static class ReadRemoteTrashbinFolderTask extends AsyncTask<Void, Void, Boolean> {
 
         private String remotePath;
+        private boolean refresh;
         private User user;
         private ClientFactory clientFactory;
+        private TrashbinCache cache;
+        private List<Object> cachedFiles;
         private List<Object> trashbinFiles;
         private LoadFolderCallback callback;
 
-        private ReadRemoteTrashbinFolderTask(String remotePath, User user, ClientFactory clientFactory,
+        private ReadRemoteTrashbinFolderTask(String remotePath, boolean refresh, User user,
+                                             ClientFactory clientFactory, TrashbinCache cache,
                                              LoadFolderCallback callback) {
             this.remotePath = remotePath;
+            this.refresh = refresh;
             this.user = user;
             this.clientFactory = clientFactory;
+            this.cache = cache;
             this.callback = callback;
         }
 
         @Override
         protected Boolean doInBackground(Void... voids) {
+            if (!refresh) {
+                List<TrashbinFile> cached = cache.get(remotePath);
+                if (cached != null) {
+                    cachedFiles = new ArrayList<>(cached);
+                    publishProgress();
+
+                    if (cache.isFresh(remotePath)) {
+                        trashbinFiles = cachedFiles;
+                        return Boolean.TRUE;
+                    }
+                }
+            }
+
             try {
                 OwnCloudClient client = clientFactory.create(user);
                 RemoteOperationResult result = new ReadTrashbinFolderRemoteOperation(remotePath).execute(client);
                 if (result.isSuccess()) {
                     trashbinFiles = result.getData();
+
+                    List<TrashbinFile> files = new ArrayList<>(trashbinFiles.size());
+                    for (Object file : trashbinFiles) {
+                        files.add((TrashbinFile) file);
+                    }
+                    cache.put(remotePath, files);
                     return Boolean.TRUE;
                 } else {
                     return Boolean.FALSE;
@@ -209,15 +290,44 @@ public class RemoteTrashbinRepository implements TrashbinRepository {
             }
         }
 
+        @Override
+        protected void onProgressUpdate(Void... values) {
+            super.onProgressUpdate(values);
+
+            callback.onSuccess(cachedFiles);
+        }
+
         @Override
         protected void onPostExecute(Boolean success) {
             super.onPostExecute(success);
 
             if (success) {
-                callback.onSuccess(trashbinFiles);
+                if (!isSameListing(cachedFiles, trashbinFiles)) {
+                    callback.onSuccess(trashbinFiles);
+                }
             } else {
                 callback.onError(R.string.trashbin_loading_failed);
             }
         }
+
+        /**
+         * The trashbin does not provide etags, so listings are compared by the deleted files.
+         */
+        private static boolean isSameListing(List<Object> cached, List<Object> current) {
+            if (cached == null || cached.size() != current.size()) {
+                return false;
+            }
+
+            for (int i = 0; i < cached.size(); i++) {
+                TrashbinFile cachedFile = (TrashbinFile) cached.get(i);
+                TrashbinFile currentFile = (TrashbinFile) current.get(i);
+                if (!cachedFile.getFullRemotePath().equals(currentFile.getFullRemotePath()) ||
+                    cachedFile.getDeletionTimestamp() != currentFile.getDeletionTimestamp() ||
+                    cachedFile.getFileLength() != currentFile.getFileLength()) {
+                    return false;
+                }
+            }
+            return true;
+        }
     }
 }
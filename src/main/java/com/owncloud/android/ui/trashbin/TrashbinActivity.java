@@ -24,7 +24,9 @@
 package com.owncloud.android.ui.trashbin;
 
 import android.content.Intent;
+import android.net.Uri;
 import android.os.Bundle;
+import android.view.ActionMode;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
@@ -35,6 +37,7 @@ import android.widget.TextView;
 import com.google.android.material.snackbar.Snackbar;
 import com.nextcloud.client.account.CurrentAccountProvider;
 import com.nextcloud.client.account.User;
+import com.nextcloud.client.core.Clock;
 import com.nextcloud.client.di.Injectable;
 import com.nextcloud.client.network.ClientFactory;
 import com.nextcloud.client.preferences.AppPreferences;
@@ -49,6 +52,7 @@ import com.owncloud.android.ui.interfaces.TrashbinActivityInterface;
 import com.owncloud.android.utils.FileSortOrder;
 import com.owncloud.android.utils.ThemeUtils;
 
+import java.io.File;
 import java.util.List;
 
 import javax.inject.Inject;
@@ -96,9 +100,11 @@ public class TrashbinActivity extends FileActivity implements
     @Inject AppPreferences preferences;
     @Inject CurrentAccountProvider accountProvider;
     @Inject ClientFactory clientFactory;
+    @Inject Clock clock;
     private Unbinder unbinder;
     private TrashbinListAdapter trashbinListAdapter;
     private TrashbinPresenter trashbinPresenter;
+    private ActionMode actionMode;
 
     private boolean active;
 
@@ -106,7 +112,12 @@ public class TrashbinActivity extends FileActivity implements
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         final User user = accountProvider.getUser();
-        final RemoteTrashbinRepository trashRepository = new RemoteTrashbinRepository(user, clientFactory);
+        final File cacheFile = new File(new File(getCacheDir(), "trashbin"),
+                                        Uri.encode(user.getAccountName(), "@") + ".json");
+        final RemoteTrashbinRepository trashRepository = new RemoteTrashbinRepository(user,
+                                                                                      clientFactory,
+                                                                                      new TrashbinCache(cacheFile,
+                                                                                                        clock));
         trashbinPresenter = new TrashbinPresenter(trashRepository, this);
         setContentView(R.layout.trashbin_activity);
         unbinder = ButterKnife.bind(this);
@@ -144,7 +155,7 @@ public class TrashbinActivity extends FileActivity implements
         recyclerView.setHasFooter(true);
         recyclerView.setLayoutManager(new LinearLayoutManager(this));
 
-        swipeListRefreshLayout.setOnRefreshListener(this::loadFolder);
+        swipeListRefreshLayout.setOnRefreshListener(trashbinPresenter::refreshFolder);
 
         loadFolder();
     }
@@ -154,6 +165,55 @@ public class TrashbinActivity extends FileActivity implements
         trashbinPresenter.loadFolder();
     }
 
+    private final ActionMode.Callback selectionCallback = new ActionMode.Callback() {
+        @Override
+        public boolean onCreateActionMode(ActionMode mode, Menu menu) {
+            actionMode = mode;
+            mode.getMenuInflater().inflate(R.menu.item_trashbin_selection, menu);
+            trashbinListAdapter.setMultiSelect(true);
+            return true;
+        }
+
+        @Override
+        public boolean onPrepareActionMode(ActionMode mode, Menu menu) {
+            int checkedCount = trashbinListAdapter.getCheckedFiles().size();
+            mode.setTitle(getResources().getQuantityString(R.plurals.items_selected_count, checkedCount, checkedCount));
+            return true;
+        }
+
+        @Override
+        public boolean onActionItemClicked(ActionMode mode, MenuItem item) {
+            List<TrashbinFile> checkedFiles = trashbinListAdapter.getCheckedFiles();
+            switch (item.getItemId()) {
+                case R.id.action_restore:
+                    trashbinPresenter.restoreTrashbinFiles(checkedFiles);
+                    break;
+                case R.id.action_delete:
+                    trashbinPresenter.removeTrashbinFiles(checkedFiles);
+                    break;
+                default:
+                    return false;
+            }
+            mode.finish();
+            return true;
+        }
+
+        @Override
+        public void onDestroyActionMode(ActionMode mode) {
+            actionMode = null;
+            trashbinListAdapter.setMultiSelect(false);
+        }
+    };
+
+    private void toggleSelection(TrashbinFile file) {
+        trashbinListAdapter.toggleChecked(file);
+        if (trashbinListAdapter.getCheckedFiles().isEmpty()) {
+            actionMode.finish();
+        } else {
+            actionMode.invalidate();
+        }
+    }
+
     @Override
     public void showFiles(boolean onDeviceOnly) {
         super.showFiles(onDeviceOnly);
@@ -219,7 +279,9 @@ public class TrashbinActivity extends FileActivity implements
 
     @Override
     public void onItemClicked(TrashbinFile file) {
-        if (file.isFolder()) {
+        if (actionMode != null) {
+            toggleSelection(file);
+        } else if (file.isFolder()) {
             trashbinPresenter.enterFolder(file.getRemotePath());
 
             mDrawerToggle.setDrawerIndicatorEnabled(false);
@@ -231,6 +293,15 @@ public class TrashbinActivity extends FileActivity implements
         }
     }
 
+    @Override
+    public boolean onLongItemClicked(TrashbinFile file) {
+        if (actionMode == null) {
+            startActionMode(selectionCallback);
+        }
+        toggleSelection(file);
+        return true;
+    }
+
     @Override
     public void onRestoreIconClicked(TrashbinFile file, View view) {
         trashbinPresenter.restoreTrashbinFile(file);
@@ -248,6 +319,9 @@ public class TrashbinActivity extends FileActivity implements
         super.onPause();
         active = false;
 
+        if (actionMode != null) {
+            actionMode.finish();
+        }
         trashbinListAdapter.cancelAllPendingTasks();
     }
 
@@ -279,9 +353,9 @@ public class TrashbinActivity extends FileActivity implements
     }
 
     @Override
-    public void removeFile(TrashbinFile file) {
+    public void removeFiles(List<TrashbinFile> files) {
         if (active) {
-            trashbinListAdapter.removeFile(file);
+            trashbinListAdapter.removeFiles(files);
         }
     }
 
@@ -299,6 +373,14 @@ public class TrashbinActivity extends FileActivity implements
         }
     }
 
+    @Override
+    public void showSnackbarError(int message, int count) {
+        if (active) {
+            swipeListRefreshLayout.setRefreshing(false);
+            Snackbar.make(recyclerView, String.format(getString(message), count), Snackbar.LENGTH_LONG).show();
+        }
+    }
+
     @Override
     public void showError(int message) {
         if (active) {
@@ -0,0 +1,204 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.owncloud.android.ui.trashbin;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.nextcloud.client.core.Clock;
+import com.owncloud.android.lib.common.utils.Log_OC;
+import com.owncloud.android.lib.resources.trashbin.model.TrashbinFile;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Trashbin folder listings of a user, stored in a file so that known folders are shown at once, also after the
+ * trashbin was left. Listings are revalidated against the server, unless they are younger than
+ * {@link #MAX_AGE_MILLIS}.
+ *
+ * Reads and writes the file, so it must not be used on the main thread.
+ */
+class TrashbinCache {
+    private static final String TAG = TrashbinCache.class.getSimpleName();
+
+    static final long MAX_AGE_MILLIS = 30 * 1000;
+    private static final int MAX_FOLDERS = 20;
+    private static final Charset ENCODING = Charset.forName("UTF-8");
+
+    private static final Type LISTINGS_TYPE = new TypeToken<LinkedHashMap<String, Listing>>() {}.getType();
+
+    private static class Listing {
+        private long time;
+        private List<TrashbinFile> files;
+
+        Listing(long time, List<TrashbinFile> files) {
+            this.time = time;
+            this.files = files;
+        }
+    }
+
+    private final File file;
+    private final Clock clock;
+    private final Gson gson = new Gson();
+
+    // folder path -> listing, least recently used first; loaded on first use
+    private Map<String, Listing> listings;
+
+    TrashbinCache(File file, Clock clock) {
+        this.file = file;
+        this.clock = clock;
+    }
+
+    /**
+     * @return last known content of the folder, null if unknown
+     */
+    @Nullable
+    synchronized List<TrashbinFile> get(String remotePath) {
+        Listing listing = getListings().get(remotePath);
+        return listing == null ? null : new ArrayList<>(listing.files);
+    }
+
+    synchronized boolean isFresh(String remotePath) {
+        Listing listing = getListings().get(remotePath);
+        return listing != null && clock.getCurrentTime() - listing.time < MAX_AGE_MILLIS;
+    }
+
+    synchronized void put(String remotePath, List<TrashbinFile> files) {
+        Map<String, Listing> listings = getListings();
+        listings.put(remotePath, new Listing(clock.getCurrentTime(), new ArrayList<>(files)));
+
+        Iterator<String> eldest = listings.keySet().iterator();
+        while (listings.size() > MAX_FOLDERS) {
+            eldest.next();
+            eldest.remove();
+        }
+        write();
+    }
+
+    /**
+     * Removes restored or deleted files from the listings, together with the listings of removed folders.
+     */
+    synchronized void remove(Collection<TrashbinFile> removedFiles) {
+        if (removedFiles.isEmpty()) {
+            return;
+        }
+
+        Set<String> removedPaths = new HashSet<>();
+        List<String> removedFolders = new ArrayList<>();
+        for (TrashbinFile removedFile : removedFiles) {
+            removedPaths.add(removedFile.getFullRemotePath());
+            if (removedFile.isFolder()) {
+                String path = removedFile.getRemotePath();
+                removedFolders.add(path.endsWith("/") ? path : path + "/");
+            }
+        }
+
+        Iterator<Map.Entry<String, Listing>> iterator = getListings().entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Listing> entry = iterator.next();
+            if (isInFolder(entry.getKey(), removedFolders)) {
+                iterator.remove();
+                continue;
+            }
+
+            Iterator<TrashbinFile> files = entry.getValue().files.iterator();
+            while (files.hasNext()) {
+                if (removedPaths.contains(files.next().getFullRemotePath())) {
+                    files.remove();
+                }
+            }
+        }
+        write();
+    }
+
+    synchronized void clear() {
+        getListings().clear();
+        if (file.exists() && !file.delete()) {
+            Log_OC.w(TAG, "Could not delete " + file.getAbsolutePath());
+        }
+    }
+
+    private static boolean isInFolder(String path, List<String> folders) {
+        String pathWithSeparator = path.endsWith("/") ? path : path + "/";
+        for (String folder : folders) {
+            if (pathWithSeparator.startsWith(folder)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Map<String, Listing> getListings() {
+        if (listings == null) {
+            listings = new LinkedHashMap<>(MAX_FOLDERS, 0.75f, true);
+            Map<String, Listing> stored = read();
+            if (stored != null) {
+                listings.putAll(stored);
+            }
+        }
+        return listings;
+    }
+
+    @Nullable
+    private Map<String, Listing> read() {
+        if (!file.exists()) {
+            return null;
+        }
+
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), ENCODING)) {
+            return gson.fromJson(reader, LISTINGS_TYPE);
+        } catch (IOException | JsonParseException e) {
+            Log_OC.e(TAG, "Could not read cached trashbin", e);
+            return null;
+        }
+    }
+
+    private void write() {
+        File parent = file.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            Log_OC.w(TAG, "Could not create " + parent.getAbsolutePath());
+            return;
+        }
+
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), ENCODING)) {
+            gson.toJson(listings, LISTINGS_TYPE, writer);
+        } catch (IOException | JsonParseException e) {
+            Log_OC.e(TAG, "Could not write cached trashbin", e);
+        }
+    }
+}
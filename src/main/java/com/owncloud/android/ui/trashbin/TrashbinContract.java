@@ -34,9 +34,11 @@ public interface TrashbinContract {
 
         void showSnackbarError(int message, TrashbinFile file);
 
+        void showSnackbarError(int message, int count);
+
         void showError(int message);
 
-        void removeFile(TrashbinFile file);
+        void removeFiles(List<TrashbinFile> files);
 
         void removeAllFiles();
 
@@ -51,14 +53,20 @@ public interface TrashbinContract {
 
         void loadFolder();
 
+        void refreshFolder();
+
         void navigateUp();
 
         void enterFolder(String folder);
 
         void restoreTrashbinFile(TrashbinFile file);
 
+        void restoreTrashbinFiles(List<TrashbinFile> files);
+
         void removeTrashbinFile(TrashbinFile file);
 
+        void removeTrashbinFiles(List<TrashbinFile> files);
+
         void emptyTrashbin();
     }
 }
@@ -24,6 +24,7 @@ import com.owncloud.android.R;
 import com.owncloud.android.lib.resources.trashbin.model.TrashbinFile;
 
 import java.io.File;
+import java.util.Collections;
 import java.util.List;
 
 import static com.owncloud.android.datamodel.OCFile.ROOT_PATH;
@@ -68,7 +69,16 @@ public class TrashbinPresenter implements TrashbinContract.Presenter {
 
     @Override
     public void loadFolder() {
-        trashbinRepository.getFolder(currentPath, new TrashbinRepository.LoadFolderCallback() {
+        loadFolder(false);
+    }
+
+    @Override
+    public void refreshFolder() {
+        loadFolder(true);
+    }
+
+    private void loadFolder(boolean refresh) {
+        trashbinRepository.getFolder(currentPath, refresh, new TrashbinRepository.LoadFolderCallback() {
             @Override
             public void onSuccess(List<Object> files) {
                 trashbinView.showTrashbinFolder(files);
@@ -83,24 +93,45 @@ public class TrashbinPresenter implements TrashbinContract.Presenter {
 
     @Override
     public void restoreTrashbinFile(TrashbinFile file) {
-        trashbinRepository.restoreFile(file, success -> {
-            if (success) {
-                trashbinView.removeFile(file);
-            } else {
-                trashbinView.showSnackbarError(R.string.trashbin_file_not_restored, file);
-            }
-        });
+        restoreTrashbinFiles(Collections.singletonList(file));
+    }
+
+    @Override
+    public void restoreTrashbinFiles(List<TrashbinFile> files) {
+        trashbinRepository.restoreFiles(files, (succeeded, failed) ->
+            onBatchResult(succeeded,
+                          failed,
+                          R.string.trashbin_file_not_restored,
+                          R.string.trashbin_files_not_restored));
     }
 
     @Override
     public void removeTrashbinFile(TrashbinFile file) {
-        trashbinRepository.removeTrashbinFile(file, success -> {
-            if (success) {
-                trashbinView.removeFile(file);
-            } else {
-                trashbinView.showSnackbarError(R.string.trashbin_file_not_deleted, file);
-            }
-        });
+        removeTrashbinFiles(Collections.singletonList(file));
+    }
+
+    @Override
+    public void removeTrashbinFiles(List<TrashbinFile> files) {
+        trashbinRepository.removeTrashbinFiles(files, (succeeded, failed) ->
+            onBatchResult(succeeded,
+                          failed,
+                          R.string.trashbin_file_not_deleted,
+                          R.string.trashbin_files_not_deleted));
+    }
+
+    private void onBatchResult(List<TrashbinFile> succeeded,
+                               List<TrashbinFile> failed,
+                               int fileError,
+                               int filesError) {
+        if (!succeeded.isEmpty()) {
+            trashbinView.removeFiles(succeeded);
+        }
+
+        if (failed.size() == 1) {
+            trashbinView.showSnackbarError(fileError, failed.get(0));
+        } else if (failed.size() > 1) {
+            trashbinView.showSnackbarError(filesError, failed.size());
+        }
     }
 
     @Override
@@ -29,6 +29,10 @@ import java.util.List;
  */
 public interface TrashbinRepository {
     interface LoadFolderCallback {
+        /**
+         * Called with the cached content of the folder first, if known, and again with the content on the server if
+         * it differs.
+         */
         void onSuccess(List<Object> files);
 
         void onError(int error);
@@ -38,11 +42,19 @@ public interface TrashbinRepository {
         void onResult(boolean success);
     }
 
-    void getFolder(String remotePath, LoadFolderCallback callback);
+    interface BatchOperationCallback {
+        void onResult(List<TrashbinFile> succeeded, List<TrashbinFile> failed);
+    }
+
+    /**
+     * Loads the folder from the cache and the server. The server is not asked if the cached content is fresh, unless
+     * a refresh is requested.
+     */
+    void getFolder(String remotePath, boolean refresh, LoadFolderCallback callback);
 
-    void restoreFile(TrashbinFile file, OperationCallback callback);
+    void restoreFiles(List<TrashbinFile> files, BatchOperationCallback callback);
 
     void emptyTrashbin(OperationCallback callback);
 
-    void removeTrashbinFile(TrashbinFile file, OperationCallback callback);
+    void removeTrashbinFiles(List<TrashbinFile> files, BatchOperationCallback callback);
 }
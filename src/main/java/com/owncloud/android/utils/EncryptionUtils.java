@@ -25,6 +25,7 @@ import android.accounts.Account;
 import android.content.Context;
 import android.os.Build;
 import android.util.Base64;
+import android.util.LruCache;
 
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
@@ -106,6 +107,14 @@ public final class EncryptionUtils {
     private static final String AES = "AES";
     private static final String RSA_CIPHER = "RSA/ECB/OAEPWithSHA-256AndMGF1Padding";
     private static final String RSA = "RSA";
+    private static final int METADATA_KEY_CACHE_SIZE = 100;
+    private static final int METADATA_CACHE_SIZE = 20;
+
+    // RSA decryption of metadata keys is expensive and most files of a folder share the same key
+    private static final LruCache<String, byte[]> metadataKeys = new LruCache<>(METADATA_KEY_CACHE_SIZE);
+    private static final LruCache<String, CachedMetadata> folderMetadata = new LruCache<>(METADATA_CACHE_SIZE);
+    private static final Map<String, String> privateKeys = new HashMap<>();
+    private static final Map<String, PrivateKey> parsedPrivateKeys = new HashMap<>();
 
     private EncryptionUtils() {
         // utility class -> private constructor
@@ -155,9 +164,9 @@ public final class EncryptionUtils {
             encryptedFile.setMetadataKey(decryptedFile.getMetadataKey());
             encryptedFile.setAuthenticationTag(decryptedFile.getAuthenticationTag());
 
-            byte[] decryptedMetadataKey = EncryptionUtils.decodeStringToBase64Bytes(EncryptionUtils.decryptStringAsymmetric(
+            byte[] decryptedMetadataKey = decryptMetadataKey(
                     decryptedFolderMetadata.getMetadata().getMetadataKeys().get(encryptedFile.getMetadataKey()),
-                    privateKey));
+                    privateKey);
 
             // encrypt
             String dataJson = EncryptionUtils.serializeJSON(decryptedFile.getEncrypted());
@@ -193,9 +202,8 @@ public final class EncryptionUtils {
             decryptedFile.setMetadataKey(encryptedFile.getMetadataKey());
             decryptedFile.setAuthenticationTag(encryptedFile.getAuthenticationTag());
 
-            byte[] decryptedMetadataKey = EncryptionUtils.decodeStringToBase64Bytes(
-                    EncryptionUtils.decryptStringAsymmetric(decryptedFolderMetadata.getMetadata()
-                            .getMetadataKeys().get(encryptedFile.getMetadataKey()), privateKey));
+            byte[] decryptedMetadataKey = decryptMetadataKey(decryptedFolderMetadata.getMetadata()
+                    .getMetadataKeys().get(encryptedFile.getMetadataKey()), privateKey);
 
             // decrypt
             String dataJson = EncryptionUtils.decryptStringSymmetric(encryptedFile.getEncrypted(), decryptedMetadataKey);
@@ -209,6 +217,23 @@ public final class EncryptionUtils {
         return decryptedFolderMetadata;
     }
 
+    /**
+     * Decrypts a metadata key with the private key, reusing already decrypted keys
+     */
+    @RequiresApi(api = Build.VERSION_CODES.KITKAT)
+    private static byte[] decryptMetadataKey(String encryptedMetadataKey, String privateKey)
+            throws NoSuchAlgorithmException, InvalidKeyException, NoSuchPaddingException, BadPaddingException,
+            IllegalBlockSizeException, InvalidKeySpecException {
+        byte[] metadataKey = metadataKeys.get(encryptedMetadataKey);
+
+        if (metadataKey == null) {
+            metadataKey = decodeStringToBase64Bytes(decryptStringAsymmetric(encryptedMetadataKey, privateKey));
+            metadataKeys.put(encryptedMetadataKey, metadataKey);
+        }
+
+        return metadataKey;
+    }
+
     /**
      * Download metadata for folder and decrypt it
      *
@@ -218,6 +243,30 @@ public final class EncryptionUtils {
     public static @Nullable
     DecryptedFolderMetadata downloadFolderMetadata(OCFile folder, OwnCloudClient client,
                                                    Context context, Account account) {
+        return downloadFolderMetadata(folder, null, client, context, account);
+    }
+
+    /**
+     * Download metadata for folder and decrypt it. If an etag just received from the server is given, metadata
+     * already decrypted for the same folder and etag is returned without any request. It is shared, so it must not
+     * be modified.
+     *
+     * @param etag current etag of the folder on the server, or null to always download
+     * @return decrypted metadata or null
+     */
+    @RequiresApi(api = Build.VERSION_CODES.KITKAT)
+    public static @Nullable
+    DecryptedFolderMetadata downloadFolderMetadata(OCFile folder, @Nullable String etag, OwnCloudClient client,
+                                                   Context context, Account account) {
+        String cacheKey = account.name + ":" + folder.getLocalId();
+
+        if (etag != null) {
+            CachedMetadata cachedMetadata = folderMetadata.get(cacheKey);
+            if (cachedMetadata != null && etag.equals(cachedMetadata.etag)) {
+                return cachedMetadata.metadata;
+            }
+        }
+
         RemoteOperationResult getMetadataOperationResult = new GetMetadataRemoteOperation(folder.getLocalId())
             .execute(client);
 
@@ -228,20 +277,67 @@ public final class EncryptionUtils {
         // decrypt metadata
         ArbitraryDataProvider arbitraryDataProvider = new ArbitraryDataProvider(context.getContentResolver());
         String serializedEncryptedMetadata = (String) getMetadataOperationResult.getData().get(0);
-        String privateKey = arbitraryDataProvider.getValue(account.name, EncryptionUtils.PRIVATE_KEY);
+        String privateKey = getPrivateKey(arbitraryDataProvider, account.name);
 
         EncryptedFolderMetadata encryptedFolderMetadata = EncryptionUtils.deserializeJSON(
                 serializedEncryptedMetadata, new TypeToken<EncryptedFolderMetadata>() {
                 });
 
         try {
-            return EncryptionUtils.decryptFolderMetaData(encryptedFolderMetadata, privateKey);
+            DecryptedFolderMetadata metadata = EncryptionUtils.decryptFolderMetaData(encryptedFolderMetadata,
+                                                                                     privateKey);
+            if (etag != null) {
+                folderMetadata.put(cacheKey, new CachedMetadata(etag, metadata));
+            }
+            return metadata;
         } catch (Exception e) {
             Log_OC.e(TAG, e.getMessage());
             return null;
         }
     }
 
+    /**
+     * Returns the stored private key of the account, read from the database only once
+     */
+    public static String getPrivateKey(ArbitraryDataProvider arbitraryDataProvider, String accountName) {
+        synchronized (privateKeys) {
+            String privateKey = privateKeys.get(accountName);
+
+            if (privateKey == null) {
+                privateKey = arbitraryDataProvider.getValue(accountName, PRIVATE_KEY);
+                if (privateKey != null && !privateKey.isEmpty()) {
+                    privateKeys.put(accountName, privateKey);
+                }
+            }
+
+            return privateKey;
+        }
+    }
+
+    /**
+     * Drops all cached keys and metadata, to be called whenever the stored keys of an account change
+     */
+    public static void clearCachedKeys(String accountName) {
+        synchronized (privateKeys) {
+            privateKeys.remove(accountName);
+        }
+        synchronized (parsedPrivateKeys) {
+            parsedPrivateKeys.clear();
+        }
+        metadataKeys.evictAll();
+        folderMetadata.evictAll();
+    }
+
+    private static class CachedMetadata {
+        private final String etag;
+        private final DecryptedFolderMetadata metadata;
+
+        CachedMetadata(String etag, DecryptedFolderMetadata metadata) {
+            this.etag = etag;
+            this.metadata = metadata;
+        }
+    }
+
     /*
     BASE 64
      */
@@ -417,10 +513,18 @@ public final class EncryptionUtils {
 
         Cipher cipher = Cipher.getInstance(RSA_CIPHER);
 
-        byte[] privateKeyBytes = decodeStringToBase64Bytes(privateKeyString);
-        PKCS8EncodedKeySpec keySpec = new PKCS8EncodedKeySpec(privateKeyBytes);
-        KeyFactory kf = KeyFactory.getInstance(RSA);
-        PrivateKey privateKey = kf.generatePrivate(keySpec);
+        PrivateKey privateKey;
+        synchronized (parsedPrivateKeys) {
+            privateKey = parsedPrivateKeys.get(privateKeyString);
+
+            if (privateKey == null) {
+                byte[] privateKeyBytes = decodeStringToBase64Bytes(privateKeyString);
+                PKCS8EncodedKeySpec keySpec = new PKCS8EncodedKeySpec(privateKeyBytes);
+                KeyFactory kf = KeyFactory.getInstance(RSA);
+                privateKey = kf.generatePrivate(keySpec);
+                parsedPrivateKeys.put(privateKeyString, privateKey);
+            }
+        }
 
         cipher.init(Cipher.DECRYPT_MODE, privateKey);
 
@@ -29,12 +29,15 @@ import com.owncloud.android.lib.common.operations.RemoteOperation;
 import com.owncloud.android.lib.common.operations.RemoteOperationResult;
 import com.owncloud.android.lib.common.operations.RemoteOperationResult.ResultCode;
 import com.owncloud.android.operations.CopyFileOperation;
+import com.owncloud.android.operations.CopyFilesOperation;
 import com.owncloud.android.operations.CreateFolderOperation;
 import com.owncloud.android.operations.CreateShareViaLinkOperation;
 import com.owncloud.android.operations.CreateShareWithShareeOperation;
 import com.owncloud.android.operations.DownloadFileOperation;
 import com.owncloud.android.operations.MoveFileOperation;
+import com.owncloud.android.operations.MoveFilesOperation;
 import com.owncloud.android.operations.RemoveFileOperation;
+import com.owncloud.android.operations.RemoveFilesOperation;
 import com.owncloud.android.operations.RenameFileOperation;
 import com.owncloud.android.operations.SynchronizeFileOperation;
 import com.owncloud.android.operations.SynchronizeFolderOperation;
@@ -123,7 +126,7 @@ public final class ErrorMessageAdapter {
         } else if (operation instanceof DownloadFileOperation) {
             message = getMessageForDownloadFileOperation(result, (DownloadFileOperation) operation, res);
 
-        } else if (operation instanceof RemoveFileOperation) {
+        } else if (operation instanceof RemoveFileOperation || operation instanceof RemoveFilesOperation) {
             message = getMessageForRemoveFileOperation(result, res);
 
         } else if (operation instanceof RenameFileOperation) {
@@ -151,7 +154,7 @@ public final class ErrorMessageAdapter {
 
             message = getMessageForUpdateShareOperations(result, res);
 
-        } else if (operation instanceof MoveFileOperation) {
+        } else if (operation instanceof MoveFileOperation || operation instanceof MoveFilesOperation) {
 
             message = getMessageForMoveFileOperation(result, res);
 
@@ -159,7 +162,7 @@ public final class ErrorMessageAdapter {
 
             message = getMessageForSynchronizeFolderOperation(result, (SynchronizeFolderOperation) operation, res);
 
-        } else if (operation instanceof CopyFileOperation) {
+        } else if (operation instanceof CopyFileOperation || operation instanceof CopyFilesOperation) {
             message = getMessageForCopyFileOperation(result, res);
         }
 
@@ -468,7 +471,7 @@ public final class ErrorMessageAdapter {
                     new File(((DownloadFileOperation) operation).getSavePath()).getName()
             );
 
-        } else if (operation instanceof RemoveFileOperation) {
+        } else if (operation instanceof RemoveFileOperation || operation instanceof RemoveFilesOperation) {
             message = res.getString(R.string.remove_fail_msg);
 
         } else if (operation instanceof RenameFileOperation) {
@@ -490,7 +493,7 @@ public final class ErrorMessageAdapter {
                 ) {
             message = res.getString(R.string.update_link_file_error);
 
-        } else if (operation instanceof MoveFileOperation) {
+        } else if (operation instanceof MoveFileOperation || operation instanceof MoveFilesOperation) {
             message = res.getString(R.string.move_file_error);
 
         } else if (operation instanceof SynchronizeFolderOperation) {
@@ -499,7 +502,7 @@ public final class ErrorMessageAdapter {
             ).getName();
             message = String.format(res.getString(R.string.sync_folder_failed_content), folderPathName);
 
-        } else if (operation instanceof CopyFileOperation) {
+        } else if (operation instanceof CopyFileOperation || operation instanceof CopyFilesOperation) {
             message = res.getString(R.string.copy_file_error);
         }
 
@@ -0,0 +1,193 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.owncloud.android.utils;
+
+import com.owncloud.android.lib.common.utils.Log_OC;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Copies and moves local files.
+ *
+ * File to file copies are done by the kernel via {@link FileChannel#transferTo(long, long,
+ * java.nio.channels.WritableByteChannel)}, other streams are copied with a large buffer. Syncing to the storage is
+ * opt-in: a single copy can sync its target when all data is written, a batch of copies should sync its targets once
+ * at the end with {@link #sync(Collection)}.
+ */
+public final class FileCopyUtils {
+    private static final String TAG = FileCopyUtils.class.getSimpleName();
+
+    // bounds the time until a cancellation is noticed
+    private static final long TRANSFER_CHUNK_SIZE = 8 * 1024 * 1024;
+    static final int BUFFER_SIZE = 256 * 1024;
+    private static final String MOVE_PREFIX = ".moving";
+
+    private FileCopyUtils() {
+        // utility class -> private constructor
+    }
+
+    /**
+     * Copies a file, overwriting the target, without syncing it.
+     *
+     * @param cancelled if set, the copy is stopped and the incomplete target is left behind
+     * @return false if the copy was cancelled
+     */
+    public static boolean copy(File source, File target, @Nullable AtomicBoolean cancelled) throws IOException {
+        return copy(source, target, cancelled, false);
+    }
+
+    /**
+     * Copies a file, overwriting the target.
+     *
+     * @param cancelled if set, the copy is stopped and the incomplete target is left behind
+     * @param sync      true to sync the target to the storage when all data is written
+     * @return false if the copy was cancelled
+     */
+    public static boolean copy(File source, File target, @Nullable AtomicBoolean cancelled, boolean sync)
+        throws IOException {
+        try (FileInputStream in = new FileInputStream(source);
+             FileOutputStream out = new FileOutputStream(target)) {
+            return transfer(in.getChannel(), out, cancelled) && (!sync || sync(out));
+        }
+    }
+
+    /**
+     * Copies a stream, e.g. of a content provider, into a file, overwriting the target, without syncing it. The
+     * stream is read to its end, but not closed.
+     *
+     * @param cancelled if set, the copy is stopped and the incomplete target is left behind
+     * @return false if the copy was cancelled
+     */
+    public static boolean copy(InputStream in, File target, @Nullable AtomicBoolean cancelled) throws IOException {
+        return copy(in, target, cancelled, false);
+    }
+
+    /**
+     * Copies a stream, e.g. of a content provider, into a file, overwriting the target. The stream is read to its
+     * end, but not closed.
+     *
+     * @param cancelled if set, the copy is stopped and the incomplete target is left behind
+     * @param sync      true to sync the target to the storage when all data is written
+     * @return false if the copy was cancelled
+     */
+    public static boolean copy(InputStream in, File target, @Nullable AtomicBoolean cancelled, boolean sync)
+        throws IOException {
+        try (FileOutputStream out = new FileOutputStream(target)) {
+            return copyBuffered(in, out, cancelled) && (!sync || sync(out));
+        }
+    }
+
+    /**
+     * Syncs files written without syncing, e.g. at the end of a batch of copies.
+     */
+    public static void sync(Collection<File> files) throws IOException {
+        for (File file : files) {
+            try (FileInputStream in = new FileInputStream(file)) {
+                in.getFD().sync();
+            }
+        }
+    }
+
+    /**
+     * Moves a file, overwriting the target. A rename is tried first, which is instant on the same file system; the
+     * file is copied and the source deleted otherwise. The copy is written to a temporary file next to the target,
+     * synced and renamed to the target, so the target is only replaced by a complete copy.
+     *
+     * @return false if the file could not be moved; the source and the target are kept then
+     */
+    public static boolean move(File source, File target) {
+        if (source.renameTo(target)) {
+            return true;
+        }
+
+        File partialFile = null;
+        try {
+            partialFile = File.createTempFile(MOVE_PREFIX, null, target.getParentFile());
+            if (copy(source, partialFile, null, true) && partialFile.renameTo(target)) {
+                if (!source.delete()) {
+                    Log_OC.w(TAG, "Could not delete moved file " + source.getAbsolutePath());
+                }
+                return true;
+            }
+        } catch (IOException e) {
+            Log_OC.e(TAG, "Error moving " + source.getAbsolutePath() + " to " + target.getAbsolutePath(), e);
+        }
+
+        if (partialFile != null && partialFile.exists() && !partialFile.delete()) {
+            Log_OC.w(TAG, "Could not delete incomplete file " + partialFile.getAbsolutePath());
+        }
+        return false;
+    }
+
+    private static boolean transfer(FileChannel in, FileOutputStream out, @Nullable AtomicBoolean cancelled)
+        throws IOException {
+        FileChannel outChannel = out.getChannel();
+        long position = in.position();
+        long size = in.size();
+
+        while (position < size) {
+            if (isCancelled(cancelled)) {
+                return false;
+            }
+
+            long transferred = in.transferTo(position, Math.min(TRANSFER_CHUNK_SIZE, size - position), outChannel);
+            if (transferred <= 0) {
+                // not supported for this kind of file, or it shrunk meanwhile
+                in.position(position);
+                return copyBuffered(Channels.newInputStream(in), out, cancelled);
+            }
+            position += transferred;
+        }
+
+        in.position(position);
+        return true;
+    }
+
+    static boolean copyBuffered(InputStream in, FileOutputStream out, @Nullable AtomicBoolean cancelled)
+        throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+
+        while (!isCancelled(cancelled) && (read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+
+        return !isCancelled(cancelled);
+    }
+
+    private static boolean sync(FileOutputStream out) throws IOException {
+        out.getFD().sync();
+        return true;
+    }
+
+    private static boolean isCancelled(@Nullable AtomicBoolean cancelled) {
+        return cancelled != null && cancelled.get();
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.owncloud.android.utils;
+
+import java.io.File;
+
+/**
+ * {@link File} whose attributes are read once, when the snapshot is taken. Sorting, filtering and showing big local
+ * folders then does not stat every file again and again.
+ *
+ * The attributes are not updated later; a new snapshot has to be taken to see changes.
+ */
+public final class FileSnapshot extends File {
+    private static final long serialVersionUID = 1L;
+
+    private final boolean directory;
+    private final boolean hidden;
+    private final long length;
+    private final long lastModified;
+
+    public FileSnapshot(File file) {
+        super(file.getPath());
+        directory = file.isDirectory();
+        hidden = file.isHidden();
+        length = file.length();
+        lastModified = file.lastModified();
+    }
+
+    @Override
+    public boolean isDirectory() {
+        return directory;
+    }
+
+    @Override
+    public boolean isFile() {
+        return !directory;
+    }
+
+    @Override
+    public boolean isHidden() {
+        return hidden;
+    }
+
+    @Override
+    public long length() {
+        return length;
+    }
+
+    @Override
+    public long lastModified() {
+        return lastModified;
+    }
+
+    /**
+     * Equal to any {@link File} with the same path, like a plain {@link File}.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        return super.equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+}
@@ -25,7 +25,9 @@ import com.owncloud.android.lib.resources.trashbin.model.TrashbinFile;
 
 import java.io.File;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 
 /**
@@ -99,10 +101,18 @@ public class FileSortOrderBySize extends FileSortOrder {
     public List<File> sortLocalFiles(List<File> files) {
         final int multiplier = isAscending ? 1 : -1;
 
+        // folder sizes are summed up recursively, so only once per folder
+        final Map<File, Long> folderSizes = new HashMap<>();
+        for (File file : files) {
+            if (file.isDirectory()) {
+                folderSizes.put(file, FileStorageUtils.getFolderSize(file));
+            }
+        }
+
         Collections.sort(files, (o1, o2) -> {
             if (o1.isDirectory() && o2.isDirectory()) {
-                Long obj1 = FileStorageUtils.getFolderSize(o1);
-                return multiplier * obj1.compareTo(FileStorageUtils.getFolderSize(o2));
+                Long obj1 = folderSizes.get(o1);
+                return multiplier * obj1.compareTo(folderSizes.get(o2));
             } else if (o1.isDirectory()) {
                 return -1;
             } else if (o2.isDirectory()) {
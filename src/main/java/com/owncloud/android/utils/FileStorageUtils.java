@@ -39,11 +39,7 @@ import com.owncloud.android.lib.common.utils.Log_OC;
 import com.owncloud.android.lib.resources.files.model.RemoteFile;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -334,50 +330,17 @@ public final class FileStorageUtils {
         }
     }
 
-    @SuppressFBWarnings(value="OBL_UNSATISFIED_OBLIGATION_EXCEPTION_EDGE",
-            justification="False-positive on the output stream")
     public static boolean copyFile(File src, File target) {
-        boolean ret = true;
-
-        InputStream in = null;
-        OutputStream out = null;
-
         try {
-            in = new FileInputStream(src);
-            out = new FileOutputStream(target);
-            byte[] buf = new byte[1024];
-            int len;
-            while ((len = in.read(buf)) > 0) {
-                out.write(buf, 0, len);
-            }
-        } catch (IOException ex) {
-            ret = false;
-        } finally {
-            if (in != null) {
-                try {
-                    in.close();
-                } catch (IOException e) {
-                    Log_OC.e(TAG, "Error closing input stream during copy", e);
-                }
-            }
-            if (out != null) {
-                try {
-                    out.close();
-                } catch (IOException e) {
-                    Log_OC.e(TAG, "Error closing output stream during copy", e);
-                }
-            }
+            return FileCopyUtils.copy(src, target, null);
+        } catch (IOException e) {
+            Log_OC.e(TAG, "Error copying " + src.getAbsolutePath(), e);
+            return false;
         }
-
-        return ret;
     }
 
     public static boolean moveFile(File sourceFile, File targetFile) {
-        if (copyFile(sourceFile, targetFile)) {
-            return sourceFile.delete();
-        } else {
-            return false;
-        }
+        return FileCopyUtils.move(sourceFile, targetFile);
     }
 
     public static boolean copyDirs(File sourceFolder, File targetFolder) {
@@ -445,17 +408,7 @@ public final class FileStorageUtils {
      * @return true if file itself or ancestor is encrypted
      */
     public static boolean checkEncryptionStatus(OCFile file, FileDataStorageManager storageManager) {
-        if (file.isEncrypted()) {
-            return true;
-        }
-
-        while (!OCFile.ROOT_PATH.equals(file.getRemotePath())) {
-            if (file.isEncrypted()) {
-                return true;
-            }
-            file = storageManager.getFileById(file.getParentId());
-        }
-        return false;
+        return file.isEncrypted() || storageManager.hasEncryptedAncestor(file);
     }
 
     /**
@@ -0,0 +1,93 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.owncloud.android.utils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshots of the content of recently listed local folders.
+ *
+ * A snapshot is reused as long as the modification time of its folder is unchanged, which is the case until entries
+ * are added, removed or renamed. Changes to the content of contained files are not noticed then.
+ *
+ * Listing takes a stat call per entry, so it should not run on the main thread.
+ */
+public final class LocalFolderCache {
+    private static final int MAX_FOLDERS = 20;
+
+    private static final Map<String, Snapshot> snapshots = new LinkedHashMap<String, Snapshot>(MAX_FOLDERS, 0.75f,
+                                                                                               true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Snapshot> eldest) {
+            return size() > MAX_FOLDERS;
+        }
+    };
+
+    private static class Snapshot {
+        private final long lastModified;
+        private final List<File> entries;
+
+        Snapshot(long lastModified, List<File> entries) {
+            this.lastModified = lastModified;
+            this.entries = entries;
+        }
+    }
+
+    private LocalFolderCache() {
+        // utility class -> private constructor
+    }
+
+    /**
+     * @param folder folder to list
+     * @return unmodifiable list of {@link FileSnapshot}s of all entries of the folder, empty if it cannot be listed
+     */
+    public static List<File> list(File folder) {
+        String path = folder.getAbsolutePath();
+        long lastModified = folder.lastModified();
+
+        synchronized (snapshots) {
+            Snapshot snapshot = snapshots.get(path);
+            if (snapshot != null && snapshot.lastModified == lastModified) {
+                return snapshot.entries;
+            }
+        }
+
+        File[] files = folder.listFiles();
+        if (files == null) {
+            return Collections.emptyList();
+        }
+
+        List<File> entries = new ArrayList<>(files.length);
+        for (File file : files) {
+            entries.add(new FileSnapshot(file));
+        }
+        entries = Collections.unmodifiableList(entries);
+
+        synchronized (snapshots) {
+            snapshots.put(path, new Snapshot(lastModified, entries));
+        }
+        return entries;
+    }
+}
@@ -57,6 +57,8 @@ public final class ReceiversHelper {
         BroadcastReceiver broadcastReceiver = new BroadcastReceiver() {
             @Override
             public void onReceive(Context context, Intent intent) {
+                connectivityService.invalidateInternetWalledStatus();
+
                 if (!Device.getNetworkType(context).equals(JobRequest.NetworkType.ANY)) {
                     FilesSyncHelper.restartJobsIfNeeded(uploadsStorageManager,
                                                         accountManager,
@@ -0,0 +1,91 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.nextcloud.client.jobs
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+
+class ContactVersionTableTest {
+
+    @get:Rule
+    val folder = TemporaryFolder()
+
+    @Test
+    fun stored_versions_are_read() {
+        val table = ContactVersionTable(folder.root.resolve("versions/user@server.versions"))
+        assertNull(table.read())
+
+        val versions = mapOf(1L to 3L, 2L to 1L, Long.MAX_VALUE to 7L)
+        table.write(versions)
+
+        assertEquals(versions, table.read())
+    }
+
+    @Test
+    fun backup_is_needed_until_versions_of_uploaded_backup_are_committed() {
+        val table = ContactVersionTable(folder.root.resolve("user@server.versions"))
+        val versions = mapOf(1L to 3L, 2L to 1L)
+        assertTrue(table.isBackupNeeded(versions))
+
+        table.writePending("/Contacts-Backup/first.vcf", versions)
+        assertTrue(table.isBackupNeeded(versions))
+
+        table.commitPending { it == "/Contacts-Backup/first.vcf" }
+        assertFalse(table.isBackupNeeded(versions))
+        assertTrue(table.isBackupNeeded(mapOf(1L to 4L, 2L to 1L)))
+        assertTrue(table.isBackupNeeded(null))
+    }
+
+    @Test
+    fun versions_of_failed_upload_are_dropped() {
+        val table = ContactVersionTable(folder.root.resolve("user@server.versions"))
+        val oldVersions = mapOf(1L to 3L)
+        val newVersions = mapOf(1L to 4L)
+        table.write(oldVersions)
+
+        table.writePending("/Contacts-Backup/failed.vcf", newVersions)
+        table.commitPending { false }
+
+        assertEquals(oldVersions, table.read())
+        assertTrue(table.isBackupNeeded(newVersions))
+
+        // nothing left to commit on the next run
+        table.commitPending { true }
+        assertEquals(oldVersions, table.read())
+    }
+
+    @Test
+    fun deleted_table_needs_backup() {
+        val table = ContactVersionTable(folder.root.resolve("user@server.versions"))
+        val versions = mapOf(1L to 3L)
+        table.write(versions)
+        table.writePending("/Contacts-Backup/pending.vcf", versions)
+
+        table.delete()
+
+        assertNull(table.read())
+        table.commitPending { true }
+        assertTrue(table.isBackupNeeded(versions))
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.nextcloud.client.jobs
+
+import android.database.Cursor
+import android.provider.ContactsContract
+import com.nhaarman.mockitokotlin2.any
+import com.nhaarman.mockitokotlin2.whenever
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.rules.TemporaryFolder
+import org.mockito.Mockito
+import java.io.BufferedOutputStream
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.FileOutputStream
+import java.io.IOException
+import java.io.InputStream
+
+class ContactsBackupWriterTest {
+
+    private companion object {
+        const val CONTACT_COUNT = 20000
+        // about 1.7 KB per written contact, so that the backup has more than 30 MB
+        const val NOTE_LENGTH = 1500
+        // below this, garbage of the test itself could exceed the bound
+        const val MIN_HEAP_BOUND = 8L * 1024 * 1024
+    }
+
+    @get:Rule
+    val folder = TemporaryFolder()
+
+    /**
+     * Cursor over generated contacts. Invocations are not recorded, so the mock does not grow with the contacts.
+     */
+    private fun contactsCursor(count: Int): Cursor {
+        val cursor = Mockito.mock(Cursor::class.java, Mockito.withSettings().stubOnly())
+        var position = -1
+        whenever(cursor.getColumnIndex(ContactsContract.Contacts.LOOKUP_KEY)).thenReturn(0)
+        whenever(cursor.moveToNext()).thenAnswer { ++position < count }
+        whenever(cursor.getString(any())).thenAnswer { "contact-$position" }
+        return cursor
+    }
+
+    private fun vCard21(lookupKey: String): InputStream {
+        val vCard = "BEGIN:VCARD\r\n" +
+            "VERSION:2.1\r\n" +
+            "N:Doe;$lookupKey;;;\r\n" +
+            "FN:$lookupKey Doe\r\n" +
+            "TEL;CELL:+49 170 1234567\r\n" +
+            "NOTE:" + "n".repeat(NOTE_LENGTH) + "\r\n" +
+            "END:VCARD\r\n"
+        return ByteArrayInputStream(vCard.toByteArray(Charsets.UTF_8))
+    }
+
+    private fun usedHeap(): Long {
+        val runtime = Runtime.getRuntime()
+        repeat(2) { System.gc() }
+        return runtime.totalMemory() - runtime.freeMemory()
+    }
+
+    @Test
+    fun contacts_are_bumped_to_vcard_3() {
+        val output = ByteArrayOutputStream()
+        val writer = ContactsBackupWriter { vCard21(it) }
+
+        val count = writer.write(contactsCursor(2), output)
+
+        val backup = output.toString("UTF-8")
+        assertEquals(2, count)
+        assertEquals(2, "BEGIN:VCARD".toRegex().findAll(backup).count())
+        assertTrue(backup.contains("VERSION:3.0"))
+        assertFalse(backup.contains("VERSION:2.1"))
+        assertTrue(backup.contains("FN:contact-1 Doe"))
+    }
+
+    @Test
+    fun unreadable_contact_is_skipped() {
+        val output = ByteArrayOutputStream()
+        val writer = ContactsBackupWriter {
+            if (it == "contact-0") {
+                throw IOException("contact gone")
+            }
+            vCard21(it)
+        }
+
+        val count = writer.write(contactsCursor(2), output)
+
+        assertEquals(1, count)
+        assertTrue(output.toString("UTF-8").contains("FN:contact-1 Doe"))
+    }
+
+    @Test
+    fun heap_does_not_grow_with_contact_count() {
+        val file = folder.newFile("backup.vcf")
+        val baseline = usedHeap()
+        var peak = 0L
+        val writer = ContactsBackupWriter {
+            if (it == "contact-${CONTACT_COUNT - 1}") {
+                // all other contacts are written by now
+                peak = usedHeap()
+            }
+            vCard21(it)
+        }
+
+        val count = FileOutputStream(file).use { writer.write(contactsCursor(CONTACT_COUNT), BufferedOutputStream(it)) }
+
+        assertEquals(CONTACT_COUNT, count)
+        // contacts kept in memory would take more than the written file
+        val maxHeapGrowth = file.length() / 2
+        assertTrue("backup has ${file.length()} bytes", maxHeapGrowth > MIN_HEAP_BOUND)
+        assertTrue("heap grew by ${peak - baseline} bytes", peak - baseline < maxHeapGrowth)
+    }
+}
@@ -274,6 +274,46 @@ internal class PlayerStateMachineTest {
             verify(delegate).onRequestFocus()
         }
 
+        @Test
+        fun `next item is prefetched when ready to play`() {
+            // GIVEN
+            //      media player is preparing
+            //      autoplay is enabled
+            whenever(delegate.isAutoplayEnabled).thenReturn(true)
+
+            // WHEN
+            //      media player is ready
+            fsm.post(Event.PREPARED)
+
+            // THEN
+            //      focus is requested
+            //      next playlist item is prefetched
+            inOrder(delegate).run {
+                verify(delegate).onRequestFocus()
+                verify(delegate).onPrefetchNext()
+            }
+        }
+
+        @Test
+        fun `next item is prefetched when ready in paused mode`() {
+            // GIVEN
+            //      media player is preparing
+            //      autoplay is disabled
+            whenever(delegate.isAutoplayEnabled).thenReturn(false)
+
+            // WHEN
+            //      media player is ready
+            fsm.post(Event.PREPARED)
+
+            // THEN
+            //      playback is paused
+            //      next playlist item is prefetched
+            inOrder(delegate).run {
+                verify(delegate).onPausePlayback()
+                verify(delegate).onPrefetchNext()
+            }
+        }
+
         @Test
         fun `start in paused mode`() {
             // GIVEN
@@ -466,6 +506,54 @@ internal class PlayerStateMachineTest {
             verify(delegate).onAudioDuck(eq(true))
         }
 
+        @Test
+        fun `completed with prepared next item`() {
+            // GIVEN
+            //      media player is playing
+            //      next media player is prepared
+            whenever(delegate.isNextPrepared).thenReturn(true)
+
+            // WHEN
+            //      playback is completed
+            fsm.post(Event.COMPLETED)
+
+            // THEN
+            //      next item is playing
+            //      item after next is prefetched
+            //      focus is kept
+            //      playback is not started again
+            assertEquals(State.FOCUSED, fsm.state)
+            inOrder(delegate).run {
+                verify(delegate).onStartNext()
+                verify(delegate).onPrefetchNext()
+            }
+            verify(delegate, never()).onReleaseFocus()
+            verify(delegate, never()).onStartPlayback()
+            verify(delegate, never()).onStopped()
+        }
+
+        @Test
+        fun `completed without prepared next item`() {
+            // GIVEN
+            //      media player is playing
+            //      next media player is not prepared
+            whenever(delegate.isNextPrepared).thenReturn(false)
+
+            // WHEN
+            //      playback is completed
+            fsm.post(Event.COMPLETED)
+
+            // THEN
+            //      player is stopped
+            //      focus is released
+            assertEquals(State.STOPPED, fsm.state)
+            inOrder(delegate).run {
+                verify(delegate).onReleaseFocus()
+                verify(delegate).onStopped()
+            }
+            verify(delegate, never()).onStartNext()
+        }
+
         @Test
         fun stop() {
             // GIVEN
@@ -585,6 +673,30 @@ internal class PlayerStateMachineTest {
             verify(delegate, never()).onStartPlayback()
         }
 
+        @Test
+        fun `completed with prepared next item`() {
+            // GIVEN
+            //      media player is playing
+            //      audio focus is ducked
+            //      next media player is prepared
+            whenever(delegate.isNextPrepared).thenReturn(true)
+
+            // WHEN
+            //      playback is completed
+            fsm.post(Event.COMPLETED)
+
+            // THEN
+            //      audio focus duck is disabled
+            //      next item is playing
+            //      focus is kept
+            assertEquals(State.FOCUSED, fsm.state)
+            inOrder(delegate).run {
+                verify(delegate).onAudioDuck(eq(false))
+                verify(delegate).onStartNext()
+            }
+            verify(delegate, never()).onReleaseFocus()
+        }
+
         @Test
         fun stop() {
             // GIVEN
@@ -24,16 +24,19 @@ import android.net.NetworkInfo
 import com.nextcloud.client.account.Server
 import com.nextcloud.client.account.User
 import com.nextcloud.client.account.UserAccountManager
+import com.nextcloud.client.core.Clock
 import com.nextcloud.client.logger.Logger
 import com.nhaarman.mockitokotlin2.any
 import com.nhaarman.mockitokotlin2.mock
 import com.nhaarman.mockitokotlin2.never
+import com.nhaarman.mockitokotlin2.times
 import com.nhaarman.mockitokotlin2.verify
 import com.nhaarman.mockitokotlin2.whenever
 import com.owncloud.android.lib.resources.status.OwnCloudVersion
 import org.apache.commons.httpclient.HttpClient
 import org.apache.commons.httpclient.HttpStatus
 import org.apache.commons.httpclient.methods.GetMethod
+import org.junit.Assert.assertEquals
 import org.junit.Assert.assertFalse
 import org.junit.Assert.assertTrue
 import org.junit.Before
@@ -44,12 +47,16 @@ import org.mockito.ArgumentCaptor
 import org.mockito.Mock
 import org.mockito.MockitoAnnotations
 import java.net.URI
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
 
 @RunWith(Suite::class)
 @Suite.SuiteClasses(
     ConnectivityServiceTest.IsConnected::class,
     ConnectivityServiceTest.WifiConnectionWalledStatusOnLegacyServer::class,
-    ConnectivityServiceTest.WifiConnectionWalledStatus::class
+    ConnectivityServiceTest.WifiConnectionWalledStatus::class,
+    ConnectivityServiceTest.WalledStatusCache::class
 )
 class ConnectivityServiceTest {
 
@@ -87,6 +94,9 @@ class ConnectivityServiceTest {
         @Mock
         lateinit var requestBuilder: ConnectivityServiceImpl.GetRequestBuilder
 
+        @Mock
+        lateinit var clock: Clock
+
         @Mock
         lateinit var logger: Logger
 
@@ -107,6 +117,7 @@ class ConnectivityServiceTest {
                 accountManager,
                 clientFactory,
                 requestBuilder,
+                clock,
                 logger
             )
 
@@ -259,4 +270,78 @@ class ConnectivityServiceTest {
             assertTrue("Invalid URL used to check status", urlCaptor.value.endsWith("/index.php/204"))
         }
     }
+
+    internal class WalledStatusCache : Base() {
+
+        @Before
+        fun setUp() {
+            whenever(networkInfo.isConnectedOrConnecting).thenReturn(true)
+            whenever(networkInfo.type).thenReturn(ConnectivityManager.TYPE_WIFI)
+            whenever(networkInfo.extraInfo).thenReturn("\"home\"")
+            whenever(client.executeMethod(any())).thenReturn(HttpStatus.SC_NO_CONTENT)
+            whenever(getRequest.responseContentLength).thenReturn(0L)
+            whenever(clock.currentTime).thenReturn(NOW)
+        }
+
+        @Test
+        fun `concurrent calls send one request`() {
+            // GIVEN
+            //      probe takes some time
+            whenever(client.executeMethod(any())).thenAnswer {
+                Thread.sleep(PROBE_DURATION_MS)
+                HttpStatus.SC_NO_CONTENT
+            }
+
+            // WHEN
+            //      many callers check the connection at the same time
+            val executor = Executors.newFixedThreadPool(CALLERS)
+            val results = executor.invokeAll(
+                (1..CALLERS).map { Callable { connectivityService.isInternetWalled } }
+            ).map { it.get() }
+            executor.shutdown()
+            executor.awaitTermination(1, TimeUnit.SECONDS)
+
+            // THEN
+            //      all callers get the same result
+            //      one request is sent
+            assertEquals(CALLERS, results.size)
+            assertTrue(results.none { it })
+            verify(client, times(1)).executeMethod(any())
+        }
+
+        @Test
+        fun `result is cached for a short time`() {
+            assertFalse(connectivityService.isInternetWalled)
+            assertFalse(connectivityService.isInternetWalled)
+            verify(client, times(1)).executeMethod(any())
+
+            whenever(clock.currentTime).thenReturn(NOW + ConnectivityServiceImpl.WALLED_STATUS_TTL_MILLIS)
+            assertFalse(connectivityService.isInternetWalled)
+            verify(client, times(2)).executeMethod(any())
+        }
+
+        @Test
+        fun `result is not used on other network`() {
+            assertFalse(connectivityService.isInternetWalled)
+            whenever(networkInfo.extraInfo).thenReturn("\"captive portal\"")
+            whenever(client.executeMethod(any())).thenReturn(HttpStatus.SC_OK)
+
+            assertTrue(connectivityService.isInternetWalled)
+            verify(client, times(2)).executeMethod(any())
+        }
+
+        @Test
+        fun `invalidation forces new request`() {
+            assertFalse(connectivityService.isInternetWalled)
+            connectivityService.invalidateInternetWalledStatus()
+            assertFalse(connectivityService.isInternetWalled)
+            verify(client, times(2)).executeMethod(any())
+        }
+
+        companion object {
+            const val NOW = 1000L
+            const val CALLERS = 16
+            const val PROBE_DURATION_MS = 200L
+        }
+    }
 }
@@ -0,0 +1,78 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.owncloud.android.datamodel;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FolderEncryptionCacheTest {
+    private static final String ACCOUNT = "test@example.com";
+    private static final String OTHER_ACCOUNT = "other@example.com";
+
+    @After
+    public void tearDown() {
+        FolderEncryptionCache.invalidate(ACCOUNT);
+        FolderEncryptionCache.invalidate(OTHER_ACCOUNT);
+    }
+
+    @Test
+    public void storedFolderIsRead() {
+        FolderEncryptionCache.put(ACCOUNT, 2, 1, true);
+
+        FolderEncryptionCache.Node node = FolderEncryptionCache.get(ACCOUNT, 2);
+
+        assertNotNull(node);
+        assertTrue(node.encrypted);
+        assertEquals(1, node.parentId);
+        assertNull(FolderEncryptionCache.get(OTHER_ACCOUNT, 2));
+    }
+
+    @Test
+    public void leastRecentlyUsedFolderIsEvicted() {
+        int max = FolderEncryptionCache.MAX_FOLDERS_PER_ACCOUNT;
+        for (long id = 1; id <= max; id++) {
+            FolderEncryptionCache.put(ACCOUNT, id, 0, false);
+        }
+        FolderEncryptionCache.put(OTHER_ACCOUNT, 1, 0, false);
+
+        // use the oldest folder, so that the second one is evicted
+        assertNotNull(FolderEncryptionCache.get(ACCOUNT, 1));
+        FolderEncryptionCache.put(ACCOUNT, max + 1, 0, false);
+
+        assertNotNull(FolderEncryptionCache.get(ACCOUNT, 1));
+        assertNull(FolderEncryptionCache.get(ACCOUNT, 2));
+        assertNotNull(FolderEncryptionCache.get(ACCOUNT, max + 1));
+        // limit is per account
+        assertNotNull(FolderEncryptionCache.get(OTHER_ACCOUNT, 1));
+    }
+
+    @Test
+    public void removedFolderIsDropped() {
+        FolderEncryptionCache.put(ACCOUNT, 2, 1, false);
+        FolderEncryptionCache.remove(ACCOUNT, 2);
+
+        assertNull(FolderEncryptionCache.get(ACCOUNT, 2));
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.owncloud.android.datamodel;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class InSelectionTest {
+
+    @Test
+    public void noValuesNoSelection() {
+        assertTrue(InSelection.chunked("id", Collections.emptyList(), null).isEmpty());
+    }
+
+    @Test
+    public void valuesFollowAdditionalArgs() {
+        List<InSelection> chunks = InSelection.chunked("path", Arrays.asList("/a", "/b"), "owner=?", "user");
+
+        assertEquals(1, chunks.size());
+        assertEquals("owner=? AND path IN (?,?)", chunks.get(0).selection);
+        assertArrayEquals(new String[]{"user", "/a", "/b"}, chunks.get(0).selectionArgs);
+    }
+
+    @Test
+    public void valuesAreSplitIntoChunks() {
+        List<Long> ids = new ArrayList<>();
+        for (long i = 0; i < InSelection.MAX_VALUES_PER_QUERY * 2 + 1; i++) {
+            ids.add(i);
+        }
+
+        List<InSelection> chunks = InSelection.chunked("id", ids, null);
+
+        assertEquals(3, chunks.size());
+        assertEquals(InSelection.MAX_VALUES_PER_QUERY, chunks.get(0).selectionArgs.length);
+        assertEquals(InSelection.MAX_VALUES_PER_QUERY, chunks.get(1).selectionArgs.length);
+        assertArrayEquals(new String[]{String.valueOf(InSelection.MAX_VALUES_PER_QUERY * 2)},
+                          chunks.get(2).selectionArgs);
+        assertEquals("id IN (?)", chunks.get(2).selection);
+        assertEquals(String.valueOf(InSelection.MAX_VALUES_PER_QUERY), chunks.get(1).selectionArgs[0]);
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.owncloud.android.files;
+
+import com.owncloud.android.datamodel.OCFile;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SelectionSummaryTest {
+
+    private static OCFile file(boolean folder, boolean encrypted, boolean down, boolean favorite) {
+        OCFile file = mock(OCFile.class);
+        when(file.isFolder()).thenReturn(folder);
+        when(file.isEncrypted()).thenReturn(encrypted);
+        when(file.isDown()).thenReturn(down);
+        when(file.isFavorite()).thenReturn(favorite);
+        return file;
+    }
+
+    @Test
+    public void emptySelection() {
+        SelectionSummary summary = new SelectionSummary();
+
+        assertTrue(summary.isEmpty());
+        assertFalse(summary.containsFolder());
+        assertFalse(summary.containsEncryptedFile());
+        assertFalse(summary.containsEncryptedFolder());
+        assertFalse(summary.anyFileDown());
+        assertTrue(summary.allFavorites());
+        assertTrue(summary.allNotFavorites());
+    }
+
+    @Test
+    public void propertiesAreCounted() {
+        OCFile encryptedFolder = file(true, true, false, false);
+        OCFile downFavorite = file(false, false, true, true);
+        SelectionSummary summary = new SelectionSummary(Arrays.asList(encryptedFolder, downFavorite));
+
+        assertEquals(2, summary.size());
+        assertTrue(summary.containsFolder());
+        assertTrue(summary.containsEncryptedFolder());
+        assertFalse(summary.containsEncryptedFile());
+        assertTrue(summary.anyFileDown());
+        assertFalse(summary.allFavorites());
+        assertFalse(summary.allNotFavorites());
+
+        summary.remove(encryptedFolder);
+
+        assertFalse(summary.containsFolder());
+        assertFalse(summary.containsEncryptedFolder());
+        assertTrue(summary.allFavorites());
+
+        summary.remove(downFavorite);
+
+        assertTrue(summary.isEmpty());
+        assertFalse(summary.anyFileDown());
+        assertTrue(summary.allNotFavorites());
+    }
+
+    @Test
+    public void encryptedFileIsNotEncryptedFolder() {
+        SelectionSummary summary = new SelectionSummary();
+        summary.add(file(false, true, false, false));
+
+        assertTrue(summary.containsEncryptedFile());
+        assertFalse(summary.containsEncryptedFolder());
+    }
+
+    @Test
+    public void filesAreCountedOnce() {
+        OCFile favorite = file(false, false, false, true);
+        SelectionSummary summary = new SelectionSummary();
+
+        assertTrue(summary.add(favorite));
+        assertFalse(summary.add(favorite));
+        summary.add(file(false, false, false, false));
+        assertTrue(summary.remove(favorite));
+        assertFalse(summary.remove(favorite));
+
+        assertEquals(1, summary.size());
+        assertTrue(summary.allNotFavorites());
+    }
+
+    @Test
+    public void removedFileIsUncountedAsAdded() {
+        OCFile file = file(false, false, false, true);
+        SelectionSummary summary = new SelectionSummary();
+        summary.add(file);
+
+        // favorite was unset meanwhile
+        when(file.isFavorite()).thenReturn(false);
+        summary.remove(file);
+        summary.add(file(false, false, false, false));
+
+        assertTrue(summary.allNotFavorites());
+    }
+
+    @Test
+    public void changedPropertiesAreCountedOnUpdate() {
+        OCFile file = file(false, false, false, true);
+        OCFile other = file(false, false, false, true);
+        SelectionSummary summary = new SelectionSummary(Arrays.asList(file, other));
+        assertTrue(summary.allFavorites());
+
+        when(file.isFavorite()).thenReturn(false);
+        when(file.isDown()).thenReturn(true);
+        assertTrue(summary.update(file));
+
+        assertFalse(summary.allFavorites());
+        assertFalse(summary.allNotFavorites());
+        assertTrue(summary.anyFileDown());
+        assertEquals(2, summary.size());
+
+        summary.remove(file);
+        assertTrue(summary.allFavorites());
+        assertFalse(summary.anyFileDown());
+    }
+
+    @Test
+    public void unselectedFilesAreNotAddedOnUpdate() {
+        SelectionSummary summary = new SelectionSummary();
+        summary.add(file(false, false, false, false));
+
+        OCFile unselected = file(true, false, false, true);
+        assertFalse(summary.update(unselected));
+        summary.updateAll(Arrays.asList(unselected));
+
+        assertEquals(1, summary.size());
+        assertFalse(summary.contains(unselected));
+        assertFalse(summary.containsFolder());
+        assertTrue(summary.allNotFavorites());
+    }
+
+    @Test
+    public void clearResetsCounts() {
+        SelectionSummary summary = new SelectionSummary();
+        summary.add(file(true, true, false, true));
+        summary.clear();
+        summary.add(file(false, false, false, false));
+
+        assertEquals(1, summary.size());
+        assertFalse(summary.containsFolder());
+        assertFalse(summary.containsEncryptedFolder());
+        assertTrue(summary.allNotFavorites());
+    }
+
+    @Test
+    public void largeSelectionIsReadOncePerFile() {
+        List<OCFile> files = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            files.add(file(false, false, i == 999, true));
+        }
+        SelectionSummary summary = new SelectionSummary(files);
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(summary.anyFileDown());
+            assertTrue(summary.allFavorites());
+        }
+        assertEquals(1000, summary.getFiles().size());
+        verify(files.get(0), times(1)).isDown();
+        verify(files.get(0), times(1)).isFavorite();
+    }
+}
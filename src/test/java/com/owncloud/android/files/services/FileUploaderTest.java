@@ -0,0 +1,175 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package com.owncloud.android.files.services;
+
+import android.accounts.Account;
+import android.content.Context;
+import android.content.Intent;
+
+import com.evernote.android.job.JobRequest;
+import com.nextcloud.client.account.UserAccountManager;
+import com.nextcloud.client.device.PowerManagementService;
+import com.nextcloud.client.network.ConnectivityService;
+import com.owncloud.android.datamodel.UploadsStorageManager;
+import com.owncloud.android.db.OCUpload;
+import com.owncloud.android.db.UploadResult;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+
+import kotlin.jvm.functions.Function1;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class FileUploaderTest {
+
+    private static final int FAILED_UPLOADS = 5000;
+    private static final String ACCOUNT_A = "a@nextcloud.localhost";
+    private static final String ACCOUNT_B = "b@nextcloud.localhost";
+
+    @Mock
+    private Context context;
+
+    @Mock
+    private UploadsStorageManager uploadsStorageManager;
+
+    @Mock
+    private ConnectivityService connectivityService;
+
+    @Mock
+    private UserAccountManager accountManager;
+
+    @Mock
+    private PowerManagementService powerManagementService;
+
+    @Mock
+    private Account account;
+
+    private CountingFileExistenceCheck fileExists;
+
+    /**
+     * Every tenth local file is missing.
+     */
+    private static class CountingFileExistenceCheck implements Function1<String, Boolean> {
+        int calls;
+
+        @Override
+        public Boolean invoke(String path) {
+            calls++;
+            return !path.endsWith("0.jpg");
+        }
+    }
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+
+        OCUpload[] failedUploads = new OCUpload[FAILED_UPLOADS];
+        for (int i = 0; i < FAILED_UPLOADS; i++) {
+            OCUpload upload = new OCUpload("/storage/photo" + i + ".jpg",
+                                           "/photos/photo" + i + ".jpg",
+                                           i % 2 == 0 ? ACCOUNT_A : ACCOUNT_B);
+            upload.setUploadId(i);
+            upload.setLastResult(UploadResult.NETWORK_CONNECTION);
+            failedUploads[i] = upload;
+        }
+
+        when(uploadsStorageManager.getFailedUploads(null, null)).thenReturn(failedUploads);
+        when(connectivityService.getActiveNetworkType()).thenReturn(JobRequest.NetworkType.UNMETERED);
+        when(connectivityService.isInternetWalled()).thenReturn(false);
+        when(powerManagementService.isPowerSavingEnabled()).thenReturn(false);
+        when(accountManager.getAccountByName(anyString())).thenReturn(account);
+
+        fileExists = new CountingFileExistenceCheck();
+    }
+
+    private void retryFailedUploads() {
+        FileUploader.retryFailedUploads(context,
+                                        null,
+                                        uploadsStorageManager,
+                                        connectivityService,
+                                        accountManager,
+                                        powerManagementService,
+                                        null,
+                                        fileExists);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void retryIsRequestedInChunksPerAccount() {
+        retryFailedUploads();
+
+        // requests to the service per account, each with up to the maximum of ids, instead of one per upload;
+        // the missing files all have even ids and belong to account A
+        int retriedA = FAILED_UPLOADS / 2 - FAILED_UPLOADS / 10;
+        int retriedB = FAILED_UPLOADS / 2;
+        verify(context, times(requests(retriedA) + requests(retriedB))).startService(any(Intent.class));
+        verify(accountManager).getAccountByName(ACCOUNT_A);
+        verify(accountManager).getAccountByName(ACCOUNT_B);
+
+        // every local file is checked once
+        assertEquals(FAILED_UPLOADS, fileExists.calls);
+
+        // missing files are marked with one update
+        ArgumentCaptor<List<Long>> notFoundIds = ArgumentCaptor.forClass(List.class);
+        verify(uploadsStorageManager).updateUploadsLastResult(notFoundIds.capture(), eq(UploadResult.FILE_NOT_FOUND));
+        assertEquals(FAILED_UPLOADS / 10, notFoundIds.getValue().size());
+    }
+
+    private static int requests(int uploadIds) {
+        int maxIds = FileUploader.MAX_RETRY_UPLOAD_IDS_PER_REQUEST;
+        return (uploadIds + maxIds - 1) / maxIds;
+    }
+
+    @Test
+    public void nothingIsRetriedWhileInternetIsWalled() {
+        when(connectivityService.isInternetWalled()).thenReturn(true);
+
+        retryFailedUploads();
+
+        verify(context, never()).startService(any(Intent.class));
+        verify(connectivityService, times(1)).isInternetWalled();
+        assertEquals(FAILED_UPLOADS, fileExists.calls);
+    }
+
+    @Test
+    public void nothingIsDoneWithoutFailedUploads() {
+        when(uploadsStorageManager.getFailedUploads(null, null)).thenReturn(new OCUpload[0]);
+
+        retryFailedUploads();
+
+        verify(context, never()).startService(any(Intent.class));
+        verify(connectivityService, never()).isInternetWalled();
+        verify(uploadsStorageManager, never()).updateUploadsLastResult(anyList(), any(UploadResult.class));
+        assertEquals(0, fileExists.calls);
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.owncloud.android.providers;
+
+import com.nextcloud.client.core.Clock;
+import com.owncloud.android.lib.resources.shares.GetShareesRemoteOperation;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ShareeSearchTest {
+    private static final String ACCOUNT = "user@nextcloud.localhost";
+    private static final int PAGE_SIZE = 50;
+
+    private Clock clock;
+    private FakeRemote remote;
+
+    /**
+     * Answers with all known sharees containing the query, counting the requests.
+     */
+    private static class FakeRemote implements ShareeSearch.Remote {
+        private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+        private List<JSONObject> sharees = new ArrayList<>();
+        private CountDownLatch started;
+        private CountDownLatch release;
+
+        @Override
+        public List<JSONObject> search(String accountName, String query) {
+            requests.add(query);
+            if (started != null) {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+
+            if (sharees == null) {
+                return null;
+            }
+            List<JSONObject> found = new ArrayList<>();
+            for (JSONObject sharee : sharees) {
+                if (sharee.optString(GetShareesRemoteOperation.PROPERTY_LABEL).toLowerCase().contains(query)) {
+                    found.add(sharee);
+                }
+            }
+            return found;
+        }
+    }
+
+    @Before
+    public void setUp() throws JSONException {
+        clock = mock(Clock.class);
+        when(clock.getCurrentTime()).thenReturn(1000L);
+        remote = new FakeRemote();
+        remote.sharees = Arrays.asList(sharee("Alexander"), sharee("Alexandra"), sharee("Alice"), sharee("Bob"));
+    }
+
+    @Test
+    public void repeatedQueryIsAnsweredFromCache() {
+        ShareeSearch search = new ShareeSearch(remote, clock, PAGE_SIZE, 0);
+
+        assertEquals(3, search.search(ACCOUNT, "al").size());
+        assertEquals(3, search.search(ACCOUNT, "AL").size());
+
+        assertEquals(1, remote.requests.size());
+    }
+
+    @Test
+    public void expiredResultIsRequestedAgain() {
+        ShareeSearch search = new ShareeSearch(remote, clock, PAGE_SIZE, 0);
+        search.search(ACCOUNT, "al");
+
+        when(clock.getCurrentTime()).thenReturn(1000L + ShareeSearch.CACHE_TTL_MILLIS);
+        search.search(ACCOUNT, "al");
+
+        assertEquals(2, remote.requests.size());
+    }
+
+    @Test
+    public void typingOnIsAnsweredFromIncompletePage() {
+        ShareeSearch search = new ShareeSearch(remote, clock, PAGE_SIZE, 0);
+
+        search.search(ACCOUNT, "a");
+        assertEquals(2, search.search(ACCOUNT, "alex").size());
+        assertEquals(1, search.search(ACCOUNT, "alexandr").size());
+        assertEquals(0, search.search(ACCOUNT, "alexanders").size());
+
+        assertEquals(Collections.singletonList("a"), remote.requests);
+    }
+
+    @Test
+    public void typingOnIsRequestedAfterFullPage() {
+        ShareeSearch search = new ShareeSearch(remote, clock, 3, 0);
+
+        search.search(ACCOUNT, "a");
+        assertEquals(2, search.search(ACCOUNT, "alex").size());
+
+        assertEquals(Arrays.asList("a", "alex"), remote.requests);
+    }
+
+    @Test
+    public void emailIsAlwaysRequested() {
+        ShareeSearch search = new ShareeSearch(remote, clock, PAGE_SIZE, 0);
+
+        search.search(ACCOUNT, "alice");
+        search.search(ACCOUNT, "alice@");
+
+        assertEquals(2, remote.requests.size());
+    }
+
+    @Test
+    public void failedRequestIsNotCached() {
+        ShareeSearch search = new ShareeSearch(remote, clock, PAGE_SIZE, 0);
+        remote.sharees = null;
+
+        assertNull(search.search(ACCOUNT, "al"));
+        assertNull(search.search(ACCOUNT, "al"));
+
+        assertEquals(2, remote.requests.size());
+    }
+
+    @Test
+    public void otherAccountIsRequested() {
+        ShareeSearch search = new ShareeSearch(remote, clock, PAGE_SIZE, 0);
+
+        search.search(ACCOUNT, "al");
+        search.search("other@nextcloud.localhost", "al");
+        search.search(ACCOUNT, "al");
+
+        assertEquals(3, remote.requests.size());
+    }
+
+    @Test
+    public void outdatedQueryIsNotRequested() throws Exception {
+        ShareeSearch search = new ShareeSearch(remote, clock, PAGE_SIZE, TimeUnit.MINUTES.toMillis(1));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        search.setLatestQuery("a");
+
+        try {
+            Future<List<JSONObject>> result = executor.submit(() -> search.search(ACCOUNT, "a"));
+            Thread.sleep(100);
+            search.setLatestQuery("al");
+
+            assertNull(result.get(5, TimeUnit.SECONDS));
+            assertTrue(remote.requests.isEmpty());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void outdatedRequestIsAbandoned() throws Exception {
+        ShareeSearch search = new ShareeSearch(remote, clock, PAGE_SIZE, 0);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        remote.started = new CountDownLatch(1);
+        remote.release = new CountDownLatch(1);
+        search.setLatestQuery("a");
+
+        try {
+            Future<List<JSONObject>> result = executor.submit(() -> search.search(ACCOUNT, "a"));
+            assertTrue(remote.started.await(5, TimeUnit.SECONDS));
+            search.setLatestQuery("al");
+
+            assertNull(result.get(5, TimeUnit.SECONDS));
+        } finally {
+            remote.release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void waitingSearchesShareRequest() throws Exception {
+        ShareeSearch search = new ShareeSearch(remote, clock, PAGE_SIZE, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        remote.started = new CountDownLatch(1);
+        remote.release = new CountDownLatch(1);
+
+        try {
+            Future<List<JSONObject>> first = executor.submit(() -> search.search(ACCOUNT, "al"));
+            assertTrue(remote.started.await(5, TimeUnit.SECONDS));
+            Future<List<JSONObject>> second = executor.submit(() -> search.search(ACCOUNT, "al"));
+            Thread.sleep(100);
+            remote.release.countDown();
+
+            assertEquals(3, first.get(5, TimeUnit.SECONDS).size());
+            assertEquals(3, second.get(5, TimeUnit.SECONDS).size());
+            assertEquals(1, remote.requests.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static JSONObject sharee(String name) throws JSONException {
+        JSONObject value = new JSONObject();
+        value.put(GetShareesRemoteOperation.PROPERTY_SHARE_TYPE, 0);
+        value.put(GetShareesRemoteOperation.PROPERTY_SHARE_WITH, name.toLowerCase());
+
+        JSONObject sharee = new JSONObject();
+        sharee.put(GetShareesRemoteOperation.PROPERTY_LABEL, name);
+        sharee.put(GetShareesRemoteOperation.NODE_VALUE, value);
+        return sharee;
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.owncloud.android.syncadapter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FolderTraversalPlannerTest {
+
+    private static class Folder {
+        final String name;
+        final List<Folder> children = new ArrayList<>();
+        boolean changed;
+        boolean keptInSync;
+        boolean failing;
+
+        Folder(String name) {
+            this.name = name;
+        }
+
+        Folder add(Folder child) {
+            children.add(child);
+            return this;
+        }
+
+        boolean hasKeptInSyncContent() {
+            if (keptInSync) {
+                return true;
+            }
+            for (Folder child : children) {
+                if (child.hasKeptInSyncContent()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static class FakeRemoteListing implements FolderTraversalPlanner.RemoteListing<Folder> {
+        final List<String> refreshed = new ArrayList<>();
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        volatile int cancelAfter = Integer.MAX_VALUE;
+
+        @Override
+        public FolderTraversalPlanner.Listing<Folder> refresh(Folder folder) {
+            int now = running.incrementAndGet();
+            maxRunning.accumulateAndGet(now, Math::max);
+
+            try {
+                synchronized (refreshed) {
+                    refreshed.add(folder.name);
+                }
+
+                if (folder.failing) {
+                    return null;
+                }
+
+                List<Folder> keptInSync = new ArrayList<>();
+                for (Folder child : folder.children) {
+                    if (child.hasKeptInSyncContent()) {
+                        keptInSync.add(child);
+                    }
+                }
+                return new FolderTraversalPlanner.Listing<>(folder.changed, folder.children, keptInSync);
+            } finally {
+                running.decrementAndGet();
+            }
+        }
+
+        @Override
+        public boolean isUnchanged(Folder folder) {
+            return !folder.changed;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            synchronized (refreshed) {
+                return refreshed.size() >= cancelAfter;
+            }
+        }
+    }
+
+    private static Folder changed(String name) {
+        Folder folder = new Folder(name);
+        folder.changed = true;
+        return folder;
+    }
+
+    private static FolderTraversalPlanner.Stats traverse(FakeRemoteListing listing, Folder root) {
+        return new FolderTraversalPlanner<>(listing, 4).traverse(root);
+    }
+
+    @Test
+    public void unchangedTreeOnlyVisitsRoot() {
+        Folder root = new Folder("/")
+            .add(new Folder("/a/").add(new Folder("/a/b/")))
+            .add(new Folder("/c/"));
+        FakeRemoteListing listing = new FakeRemoteListing();
+
+        FolderTraversalPlanner.Stats stats = traverse(listing, root);
+
+        assertEquals(1, stats.getVisited());
+        assertEquals(2, stats.getPruned());
+        assertEquals(0, stats.getFetched());
+    }
+
+    @Test
+    public void onlyChangedFoldersAreWalked() {
+        Folder changedChild = changed("/a/").add(new Folder("/a/unchanged/")).add(changed("/a/changed/"));
+        Folder root = changed("/").add(changedChild).add(new Folder("/b/").add(changed("/b/hidden/")));
+        FakeRemoteListing listing = new FakeRemoteListing();
+
+        FolderTraversalPlanner.Stats stats = traverse(listing, root);
+
+        assertEquals(3, stats.getVisited());
+        assertEquals(2, stats.getPruned());
+        assertEquals(3, stats.getFetched());
+        assertTrue(listing.refreshed.contains("/a/changed/"));
+        assertTrue(!listing.refreshed.contains("/b/hidden/"));
+    }
+
+    @Test
+    public void unchangedFoldersWithKeptInSyncContentAreWalked() {
+        Folder favorite = new Folder("/a/b/favorite/");
+        favorite.keptInSync = true;
+        Folder root = new Folder("/")
+            .add(new Folder("/a/").add(new Folder("/a/b/").add(favorite)).add(new Folder("/a/other/")))
+            .add(new Folder("/c/"));
+        FakeRemoteListing listing = new FakeRemoteListing();
+
+        FolderTraversalPlanner.Stats stats = traverse(listing, root);
+
+        assertEquals(4, stats.getVisited());
+        assertEquals(2, stats.getPruned());
+        assertEquals(0, stats.getFetched());
+        assertTrue(listing.refreshed.contains("/a/b/favorite/"));
+    }
+
+    @Test
+    public void failedFolderSkipsSubtree() {
+        Folder failing = changed("/a/").add(changed("/a/b/"));
+        failing.failing = true;
+        Folder root = changed("/").add(failing).add(changed("/c/"));
+        FakeRemoteListing listing = new FakeRemoteListing();
+
+        FolderTraversalPlanner.Stats stats = traverse(listing, root);
+
+        assertEquals(3, stats.getVisited());
+        assertEquals(0, stats.getPruned());
+        assertEquals(2, stats.getFetched());
+    }
+
+    @Test
+    public void cancellationStopsTraversal() {
+        Folder root = changed("/");
+        for (int i = 0; i < 100; i++) {
+            root.add(changed("/" + i + "/"));
+        }
+        FakeRemoteListing listing = new FakeRemoteListing();
+        listing.cancelAfter = 10;
+
+        FolderTraversalPlanner.Stats stats = traverse(listing, root);
+
+        // workers which already passed the check may still finish their folder
+        assertTrue(stats.getVisited() <= 10 + 4);
+    }
+
+    @Test
+    public void bigChangedTreeIsWalkedWithBoundedParallelism() {
+        Folder root = changed("/");
+        int folders = 1;
+        for (int i = 0; i < 50; i++) {
+            Folder child = changed("/" + i + "/");
+            root.add(child);
+            folders++;
+            for (int j = 0; j < 40; j++) {
+                child.add(changed("/" + i + "/" + j + "/"));
+                folders++;
+            }
+        }
+        FakeRemoteListing listing = new FakeRemoteListing();
+
+        FolderTraversalPlanner.Stats stats = traverse(listing, root);
+
+        assertEquals(folders, stats.getVisited());
+        assertEquals(folders, stats.getFetched());
+        assertEquals(0, stats.getPruned());
+        assertTrue(listing.maxRunning.get() <= 4);
+    }
+
+    @Test
+    public void interruptedTraversalDropsRemainingFolders() throws Exception {
+        Folder root = changed("/").add(changed("/a/")).add(changed("/b/"));
+        CountDownLatch refreshing = new CountDownLatch(1);
+        CountDownLatch childrenChecked = new CountDownLatch(2);
+        FakeRemoteListing listing = new FakeRemoteListing() {
+            @Override
+            public FolderTraversalPlanner.Listing<Folder> refresh(Folder folder) {
+                refreshing.countDown();
+                try {
+                    // until the traversal is interrupted and its workers are shut down
+                    new CountDownLatch(1).await();
+                } catch (InterruptedException e) {
+                    // finish the folder anyway
+                }
+                return super.refresh(folder);
+            }
+
+            @Override
+            public boolean isCancelled() {
+                if (refreshing.getCount() == 0) {
+                    childrenChecked.countDown();
+                }
+                return false;
+            }
+        };
+        FolderTraversalPlanner.Stats[] stats = new FolderTraversalPlanner.Stats[1];
+        Thread traversal = new Thread(() -> stats[0] = traverse(listing, root));
+
+        traversal.start();
+        refreshing.await();
+        traversal.interrupt();
+        traversal.join();
+
+        assertEquals(1, stats[0].getVisited());
+        // the second child is only checked if submitting the first one to the shut down workers did not fail
+        assertTrue(childrenChecked.await(5, TimeUnit.SECONDS));
+        assertEquals(1, listing.refreshed.size());
+    }
+}
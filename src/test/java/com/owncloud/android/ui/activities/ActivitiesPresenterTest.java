@@ -36,6 +36,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 public class ActivitiesPresenterTest {
@@ -91,7 +92,32 @@ public class ActivitiesPresenterTest {
         // Progress indicator is hidden
         verify(view).setProgressIndicatorState(eq(false));
         // List of activities is shown in view.
-        verify(view).showActivities(eq(activitiesList), eq(nextcloudClient), eq(-1));
+        verify(view).showActivities(eq(activitiesList), eq(nextcloudClient), eq(-1), eq(true));
+    }
+
+    @Test
+    public void loadActivitiesShowsStoredActivitiesWhileLoading() {
+        // When loading activities from repository is requested from presenter...
+        activitiesPresenter.loadActivities(-1);
+        // Repository starts retrieving activities from server
+        verify(activitiesRepository).getActivities(eq(-1), loadActivitiesCallbackArgumentCaptor.capture());
+        // Repository returns stored activities first
+        loadActivitiesCallbackArgumentCaptor.getValue().onActivitiesLoadedFromCache(activitiesList, nextcloudClient);
+        // Stored activities are shown in view, progress indicator stays
+        verify(view).showActivities(eq(activitiesList), eq(nextcloudClient), eq(-1), eq(true));
+        verify(view, never()).setProgressIndicatorState(eq(false));
+    }
+
+    @Test
+    public void loadMoreActivitiesAppendsToView() {
+        // When loading the next page of activities is requested from presenter...
+        activitiesPresenter.loadActivities(42);
+        // Repository starts retrieving activities from server
+        verify(activitiesRepository).getActivities(eq(42), loadActivitiesCallbackArgumentCaptor.capture());
+        // Repository returns data
+        loadActivitiesCallbackArgumentCaptor.getValue().onActivitiesLoaded(activitiesList, nextcloudClient, 21);
+        // Activities are appended in view
+        verify(view).showActivities(eq(activitiesList), eq(nextcloudClient), eq(21), eq(false));
     }
 
     @Test
@@ -66,6 +66,14 @@ public class RemoteActivitiesRepositoryTest {
         verify(mockedLoadActivitiesCallback).onActivitiesLoaded(eq(activitiesList), eq(nextcloudClient), eq(-1));
     }
 
+    @Test
+    public void loadActivitiesReturnStoredActivities() {
+        mActivitiesRepository.getActivities(-1, mockedLoadActivitiesCallback);
+        verify(serviceApi).getAllActivities(eq(-1), activitiesServiceCallbackCaptor.capture());
+        activitiesServiceCallbackCaptor.getValue().onLoadedFromCache(activitiesList, nextcloudClient);
+        verify(mockedLoadActivitiesCallback).onActivitiesLoadedFromCache(eq(activitiesList), eq(nextcloudClient));
+    }
+
     @Test
     public void loadActivitiesReturnError() {
         mActivitiesRepository.getActivities(-1, mockedLoadActivitiesCallback);
@@ -0,0 +1,166 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.owncloud.android.ui.preview;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TextFileLinesTest {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File writeFile(byte[]... parts) throws IOException {
+        File file = folder.newFile();
+        try (OutputStream output = new FileOutputStream(file)) {
+            for (byte[] part : parts) {
+                output.write(part);
+            }
+        }
+        return file;
+    }
+
+    private static TextFileLines indexed(File file) throws IOException {
+        TextFileLines lines = TextFileLines.open(file);
+        lines.index(() -> { });
+        return lines;
+    }
+
+    @Test
+    public void linesAreSplitWithoutLineBreaks() throws IOException {
+        try (TextFileLines lines = indexed(writeFile("first\r\nsecond\n\nfourth\n".getBytes(UTF8)))) {
+            assertEquals(4, lines.getLineCount());
+            assertEquals("first", lines.getLine(0));
+            assertEquals("second", lines.getLine(1));
+            assertEquals("", lines.getLine(2));
+            assertEquals("fourth", lines.getLine(3));
+        }
+    }
+
+    @Test
+    public void lastLineWithoutLineBreakIsShown() throws IOException {
+        try (TextFileLines lines = indexed(writeFile("first\nlast".getBytes(UTF8)))) {
+            assertEquals(2, lines.getLineCount());
+            assertEquals("last", lines.getLine(1));
+        }
+    }
+
+    @Test
+    public void emptyFileHasNoLines() throws IOException {
+        try (TextFileLines lines = indexed(writeFile(new byte[0]))) {
+            assertEquals(0, lines.getLineCount());
+            assertTrue(lines.isIndexed());
+        }
+    }
+
+    @Test
+    public void byteOrderMarkIsSkipped() throws IOException {
+        byte[] bom = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+        try (TextFileLines lines = indexed(writeFile(bom, "ümlaut\n".getBytes(UTF8)))) {
+            assertEquals(1, lines.getLineCount());
+            assertEquals("ümlaut", lines.getLine(0));
+        }
+    }
+
+    @Test
+    public void linesAcrossWindowsAreRead() throws IOException {
+        StringBuilder text = new StringBuilder();
+        int lineCount = 3 * TextFileLines.WINDOW_SIZE / 10;
+        for (int i = 0; i < lineCount; i++) {
+            text.append(String.format(Locale.ROOT, "%08d\n", i));
+        }
+
+        try (TextFileLines lines = indexed(writeFile(text.toString().getBytes(UTF8)))) {
+            assertEquals(lineCount, lines.getLineCount());
+            for (int i = 0; i < lineCount; i++) {
+                assertEquals(String.format(Locale.ROOT, "%08d", i), lines.getLine(i));
+            }
+        }
+    }
+
+    @Test
+    public void longLinesAreCut() throws IOException {
+        byte[] longLine = new byte[TextFileLines.MAX_LINE_LENGTH * 3];
+        Arrays.fill(longLine, (byte) 'a');
+
+        try (TextFileLines lines = indexed(writeFile(longLine, "\nshort".getBytes(UTF8)))) {
+            assertEquals(2, lines.getLineCount());
+            assertEquals(TextFileLines.MAX_LINE_LENGTH, lines.getLine(0).length());
+            assertEquals("short", lines.getLine(1));
+        }
+    }
+
+    @Test
+    public void linesAreAvailableWhileIndexing() throws IOException {
+        // a few MB, so that progress is reported before the end
+        int lineCount = 4 * TextFileLines.WINDOW_SIZE;
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < lineCount; i++) {
+            text.append("line ").append(i).append('\n');
+        }
+        File file = writeFile(text.toString().getBytes(UTF8));
+
+        try (TextFileLines lines = TextFileLines.open(file)) {
+            assertEquals(0, lines.getLineCount());
+            assertFalse(lines.isIndexed());
+
+            AtomicInteger progress = new AtomicInteger();
+            lines.index(() -> {
+                if (progress.getAndIncrement() == 0) {
+                    assertTrue(lines.getLineCount() > 0);
+                    assertEquals("line 0", readFirstLine(lines));
+                }
+            });
+
+            assertTrue(progress.get() > 1);
+            assertEquals(lineCount, lines.getLineCount());
+        }
+    }
+
+    @Test
+    public void utf16IsNotSplitByBytes() throws IOException {
+        byte[] bom = {(byte) 0xFE, (byte) 0xFF};
+        assertNull(TextFileLines.open(writeFile(bom, "first\nsecond\n".getBytes(Charset.forName("UTF-16BE")))));
+    }
+
+    private static String readFirstLine(TextFileLines lines) {
+        try {
+            return lines.getLine(0);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.owncloud.android.ui.trashbin;
+
+import com.nextcloud.client.core.Clock;
+import com.owncloud.android.lib.resources.trashbin.model.TrashbinFile;
+import com.owncloud.android.utils.MimeType;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TrashbinCacheTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Clock clock;
+    private File file;
+
+    @Before
+    public void setUp() {
+        clock = mock(Clock.class);
+        when(clock.getCurrentTime()).thenReturn(1000L);
+        file = new File(temporaryFolder.getRoot(), "trashbin/listings.json");
+    }
+
+    private static TrashbinFile trashbinFile(String folder, String name, boolean isFolder) {
+        TrashbinFile trashbinFile = new TrashbinFile();
+        trashbinFile.setFileName(name);
+        trashbinFile.setRemotePath(folder + name + (isFolder ? "/" : ""));
+        trashbinFile.setFullRemotePath("/trashbin" + folder + name);
+        trashbinFile.setMimeType(isFolder ? MimeType.DIRECTORY : "text/plain");
+        return trashbinFile;
+    }
+
+    @Test
+    public void listingIsReadByNewCache() {
+        new TrashbinCache(file, clock).put("/", Arrays.asList(trashbinFile("/", "a.txt", false),
+                                                              trashbinFile("/", "b", true)));
+
+        List<TrashbinFile> listing = new TrashbinCache(file, clock).get("/");
+
+        assertEquals(2, listing.size());
+        assertEquals("a.txt", listing.get(0).getFileName());
+        assertNull(new TrashbinCache(file, clock).get("/b/"));
+    }
+
+    @Test
+    public void listingExpires() {
+        TrashbinCache cache = new TrashbinCache(file, clock);
+        cache.put("/", Collections.singletonList(trashbinFile("/", "a.txt", false)));
+
+        when(clock.getCurrentTime()).thenReturn(1000L + TrashbinCache.MAX_AGE_MILLIS - 1);
+        assertTrue(cache.isFresh("/"));
+
+        when(clock.getCurrentTime()).thenReturn(1000L + TrashbinCache.MAX_AGE_MILLIS);
+        assertFalse(cache.isFresh("/"));
+        // expired listings are still shown until revalidated
+        assertEquals(1, cache.get("/").size());
+    }
+
+    @Test
+    public void removedFilesAndFoldersAreDropped() {
+        TrashbinFile text = trashbinFile("/", "a.txt", false);
+        TrashbinFile folder = trashbinFile("/", "b", true);
+        TrashbinCache cache = new TrashbinCache(file, clock);
+        cache.put("/", Arrays.asList(text, folder, trashbinFile("/", "c.txt", false)));
+        cache.put("/b/", Collections.singletonList(trashbinFile("/b/", "d.txt", false)));
+
+        cache.remove(Arrays.asList(text, folder));
+
+        List<TrashbinFile> listing = cache.get("/");
+        assertEquals(1, listing.size());
+        assertEquals("c.txt", listing.get(0).getFileName());
+        assertNull(cache.get("/b/"));
+        // changes are stored
+        assertEquals(1, new TrashbinCache(file, clock).get("/").size());
+    }
+
+    @Test
+    public void clearDropsStoredListings() {
+        TrashbinCache cache = new TrashbinCache(file, clock);
+        cache.put("/", Collections.singletonList(trashbinFile("/", "a.txt", false)));
+
+        cache.clear();
+
+        assertNull(cache.get("/"));
+        assertFalse(file.exists());
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.owncloud.android.utils;
+
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FileCopyUtilsTest {
+    private static final int SIZE = 20 * 1024 * 1024 + 123;
+    private static final long BENCHMARK_SIZE = 1024L * 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void copyFile() throws IOException {
+        byte[] content = randomContent(SIZE);
+        File source = createFile("source", content);
+        File target = new File(temporaryFolder.getRoot(), "target");
+
+        assertTrue(FileCopyUtils.copy(source, target, null));
+
+        assertArrayEquals(content, read(target));
+        assertTrue(source.exists());
+    }
+
+    @Test
+    public void copyOverwritesLongerTarget() throws IOException {
+        byte[] content = randomContent(1000);
+        File source = createFile("source", content);
+        File target = createFile("target", randomContent(5000));
+
+        assertTrue(FileCopyUtils.copy(source, target, null));
+
+        assertArrayEquals(content, read(target));
+    }
+
+    @Test
+    public void copyStream() throws IOException {
+        byte[] content = randomContent(SIZE);
+        File target = new File(temporaryFolder.getRoot(), "target");
+
+        assertTrue(FileCopyUtils.copy(new ByteArrayInputStream(content), target, null));
+
+        assertArrayEquals(content, read(target));
+    }
+
+    @Test
+    public void cancelledCopyStops() throws IOException {
+        File source = createFile("source", randomContent(SIZE));
+        File target = new File(temporaryFolder.getRoot(), "target");
+
+        assertFalse(FileCopyUtils.copy(source, target, new AtomicBoolean(true)));
+        try (InputStream in = new FileInputStream(source)) {
+            assertFalse(FileCopyUtils.copy(in, target, new AtomicBoolean(true)));
+        }
+
+        assertEquals(0, target.length());
+    }
+
+    @Test
+    public void moveRenamesFile() throws IOException {
+        byte[] content = randomContent(1000);
+        File source = createFile("source", content);
+        File target = new File(temporaryFolder.newFolder("folder"), "target");
+
+        assertTrue(FileCopyUtils.move(source, target));
+
+        assertFalse(source.exists());
+        assertArrayEquals(content, read(target));
+    }
+
+    @Test
+    public void syncedCopy() throws IOException {
+        byte[] content = randomContent(1000);
+        File source = createFile("source", content);
+        File target = new File(temporaryFolder.getRoot(), "target");
+
+        assertTrue(FileCopyUtils.copy(source, target, null, true));
+        FileCopyUtils.sync(Collections.singletonList(target));
+
+        assertArrayEquals(content, read(target));
+    }
+
+    @Test
+    public void failedMoveKeepsExistingTarget() throws IOException {
+        byte[] content = randomContent(1000);
+        File source = new File(temporaryFolder.getRoot(), "missing");
+        File target = createFile("target", content);
+
+        assertFalse(FileCopyUtils.move(source, target));
+
+        assertArrayEquals(content, read(target));
+        assertEquals(1, temporaryFolder.getRoot().list().length);
+    }
+
+    @Test
+    public void failedMoveKeepsSource() throws IOException {
+        File source = createFile("source", randomContent(1000));
+        File target = new File(new File(temporaryFolder.getRoot(), "missing"), "target");
+
+        assertFalse(FileCopyUtils.move(source, target));
+
+        assertTrue(source.exists());
+        assertFalse(target.exists());
+    }
+
+    /**
+     * Reports the throughput of the previous 4 KB buffer loop and of the channel transfer.
+     */
+    @Test
+    @Ignore("Benchmark, needs 3 GB of temporary space")
+    public void benchmark() throws IOException {
+        File source = temporaryFolder.newFile("benchmark");
+        byte[] block = randomContent(1024 * 1024);
+        try (OutputStream out = new FileOutputStream(source)) {
+            for (long written = 0; written < BENCHMARK_SIZE; written += block.length) {
+                out.write(block);
+            }
+        }
+
+        File bufferedTarget = new File(temporaryFolder.getRoot(), "buffered");
+        long start = System.nanoTime();
+        try (InputStream in = new FileInputStream(source); OutputStream out = new FileOutputStream(bufferedTarget)) {
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+        long bufferedNanos = System.nanoTime() - start;
+
+        File transferTarget = new File(temporaryFolder.getRoot(), "transfer");
+        start = System.nanoTime();
+        assertTrue(FileCopyUtils.copy(source, transferTarget, null));
+        long transferNanos = System.nanoTime() - start;
+
+        assertEquals(BENCHMARK_SIZE, transferTarget.length());
+        // timings depend on the machine, so they are only reported
+        System.out.println(String.format("4 KB loop: %d MB/s, transfer: %d MB/s",
+                                         throughput(bufferedNanos),
+                                         throughput(transferNanos)));
+    }
+
+    private static long throughput(long nanos) {
+        return BENCHMARK_SIZE * 1_000_000_000L / (1024 * 1024) / Math.max(1, nanos);
+    }
+
+    private static byte[] randomContent(int size) {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        return content;
+    }
+
+    private File createFile(String name, byte[] content) throws IOException {
+        File file = new File(temporaryFolder.getRoot(), name);
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(content);
+        }
+        return file;
+    }
+
+    private static byte[] read(File file) throws IOException {
+        byte[] content = new byte[(int) file.length()];
+        try (InputStream in = new FileInputStream(file)) {
+            int offset = 0;
+            int read;
+            while (offset < content.length && (read = in.read(content, offset, content.length - offset)) != -1) {
+                offset += read;
+            }
+        }
+        return content;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Nextcloud Android client application
+ *
+ * Copyright (C) 2020 Nextcloud GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.owncloud.android.utils;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LocalFolderCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void snapshotHoldsAttributes() throws IOException {
+        File folder = temporaryFolder.newFolder("folder");
+        File file = createFile(folder, "file.txt", 10);
+        File subFolder = new File(folder, "sub");
+        assertTrue(subFolder.mkdir());
+
+        List<File> entries = LocalFolderCache.list(folder);
+
+        assertEquals(2, entries.size());
+        for (File entry : entries) {
+            assertTrue(entry instanceof FileSnapshot);
+            if (entry.equals(file)) {
+                assertFalse(entry.isDirectory());
+                assertEquals(10, entry.length());
+                assertEquals(file.lastModified(), entry.lastModified());
+            } else {
+                assertEquals(subFolder, entry);
+                assertTrue(entry.isDirectory());
+            }
+        }
+
+        // attributes are not read again
+        assertTrue(file.delete());
+        for (File entry : entries) {
+            if (entry.getName().equals("file.txt")) {
+                assertEquals(10, entry.length());
+            }
+        }
+    }
+
+    @Test
+    public void snapshotEqualsPlainFile() throws IOException {
+        File folder = temporaryFolder.newFolder("folder");
+        File file = createFile(folder, "file.txt", 1);
+
+        Set<File> checked = new HashSet<>();
+        checked.add(file);
+
+        assertTrue(checked.contains(LocalFolderCache.list(folder).get(0)));
+    }
+
+    @Test
+    public void unchangedFolderIsNotListedAgain() throws IOException {
+        File folder = temporaryFolder.newFolder("folder");
+        createFile(folder, "a.txt", 1);
+
+        List<File> first = LocalFolderCache.list(folder);
+        List<File> second = LocalFolderCache.list(folder);
+
+        assertSame(first, second);
+    }
+
+    @Test
+    public void changedFolderIsListedAgain() throws IOException {
+        File folder = temporaryFolder.newFolder("folder");
+        createFile(folder, "a.txt", 1);
+        assertTrue(folder.setLastModified(1_000_000L));
+        assertEquals(1, LocalFolderCache.list(folder).size());
+
+        createFile(folder, "b.txt", 1);
+        assertTrue(folder.setLastModified(2_000_000L));
+
+        List<String> names = new ArrayList<>();
+        for (File entry : LocalFolderCache.list(folder)) {
+            names.add(entry.getName());
+        }
+        assertEquals(2, names.size());
+        assertTrue(names.contains("b.txt"));
+    }
+
+    @Test
+    public void missingFolderIsEmpty() {
+        assertTrue(LocalFolderCache.list(new File(temporaryFolder.getRoot(), "missing")).isEmpty());
+    }
+
+    private File createFile(File folder, String name, int size) throws IOException {
+        File file = new File(folder, name);
+        try (FileOutputStream outputStream = new FileOutputStream(file)) {
+            outputStream.write(new byte[size]);
+        }
+        return file;
+    }
+}